@@ -0,0 +1,163 @@
+/******************************************************************************
+ *  Compilation:  mvn -P benchmark package
+ *  Execution:    java -jar target/benchmarks.jar ConcurrentHashSTBenchmark -t 8
+ *  Dependencies: KeyType.java ConcurrentHashST.java SeparateChainingHashST.java
+ *
+ *  Measures ConcurrentHashST against a SeparateChainingHashST behind one lock,
+ *  with several threads reading and writing the same table.
+ *
+ *  % java -jar target/benchmarks.jar ConcurrentHashSTBenchmark -t 64 -p readPercent=99
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.afcrowther.algorithms.library.ConcurrentHashST;
+import com.afcrowther.algorithms.library.SeparateChainingHashST;
+import com.afcrowther.algorithms.library.StdRandom;
+
+/**
+ *  The {@code ConcurrentHashSTBenchmark} class measures the throughput of a
+ *  hash symbol table shared by all the benchmark threads (set with
+ *  {@code -t}; 4 by default): either a {@link ConcurrentHashST}, or a
+ *  {@link SeparateChainingHashST} with every operation synchronized on it.
+ *  <p>
+ *  The table starts with half of the {@code size} distinct keys. Each thread
+ *  replays its own random trace in which {@code readPercent} of the
+ *  operations are gets and the rest are puts and deletes, in equal parts, of
+ *  random keys, so the table stays about half full. Results are in
+ *  operations per microsecond, summed over the threads; a table that scales
+ *  shows a total that grows with the number of threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@Threads(4)
+@State(Scope.Benchmark)
+public class ConcurrentHashSTBenchmark {
+    private static final int TRACE = 1 << 20;     // operations before a thread's trace repeats
+
+    private static final byte GET    = 0;
+    private static final byte PUT    = 1;
+    private static final byte DELETE = 2;
+
+    /**
+     * The tables compared.
+     */
+    public enum Table {
+        CONCURRENT_HASH_ST, SYNCHRONIZED_SEPARATE_CHAINING_HASH_ST
+    }
+
+    @Param
+    Table table;
+
+    @Param({ "100000", "1000000" })
+    int size;
+
+    @Param({ "90", "99", "100" })
+    int readPercent;
+
+    private ConcurrentHashST<Comparable, Object> concurrent;
+    private SeparateChainingHashST<Comparable, Object> synchronizedST;
+    private Comparable[] keys;
+    private final AtomicInteger seeds = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        keys = KeyType.INTEGER.keys(size, size);
+        concurrent = null;
+        synchronizedST = null;
+        if (table == Table.CONCURRENT_HASH_ST) {
+            concurrent = new ConcurrentHashST<Comparable, Object>();
+            for (int i = 0; i < size / 2; i++)
+                concurrent.put(keys[i], Boolean.TRUE);
+        }
+        else {
+            synchronizedST = new SeparateChainingHashST<Comparable, Object>();
+            for (int i = 0; i < size / 2; i++)
+                synchronizedST.put(keys[i], Boolean.TRUE);
+        }
+    }
+
+    /**
+     * The operations one thread performs.
+     */
+    @State(Scope.Thread)
+    public static class Trace {
+        byte[] ops;
+        int[] index;
+        int next;
+
+        @Setup(Level.Trial)
+        public void generate(ConcurrentHashSTBenchmark benchmark) {
+            int seed = benchmark.seeds.incrementAndGet();
+            ops = new byte[TRACE];
+            index = new int[TRACE];
+            synchronized (StdRandom.class) {
+                StdRandom.setSeed(seed);
+                for (int i = 0; i < TRACE; i++) {
+                    index[i] = StdRandom.uniform(benchmark.size);
+                    if (StdRandom.uniform(100) < benchmark.readPercent) ops[i] = GET;
+                    else                                               ops[i] = (i % 2 == 0) ? PUT : DELETE;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public Object operation(Trace trace) {
+        int i = trace.next;
+        trace.next = (i + 1) & (TRACE - 1);
+        Comparable key = keys[trace.index[i]];
+        if (concurrent != null) {
+            switch (trace.ops[i]) {
+                case PUT:    concurrent.put(key, Boolean.TRUE); return null;
+                case DELETE: concurrent.delete(key);            return null;
+                default:     return concurrent.get(key);
+            }
+        }
+        synchronized (synchronizedST) {
+            switch (trace.ops[i]) {
+                case PUT:    synchronizedST.put(key, Boolean.TRUE); return null;
+                case DELETE: synchronizedST.delete(key);            return null;
+                default:     return synchronizedST.get(key);
+            }
+        }
+    }
+
+    /**
+     * Runs the concurrent hash table benchmark with the default parameters.
+     *
+     * @param args the command-line arguments
+     * @throws RunnerException if the benchmark run fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ConcurrentHashSTBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,123 @@
+/******************************************************************************
+ *  Compilation:  mvn -P benchmark package
+ *  Dependencies: StdRandom.java
+ *
+ *  Input shapes used by the benchmarks in this package.
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.benchmark;
+
+import com.afcrowther.algorithms.library.StdRandom;
+
+/**
+ *  The {@code Distribution} enum generates integer keys with a given shape:
+ *  uniformly random, already sorted, reverse sorted, few distinct values,
+ *  organ pipe (ascending then descending), Zipf-distributed, and nearly
+ *  sorted (sorted, with a few keys shuffled within small windows, as in
+ *  an appended log).
+ *  <p>
+ *  Generation is seeded so that every fork of a benchmark sees the same input.
+ */
+public enum Distribution {
+    RANDOM {
+        void fill(int[] a) {
+            for (int i = 0; i < a.length; i++)
+                a[i] = StdRandom.uniform(Integer.MAX_VALUE);
+        }
+    },
+    SORTED {
+        void fill(int[] a) {
+            for (int i = 0; i < a.length; i++)
+                a[i] = i;
+        }
+    },
+    REVERSED {
+        void fill(int[] a) {
+            for (int i = 0; i < a.length; i++)
+                a[i] = a.length - i;
+        }
+    },
+    FEW_DISTINCT {
+        void fill(int[] a) {
+            for (int i = 0; i < a.length; i++)
+                a[i] = StdRandom.uniform(FEW);
+        }
+    },
+    ORGAN_PIPE {
+        void fill(int[] a) {
+            int half = a.length / 2;
+            for (int i = 0; i < a.length; i++)
+                a[i] = (i < half) ? i : a.length - i;
+        }
+    },
+    ZIPF {
+        void fill(int[] a) {
+            int n = Math.max(a.length, 1);
+
+            // cumulative distribution of rank r with weight 1/r^s
+            double[] cdf = new double[n];
+            double sum = 0.0;
+            for (int r = 0; r < n; r++) {
+                sum += 1.0 / Math.pow(r + 1, ZIPF_EXPONENT);
+                cdf[r] = sum;
+            }
+            for (int i = 0; i < a.length; i++) {
+                double u = StdRandom.uniform() * sum;
+                int lo = 0, hi = n - 1;
+                while (lo < hi) {
+                    int mid = lo + (hi - lo) / 2;
+                    if (cdf[mid] < u) lo = mid + 1;
+                    else              hi = mid;
+                }
+                a[i] = lo;
+            }
+        }
+    },
+    NEARLY_SORTED {
+        void fill(int[] a) {
+            for (int i = 0; i < a.length; i++)
+                a[i] = i;
+            for (int i = 0; i < a.length; i += WINDOW) {
+                if (StdRandom.bernoulli(DISORDER))
+                    StdRandom.shuffle(a, i, Math.min(i + WINDOW, a.length) - 1);
+            }
+        }
+    };
+
+    private static final int FEW = 10;                  // distinct keys for FEW_DISTINCT
+    private static final double ZIPF_EXPONENT = 1.0;    // skew of ZIPF
+    private static final int WINDOW = 16;               // window size for NEARLY_SORTED
+    private static final double DISORDER = 0.05;        // fraction of windows shuffled by NEARLY_SORTED
+
+    abstract void fill(int[] a);
+
+    /**
+     * Returns {@code n} keys with this shape, generated from the given seed.
+     *
+     * @param  n the number of keys
+     * @param  seed the random seed
+     * @return an array of {@code n} keys
+     */
+    public int[] ints(int n, long seed) {
+        StdRandom.setSeed(seed);
+        int[] a = new int[n];
+        fill(a);
+        return a;
+    }
+
+    /**
+     * Returns {@code n} boxed keys with this shape, generated from the given seed.
+     *
+     * @param  n the number of keys
+     * @param  seed the random seed
+     * @return an array of {@code n} keys
+     */
+    public Integer[] integers(int n, long seed) {
+        int[] keys = ints(n, seed);
+        Integer[] a = new Integer[n];
+        for (int i = 0; i < n; i++)
+            a[i] = keys[i];
+        return a;
+    }
+}
@@ -0,0 +1,91 @@
+/******************************************************************************
+ *  Compilation:  mvn -P benchmark package
+ *  Execution:    java -jar target/benchmarks.jar HashSTGrowthBenchmark
+ *  Dependencies: SymbolTable.java KeyType.java
+ *
+ *  Measures the latency of each put while a hash table grows from empty,
+ *  with and without incremental resizing.
+ *
+ *  % java -jar target/benchmarks.jar HashSTGrowthBenchmark -p size=10000000
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ *  The {@code HashSTGrowthBenchmark} class puts {@code size} distinct keys
+ *  into an empty hash table, one per invocation, and starts again with a new
+ *  table when they are all in. Sample mode reports the distribution of the
+ *  time per put, whose maximum and top percentiles show the puts that
+ *  resize the table: those that rehash every key for
+ *  {@code LINEAR_PROBING_HASH_ST} and {@code SEPARATE_CHAINING_HASH_ST},
+ *  against the bounded work per put of their {@code _INCREMENTAL} versions.
+ *  Throughput mode shows what the incremental resizing costs on average.
+ */
+@BenchmarkMode({ Mode.SampleTime, Mode.Throughput })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Thread)
+public class HashSTGrowthBenchmark {
+
+    @Param({ "LINEAR_PROBING_HASH_ST", "LINEAR_PROBING_HASH_ST_INCREMENTAL",
+             "SEPARATE_CHAINING_HASH_ST", "SEPARATE_CHAINING_HASH_ST_INCREMENTAL" })
+    SymbolTable table;
+
+    @Param({ "1000000" })
+    int size;
+
+    private SymbolTable.Table st;
+    private Comparable[] keys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        keys = KeyType.INTEGER.keys(size, size);
+        st = table.create();
+        next = 0;
+    }
+
+    @Benchmark
+    public void put() {
+        if (next == size) {
+            st = table.create();
+            next = 0;
+        }
+        st.put(keys[next++], Boolean.TRUE);
+    }
+
+    /**
+     * Runs the hash table growth benchmark with the default parameters.
+     *
+     * @param args the command-line arguments
+     * @throws RunnerException if the benchmark run fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(HashSTGrowthBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,169 @@
+/******************************************************************************
+ *  Compilation:  mvn -P benchmark package
+ *  Execution:    java -jar target/benchmarks.jar IndexPQBenchmark -prof gc
+ *  Dependencies: PQTrace.java and the index priority queues in the library package
+ *
+ *  Replays recorded Dijkstra and Prim priority queue traces against each
+ *  of the library index priority queues.
+ *
+ *  % java -Dpqtrace.dir=/data/traces -jar target/benchmarks.jar IndexPQBenchmark -p V=10000000 -prof gc
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.afcrowther.algorithms.library.IndexBinomialMinPQ;
+import com.afcrowther.algorithms.library.IndexFibonacciMinPQ;
+import com.afcrowther.algorithms.library.IndexMaxPQ;
+import com.afcrowther.algorithms.library.IndexMinPQ;
+import com.afcrowther.algorithms.library.IndexMultiwayMinPQ;
+
+/**
+ *  The {@code IndexPQBenchmark} class measures the cost of each index priority
+ *  queue operation on the operation mix that Dijkstra's and Prim's algorithms
+ *  actually produce.
+ *  <p>
+ *  Every invocation performs the next operation of a {@link PQTrace}; since
+ *  a trace ends with an empty queue, it is replayed back to back on the same
+ *  queue. Results are in nanoseconds per operation; with {@code -prof gc} (or
+ *  through {@link #main}), {@code gc.alloc.rate.norm} is the bytes allocated per
+ *  operation and {@code gc.count}/{@code gc.time} show the collector's work.
+ *  The keys are boxed once during setup, so allocation comes from the queues.
+ *  {@code IndexMaxPQ} is driven with negated keys, {@code increaseKey()} and
+ *  {@code delMax()}.
+ */
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = { "-Xms8g", "-Xmx8g" })
+@State(Scope.Thread)
+public class IndexPQBenchmark {
+
+    public enum Queue { INDEX_MIN_PQ, INDEX_MAX_PQ, INDEX_FIBONACCI_MIN_PQ, INDEX_BINOMIAL_MIN_PQ, INDEX_MULTIWAY_MIN_PQ }
+
+    @Param
+    Queue queue;
+
+    @Param
+    PQTrace.Algorithm algorithm;
+
+    @Param({ "100000", "1000000" })
+    int V;
+
+    @Param({ "8" })
+    int degree;
+
+    @Param({ "4" })
+    int ways;       // branching factor of IndexMultiwayMinPQ
+
+    private IndexMinPQ<Double> minPQ;
+    private IndexMaxPQ<Double> maxPQ;
+    private IndexFibonacciMinPQ<Double> fibonacciPQ;
+    private IndexBinomialMinPQ<Double> binomialPQ;
+    private IndexMultiwayMinPQ<Double> multiwayPQ;
+
+    private byte[] op;
+    private int[] index;
+    private Double[] key;
+    private int n;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        PQTrace trace = PQTrace.of(algorithm, V, degree, V);
+        n = trace.size();
+        op = new byte[n];
+        index = new int[n];
+        key = new Double[n];
+        for (int k = 0; k < n; k++) {
+            op[k] = trace.op(k);
+            index[k] = trace.index(k);
+            if (op[k] != PQTrace.DEL_MIN)
+                key[k] = (queue == Queue.INDEX_MAX_PQ) ? -trace.key(k) : trace.key(k);
+        }
+
+        minPQ = null;
+        maxPQ = null;
+        fibonacciPQ = null;
+        binomialPQ = null;
+        multiwayPQ = null;
+        switch (queue) {
+            case INDEX_MIN_PQ:           minPQ = new IndexMinPQ<Double>(V);                break;
+            case INDEX_MAX_PQ:           maxPQ = new IndexMaxPQ<Double>(V);                break;
+            case INDEX_FIBONACCI_MIN_PQ: fibonacciPQ = new IndexFibonacciMinPQ<Double>(V); break;
+            case INDEX_BINOMIAL_MIN_PQ:  binomialPQ = new IndexBinomialMinPQ<Double>(V);   break;
+            default:                     multiwayPQ = new IndexMultiwayMinPQ<Double>(V, ways);
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public int operation() {
+        int k = next;
+        next = (k + 1 == n) ? 0 : k + 1;
+        int i = index[k];
+        Double x = key[k];
+        switch (queue) {
+            case INDEX_MIN_PQ:
+                if      (op[k] == PQTrace.INSERT)       minPQ.insert(i, x);
+                else if (op[k] == PQTrace.DECREASE_KEY) minPQ.decreaseKey(i, x);
+                else                                    return minPQ.delMin();
+                return i;
+            case INDEX_MAX_PQ:
+                if      (op[k] == PQTrace.INSERT)       maxPQ.insert(i, x);
+                else if (op[k] == PQTrace.DECREASE_KEY) maxPQ.increaseKey(i, x);
+                else                                    return maxPQ.delMax();
+                return i;
+            case INDEX_FIBONACCI_MIN_PQ:
+                if      (op[k] == PQTrace.INSERT)       fibonacciPQ.insert(i, x);
+                else if (op[k] == PQTrace.DECREASE_KEY) fibonacciPQ.decreaseKey(i, x);
+                else                                    return fibonacciPQ.delMin();
+                return i;
+            case INDEX_BINOMIAL_MIN_PQ:
+                if      (op[k] == PQTrace.INSERT)       binomialPQ.insert(i, x);
+                else if (op[k] == PQTrace.DECREASE_KEY) binomialPQ.decreaseKey(i, x);
+                else                                    return binomialPQ.delMin();
+                return i;
+            default:
+                if      (op[k] == PQTrace.INSERT)       multiwayPQ.insert(i, x);
+                else if (op[k] == PQTrace.DECREASE_KEY) multiwayPQ.decreaseKey(i, x);
+                else                                    return multiwayPQ.delMin();
+                return i;
+        }
+    }
+
+    /**
+     * Runs the index priority queue benchmark with the GC profiler attached.
+     *
+     * @param args the command-line arguments
+     * @throws RunnerException if the benchmark run fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(IndexPQBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,97 @@
+/******************************************************************************
+ *  Compilation:  mvn -P benchmark package
+ *  Dependencies: StdRandom.java
+ *
+ *  Key types used by the symbol-table benchmarks.
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.benchmark;
+
+import java.util.HashSet;
+
+import com.afcrowther.algorithms.library.StdRandom;
+
+/**
+ *  The {@code KeyType} enum generates arrays of distinct keys of a given type:
+ *  {@code Integer}, {@code Long}, or lowercase {@code String}s of a fixed length.
+ *  <p>
+ *  The keys are returned in random order; all of them are {@code Comparable},
+ *  so they can be used with both the hashing and the ordered symbol tables.
+ */
+public enum KeyType {
+    INTEGER {
+        Comparable[] keys(int n) {
+            Integer[] a = new Integer[n];
+            HashSet<Integer> seen = new HashSet<Integer>();
+            for (int i = 0; i < n; i++) {
+                int key;
+                do {
+                    key = StdRandom.uniform(Integer.MAX_VALUE);
+                } while (!seen.add(key));
+                a[i] = key;
+            }
+            return a;
+        }
+    },
+    LONG {
+        Comparable[] keys(int n) {
+            Long[] a = new Long[n];
+            HashSet<Long> seen = new HashSet<Long>();
+            for (int i = 0; i < n; i++) {
+                long key;
+                do {
+                    key = ((long) StdRandom.uniform(Integer.MAX_VALUE) << 31) | StdRandom.uniform(Integer.MAX_VALUE);
+                } while (!seen.add(key));
+                a[i] = key;
+            }
+            return a;
+        }
+    },
+    STRING_8 {
+        Comparable[] keys(int n) {
+            return strings(n, 8);
+        }
+    },
+    STRING_32 {
+        Comparable[] keys(int n) {
+            return strings(n, 32);
+        }
+    },
+    STRING_128 {
+        Comparable[] keys(int n) {
+            return strings(n, 128);
+        }
+    };
+
+    abstract Comparable[] keys(int n);
+
+    /**
+     * Returns {@code n} distinct keys of this type, generated from the given seed.
+     *
+     * @param  n the number of keys
+     * @param  seed the random seed
+     * @return an array of {@code n} distinct keys in random order
+     */
+    public Comparable[] keys(int n, long seed) {
+        StdRandom.setSeed(seed);
+        return keys(n);
+    }
+
+    // n distinct random strings of length w over the alphabet a-z
+    private static String[] strings(int n, int w) {
+        String[] a = new String[n];
+        HashSet<String> seen = new HashSet<String>();
+        char[] chars = new char[w];
+        for (int i = 0; i < n; i++) {
+            String key;
+            do {
+                for (int d = 0; d < w; d++)
+                    chars[d] = (char) ('a' + StdRandom.uniform(26));
+                key = new String(chars);
+            } while (!seen.add(key));
+            a[i] = key;
+        }
+        return a;
+    }
+}
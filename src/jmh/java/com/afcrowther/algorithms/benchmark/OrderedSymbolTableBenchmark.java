@@ -0,0 +1,154 @@
+/******************************************************************************
+ *  Compilation:  mvn -P benchmark package
+ *  Execution:    java -jar target/benchmarks.jar OrderedSymbolTableBenchmark
+ *  Dependencies: KeyType.java RedBlackBST.java AVLTreeST.java BST.java
+ *
+ *  Measures the ordered operations of the library binary search trees.
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.afcrowther.algorithms.library.AVLTreeST;
+import com.afcrowther.algorithms.library.BST;
+import com.afcrowther.algorithms.library.RedBlackBST;
+import com.afcrowther.algorithms.library.StdRandom;
+
+/**
+ *  The {@code OrderedSymbolTableBenchmark} class measures {@code floor()},
+ *  {@code ceiling()}, {@code rank()}, {@code select()} and {@code keys(lo, hi)}
+ *  on {@code RedBlackBST}, {@code AVLTreeST} and {@code BST}.
+ *  <p>
+ *  The tree holds every other key of a sorted key set, so half of the floor and
+ *  ceiling queries miss. Range scans return {@code rangeLength} keys.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Thread)
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class OrderedSymbolTableBenchmark {
+    private static final int QUERIES = 1 << 16;   // queries before the sequence repeats
+
+    public enum Tree { RED_BLACK_BST, AVL_TREE_ST, BST }
+
+    @Param
+    Tree tree;
+
+    @Param({ "INTEGER", "LONG", "STRING_32" })
+    KeyType keyType;
+
+    @Param({ "100000", "1000000" })
+    int size;
+
+    @Param({ "100" })
+    int rangeLength;
+
+    private RedBlackBST redBlack;
+    private AVLTreeST avl;
+    private BST bst;
+
+    private Comparable[] keys;      // all keys, sorted; the tree holds the even positions
+    private int[] query;            // positions in keys[]
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        keys = keyType.keys(size, size);
+        Arrays.sort(keys);
+
+        redBlack = null;
+        avl = null;
+        bst = null;
+        if      (tree == Tree.RED_BLACK_BST) redBlack = new RedBlackBST();
+        else if (tree == Tree.AVL_TREE_ST)   avl = new AVLTreeST();
+        else                                 bst = new BST();
+
+        // insert in random order so the unbalanced BST is not degenerate
+        int[] order = new int[(size + 1) / 2];
+        for (int i = 0; i < order.length; i++)
+            order[i] = 2 * i;
+        StdRandom.setSeed(size);
+        StdRandom.shuffle(order);
+        for (int i : order) {
+            if      (redBlack != null) redBlack.put(keys[i], Boolean.TRUE);
+            else if (avl != null)      avl.put(keys[i], Boolean.TRUE);
+            else                       bst.put(keys[i], Boolean.TRUE);
+        }
+
+        query = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++)
+            query[i] = StdRandom.uniform(Math.max(size - 2 * rangeLength, 1));
+        next = 0;
+    }
+
+    private int nextQuery() {
+        int i = next;
+        next = (i + 1) & (QUERIES - 1);
+        return query[i];
+    }
+
+    @Benchmark
+    public Object floor() {
+        Comparable key = keys[nextQuery()];
+        if      (redBlack != null) return redBlack.floor(key);
+        else if (avl != null)      return avl.floor(key);
+        else                       return bst.floor(key);
+    }
+
+    @Benchmark
+    public Object ceiling() {
+        Comparable key = keys[nextQuery()];
+        if      (redBlack != null) return redBlack.ceiling(key);
+        else if (avl != null)      return avl.ceiling(key);
+        else                       return bst.ceiling(key);
+    }
+
+    @Benchmark
+    public int rank() {
+        Comparable key = keys[nextQuery()];
+        if      (redBlack != null) return redBlack.rank(key);
+        else if (avl != null)      return avl.rank(key);
+        else                       return bst.rank(key);
+    }
+
+    @Benchmark
+    public Object select() {
+        int k = nextQuery() / 2;
+        if      (redBlack != null) return redBlack.select(k);
+        else if (avl != null)      return avl.select(k);
+        else                       return bst.select(k);
+    }
+
+    @Benchmark
+    public void rangeKeys(Blackhole bh) {
+        int i = nextQuery();
+        Comparable lo = keys[i];
+        Comparable hi = keys[i + 2 * rangeLength - 1];
+        Iterable<Comparable> range;
+        if      (redBlack != null) range = redBlack.keys(lo, hi);
+        else if (avl != null)      range = avl.keys(lo, hi);
+        else                       range = bst.keys(lo, hi);
+        for (Comparable key : range)
+            bh.consume(key);
+    }
+}
@@ -0,0 +1,316 @@
+/******************************************************************************
+ *  Compilation:  mvn -P benchmark package
+ *  Execution:    java -cp target/benchmarks.jar com.afcrowther.algorithms.benchmark.PQTrace algorithm V degree
+ *  Dependencies: GraphGenerator.java DigraphGenerator.java StdRandom.java StdOut.java
+ *
+ *  Records the index priority queue operations performed by Dijkstra's
+ *  and Prim's algorithms so that they can be replayed against any
+ *  index priority queue.
+ *
+ *  % java -cp target/benchmarks.jar com.afcrowther.algorithms.benchmark.PQTrace DIJKSTRA 100000 8
+ *  DIJKSTRA V=100000 degree=8: 99962 insert, 80323 decreaseKey, 99962 delMin
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.afcrowther.algorithms.library.Digraph;
+import com.afcrowther.algorithms.library.DigraphGenerator;
+import com.afcrowther.algorithms.library.Graph;
+import com.afcrowther.algorithms.library.GraphGenerator;
+import com.afcrowther.algorithms.library.IndexMinPQ;
+import com.afcrowther.algorithms.library.StdOut;
+import com.afcrowther.algorithms.library.StdRandom;
+
+/**
+ *  The {@code PQTrace} class is a recorded sequence of {@code insert},
+ *  {@code decreaseKey} and {@code delMin} operations on an index priority queue.
+ *  <p>
+ *  A trace is recorded by running the same loop as {@code DijkstraSP} (on a
+ *  random simple digraph from {@code DigraphGenerator}) or {@code PrimMST} (on a
+ *  random simple graph from {@code GraphGenerator}). Edge weights in [0, 1)
+ *  are a hash of the endpoints, so the graphs need not store them. Both algorithms drain their queue, so a trace always
+ *  ends with an empty queue and can be replayed back to back on the same instance.
+ *  <p>
+ *  Generating a graph with millions of vertices takes a while, so traces are
+ *  cached as files in the directory given by the {@code pqtrace.dir} system
+ *  property (the temporary directory by default).
+ */
+public class PQTrace {
+    public static final byte INSERT       = 0;
+    public static final byte DECREASE_KEY = 1;
+    public static final byte DEL_MIN      = 2;
+
+    public enum Algorithm { DIJKSTRA, PRIM }
+
+    private final int V;            // index range of the queue
+    private final byte[] op;        // op[k] = kth operation
+    private final int[] index;      // index[k] = index argument of the kth operation
+    private final double[] key;     // key[k] = key argument of the kth operation
+    private final int n;            // number of operations
+
+    private PQTrace(int V, byte[] op, int[] index, double[] key, int n) {
+        this.V = V;
+        this.op = op;
+        this.index = index;
+        this.key = key;
+        this.n = n;
+    }
+
+    /**
+     * Returns the number of indices the priority queue must support.
+     * @return the number of vertices of the recorded graph
+     */
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Returns the number of operations in this trace.
+     * @return the number of operations
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Returns the kth operation: {@code INSERT}, {@code DECREASE_KEY} or {@code DEL_MIN}.
+     * @param  k the position in the trace
+     * @return the kth operation
+     */
+    public byte op(int k) {
+        return op[k];
+    }
+
+    /**
+     * Returns the index argument of the kth operation (unused for {@code DEL_MIN}).
+     * @param  k the position in the trace
+     * @return the index argument of the kth operation
+     */
+    public int index(int k) {
+        return index[k];
+    }
+
+    /**
+     * Returns the key argument of the kth operation (unused for {@code DEL_MIN}).
+     * @param  k the position in the trace
+     * @return the key argument of the kth operation
+     */
+    public double key(int k) {
+        return key[k];
+    }
+
+    /**
+     * Returns the number of operations of the given kind.
+     * @param  kind {@code INSERT}, {@code DECREASE_KEY} or {@code DEL_MIN}
+     * @return the number of operations of the given kind
+     */
+    public int count(byte kind) {
+        int count = 0;
+        for (int k = 0; k < n; k++)
+            if (op[k] == kind) count++;
+        return count;
+    }
+
+    /**
+     * Returns the trace of the given algorithm on a random graph with {@code V}
+     * vertices and {@code degree * V} edges, loading it from the trace cache if it
+     * has been recorded before.
+     *
+     * @param  algorithm the algorithm to record
+     * @param  V the number of vertices
+     * @param  degree the average out-degree (Dijkstra) or degree (Prim)
+     * @param  seed the random seed for the graph
+     * @return the trace
+     */
+    public static PQTrace of(Algorithm algorithm, int V, int degree, long seed) {
+        String dir = System.getProperty("pqtrace.dir", System.getProperty("java.io.tmpdir"));
+        File file = new File(dir, "pqtrace-" + algorithm + "-" + V + "-" + degree + "-" + seed + ".bin");
+        try {
+            if (file.exists()) return read(file);
+            PQTrace trace = record(algorithm, V, degree, seed);
+            trace.write(file);
+            return trace;
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("could not use trace file " + file, e);
+        }
+    }
+
+    /**
+     * Records the trace of the given algorithm on a new random graph, bypassing the cache.
+     *
+     * @param  algorithm the algorithm to record
+     * @param  V the number of vertices
+     * @param  degree the average out-degree (Dijkstra) or degree (Prim)
+     * @param  seed the random seed for the graph
+     * @return the trace
+     */
+    public static PQTrace record(Algorithm algorithm, int V, int degree, long seed) {
+        StdRandom.setSeed(seed);
+        Recorder recorder = new Recorder(V);
+        if (algorithm == Algorithm.DIJKSTRA) dijkstra(DigraphGenerator.simple(V, degree * V), recorder);
+        else                                 prim(GraphGenerator.simple(V, degree * V / 2), recorder);
+        return new PQTrace(V, recorder.op, recorder.index, recorder.key, recorder.n);
+    }
+
+    // the loop of DijkstraSP, from source 0
+    private static void dijkstra(Digraph G, Recorder pq) {
+        double[] distTo = new double[G.V()];
+        for (int v = 0; v < G.V(); v++)
+            distTo[v] = Double.POSITIVE_INFINITY;
+        distTo[0] = 0.0;
+        pq.insert(0, distTo[0]);
+        while (!pq.isEmpty()) {
+            int v = pq.delMin();
+            for (int w : G.adj(v)) {
+                double weight = weight(v, w);
+                if (distTo[w] > distTo[v] + weight) {
+                    distTo[w] = distTo[v] + weight;
+                    if (pq.contains(w)) pq.decreaseKey(w, distTo[w]);
+                    else                pq.insert(w, distTo[w]);
+                }
+            }
+        }
+    }
+
+    // the loop of PrimMST over every component
+    private static void prim(Graph G, Recorder pq) {
+        double[] distTo = new double[G.V()];
+        boolean[] marked = new boolean[G.V()];
+        for (int v = 0; v < G.V(); v++)
+            distTo[v] = Double.POSITIVE_INFINITY;
+        for (int s = 0; s < G.V(); s++) {
+            if (marked[s]) continue;
+            distTo[s] = 0.0;
+            pq.insert(s, distTo[s]);
+            while (!pq.isEmpty()) {
+                int v = pq.delMin();
+                marked[v] = true;
+                for (int w : G.adj(v)) {
+                    if (marked[w]) continue;
+                    double weight = weight(Math.min(v, w), Math.max(v, w));
+                    if (weight < distTo[w]) {
+                        distTo[w] = weight;
+                        if (pq.contains(w)) pq.decreaseKey(w, distTo[w]);
+                        else                pq.insert(w, distTo[w]);
+                    }
+                }
+            }
+        }
+    }
+
+    // weight in [0, 1) of edge v-w; a hash, so it is the same every time the edge is seen
+    private static double weight(int v, int w) {
+        long h = ((long) v << 32) ^ w;
+        h ^= (h >>> 33);
+        h *= 0xff51afd7ed558ccdL;
+        h ^= (h >>> 33);
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= (h >>> 33);
+        return (h >>> 11) * 0x1.0p-53;
+    }
+
+    // an IndexMinPQ that appends every operation to growable arrays
+    private static class Recorder {
+        private final IndexMinPQ<Double> pq;
+        private byte[] op = new byte[16];
+        private int[] index = new int[16];
+        private double[] key = new double[16];
+        private int n;
+
+        Recorder(int V) {
+            pq = new IndexMinPQ<Double>(V);
+        }
+
+        boolean isEmpty()      { return pq.isEmpty();    }
+        boolean contains(int i) { return pq.contains(i); }
+
+        void insert(int i, double k) {
+            add(INSERT, i, k);
+            pq.insert(i, k);
+        }
+
+        void decreaseKey(int i, double k) {
+            add(DECREASE_KEY, i, k);
+            pq.decreaseKey(i, k);
+        }
+
+        int delMin() {
+            add(DEL_MIN, -1, 0.0);
+            return pq.delMin();
+        }
+
+        private void add(byte o, int i, double k) {
+            if (n == op.length) {
+                op = Arrays.copyOf(op, 2*n);
+                index = Arrays.copyOf(index, 2*n);
+                key = Arrays.copyOf(key, 2*n);
+            }
+            op[n] = o;
+            index[n] = i;
+            key[n] = k;
+            n++;
+        }
+    }
+
+    private void write(File file) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try {
+            out.writeInt(V);
+            out.writeInt(n);
+            for (int k = 0; k < n; k++) {
+                out.writeByte(op[k]);
+                out.writeInt(index[k]);
+                out.writeDouble(key[k]);
+            }
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    private static PQTrace read(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        try {
+            int V = in.readInt();
+            int n = in.readInt();
+            byte[] op = new byte[n];
+            int[] index = new int[n];
+            double[] key = new double[n];
+            for (int k = 0; k < n; k++) {
+                op[k] = in.readByte();
+                index[k] = in.readInt();
+                key[k] = in.readDouble();
+            }
+            return new PQTrace(V, op, index, key, n);
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Records (or loads) a trace and prints how many operations of each kind it has.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        Algorithm algorithm = Algorithm.valueOf(args[0]);
+        int V = Integer.parseInt(args[1]);
+        int degree = Integer.parseInt(args[2]);
+        PQTrace trace = PQTrace.of(algorithm, V, degree, V);
+        StdOut.printf("%s V=%d degree=%d: %d insert, %d decreaseKey, %d delMin\n",
+                      algorithm, V, degree, trace.count(INSERT), trace.count(DECREASE_KEY), trace.count(DEL_MIN));
+    }
+}
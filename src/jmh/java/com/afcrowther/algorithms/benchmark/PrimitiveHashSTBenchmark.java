@@ -0,0 +1,212 @@
+/******************************************************************************
+ *  Compilation:  mvn -P benchmark package
+ *  Execution:    java -jar target/benchmarks.jar PrimitiveHashSTBenchmark -prof gc
+ *  Dependencies: the hash symbol tables in the library package
+ *
+ *  Compares the Robin Hood primitive maps with LinearProbingHashST on boxed
+ *  keys and values.
+ *
+ *  % java -jar target/benchmarks.jar PrimitiveHashSTBenchmark -p size=10000000
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.benchmark;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.afcrowther.algorithms.library.IntIntHashST;
+import com.afcrowther.algorithms.library.LinearProbingHashST;
+import com.afcrowther.algorithms.library.LongLongHashST;
+import com.afcrowther.algorithms.library.StdRandom;
+
+/**
+ *  The {@code PrimitiveHashSTBenchmark} class measures lookups and updates in
+ *  {@code IntIntHashST} and {@code LongLongHashST} against
+ *  {@code LinearProbingHashST<Integer, Integer>} and
+ *  {@code LinearProbingHashST<Long, Long>} holding the same keys.
+ *  <p>
+ *  The table holds {@code size} distinct random keys (below 2<sup>31</sup>, so
+ *  that the same keys serve both key types). {@code get} looks up keys in
+ *  the table, {@code miss} looks up keys that are not, and {@code update}
+ *  deletes a key and puts it back. Every invocation does one operation on
+ *  the next key of a fixed random order. The boxed keys are created during
+ *  setup, so with {@code -prof gc} the allocation shown is the tables' own.
+ *  For memory per entry, see {@link SymbolTableFootprint}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Thread)
+public class PrimitiveHashSTBenchmark {
+    private static final int TRACE = 1 << 20;     // operations before the keys repeat
+
+    /**
+     * The tables compared.
+     */
+    public enum Table {
+        INT_INT_HASH_ST, LINEAR_PROBING_INTEGER, LONG_LONG_HASH_ST, LINEAR_PROBING_LONG
+    }
+
+    @Param
+    Table table;
+
+    @Param({ "100000", "10000000" })
+    int size;
+
+    private IntIntHashST intST;
+    private LongLongHashST longST;
+    private LinearProbingHashST<Integer, Integer> integerST;
+    private LinearProbingHashST<Long, Long> boxedLongST;
+
+    private int[] hits;             // keys in the table, in the order looked up
+    private int[] misses;           // keys not in the table
+    private Integer[] boxedHits;
+    private Integer[] boxedMisses;
+    private Long[] boxedLongHits;
+    private Long[] boxedLongMisses;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        StdRandom.setSeed(size);
+        HashSet<Integer> seen = new HashSet<Integer>();
+        int[] keys = new int[size];
+        for (int i = 0; i < size; i++) {
+            int key;
+            do {
+                key = StdRandom.uniform(Integer.MAX_VALUE);
+            } while (!seen.add(key));
+            keys[i] = key;
+        }
+
+        hits = new int[TRACE];
+        misses = new int[TRACE];
+        for (int i = 0; i < TRACE; i++) {
+            hits[i] = keys[StdRandom.uniform(size)];
+            int key;
+            do {
+                key = StdRandom.uniform(Integer.MAX_VALUE);
+            } while (seen.contains(key));
+            misses[i] = key;
+        }
+
+        intST = null;
+        longST = null;
+        integerST = null;
+        boxedLongST = null;
+        boxedHits = boxedMisses = null;
+        boxedLongHits = boxedLongMisses = null;
+        switch (table) {
+            case INT_INT_HASH_ST:
+                intST = new IntIntHashST();
+                for (int key : keys) intST.put(key, key);
+                break;
+            case LONG_LONG_HASH_ST:
+                longST = new LongLongHashST();
+                for (int key : keys) longST.put(key, key);
+                break;
+            case LINEAR_PROBING_INTEGER:
+                integerST = new LinearProbingHashST<Integer, Integer>();
+                for (int key : keys) integerST.put(key, key);
+                boxedHits = new Integer[TRACE];
+                boxedMisses = new Integer[TRACE];
+                for (int i = 0; i < TRACE; i++) {
+                    boxedHits[i] = hits[i];
+                    boxedMisses[i] = misses[i];
+                }
+                break;
+            default:
+                boxedLongST = new LinearProbingHashST<Long, Long>();
+                for (int key : keys) boxedLongST.put((long) key, (long) key);
+                boxedLongHits = new Long[TRACE];
+                boxedLongMisses = new Long[TRACE];
+                for (int i = 0; i < TRACE; i++) {
+                    boxedLongHits[i] = (long) hits[i];
+                    boxedLongMisses[i] = (long) misses[i];
+                }
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public long get() {
+        int i = next;
+        next = (i + 1) & (TRACE - 1);
+        switch (table) {
+            case INT_INT_HASH_ST:        return intST.get(hits[i]);
+            case LONG_LONG_HASH_ST:      return longST.get(hits[i]);
+            case LINEAR_PROBING_INTEGER: return integerST.get(boxedHits[i]);
+            default:                     return boxedLongST.get(boxedLongHits[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean miss() {
+        int i = next;
+        next = (i + 1) & (TRACE - 1);
+        switch (table) {
+            case INT_INT_HASH_ST:        return intST.contains(misses[i]);
+            case LONG_LONG_HASH_ST:      return longST.contains(misses[i]);
+            case LINEAR_PROBING_INTEGER: return integerST.contains(boxedMisses[i]);
+            default:                     return boxedLongST.contains(boxedLongMisses[i]);
+        }
+    }
+
+    @Benchmark
+    public void update() {
+        int i = next;
+        next = (i + 1) & (TRACE - 1);
+        switch (table) {
+            case INT_INT_HASH_ST:
+                intST.delete(hits[i]);
+                intST.put(hits[i], i);
+                break;
+            case LONG_LONG_HASH_ST:
+                longST.delete(hits[i]);
+                longST.put(hits[i], i);
+                break;
+            case LINEAR_PROBING_INTEGER:
+                integerST.delete(boxedHits[i]);
+                integerST.put(boxedHits[i], boxedHits[i]);
+                break;
+            default:
+                boxedLongST.delete(boxedLongHits[i]);
+                boxedLongST.put(boxedLongHits[i], boxedLongHits[i]);
+        }
+    }
+
+    /**
+     * Runs the primitive hash table benchmark with the GC profiler attached.
+     *
+     * @param args the command-line arguments
+     * @throws RunnerException if the benchmark run fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PrimitiveHashSTBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
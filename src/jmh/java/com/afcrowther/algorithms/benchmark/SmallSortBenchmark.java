@@ -0,0 +1,127 @@
+/******************************************************************************
+ *  Compilation:  mvn -P benchmark package
+ *  Execution:    java -jar target/benchmarks.jar SmallSortBenchmark
+ *  Dependencies: Distribution.java Insertion.java SmallSort.java
+ *
+ *  Compares sorting networks with insertion sort as the base case of the
+ *  recursive sorts: many small subarrays, one after the other.
+ *
+ *  % java -jar target/benchmarks.jar SmallSortBenchmark -p size=16
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.afcrowther.algorithms.library.Insertion;
+import com.afcrowther.algorithms.library.SmallSort;
+
+/**
+ *  The {@code SmallSortBenchmark} class measures the base-case sorts on
+ *  subarrays of 4 to 16 keys: {@link Insertion} against {@link SmallSort},
+ *  on {@code int} keys (where {@code SmallSort} uses a sorting network) and
+ *  on {@code Integer} keys (where it uses insertion sort that moves a hole).
+ *  <p>
+ *  Each invocation sorts {@code BLOCKS} consecutive subarrays of {@code size}
+ *  keys from a fresh copy of the input, as the leaves of a quicksort would.
+ *  Results are in nanoseconds per subarray. The keys are {@code RANDOM}
+ *  (where insertion sort mispredicts the most) or {@code FEW_DISTINCT}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2)
+@State(Scope.Thread)
+public class SmallSortBenchmark {
+    private static final int BLOCKS = 1 << 12;   // subarrays sorted per invocation
+
+    @Param({ "4", "8", "12", "16" })
+    int size;
+
+    @Param({ "RANDOM", "FEW_DISTINCT" })
+    Distribution distribution;
+
+    private int[] primitiveInput;
+    private int[] b;
+    private Integer[] input;
+    private Integer[] a;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        primitiveInput = distribution.ints(size * BLOCKS, size);
+        b = new int[size * BLOCKS];
+        input = distribution.integers(size * BLOCKS, size);
+        a = new Integer[size * BLOCKS];
+    }
+
+    @Setup(Level.Invocation)
+    public void copy() {
+        System.arraycopy(primitiveInput, 0, b, 0, b.length);
+        System.arraycopy(input, 0, a, 0, a.length);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCKS)
+    public Object insertionInt() {
+        for (int lo = 0; lo < b.length; lo += size)
+            Insertion.sort(b, lo, lo + size - 1);
+        return b;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCKS)
+    public Object networkInt() {
+        for (int lo = 0; lo < b.length; lo += size)
+            SmallSort.sort(b, lo, lo + size - 1);
+        return b;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCKS)
+    public Object insertion() {
+        for (int lo = 0; lo < a.length; lo += size)
+            Insertion.sort(a, lo, lo + size - 1);
+        return a;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCKS)
+    public Object smallSort() {
+        for (int lo = 0; lo < a.length; lo += size)
+            SmallSort.sort(a, lo, lo + size - 1);
+        return a;
+    }
+
+    /**
+     * Runs every small-sort benchmark.
+     *
+     * @param args the command-line arguments
+     * @throws RunnerException if the benchmark run fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SmallSortBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
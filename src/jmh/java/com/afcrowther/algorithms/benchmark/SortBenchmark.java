@@ -0,0 +1,298 @@
+/******************************************************************************
+ *  Compilation:  mvn -P benchmark package
+ *  Execution:    java -jar target/benchmarks.jar SortBenchmark -prof gc
+ *                java -cp target/benchmarks.jar com.afcrowther.algorithms.benchmark.SortBenchmark
+ *  Dependencies: Distribution.java and the sorts in the library package
+ *
+ *  Compares the throughput and allocation rate of the library sorts over
+ *  a range of input sizes and input shapes.
+ *
+ *  % java -jar target/benchmarks.jar SortBenchmark -p size=100000 -p distribution=ZIPF
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.afcrowther.algorithms.library.BinaryInsertion;
+import com.afcrowther.algorithms.library.Heap;
+import com.afcrowther.algorithms.library.InsertionX;
+import com.afcrowther.algorithms.library.LSD;
+import com.afcrowther.algorithms.library.Merge;
+import com.afcrowther.algorithms.library.MergeBU;
+import com.afcrowther.algorithms.library.MergeX;
+import com.afcrowther.algorithms.library.Quick;
+import com.afcrowther.algorithms.library.Quick3way;
+import com.afcrowther.algorithms.library.QuickX;
+import com.afcrowther.algorithms.library.Shell;
+
+/**
+ *  The {@code SortBenchmark} class measures each of the library sorts on
+ *  {@code Integer} keys drawn from every {@link Distribution}.
+ *  <p>
+ *  Each invocation copies the input into the array it sorts, so the array is
+ *  never already sorted by a previous invocation. The copy is made in the
+ *  benchmark method rather than in a per-invocation setup, whose overhead is
+ *  comparable to sorting 1000 keys; {@code copy} and {@code copyInt} measure
+ *  the copy alone, to subtract from the sorts. Results are reported in sorts
+ *  per second; run with {@code -prof gc} (or through {@link #main}) to also get
+ *  the allocation rate ({@code gc.alloc.rate.norm} is bytes allocated per sort).
+ *  <p>
+ *  The {@code ...Int} benchmarks sort the same keys as an {@code int[]}, with
+ *  the primitive-type versions of the sorts, and with LSD radix sort
+ *  (sequential and parallel).
+ *  <p>
+ *  The quadratic sorts ({@code InsertionX} and {@code BinaryInsertion}) take
+ *  hours per sort on the largest size; {@link #main} runs them only on sizes
+ *  up to {@code QUADRATIC_MAX_SIZE}. From the command line, restrict them
+ *  with {@code -p size=...}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Thread)
+public class SortBenchmark {
+    private static final int QUADRATIC_MAX_SIZE = 100000;     // largest size main() gives the quadratic sorts
+
+    @Param({ "1000", "100000", "1000000" })
+    int size;
+
+    @Param
+    Distribution distribution;
+
+    private Integer[] input;
+    private Integer[] a;
+    private int[] primitiveInput;
+    private int[] b;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        input = distribution.integers(size, size);
+        a = new Integer[size];
+        primitiveInput = distribution.ints(size, size);
+        b = new int[size];
+    }
+
+    // a, reset to the input
+    private Integer[] a() {
+        System.arraycopy(input, 0, a, 0, size);
+        return a;
+    }
+
+    // b, reset to the primitive input
+    private int[] b() {
+        System.arraycopy(primitiveInput, 0, b, 0, size);
+        return b;
+    }
+
+    @Benchmark
+    public Object copy() {
+        return a();
+    }
+
+    @Benchmark
+    public Object copyInt() {
+        return b();
+    }
+
+    @Benchmark
+    public Object quick() {
+        Quick.sort(a());
+        return a;
+    }
+
+    @Benchmark
+    public Object quick3way() {
+        Quick3way.sort(a());
+        return a;
+    }
+
+    @Benchmark
+    public Object quickX() {
+        QuickX.sort(a());
+        return a;
+    }
+
+    @Benchmark
+    public Object quickXDualPivot() {
+        QuickX.sort(a(), QuickX.Partition.DUAL_PIVOT);
+        return a;
+    }
+
+    @Benchmark
+    public Object merge() {
+        Merge.sort(a());
+        return a;
+    }
+
+    @Benchmark
+    public Object mergeBU() {
+        MergeBU.sort(a());
+        return a;
+    }
+
+    @Benchmark
+    public Object mergeBUNatural() {
+        MergeBU.naturalSort(a());
+        return a;
+    }
+
+    @Benchmark
+    public Object mergeX() {
+        MergeX.sort(a());
+        return a;
+    }
+
+    @Benchmark
+    public Object mergeXNatural() {
+        MergeX.naturalSort(a());
+        return a;
+    }
+
+    @Benchmark
+    public Object mergeXParallel() {
+        MergeX.parallelSort(a());
+        return a;
+    }
+
+    @Benchmark
+    public Object shell() {
+        Shell.sort(a());
+        return a;
+    }
+
+    @Benchmark
+    public Object heap() {
+        Heap.sort(a());
+        return a;
+    }
+
+    @Benchmark
+    public Object heapBottomUp2() {
+        Heap.bottomUpSort(a(), 2);
+        return a;
+    }
+
+    @Benchmark
+    public Object heapBottomUp4() {
+        Heap.bottomUpSort(a(), 4);
+        return a;
+    }
+
+    @Benchmark
+    public Object heapBottomUp8() {
+        Heap.bottomUpSort(a(), 8);
+        return a;
+    }
+
+    @Benchmark
+    public Object insertionX() {
+        InsertionX.sort(a());
+        return a;
+    }
+
+    @Benchmark
+    public Object binaryInsertion() {
+        BinaryInsertion.sort(a());
+        return a;
+    }
+
+    @Benchmark
+    public Object quickInt() {
+        Quick.sort(b());
+        return b;
+    }
+
+    @Benchmark
+    public Object quick3wayInt() {
+        Quick3way.sort(b());
+        return b;
+    }
+
+    @Benchmark
+    public Object mergeInt() {
+        Merge.sort(b());
+        return b;
+    }
+
+    @Benchmark
+    public Object shellInt() {
+        Shell.sort(b());
+        return b;
+    }
+
+    @Benchmark
+    public Object heapInt() {
+        Heap.sort(b());
+        return b;
+    }
+
+    @Benchmark
+    public Object heapBottomUp4Int() {
+        Heap.bottomUpSort(b(), 4);
+        return b;
+    }
+
+    @Benchmark
+    public Object heapBottomUp8Int() {
+        Heap.bottomUpSort(b(), 8);
+        return b;
+    }
+
+    @Benchmark
+    public Object lsdInt() {
+        LSD.sort(b());
+        return b;
+    }
+
+    @Benchmark
+    public Object lsdParallelInt() {
+        LSD.parallelSort(b());
+        return b;
+    }
+
+    /**
+     * Runs every sort benchmark with the GC profiler attached, the quadratic
+     * sorts only on sizes up to {@code QUADRATIC_MAX_SIZE}.
+     *
+     * @param args the command-line arguments
+     * @throws RunnerException if the benchmark run fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        String quadratic = SortBenchmark.class.getSimpleName() + "\\.(insertionX|binaryInsertion)$";
+        Options options = new OptionsBuilder()
+                .include(SortBenchmark.class.getSimpleName())
+                .exclude(quadratic)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+
+        Options quadraticOptions = new OptionsBuilder()
+                .include(quadratic)
+                .param("size", "1000", String.valueOf(QUADRATIC_MAX_SIZE))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(quadraticOptions).run();
+    }
+}
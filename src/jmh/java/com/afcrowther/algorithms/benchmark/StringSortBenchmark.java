@@ -0,0 +1,152 @@
+/******************************************************************************
+ *  Compilation:  mvn -P benchmark package
+ *  Execution:    java -jar target/benchmarks.jar StringSortBenchmark -prof gc
+ *  Dependencies: the string sorts in the library package
+ *
+ *  Compares the string sorts with and without cached key prefixes, on
+ *  short words and on URLs that share long prefixes.
+ *
+ *  % java -jar target/benchmarks.jar StringSortBenchmark -p keys=URLS
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.afcrowther.algorithms.library.MSD;
+import com.afcrowther.algorithms.library.Merge;
+import com.afcrowther.algorithms.library.Quick3string;
+import com.afcrowther.algorithms.library.StdRandom;
+
+/**
+ *  The {@code StringSortBenchmark} class measures {@code Quick3string},
+ *  {@code MSD} and {@code Merge} on strings, each with its plain
+ *  {@code sort()} and with {@code prefixSort()}, which compares cached
+ *  four-character prefixes.
+ *  <p>
+ *  The keys are either {@code WORDS} (3 to 10 random lowercase letters) or
+ *  {@code URLS}, which all start with the same 42 characters and then
+ *  differ in a category and an item name, so that most of the work of a
+ *  character-at-a-time sort is spent on the shared prefix. Each invocation
+ *  sorts a fresh copy of the same input. Results are in sorts per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@State(Scope.Thread)
+public class StringSortBenchmark {
+
+    /**
+     * The shapes of the keys.
+     */
+    public enum Keys {
+        WORDS, URLS
+    }
+
+    @Param({ "10000", "1000000" })
+    int size;
+
+    @Param
+    Keys keys;
+
+    private String[] input;
+    private String[] a;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        StdRandom.setSeed(size);
+        input = new String[size];
+        for (int i = 0; i < size; i++)
+            input[i] = (keys == Keys.URLS) ? url() : word();
+        a = new String[size];
+    }
+
+    private static String word() {
+        int length = StdRandom.uniform(3, 11);
+        StringBuilder s = new StringBuilder(length);
+        for (int i = 0; i < length; i++)
+            s.append((char) ('a' + StdRandom.uniform(26)));
+        return s.toString();
+    }
+
+    private static String url() {
+        return "https://www.example.com/products/category-" + StdRandom.uniform(20)
+             + "/item/" + Integer.toString(StdRandom.uniform(1 << 24), 36) + ".html";
+    }
+
+    @Setup(Level.Invocation)
+    public void copy() {
+        System.arraycopy(input, 0, a, 0, size);
+    }
+
+    @Benchmark
+    public Object quick3string() {
+        Quick3string.sort(a);
+        return a;
+    }
+
+    @Benchmark
+    public Object quick3stringPrefix() {
+        Quick3string.prefixSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public Object msd() {
+        MSD.sort(a);
+        return a;
+    }
+
+    @Benchmark
+    public Object msdPrefix() {
+        MSD.prefixSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public Object merge() {
+        Merge.sort(a);
+        return a;
+    }
+
+    @Benchmark
+    public Object mergePrefix() {
+        Merge.prefixSort(a);
+        return a;
+    }
+
+    /**
+     * Runs every string sort benchmark with the GC profiler attached.
+     *
+     * @param args the command-line arguments
+     * @throws RunnerException if the benchmark run fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(StringSortBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
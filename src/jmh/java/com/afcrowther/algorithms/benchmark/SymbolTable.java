@@ -0,0 +1,160 @@
+/******************************************************************************
+ *  Compilation:  mvn -P benchmark package
+ *  Dependencies: the symbol tables in the library package
+ *
+ *  A common put/get/delete view of the library symbol tables.
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.benchmark;
+
+import com.afcrowther.algorithms.library.AVLTreeST;
+import com.afcrowther.algorithms.library.BST;
+import com.afcrowther.algorithms.library.BTree;
+import com.afcrowther.algorithms.library.LinearProbingHashST;
+import com.afcrowther.algorithms.library.PatriciaST;
+import com.afcrowther.algorithms.library.RedBlackBST;
+import com.afcrowther.algorithms.library.SeparateChainingHashST;
+import com.afcrowther.algorithms.library.TST;
+import com.afcrowther.algorithms.library.TrieST;
+
+/**
+ *  The {@code SymbolTable} enum creates each of the library symbol tables behind
+ *  the common {@link Table} interface, so that one benchmark can drive all of them.
+ *  <p>
+ *  The string-keyed tables ({@code TST}, {@code TrieST} and {@code PatriciaST})
+ *  are given {@code String.valueOf(key)}, so numeric key types measure them on
+ *  decimal keys. Where a table has no {@code delete()}, deleting is done by
+ *  putting a {@code null} value, as documented on its {@code put()}.
+ *  {@code BTree} is created with its default order.
+ *  The {@code _INCREMENTAL} hash tables resize a few slots or chains at a time.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public enum SymbolTable {
+    RED_BLACK_BST {
+        Table create() {
+            final RedBlackBST st = new RedBlackBST();
+            return new Table() {
+                public void put(Comparable key, Object val) { st.put(key, val); }
+                public Object get(Comparable key)           { return st.get(key); }
+                public void delete(Comparable key)          { st.delete(key); }
+            };
+        }
+    },
+    AVL_TREE_ST {
+        Table create() {
+            final AVLTreeST st = new AVLTreeST();
+            return new Table() {
+                public void put(Comparable key, Object val) { st.put(key, val); }
+                public Object get(Comparable key)           { return st.get(key); }
+                public void delete(Comparable key)          { st.delete(key); }
+            };
+        }
+    },
+    B_TREE {
+        Table create() {
+            final BTree st = new BTree();
+            return new Table() {
+                public void put(Comparable key, Object val) { st.put(key, val); }
+                public Object get(Comparable key)           { return st.get(key); }
+                public void delete(Comparable key)          { st.delete(key); }
+            };
+        }
+    },
+    BST {
+        Table create() {
+            final BST st = new BST();
+            return new Table() {
+                public void put(Comparable key, Object val) { st.put(key, val); }
+                public Object get(Comparable key)           { return st.get(key); }
+                public void delete(Comparable key)          { st.delete(key); }
+            };
+        }
+    },
+    LINEAR_PROBING_HASH_ST {
+        Table create() {
+            final LinearProbingHashST st = new LinearProbingHashST();
+            return new Table() {
+                public void put(Comparable key, Object val) { st.put(key, val); }
+                public Object get(Comparable key)           { return st.get(key); }
+                public void delete(Comparable key)          { st.delete(key); }
+            };
+        }
+    },
+    LINEAR_PROBING_HASH_ST_INCREMENTAL {
+        Table create() {
+            final LinearProbingHashST st = new LinearProbingHashST(4, true);
+            return new Table() {
+                public void put(Comparable key, Object val) { st.put(key, val); }
+                public Object get(Comparable key)           { return st.get(key); }
+                public void delete(Comparable key)          { st.delete(key); }
+            };
+        }
+    },
+    SEPARATE_CHAINING_HASH_ST {
+        Table create() {
+            final SeparateChainingHashST st = new SeparateChainingHashST();
+            return new Table() {
+                public void put(Comparable key, Object val) { st.put(key, val); }
+                public Object get(Comparable key)           { return st.get(key); }
+                public void delete(Comparable key)          { st.delete(key); }
+            };
+        }
+    },
+    SEPARATE_CHAINING_HASH_ST_INCREMENTAL {
+        Table create() {
+            final SeparateChainingHashST st = new SeparateChainingHashST(4, true);
+            return new Table() {
+                public void put(Comparable key, Object val) { st.put(key, val); }
+                public Object get(Comparable key)           { return st.get(key); }
+                public void delete(Comparable key)          { st.delete(key); }
+            };
+        }
+    },
+    TST {
+        Table create() {
+            final TST st = new TST();
+            return new Table() {
+                public void put(Comparable key, Object val) { st.put(String.valueOf(key), val); }
+                public Object get(Comparable key)           { return st.get(String.valueOf(key)); }
+                public void delete(Comparable key)          { st.put(String.valueOf(key), null); }
+            };
+        }
+    },
+    TRIE_ST {
+        Table create() {
+            final TrieST st = new TrieST();
+            return new Table() {
+                public void put(Comparable key, Object val) { st.put(String.valueOf(key), val); }
+                public Object get(Comparable key)           { return st.get(String.valueOf(key)); }
+                public void delete(Comparable key)          { st.delete(String.valueOf(key)); }
+            };
+        }
+    },
+    PATRICIA_ST {
+        Table create() {
+            final PatriciaST st = new PatriciaST();
+            return new Table() {
+                public void put(Comparable key, Object val) { st.put(String.valueOf(key), val); }
+                public Object get(Comparable key)           { return st.get(String.valueOf(key)); }
+                public void delete(Comparable key)          { st.delete(String.valueOf(key)); }
+            };
+        }
+    };
+
+    /**
+     * The operations shared by every symbol table.
+     */
+    public interface Table {
+        void put(Comparable key, Object val);
+        Object get(Comparable key);
+        void delete(Comparable key);
+    }
+
+    /**
+     * Returns a new, empty symbol table of this kind.
+     *
+     * @return a new, empty symbol table
+     */
+    abstract Table create();
+}
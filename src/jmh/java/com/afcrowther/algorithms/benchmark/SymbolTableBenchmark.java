@@ -0,0 +1,132 @@
+/******************************************************************************
+ *  Compilation:  mvn -P benchmark package
+ *  Execution:    java -jar target/benchmarks.jar SymbolTableBenchmark
+ *  Dependencies: SymbolTable.java KeyType.java Distribution.java
+ *
+ *  Measures the library symbol tables under a mixed put/get/delete workload.
+ *
+ *  % java -jar target/benchmarks.jar SymbolTableBenchmark -p table=RED_BLACK_BST,LINEAR_PROBING_HASH_ST
+ *        -p keyType=STRING_32 -p readPercent=95 -p skew=ZIPF
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.afcrowther.algorithms.library.StdRandom;
+
+/**
+ *  The {@code SymbolTableBenchmark} class replays a precomputed trace of
+ *  put, get and delete operations against one of the library symbol tables.
+ *  <p>
+ *  The table starts with half of the {@code size} distinct keys. Each operation
+ *  picks a key index from the {@code skew} distribution; {@code readPercent} of
+ *  the operations are gets and {@code deletePercent} of the remaining writes are
+ *  deletes. Every invocation runs exactly one operation, so the benchmark is run
+ *  in both throughput mode (operations per microsecond) and sample mode, which
+ *  reports the latency percentiles including p99 and p99.9.
+ *  <p>
+ *  For memory per entry, see {@link SymbolTableFootprint}; for the ordered
+ *  operations, see {@link OrderedSymbolTableBenchmark}.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms4g", "-Xmx4g" })
+@State(Scope.Thread)
+public class SymbolTableBenchmark {
+    private static final int TRACE = 1 << 20;     // operations before the trace repeats
+
+    private static final byte GET    = 0;
+    private static final byte PUT    = 1;
+    private static final byte DELETE = 2;
+
+    @Param
+    SymbolTable table;
+
+    @Param({ "INTEGER", "LONG", "STRING_8", "STRING_32" })
+    KeyType keyType;
+
+    @Param({ "100000", "1000000" })
+    int size;
+
+    @Param({ "RANDOM", "ZIPF" })
+    Distribution skew;
+
+    @Param({ "50", "90", "99" })
+    int readPercent;
+
+    @Param({ "50" })
+    int deletePercent;
+
+    private SymbolTable.Table st;
+    private Comparable[] keys;
+    private byte[] ops;
+    private int[] index;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        keys = keyType.keys(size, size);
+        st = table.create();
+        for (int i = 0; i < size / 2; i++)
+            st.put(keys[i], Boolean.TRUE);
+
+        // key choice follows the skew; RANDOM ranges over all ints, ZIPF over ranks
+        int[] choice = skew.ints(TRACE, TRACE);
+        StdRandom.setSeed(TRACE);
+        ops = new byte[TRACE];
+        index = new int[TRACE];
+        for (int i = 0; i < TRACE; i++) {
+            index[i] = choice[i] % size;
+            if      (StdRandom.uniform(100) < readPercent)   ops[i] = GET;
+            else if (StdRandom.uniform(100) < deletePercent) ops[i] = DELETE;
+            else                                             ops[i] = PUT;
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public Object operation() {
+        int i = next;
+        next = (i + 1) & (TRACE - 1);
+        Comparable key = keys[index[i]];
+        switch (ops[i]) {
+            case PUT:    st.put(key, Boolean.TRUE); return null;
+            case DELETE: st.delete(key);            return null;
+            default:     return st.get(key);
+        }
+    }
+
+    /**
+     * Runs the symbol-table benchmark with the default parameters.
+     *
+     * @param args the command-line arguments
+     * @throws RunnerException if the benchmark run fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SymbolTableBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
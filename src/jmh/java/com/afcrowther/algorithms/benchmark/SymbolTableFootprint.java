@@ -0,0 +1,133 @@
+/******************************************************************************
+ *  Compilation:  mvn -P benchmark package
+ *  Execution:    java -Xmx4g -cp target/benchmarks.jar com.afcrowther.algorithms.benchmark.SymbolTableFootprint n keyType
+ *  Dependencies: SymbolTable.java KeyType.java StdOut.java and the primitive hash tables
+ *
+ *  Prints the heap retained per entry by each of the library symbol tables.
+ *
+ *  % java -cp target/benchmarks.jar com.afcrowther.algorithms.benchmark.SymbolTableFootprint 1000000 INTEGER
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.benchmark;
+
+import com.afcrowther.algorithms.library.IntIntHashST;
+import com.afcrowther.algorithms.library.LongHashST;
+import com.afcrowther.algorithms.library.LongLongHashST;
+import com.afcrowther.algorithms.library.StdOut;
+
+/**
+ *  The {@code SymbolTableFootprint} class estimates the heap retained per entry
+ *  by each symbol table, excluding the keys and values themselves.
+ *  <p>
+ *  The keys are created before the table and every entry maps to the same
+ *  value, so the difference in used heap (measured after repeated full
+ *  collections) before and after filling the table is the table's own
+ *  structure: nodes, arrays and any strings the adapter creates. This is
+ *  approximate, but stable enough to compare implementations; JMH cannot
+ *  measure retained size, which is why this is a plain program.
+ *  <p>
+ *  For {@code INTEGER} and {@code LONG} keys, the primitive hash tables
+ *  ({@code IntIntHashST}, {@code LongLongHashST} and {@code LongHashST}) are
+ *  measured too, on the same keys; their values are the keys themselves or,
+ *  for {@code LongHashST}, the same shared value.
+ */
+public class SymbolTableFootprint {
+
+    // This class should not be instantiated.
+    private SymbolTableFootprint() { }
+
+    // used heap after the collector has settled
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    /**
+     * Returns the heap retained per entry by a table of the given kind
+     * holding the given keys.
+     *
+     * @param  table the kind of symbol table
+     * @param  keys the keys to insert
+     * @return the approximate number of bytes retained per entry
+     */
+    public static double bytesPerEntry(SymbolTable table, Comparable[] keys) {
+        long before = usedHeap();
+        SymbolTable.Table st = table.create();
+        for (int i = 0; i < keys.length; i++)
+            st.put(keys[i], Boolean.TRUE);
+        long after = usedHeap();
+        if (st.get(keys[0]) == null) throw new IllegalStateException("table lost a key");
+        return (double) (after - before) / keys.length;
+    }
+
+    /**
+     * Returns the heap retained per entry by the named primitive hash table
+     * holding the given keys.
+     *
+     * @param  table the simple name of the table's class
+     * @param  keys the keys to insert
+     * @return the approximate number of bytes retained per entry
+     * @throws IllegalArgumentException if {@code table} is not a primitive hash table
+     */
+    public static double primitiveBytesPerEntry(String table, long[] keys) {
+        long before = usedHeap();
+        int n = keys.length;
+        long after;
+        boolean found;
+        if (table.equals("IntIntHashST")) {
+            IntIntHashST st = new IntIntHashST();
+            for (int i = 0; i < n; i++)
+                st.put((int) keys[i], (int) keys[i]);
+            after = usedHeap();
+            found = st.contains((int) keys[0]);
+        }
+        else if (table.equals("LongLongHashST")) {
+            LongLongHashST st = new LongLongHashST();
+            for (int i = 0; i < n; i++)
+                st.put(keys[i], keys[i]);
+            after = usedHeap();
+            found = st.contains(keys[0]);
+        }
+        else if (table.equals("LongHashST")) {
+            LongHashST<Boolean> st = new LongHashST<Boolean>();
+            for (int i = 0; i < n; i++)
+                st.put(keys[i], Boolean.TRUE);
+            after = usedHeap();
+            found = st.contains(keys[0]);
+        }
+        else throw new IllegalArgumentException("not a primitive hash table: " + table);
+        if (!found) throw new IllegalStateException("table lost a key");
+        return (double) (after - before) / n;
+    }
+
+    /**
+     * Takes the number of entries and a key type as command-line arguments
+     * and prints the bytes retained per entry for every symbol table.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        KeyType keyType = args.length > 1 ? KeyType.valueOf(args[1]) : KeyType.INTEGER;
+        Comparable[] keys = keyType.keys(n, n);
+        for (SymbolTable table : SymbolTable.values())
+            StdOut.printf("%-30s %6.1f bytes/entry\n", table, bytesPerEntry(table, keys));
+
+        if (keyType == KeyType.INTEGER || keyType == KeyType.LONG) {
+            long[] primitiveKeys = new long[n];
+            for (int i = 0; i < n; i++)
+                primitiveKeys[i] = ((Number) keys[i]).longValue();
+            String[] tables = (keyType == KeyType.INTEGER)
+                            ? new String[] { "IntIntHashST", "LongLongHashST", "LongHashST" }
+                            : new String[] { "LongLongHashST", "LongHashST" };
+            for (String table : tables)
+                StdOut.printf("%-30s %6.1f bytes/entry\n", table, primitiveBytesPerEntry(table, primitiveKeys));
+        }
+    }
+}
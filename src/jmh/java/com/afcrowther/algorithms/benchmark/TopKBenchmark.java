@@ -0,0 +1,143 @@
+/******************************************************************************
+ *  Compilation:  mvn -P benchmark package
+ *  Execution:    java -jar target/benchmarks.jar TopKBenchmark -prof gc
+ *  Dependencies: TopK.java MinPQ.java
+ *
+ *  Compares TopK with a MinPQ shared by all producer threads, as in TopM,
+ *  when several threads offer keys at once.
+ *
+ *  % java -jar target/benchmarks.jar TopKBenchmark -t 8 -p k=1000
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.afcrowther.algorithms.library.MinPQ;
+import com.afcrowther.algorithms.library.TopK;
+
+/**
+ *  The {@code TopKBenchmark} class measures the cost of offering one key to
+ *  a top-<em>k</em> tracker that {@code threads} threads offer keys to at
+ *  once: {@code topK} uses {@link TopK}, and {@code minPQ} uses one
+ *  {@link MinPQ} of boxed keys, locked around each offer, which inserts the
+ *  key and removes the minimum once there are more than <em>k</em> keys,
+ *  as {@code TopM} does. The {@code snapshots} group offers keys from three
+ *  threads while a fourth takes snapshots of the same {@code TopK}.
+ *  <p>
+ *  Each thread offers keys drawn from a normal distribution, precomputed
+ *  during setup, so a growing fraction of them is rejected as the largest
+ *  keys accumulate. Results are in nanoseconds per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+@Threads(4)
+@State(Scope.Benchmark)
+public class TopKBenchmark {
+    private static final int KEYS = 1 << 20;
+
+    @Param({ "10", "1000" })
+    int k;
+
+    private TopK<Object> topK;
+    private MinPQ<Double> minPQ;
+    private final AtomicInteger seeds = new AtomicInteger();
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        topK = new TopK<Object>(k);
+        minPQ = new MinPQ<Double>(k + 1);
+    }
+
+    /**
+     * The keys one producer thread offers.
+     */
+    @State(Scope.Thread)
+    public static class Stream {
+        double[] keys;
+        int next;
+
+        @Setup(Level.Trial)
+        public void generate(TopKBenchmark benchmark) {
+            Random random = new Random(benchmark.seeds.incrementAndGet());
+            keys = new double[KEYS];
+            for (int i = 0; i < KEYS; i++)
+                keys[i] = 1000.0 * random.nextGaussian();
+        }
+
+        double next() {
+            double key = keys[next];
+            next = (next + 1) & (KEYS - 1);
+            return key;
+        }
+    }
+
+    @Benchmark
+    public void topK(Stream stream) {
+        topK.offer(stream.next(), stream);
+    }
+
+    @Benchmark
+    public void minPQ(Stream stream) {
+        Double key = stream.next();
+        synchronized (minPQ) {
+            minPQ.insert(key);
+            if (minPQ.size() > k) minPQ.delMin();
+        }
+    }
+
+    @Benchmark
+    @Group("snapshots")
+    @GroupThreads(3)
+    public void offer(Stream stream) {
+        topK.offer(stream.next(), stream);
+    }
+
+    @Benchmark
+    @Group("snapshots")
+    @GroupThreads(1)
+    public Object snapshot() {
+        return topK.top();
+    }
+
+    /**
+     * Runs the top-k benchmark with the GC profiler attached.
+     *
+     * @param args the command-line arguments
+     * @throws RunnerException if the benchmark run fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TopKBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
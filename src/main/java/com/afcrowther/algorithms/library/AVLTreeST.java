@@ -55,7 +55,10 @@ import java.util.NoSuchElementException;
  *  <em>delete</em>, <em>minimum</em>, <em>maximum</em>, <em>ceiling</em>, and
  *  <em>floor</em> operations each take logarithmic time in the worst case. The
  *  <em>size</em>, and <em>is-empty</em> operations take constant time.
- *  Construction also takes constant time.
+ *  Construction also takes constant time, or linear time when building the
+ *  tree from sorted arrays of keys and values. The <em>putAll</em> operation
+ *  merges a batch into the tree in time linear in the size of the tree, plus
+ *  the time to sort the batch.
  * 
  *  For other implementations of the same API, see {@link ST}, {@link BinarySearchST},
  *  {@link SequentialSearchST}, {@link BST}, {@link RedBlackBST},
@@ -96,6 +99,31 @@ public class AVLTreeST<Key extends Comparable<Key>, Value> {
     public AVLTreeST() {
     }
 
+    /**
+     * Initializes a symbol table holding the given keys and values, in time
+     * linear in their number, with no compares and no rotations.
+     * 
+     * @param keys the keys, in strictly increasing order
+     * @param vals the values, {@code vals[i]} being the value of {@code keys[i]}
+     * @throws IllegalArgumentException if the arrays differ in length, or if
+     *         the keys are not strictly increasing
+     * @throws NullPointerException if either array, or any key or value, is
+     *         {@code null}
+     */
+    public AVLTreeST(Key[] keys, Value[] vals) {
+        if (keys.length != vals.length) throw new IllegalArgumentException("keys and vals differ in length");
+        Node[] nodes = newNodes(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null) throw new NullPointerException("key is null");
+            if (vals[i] == null) throw new NullPointerException("value is null");
+            if (i > 0 && keys[i - 1].compareTo(keys[i]) >= 0)
+                throw new IllegalArgumentException("keys are not strictly increasing at index " + i);
+            nodes[i] = new Node(keys[i], vals[i], 0, 1);
+        }
+        root = build(nodes, 0, nodes.length);
+        assert check();
+    }
+
     /**
      * Checks if the symbol table is empty.
      * 
@@ -243,6 +271,110 @@ public class AVLTreeST<Key extends Comparable<Key>, Value> {
         return balance(x);
     }
 
+    /**
+     * Inserts the given key-value pairs into the symbol table, as if by calling
+     * {@code put(keys[i], vals[i])} for each {@code i} in turn: a {@code null}
+     * value deletes its key, and of equal keys the last one wins. A batch that
+     * is large next to the tree is sorted and merged with the keys in the
+     * tree, and the tree is rebuilt from the result, reusing its nodes, in time
+     * linear in the size of the tree plus the time to sort the batch; a
+     * smaller batch is put one pair at a time.
+     * 
+     * @param keys the keys
+     * @param vals the values, {@code vals[i]} being the value of {@code keys[i]}
+     * @throws IllegalArgumentException if the arrays differ in length
+     * @throws NullPointerException if either array, or any key, is {@code null}
+     */
+    public void putAll(Key[] keys, Value[] vals) {
+        if (keys.length != vals.length) throw new IllegalArgumentException("keys and vals differ in length");
+        for (int i = 0; i < keys.length; i++)
+            if (keys[i] == null) throw new NullPointerException("key is null");
+
+        int n = size(), m = keys.length;
+        if ((long) m * (32 - Integer.numberOfLeadingZeros(n + m)) < n) {
+            for (int i = 0; i < m; i++)
+                put(keys[i], vals[i]);
+            return;
+        }
+
+        // merge the batch, in stable sorted order, with the nodes in key order
+        int[] index = Merge.indexSort(keys);
+        Node[] old = newNodes(n);
+        inorder(root, old, 0);
+        Node[] nodes = newNodes(n + m);
+        int k = 0;
+        for (int i = 0, j = 0; i < n || j < m; ) {
+            if (j == m) {
+                nodes[k++] = old[i++];
+                continue;
+            }
+            while (j + 1 < m && keys[index[j + 1]].compareTo(keys[index[j]]) == 0) j++;
+            Key key = keys[index[j]];
+            Value val = vals[index[j]];
+            int cmp = (i == n) ? 1 : old[i].key.compareTo(key);
+            if (cmp < 0) {
+                nodes[k++] = old[i++];
+                continue;
+            }
+            if (cmp == 0) {
+                old[i].val = val;
+                if (val != null) nodes[k++] = old[i];
+                i++;
+            }
+            else if (val != null) nodes[k++] = new Node(key, val, 0, 1);
+            j++;
+        }
+        root = build(nodes, 0, k);
+        assert check();
+    }
+
+    /**
+     * Returns an array of {@code n} nodes ({@code Node} is generic, through
+     * {@code Key} and {@code Value}).
+     * 
+     * @param n the length of the array
+     * @return an array of {@code n} nodes
+     */
+    private Node[] newNodes(int n) {
+        return (Node[]) new AVLTreeST.Node[n];
+    }
+
+    /**
+     * Puts the nodes of the subtree into {@code a[k..]}, in key order.
+     * 
+     * @param x the subtree
+     * @param a the array
+     * @param k the index of the first node
+     * @return the index after the last node
+     */
+    private int inorder(Node x, Node[] a, int k) {
+        if (x == null) return k;
+        k = inorder(x.left, a, k);
+        a[k++] = x;
+        return inorder(x.right, a, k);
+    }
+
+    /**
+     * Links {@code nodes[lo..hi-1]}, in key order, into a subtree with each
+     * node splitting its range in the middle, so that the sizes, and so the
+     * heights, of the two subtrees of a node differ by at most one.
+     * 
+     * @param nodes the nodes
+     * @param lo the index of the first node
+     * @param hi the index after the last node
+     * @return the subtree
+     */
+    private Node build(Node[] nodes, int lo, int hi) {
+        if (lo >= hi) return null;
+        int mid = (lo + hi) >>> 1;
+        Node x = nodes[mid];
+        x.left = build(nodes, lo, mid);
+        x.right = build(nodes, mid + 1, hi);
+        x.size = hi - lo;
+        x.height = 1 + Math.max(height(x.left), height(x.right));
+        return x;
+    }
+
     /**
      * Restores the AVL tree property of the subtree.
      * 
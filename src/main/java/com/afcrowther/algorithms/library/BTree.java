@@ -3,23 +3,30 @@
  *  Execution:    java BTree
  *  Dependencies: StdOut.java
  *
- *  B-tree.
+ *  B+ tree: the key-value pairs are in the leaves, which are linked in
+ *  order, and the internal nodes hold only keys to guide the search.
  *
  *  Limitations
  *  -----------
- *   -  Assumes M is even and M >= 4
- *   -  should b be an array of children or list (it would help with
- *      casting to make it a list)
+ *   -  keys are kept as references, so comparing a key still follows a
+ *      pointer; the contiguous key array of a node helps the search
+ *      itself, not the comparisons
  *
  ******************************************************************************/
 
 package com.afcrowther.algorithms.library;
 
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
 /**
  *  The {@code BTree} class represents an ordered symbol table of generic
  *  key-value pairs.
  *  It supports the <em>put</em>, <em>get</em>, <em>contains</em>,
- *  <em>size</em>, and <em>is-empty</em> methods.
+ *  <em>delete</em>, <em>size</em>, and <em>is-empty</em> methods.
+ *  It also provides ordered methods for finding the <em>minimum</em> and
+ *  <em>maximum</em> keys, and for iterating over the keys, all of them or
+ *  those in a given range.
  *  A symbol table implements the <em>associative array</em> abstraction:
  *  when associating a value with a key that is already in the symbol table,
  *  the convention is to replace the old value with the new value.
@@ -28,61 +35,167 @@ package com.afcrowther.algorithms.library;
  *  value associated with a key to {@code null} is equivalent to deleting the key
  *  from the symbol table.
  *  <p>
- *  This implementation uses a B-tree. It requires that
+ *  This implementation uses a B+ tree of a given <em>order</em> <em>m</em>:
+ *  every node holds at most <em>m</em>&minus;1 keys, in an array searched by
+ *  binary search, and every node but the root holds at least
+ *  &lfloor;(<em>m</em>&minus;1)/2&rfloor;. The key-value pairs are all in the
+ *  leaves, and each leaf links to the next, so the <em>keys</em> methods
+ *  stream through the leaves in order without going back up the tree.
+ *  A put that overfills a node splits it in two; a delete that underfills
+ *  one borrows a key from a sibling, or merges with it.
+ *  The order is 128 unless given; orders from 64 to 512 suit most keys.
+ *  It requires that
  *  the key type implements the {@code Comparable} interface and calls the
  *  {@code compareTo()} and method to compare two keys. It does not call either
  *  {@code equals()} or {@code hashCode()}.
- *  The <em>get</em>, <em>put</em>, and <em>contains</em> operations
- *  each make log<sub><em>m</em></sub>(<em>n</em>) probes in the worst case,
- *  where <em>n</em> is the number of key-value pairs
- *  and <em>m</em> is the branching factor.
+ *  The <em>get</em>, <em>put</em>, <em>contains</em>, <em>delete</em>,
+ *  <em>minimum</em>, and <em>maximum</em> operations
+ *  each visit log<sub><em>m</em>/2</sub>(<em>n</em>) nodes in the worst case,
+ *  where <em>n</em> is the number of key-value pairs,
+ *  and make log<sub>2</sub>(<em>m</em>) compares in each.
  *  The <em>size</em>, and <em>is-empty</em> operations take constant time.
- *  Construction takes constant time.
+ *  Construction takes constant time, or linear time when building the
+ *  tree from sorted arrays of keys and values.
  *  <p>
  *  For additional documentation, see
  *  <a href="http://algs4.cs.princeton.edu/62btree">Section 6.2</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
  */
 public class BTree<Key extends Comparable<Key>, Value>  {
-    // max children per B-tree node = M-1
-    // (must be even and greater than 2)
-    private static final int M = 4;
+    // order of the B-tree unless given
+    private static final int DEFAULT_ORDER = 128;
 
+    private final int order; // max children per internal node; max keys per node is order-1
+    private final int min;   // min keys per node other than the root
     private Node root;       // root of the B-tree
     private int height;      // height of the B-tree
     private int n;           // number of key-value pairs in the B-tree
 
+    private Node[] path = new Node[1];  // nodes from root to leaf in the last descent, by height
+    private int[] slot = new int[1];    // the child taken from each node of path
+
     // helper B-tree node data type
     private static final class Node {
-        private int m;                             // number of children
-        private Entry[] children = new Entry[M];   // the array of children
-
-        // create a node with k children
-        private Node(int k) {
-            m = k;
+        private int m;                  // number of keys
+        private final Comparable[] keys;// the keys, in order (one spare, for splitting)
+        private final Object[] vals;    // leaf: the values; internal: null
+        private final Node[] next;      // internal: the m+1 children; leaf: null
+        private Node right;             // leaf: the next leaf
+
+        // create an empty leaf or internal node of the given order
+        private Node(int order, boolean leaf) {
+            keys = new Comparable[order];
+            vals = leaf ? new Object[order] : null;
+            next = leaf ? null : new Node[order + 1];
         }
     }
 
-    // internal nodes: only use key and next
-    // external nodes: only use key and value
-    private static class Entry {
-        private Comparable key;
-        private Object val;
-        private Node next;     // helper field to iterate over array entries
-        public Entry(Comparable key, Object val, Node next) {
-            this.key  = key;
-            this.val  = val;
-            this.next = next;
+    /**
+     * Initializes an empty B-tree of order 128.
+     */
+    public BTree() {
+        this(DEFAULT_ORDER);
+    }
+
+    /**
+     * Initializes an empty B-tree of the given order.
+     *
+     * @param  order the maximum number of children of a node
+     * @throws IllegalArgumentException if {@code order < 4}
+     */
+    public BTree(int order) {
+        if (order < 4) throw new IllegalArgumentException("order must be at least 4");
+        this.order = order;
+        this.min = (order - 1) / 2;
+        root = new Node(order, true);
+    }
+
+    /**
+     * Initializes a B-tree of the given order holding the given keys and
+     * values, bottom up: the leaves are filled in key order, then each level
+     * of internal nodes above them, so it takes time linear in the number
+     * of keys. The nodes are filled as full as they can be, while keeping
+     * every node at least half full.
+     *
+     * @param  order the maximum number of children of a node
+     * @param  keys the keys, in strictly increasing order
+     * @param  vals the values, {@code vals[i]} being the value of {@code keys[i]}
+     * @throws IllegalArgumentException if {@code order < 4}, if the arrays
+     *         differ in length, or if the keys are not strictly increasing
+     * @throws NullPointerException if either array, or any key or value, is {@code null}
+     */
+    public BTree(int order, Key[] keys, Value[] vals) {
+        this(order);
+        if (keys.length != vals.length) throw new IllegalArgumentException("keys and vals differ in length");
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null) throw new NullPointerException("key must not be null");
+            if (vals[i] == null) throw new NullPointerException("value must not be null");
+            if (i > 0 && !less(keys[i-1], keys[i]))
+                throw new IllegalArgumentException("keys are not strictly increasing at index " + i);
+        }
+        if (keys.length == 0) return;
+
+        // the leaves: as few as hold order-1 keys each, sharing the keys evenly
+        int count = (keys.length + order - 2) / (order - 1);
+        Node[] level = new Node[count];
+        Comparable[] first = new Comparable[count];   // least key under each node of level
+        Node previous = null;
+        for (int i = 0, k = 0; i < count; i++) {
+            Node x = new Node(order, true);
+            x.m = share(keys.length, count, i);
+            System.arraycopy(keys, k, x.keys, 0, x.m);
+            System.arraycopy(vals, k, x.vals, 0, x.m);
+            k += x.m;
+            if (previous != null) previous.right = x;
+            previous = x;
+            level[i] = x;
+            first[i] = x.keys[0];
+        }
+
+        // the internal nodes: as few as have order children each, sharing them evenly
+        while (count > 1) {
+            int parents = (count + order - 1) / order;
+            Node[] up = new Node[parents];
+            Comparable[] upFirst = new Comparable[parents];
+            for (int i = 0, k = 0; i < parents; i++) {
+                Node x = new Node(order, false);
+                int children = share(count, parents, i);
+                System.arraycopy(level, k, x.next, 0, children);
+                System.arraycopy(first, k + 1, x.keys, 0, children - 1);
+                x.m = children - 1;
+                up[i] = x;
+                upFirst[i] = first[k];
+                k += children;
+            }
+            level = up;
+            first = upFirst;
+            count = parents;
+            height++;
         }
+        root = level[0];
+        n = keys.length;
+        assert check();
     }
 
     /**
-     * Initializes an empty B-tree.
+     * Initializes a B-tree of order 128 holding the given keys and values.
+     *
+     * @param  keys the keys, in strictly increasing order
+     * @param  vals the values, {@code vals[i]} being the value of {@code keys[i]}
+     * @throws IllegalArgumentException if the arrays differ in length, or if
+     *         the keys are not strictly increasing
+     * @throws NullPointerException if either array, or any key or value, is {@code null}
+     * @see    #BTree(int, Comparable[], Object[])
      */
-    public BTree() {
-        root = new Node(0);
+    public BTree(Key[] keys, Value[] vals) {
+        this(DEFAULT_ORDER, keys, vals);
+    }
+
+    // the number of items the ith of count nodes gets when sharing total evenly
+    private static int share(int total, int count, int i) {
+        return total / count + (i < total % count ? 1 : 0);
     }
- 
+
     /**
      * Returns true if this symbol table is empty.
      * @return {@code true} if this symbol table is empty; {@code false} otherwise
@@ -108,6 +221,56 @@ public class BTree<Key extends Comparable<Key>, Value>  {
         return height;
     }
 
+    /**
+     * Returns the order of this B-tree: the maximum number of children of a node.
+     *
+     * @return the order of this B-tree
+     */
+    public int order() {
+        return order;
+    }
+
+
+   /***************************************************************************
+    *  Search.
+    ***************************************************************************/
+
+    // the number of keys of x less than key
+    private static int rank(Node x, Comparable key) {
+        int lo = 0, hi = x.m - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = key.compareTo(x.keys[mid]);
+            if      (cmp < 0) hi = mid - 1;
+            else if (cmp > 0) lo = mid + 1;
+            else return mid;
+        }
+        return lo;
+    }
+
+    // the child of internal node x to search for key: keys equal to
+    // a separating key are in the subtree to its right
+    private static int child(Node x, Comparable key) {
+        int i = rank(x, key);
+        if (i < x.m && key.compareTo(x.keys[i]) == 0) i++;
+        return i;
+    }
+
+    // the leaf that would hold key, recording the way down in path and slot
+    private Node descend(Comparable key) {
+        if (path.length <= height) {
+            path = new Node[height + 1];
+            slot = new int[height + 1];
+        }
+        Node x = root;
+        for (int ht = height; ht > 0; ht--) {
+            int i = child(x, key);
+            path[ht] = x;
+            slot[ht] = i;
+            x = x.next[i];
+        }
+        return x;
+    }
 
     /**
      * Returns the value associated with the given key.
@@ -119,30 +282,31 @@ public class BTree<Key extends Comparable<Key>, Value>  {
      */
     public Value get(Key key) {
         if (key == null) throw new NullPointerException("key must not be null");
-        return search(root, key, height);
+        Node x = root;
+        for (int ht = height; ht > 0; ht--)
+            x = x.next[child(x, key)];
+        int i = rank(x, key);
+        if (i < x.m && eq(key, x.keys[i])) return (Value) x.vals[i];
+        return null;
     }
 
-    private Value search(Node x, Key key, int ht) {
-        Entry[] children = x.children;
-
-        // external node
-        if (ht == 0) {
-            for (int j = 0; j < x.m; j++) {
-                if (eq(key, children[j].key)) return (Value) children[j].val;
-            }
-        }
-
-        // internal node
-        else {
-            for (int j = 0; j < x.m; j++) {
-                if (j+1 == x.m || less(key, children[j+1].key))
-                    return search(children[j].next, key, ht-1);
-            }
-        }
-        return null;
+    /**
+     * Does this symbol table contain the given key?
+     *
+     * @param  key the key
+     * @return {@code true} if this symbol table contains {@code key} and
+     *         {@code false} otherwise
+     * @throws NullPointerException if {@code key} is {@code null}
+     */
+    public boolean contains(Key key) {
+        return get(key) != null;
     }
 
 
+   /***************************************************************************
+    *  Insertion.
+    ***************************************************************************/
+
     /**
      * Inserts the key-value pair into the symbol table, overwriting the old value
      * with the new value if the key is already in the symbol table.
@@ -154,59 +318,306 @@ public class BTree<Key extends Comparable<Key>, Value>  {
      */
     public void put(Key key, Value val) {
         if (key == null) throw new NullPointerException("key must not be null");
-        Node u = insert(root, key, val, height); 
+        if (val == null) {
+            delete(key);
+            return;
+        }
+
+        Node x = descend(key);
+        int i = rank(x, key);
+        if (i < x.m && eq(key, x.keys[i])) {
+            x.vals[i] = val;
+            return;
+        }
+        System.arraycopy(x.keys, i, x.keys, i + 1, x.m - i);
+        System.arraycopy(x.vals, i, x.vals, i + 1, x.m - i);
+        x.keys[i] = key;
+        x.vals[i] = val;
+        x.m++;
         n++;
-        if (u == null) return;
+        if (x.m < order) return;
+
+        // split the full nodes on the way back up
+        Node u = splitLeaf(x);
+        Comparable up = u.keys[0];
+        for (int ht = 1; ht <= height; ht++) {
+            Node h = path[ht];
+            int j = slot[ht];
+            System.arraycopy(h.keys, j, h.keys, j + 1, h.m - j);
+            System.arraycopy(h.next, j + 1, h.next, j + 2, h.m - j);
+            h.keys[j] = up;
+            h.next[j + 1] = u;
+            h.m++;
+            if (h.m < order) return;
+            up = h.keys[order / 2];
+            u = splitInternal(h);
+        }
 
         // need to split root
-        Node t = new Node(2);
-        t.children[0] = new Entry(root.children[0].key, null, root);
-        t.children[1] = new Entry(u.children[0].key, null, u);
+        Node t = new Node(order, false);
+        t.keys[0] = up;
+        t.next[0] = root;
+        t.next[1] = u;
+        t.m = 1;
         root = t;
         height++;
     }
 
-    private Node insert(Node h, Key key, Value val, int ht) {
-        int j;
-        Entry t = new Entry(key, val, null);
+    // split full leaf h in half, returning the new right half
+    private Node splitLeaf(Node h) {
+        int half = order / 2;
+        Node t = new Node(order, true);
+        t.m = order - half;
+        System.arraycopy(h.keys, half, t.keys, 0, t.m);
+        System.arraycopy(h.vals, half, t.vals, 0, t.m);
+        clear(h, half, order);
+        h.m = half;
+        t.right = h.right;
+        h.right = t;
+        return t;
+    }
 
-        // external node
-        if (ht == 0) {
-            for (j = 0; j < h.m; j++) {
-                if (less(key, h.children[j].key)) break;
-            }
+    // split full internal node h in half around its middle key, which the
+    // caller moves up; returns the new right half
+    private Node splitInternal(Node h) {
+        int half = order / 2;
+        Node t = new Node(order, false);
+        t.m = order - half - 1;
+        System.arraycopy(h.keys, half + 1, t.keys, 0, t.m);
+        System.arraycopy(h.next, half + 1, t.next, 0, t.m + 1);
+        clear(h, half, order);
+        h.m = half;
+        return t;
+    }
+
+    // drop the references in slots from..to-1 of h, and the children after them
+    private static void clear(Node h, int from, int to) {
+        for (int i = from; i < to; i++) {
+            h.keys[i] = null;
+            if (h.vals != null) h.vals[i] = null;
+            else                h.next[i + 1] = null;
+        }
+    }
+
+
+   /***************************************************************************
+    *  Deletion.
+    ***************************************************************************/
+
+    /**
+     * Removes the specified key and its associated value from this symbol table
+     * (if the key is in this symbol table).
+     *
+     * @param  key the key
+     * @throws NullPointerException if {@code key} is {@code null}
+     */
+    public void delete(Key key) {
+        if (key == null) throw new NullPointerException("key must not be null");
+        Node x = descend(key);
+        int i = rank(x, key);
+        if (i == x.m || !eq(key, x.keys[i])) return;
+        System.arraycopy(x.keys, i + 1, x.keys, i, x.m - i - 1);
+        System.arraycopy(x.vals, i + 1, x.vals, i, x.m - i - 1);
+        x.m--;
+        x.keys[x.m] = null;
+        x.vals[x.m] = null;
+        n--;
+
+        // refill the underfull nodes on the way back up
+        for (int ht = 1; ht <= height && x.m < min; ht++) {
+            Node h = path[ht];
+            int j = slot[ht];
+            Node left  = (j > 0)   ? h.next[j-1] : null;
+            Node right = (j < h.m) ? h.next[j+1] : null;
+            if      (left  != null && left.m  > min) borrowLeft(h, j, left, x);
+            else if (right != null && right.m > min) borrowRight(h, j, x, right);
+            else if (left  != null)                  merge(h, j-1, left, x);
+            else                                     merge(h, j, x, right);
+            x = h;
         }
 
-        // internal node
+        // the root lost its last key: its only child is the new root
+        if (height > 0 && root.m == 0) {
+            root = root.next[0];
+            height--;
+        }
+    }
+
+    // move the last key of left, the child of h before x, to x
+    private static void borrowLeft(Node h, int j, Node left, Node x) {
+        System.arraycopy(x.keys, 0, x.keys, 1, x.m);
+        if (x.vals != null) {
+            System.arraycopy(x.vals, 0, x.vals, 1, x.m);
+            x.keys[0] = left.keys[left.m - 1];
+            x.vals[0] = left.vals[left.m - 1];
+            h.keys[j-1] = x.keys[0];
+        }
         else {
-            for (j = 0; j < h.m; j++) {
-                if ((j+1 == h.m) || less(key, h.children[j+1].key)) {
-                    Node u = insert(h.children[j++].next, key, val, ht-1);
-                    if (u == null) return null;
-                    t.key = u.children[0].key;
-                    t.next = u;
-                    break;
-                }
-            }
+            System.arraycopy(x.next, 0, x.next, 1, x.m + 1);
+            x.keys[0] = h.keys[j-1];
+            x.next[0] = left.next[left.m];
+            h.keys[j-1] = left.keys[left.m - 1];
+        }
+        x.m++;
+        clear(left, left.m - 1, left.m);
+        left.m--;
+    }
+
+    // move the first key of right, the child of h after x, to x
+    private static void borrowRight(Node h, int j, Node x, Node right) {
+        if (x.vals != null) {
+            x.keys[x.m] = right.keys[0];
+            x.vals[x.m] = right.vals[0];
+            System.arraycopy(right.vals, 1, right.vals, 0, right.m - 1);
+            System.arraycopy(right.keys, 1, right.keys, 0, right.m - 1);
+            h.keys[j] = right.keys[0];
+            right.vals[right.m - 1] = null;
+        }
+        else {
+            x.keys[x.m] = h.keys[j];
+            x.next[x.m + 1] = right.next[0];
+            h.keys[j] = right.keys[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.m - 1);
+            System.arraycopy(right.next, 1, right.next, 0, right.m);
+            right.next[right.m] = null;
         }
+        x.m++;
+        right.m--;
+        right.keys[right.m] = null;
+    }
+
+    // merge right, the child of h after the jth key, into left, the child before it
+    private static void merge(Node h, int j, Node left, Node right) {
+        if (left.vals != null) {
+            System.arraycopy(right.keys, 0, left.keys, left.m, right.m);
+            System.arraycopy(right.vals, 0, left.vals, left.m, right.m);
+            left.m += right.m;
+            left.right = right.right;
+        }
+        else {
+            left.keys[left.m] = h.keys[j];
+            System.arraycopy(right.keys, 0, left.keys, left.m + 1, right.m);
+            System.arraycopy(right.next, 0, left.next, left.m + 1, right.m + 1);
+            left.m += right.m + 1;
+        }
+        System.arraycopy(h.keys, j + 1, h.keys, j, h.m - j - 1);
+        System.arraycopy(h.next, j + 2, h.next, j + 1, h.m - j - 1);
+        clear(h, h.m - 1, h.m);
+        h.m--;
+    }
+
+
+   /***************************************************************************
+    *  Ordered symbol table methods.
+    ***************************************************************************/
+
+    /**
+     * Returns the smallest key in the symbol table.
+     *
+     * @return the smallest key in the symbol table
+     * @throws NoSuchElementException if the symbol table is empty
+     */
+    public Key min() {
+        if (isEmpty()) throw new NoSuchElementException("called min() with empty symbol table");
+        Node x = root;
+        for (int ht = height; ht > 0; ht--)
+            x = x.next[0];
+        return (Key) x.keys[0];
+    }
+
+    /**
+     * Returns the largest key in the symbol table.
+     *
+     * @return the largest key in the symbol table
+     * @throws NoSuchElementException if the symbol table is empty
+     */
+    public Key max() {
+        if (isEmpty()) throw new NoSuchElementException("called max() with empty symbol table");
+        Node x = root;
+        for (int ht = height; ht > 0; ht--)
+            x = x.next[x.m];
+        return (Key) x.keys[x.m - 1];
+    }
 
-        for (int i = h.m; i > j; i--)
-            h.children[i] = h.children[i-1];
-        h.children[j] = t;
-        h.m++;
-        if (h.m < M) return null;
-        else         return split(h);
+    /**
+     * Returns all keys in the symbol table as an {@code Iterable}, in order.
+     * To iterate over all of the keys in the symbol table named {@code st},
+     * use the foreach notation: {@code for (Key key : st.keys())}.
+     * The keys are read from the leaves as the iteration goes, so the
+     * symbol table must not be changed during it.
+     *
+     * @return all keys in the symbol table as an {@code Iterable}
+     */
+    public Iterable<Key> keys() {
+        return new Iterable<Key>() {
+            public Iterator<Key> iterator() {
+                Node x = root;
+                for (int ht = height; ht > 0; ht--)
+                    x = x.next[0];
+                return new KeyIterator(x, 0, null);
+            }
+        };
+    }
+
+    /**
+     * Returns all keys in the symbol table in the given range, in order,
+     * as an {@code Iterable}. The iteration starts at the leaf holding
+     * {@code lo} and follows the links between leaves, so the symbol table
+     * must not be changed during it.
+     *
+     * @param  lo minimum endpoint
+     * @param  hi maximum endpoint
+     * @return all keys in the symbol table between {@code lo}
+     *    (inclusive) and {@code hi} (inclusive) as an {@code Iterable}
+     * @throws NullPointerException if either {@code lo} or {@code hi}
+     *    is {@code null}
+     */
+    public Iterable<Key> keys(final Key lo, final Key hi) {
+        if (lo == null) throw new NullPointerException("first argument to keys() is null");
+        if (hi == null) throw new NullPointerException("second argument to keys() is null");
+        return new Iterable<Key>() {
+            public Iterator<Key> iterator() {
+                Node x = root;
+                for (int ht = height; ht > 0; ht--)
+                    x = x.next[child(x, lo)];
+                return new KeyIterator(x, rank(x, lo), hi);
+            }
+        };
     }
 
-    // split node in half
-    private Node split(Node h) {
-        Node t = new Node(M/2);
-        h.m = M/2;
-        for (int j = 0; j < M/2; j++)
-            t.children[j] = h.children[M/2+j]; 
-        return t;    
+    // walks the leaves from the ith key of x, up to hi (or to the end if null)
+    private class KeyIterator implements Iterator<Key> {
+        private Node x;
+        private int i;
+        private final Key hi;
+
+        private KeyIterator(Node x, int i, Key hi) {
+            this.x = x;
+            this.i = i;
+            this.hi = hi;
+        }
+
+        public boolean hasNext() {
+            while (x != null && i == x.m) {
+                x = x.right;
+                i = 0;
+            }
+            if (x == null) return false;
+            if (hi != null && hi.compareTo((Key) x.keys[i]) < 0) x = null;
+            return x != null;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public Key next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return (Key) x.keys[i++];
+        }
     }
 
+
     /**
      * Returns a string representation of this B-tree (for debugging).
      *
@@ -218,17 +629,16 @@ public class BTree<Key extends Comparable<Key>, Value>  {
 
     private String toString(Node h, int ht, String indent) {
         StringBuilder s = new StringBuilder();
-        Entry[] children = h.children;
 
         if (ht == 0) {
             for (int j = 0; j < h.m; j++) {
-                s.append(indent + children[j].key + " " + children[j].val + "\n");
+                s.append(indent + h.keys[j] + " " + h.vals[j] + "\n");
             }
         }
         else {
-            for (int j = 0; j < h.m; j++) {
-                if (j > 0) s.append(indent + "(" + children[j].key + ")\n");
-                s.append(toString(children[j].next, ht-1, indent + "     "));
+            for (int j = 0; j <= h.m; j++) {
+                if (j > 0) s.append(indent + "(" + h.keys[j-1] + ")\n");
+                s.append(toString(h.next[j], ht-1, indent + "     "));
             }
         }
         return s.toString();
@@ -245,13 +655,91 @@ public class BTree<Key extends Comparable<Key>, Value>  {
     }
 
 
+   /***************************************************************************
+    *  Check integrity of B-tree data structure.
+    ***************************************************************************/
+    private boolean check() {
+        if (!isOrdered())  StdOut.println("Not in symmetric order");
+        if (!isFilled())   StdOut.println("Node too full or too empty");
+        if (!isBalanced()) StdOut.println("Not balanced");
+        if (!isLinked())   StdOut.println("Leaves not linked in order");
+        return isOrdered() && isFilled() && isBalanced() && isLinked();
+    }
+
+    // are the keys of every subtree strictly between its bounds?
+    // (lo inclusive, hi exclusive; null for no bound)
+    private boolean isOrdered() {
+        return isOrdered(root, height, null, null);
+    }
+
+    private boolean isOrdered(Node x, int ht, Comparable lo, Comparable hi) {
+        for (int i = 0; i < x.m; i++) {
+            if (i > 0 && !less(x.keys[i-1], x.keys[i])) return false;
+            if (lo != null && less(x.keys[i], lo)) return false;
+            if (hi != null && !less(x.keys[i], hi)) return false;
+        }
+        if (ht == 0) return true;
+        for (int i = 0; i <= x.m; i++) {
+            Comparable l = (i == 0)   ? lo : x.keys[i-1];
+            Comparable h = (i == x.m) ? hi : x.keys[i];
+            if (!isOrdered(x.next[i], ht-1, l, h)) return false;
+        }
+        return true;
+    }
+
+    // does every node but the root hold between min and order-1 keys,
+    // and do the leaves hold n keys in all?
+    private boolean isFilled() {
+        return isFilled(root, height) == n;
+    }
+
+    // the number of keys in the leaves under x, or -1 if a node is badly filled
+    private int isFilled(Node x, int ht) {
+        if (x.m >= order || (x != root && x.m < min)) return -1;
+        if (ht == 0) return x.m;
+        int count = 0;
+        for (int i = 0; i <= x.m; i++) {
+            int c = isFilled(x.next[i], ht-1);
+            if (c < 0) return -1;
+            count += c;
+        }
+        return count;
+    }
+
+    // are all leaves at the same depth, with internal nodes above them?
+    private boolean isBalanced() {
+        return isBalanced(root, height);
+    }
+
+    private boolean isBalanced(Node x, int ht) {
+        if (x == null) return false;
+        if (ht == 0) return x.vals != null;
+        if (x.vals != null) return false;
+        for (int i = 0; i <= x.m; i++)
+            if (!isBalanced(x.next[i], ht-1)) return false;
+        return true;
+    }
+
+    // do the leaf links visit all n keys in order?
+    private boolean isLinked() {
+        int count = 0;
+        Comparable last = null;
+        for (Key key : keys()) {
+            if (last != null && !less(last, key)) return false;
+            last = key;
+            count++;
+        }
+        return count == n;
+    }
+
+
     /**
      * Unit tests the {@code BTree} data type.
      *
      * @param args the command-line arguments
      */
     public static void main(String[] args) {
-        BTree<String, String> st = new BTree<String, String>();
+        BTree<String, String> st = new BTree<String, String>(4);
 
         st.put("www.cs.princeton.edu", "128.112.136.12");
         st.put("www.cs.princeton.edu", "128.112.136.11");
@@ -284,6 +772,19 @@ public class BTree<Key extends Comparable<Key>, Value>  {
         StdOut.println("height:  " + st.height());
         StdOut.println(st);
         StdOut.println();
+
+        StdOut.println("keys from www.d to www.n:");
+        for (String key : st.keys("www.d", "www.n"))
+            StdOut.println("  " + key);
+        StdOut.println();
+
+        st.delete("www.cnn.com");
+        st.delete("www.dell.com");
+        st.delete("www.ebay.com");
+        StdOut.println("after deleting cnn.com, dell.com and ebay.com:");
+        StdOut.println("size:    " + st.size());
+        StdOut.println("height:  " + st.height());
+        StdOut.println(st);
     }
 
 }
@@ -92,6 +92,7 @@ public class BellmanFordSP {
     private void relax(EdgeWeightedDigraph G, int v) {
         for (DirectedEdge e : G.adj(v)) {
             int w = e.to();
+            Probes.count("BellmanFordSP", Probe.Event.EDGE_RELAXATION);
             if (distTo[w] > distTo[v] + e.weight()) {
                 distTo[w] = distTo[v] + e.weight();
                 edgeTo[w] = e;
@@ -59,13 +59,19 @@ public class BinarySearch {
         while (lo <= hi) {
             // Key is in a[lo..hi] or not present.
             int mid = lo + (hi - lo) / 2;
-            if      (key < a[mid]) hi = mid - 1;
-            else if (key > a[mid]) lo = mid + 1;
+            if      (less(key, a[mid])) hi = mid - 1;
+            else if (less(a[mid], key)) lo = mid + 1;
             else return mid;
         }
         return -1;
     }
 
+    // is v < w ?
+    private static boolean less(int v, int w) {
+        Probes.count("BinarySearch", Probe.Event.COMPARE);
+        return v < w;
+    }
+
     /**
      * Returns the index of the specified key in the specified array.
      * This function is poorly named because it does not give the <em>rank</em>
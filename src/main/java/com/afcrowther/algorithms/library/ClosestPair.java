@@ -1,7 +1,7 @@
 /******************************************************************************
  *  Compilation:  javac ClosestPair.java
  *  Execution:    java ClosestPair < input.txt
- *  Dependencies: Point2D.java
+ *  Dependencies: Point2D.java KeySort.java
  *  Data files:   http://algs4.cs.princeton.edu/99hull/rs1423.txt
  *                http://algs4.cs.princeton.edu/99hull/kw1260.txt
  *  
@@ -14,8 +14,6 @@
 
 package com.afcrowther.algorithms.library;
 
-import java.util.Arrays;
-
 /**
  *  The {@code ClosestPair} data type computes a closest pair of points
  *  in a set of <em>n</em> points in the plane and provides accessor methods 
@@ -53,9 +51,12 @@ public class ClosestPair {
 
         // sort by x-coordinate (breaking ties by y-coordinate)
         Point2D[] pointsByX = new Point2D[n];
-        for (int i = 0; i < n; i++)
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
             pointsByX[i] = points[i];
-        Arrays.sort(pointsByX, Point2D.X_ORDER);
+            x[i] = points[i].x();
+        }
+        KeySort.sort(pointsByX, x, true);
 
         // check for coincident points
         for (int i = 0; i < n-1; i++) {
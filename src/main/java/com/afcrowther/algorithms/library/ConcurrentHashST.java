@@ -0,0 +1,426 @@
+/******************************************************************************
+ *  Compilation:  javac ConcurrentHashST.java
+ *  Execution:    java ConcurrentHashST < input.txt
+ *  Dependencies: StdIn.java StdOut.java
+ *  Data files:   http://algs4.cs.princeton.edu/34hash/tinyST.txt
+ *
+ *  A thread-safe symbol table implemented with a separate-chaining hash
+ *  table whose chains are updated under per-chain locks.
+ *
+ *  % java ConcurrentHashST < tinyST.txt
+ *  P 10
+ *  A 8
+ *  R 3
+ *  S 0
+ *  C 4
+ *  E 12
+ *  H 5
+ *  X 7
+ *  L 11
+ *  M 9
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.library;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *  The {@code ConcurrentHashST} class represents a symbol table of generic
+ *  key-value pairs that any number of threads may use at the same time.
+ *  It supports the usual <em>put</em>, <em>get</em>, <em>contains</em>,
+ *  <em>delete</em>, <em>size</em>, and <em>is-empty</em> methods.
+ *  It also provides a <em>keys</em> method for iterating over all of the keys.
+ *  Like {@link SeparateChainingHashST}, it uses the convention that values
+ *  cannot be {@code null}&mdash;setting the value associated with a key to
+ *  {@code null} is equivalent to deleting the key from the symbol table.
+ *  <p>
+ *  This implementation uses a separate chaining hash table, like
+ *  {@link SeparateChainingHashST}, in which each chain is locked on its own.
+ *  A <em>get</em> takes no locks at all: it follows the volatile links of
+ *  the chain. A <em>put</em> into an empty chain installs the new node with a
+ *  single compare-and-set; any other <em>put</em> or <em>delete</em> locks
+ *  the first node of its chain, so that threads updating different chains
+ *  never wait for each other. The number of key-value pairs is kept in a
+ *  {@link LongAdder}, which threads update without contending.
+ *  <p>
+ *  When there are three-quarters as many keys as chains, the table doubles.
+ *  Resizing does not block readers or stop the other writers: threads claim
+ *  blocks of chains to move to the new table, and each moved chain is replaced
+ *  by a forwarding node that sends later operations to the new table. Any
+ *  thread that meets a forwarding node while the move is underway helps to
+ *  finish it. The table does not shrink.
+ *  <p>
+ *  The <em>keys</em> iterator is weakly consistent: it returns every key
+ *  that is in the table for the whole iteration, and may or may not return
+ *  keys added or deleted while it runs; it never throws
+ *  {@link java.util.ConcurrentModificationException}. The <em>size</em>
+ *  is exact when no thread is changing the table, and an estimate otherwise.
+ *  <p>
+ *  The expected time per <em>put</em>, <em>contains</em>, or <em>delete</em>
+ *  operation is constant, subject to the uniform hashing assumption.
+ *  This class requires that the key type overrides the {@code equals()} and
+ *  {@code hashCode()} methods, and that keys are not modified while they
+ *  are in the table.
+ *
+ *  @param <Key> the type of the keys
+ *  @param <Value> the type of the values
+ */
+public class ConcurrentHashST<Key, Value> {
+    private static final int INIT_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int MOVED = -1;        // hash of a forwarding node
+    private static final int STRIDE = 64;       // chains moved per claim during a resize
+
+    private volatile Table<Key, Value> table;       // the current hash table
+    private final LongAdder n = new LongAdder();    // number of key-value pairs
+
+    // a hash table; next is the table it is being moved to, if any
+    private static class Table<Key, Value> {
+        private final AtomicReferenceArray<Node<Key, Value>> chains;
+        private final AtomicReference<Table<Key, Value>> next = new AtomicReference<Table<Key, Value>>();
+        private final AtomicInteger claimed = new AtomicInteger();  // chains claimed for moving
+        private final AtomicInteger moved = new AtomicInteger();    // chains moved
+
+        Table(int m) {
+            chains = new AtomicReferenceArray<Node<Key, Value>>(m);
+        }
+    }
+
+    // linked-list node; only key and hash are fixed
+    private static class Node<Key, Value> {
+        private final int hash;
+        private final Key key;
+        private volatile Value val;
+        private volatile Node<Key, Value> next;
+
+        Node(int hash, Key key, Value val, Node<Key, Value> next) {
+            this.hash = hash;
+            this.key = key;
+            this.val = val;
+            this.next = next;
+        }
+    }
+
+    // first node of a chain that has been moved to the table being resized into
+    private static class Forward<Key, Value> extends Node<Key, Value> {
+        private final Table<Key, Value> table;
+
+        Forward(Table<Key, Value> table) {
+            super(MOVED, null, null, null);
+            this.table = table;
+        }
+    }
+
+    /**
+     * Initializes an empty symbol table.
+     */
+    public ConcurrentHashST() {
+        this(INIT_CAPACITY);
+    }
+
+    /**
+     * Initializes an empty symbol table with at least {@code m} chains.
+     *
+     * @param  m the initial number of chains
+     * @throws IllegalArgumentException if {@code m < 1}
+     */
+    public ConcurrentHashST(int m) {
+        if (m < 1) throw new IllegalArgumentException("number of chains must be positive");
+        int chains = 1;
+        while (chains < m && chains < MAX_CAPACITY)
+            chains *= 2;
+        table = new Table<Key, Value>(chains);
+    }
+
+    // spread the high-order bits of the hash code downwards; never negative
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & 0x7fffffff;
+    }
+
+    /**
+     * Returns the number of key-value pairs in this symbol table.
+     *
+     * @return the number of key-value pairs in this symbol table
+     */
+    public int size() {
+        long size = n.sum();
+        if (size < 0) return 0;
+        if (size > Integer.MAX_VALUE) return Integer.MAX_VALUE;
+        return (int) size;
+    }
+
+    /**
+     * Returns true if this symbol table is empty.
+     *
+     * @return {@code true} if this symbol table is empty;
+     *         {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns true if this symbol table contains the specified key.
+     *
+     * @param  key the key
+     * @return {@code true} if this symbol table contains {@code key};
+     *         {@code false} otherwise
+     * @throws NullPointerException if {@code key} is {@code null}
+     */
+    public boolean contains(Key key) {
+        if (key == null) throw new NullPointerException("argument to contains() is null");
+        return get(key) != null;
+    }
+
+    /**
+     * Returns the value associated with the specified key in this symbol table.
+     *
+     * @param  key the key
+     * @return the value associated with {@code key} in the symbol table;
+     *         {@code null} if no such value
+     * @throws NullPointerException if {@code key} is {@code null}
+     */
+    public Value get(Key key) {
+        if (key == null) throw new NullPointerException("argument to get() is null");
+        int h = hash(key);
+        Table<Key, Value> t = table;
+        while (true) {
+            Node<Key, Value> x = t.chains.get(h & (t.chains.length() - 1));
+            if (x instanceof Forward) {
+                t = ((Forward<Key, Value>) x).table;
+                continue;
+            }
+            for (; x != null; x = x.next)
+                if (x.hash == h && key.equals(x.key)) return x.val;
+            return null;
+        }
+    }
+
+    /**
+     * Inserts the specified key-value pair into the symbol table, overwriting the old
+     * value with the new value if the symbol table already contains the specified key.
+     * Deletes the specified key (and its associated value) from this symbol table
+     * if the specified value is {@code null}.
+     *
+     * @param  key the key
+     * @param  val the value
+     * @throws NullPointerException if {@code key} is {@code null}
+     */
+    public void put(Key key, Value val) {
+        if (key == null) throw new NullPointerException("first argument to put() is null");
+        if (val == null) {
+            delete(key);
+            return;
+        }
+
+        int h = hash(key);
+        Table<Key, Value> t = table;
+        while (true) {
+            int i = h & (t.chains.length() - 1);
+            Node<Key, Value> first = t.chains.get(i);
+
+            // empty chain: no lock needed
+            if (first == null) {
+                if (t.chains.compareAndSet(i, null, new Node<Key, Value>(h, key, val, null))) break;
+                continue;
+            }
+
+            // chain has moved: help finish the resize, then retry in the new table
+            if (first instanceof Forward) {
+                t = help(t);
+                continue;
+            }
+
+            synchronized (first) {
+                if (t.chains.get(i) != first) continue;     // moved or deleted meanwhile
+                Node<Key, Value> x = first;
+                while (true) {
+                    if (x.hash == h && key.equals(x.key)) {
+                        x.val = val;
+                        return;
+                    }
+                    if (x.next == null) break;
+                    x = x.next;
+                }
+                x.next = new Node<Key, Value>(h, key, val, null);
+                break;
+            }
+        }
+
+        n.increment();
+
+        // double table size if 75% full
+        t = table;
+        int m = t.chains.length();
+        if (m < MAX_CAPACITY && n.sum() >= m - m/4) resize(t);
+    }
+
+    /**
+     * Removes the specified key and its associated value from this symbol table
+     * (if the key is in this symbol table).
+     *
+     * @param  key the key
+     * @throws NullPointerException if {@code key} is {@code null}
+     */
+    public void delete(Key key) {
+        if (key == null) throw new NullPointerException("argument to delete() is null");
+
+        int h = hash(key);
+        Table<Key, Value> t = table;
+        while (true) {
+            int i = h & (t.chains.length() - 1);
+            Node<Key, Value> first = t.chains.get(i);
+            if (first == null) return;
+            if (first instanceof Forward) {
+                t = help(t);
+                continue;
+            }
+
+            synchronized (first) {
+                if (t.chains.get(i) != first) continue;
+                for (Node<Key, Value> x = first, previous = null; x != null; previous = x, x = x.next) {
+                    if (x.hash == h && key.equals(x.key)) {
+                        if (previous == null) t.chains.set(i, x.next);
+                        else                  previous.next = x.next;
+                        n.decrement();
+                        return;
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    // start moving t to a table twice its size, unless that has begun, and help
+    private void resize(Table<Key, Value> t) {
+        if (t.next.get() == null)
+            t.next.compareAndSet(null, new Table<Key, Value>(2 * t.chains.length()));
+        move(t, t.next.get());
+    }
+
+    // help move t to the table it is being resized into; return that table
+    private Table<Key, Value> help(Table<Key, Value> t) {
+        Table<Key, Value> next = t.next.get();
+        move(t, next);
+        return next;
+    }
+
+    // claim blocks of chains of t and move them to next, until none are left
+    private void move(Table<Key, Value> t, Table<Key, Value> next) {
+        int m = t.chains.length();
+        Forward<Key, Value> forward = new Forward<Key, Value>(next);
+        while (true) {
+            int lo = t.claimed.getAndAdd(STRIDE);
+            if (lo >= m) return;
+            int hi = Math.min(lo + STRIDE, m);
+            for (int i = lo; i < hi; i++)
+                move(t, next, i, forward);
+
+            // the thread that moves the last chain makes next the current table
+            if (t.moved.addAndGet(hi - lo) == m) table = next;
+        }
+    }
+
+    // move chain i of t to chains i and i+m of next, and leave a forwarding node
+    private void move(Table<Key, Value> t, Table<Key, Value> next, int i, Forward<Key, Value> forward) {
+        int m = t.chains.length();
+        while (true) {
+            Node<Key, Value> first = t.chains.get(i);
+            if (first == null) {
+                if (t.chains.compareAndSet(i, null, forward)) return;
+                continue;
+            }
+            synchronized (first) {
+                if (t.chains.get(i) != first) continue;
+
+                // copy the nodes, so that readers still in the old chain can finish
+                Node<Key, Value> lo = null, hi = null;
+                for (Node<Key, Value> x = first; x != null; x = x.next) {
+                    if ((x.hash & m) == 0) lo = new Node<Key, Value>(x.hash, x.key, x.val, lo);
+                    else                   hi = new Node<Key, Value>(x.hash, x.key, x.val, hi);
+                }
+                next.chains.set(i, lo);
+                next.chains.set(i + m, hi);
+                t.chains.set(i, forward);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns all keys in this symbol table as an {@code Iterable}.
+     * The iterator is weakly consistent: it returns each key that is in the
+     * symbol table throughout the iteration exactly once, and may or may not
+     * return keys that are added or deleted while it runs.
+     *
+     * @return all keys in this symbol table
+     */
+    public Iterable<Key> keys() {
+        return new Iterable<Key>() {
+            public Iterator<Key> iterator() {
+                return new KeyIterator();
+            }
+        };
+    }
+
+    // visits the chains of the table at the time of the call, one at a time,
+    // following forwarding nodes to the chains they were moved to
+    private class KeyIterator implements Iterator<Key> {
+        private final Table<Key, Value> t = table;
+        private final Queue<Key> chain = new Queue<Key>();  // keys of the current chain
+        private int i = 0;                                  // next chain of t
+
+        public boolean hasNext() {
+            while (chain.isEmpty() && i < t.chains.length())
+                collect(t, i++);
+            return !chain.isEmpty();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public Key next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return chain.dequeue();
+        }
+
+        // enqueue the keys of chain i of table u, wherever it has been moved to
+        private void collect(Table<Key, Value> u, int i) {
+            Node<Key, Value> x = u.chains.get(i);
+            if (x instanceof Forward) {
+                Table<Key, Value> next = ((Forward<Key, Value>) x).table;
+                collect(next, i);
+                collect(next, i + u.chains.length());
+                return;
+            }
+            for (; x != null; x = x.next)
+                chain.enqueue(x.key);
+        }
+    }
+
+
+    /**
+     * Unit tests the {@code ConcurrentHashST} data type.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        ConcurrentHashST<String, Integer> st = new ConcurrentHashST<String, Integer>();
+        for (int i = 0; !StdIn.isEmpty(); i++) {
+            String key = StdIn.readString();
+            st.put(key, i);
+        }
+
+        // print keys
+        for (String s : st.keys())
+            StdOut.println(s + " " + st.get(s));
+    }
+}
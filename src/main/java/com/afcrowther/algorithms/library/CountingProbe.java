@@ -0,0 +1,240 @@
+/******************************************************************************
+ *  Compilation:  javac CountingProbe.java
+ *  Execution:    java -Dcom.afcrowther.algorithms.probes=true CountingProbe n [json|csv]
+ *  Dependencies: Probe.java Probes.java Quick.java Merge.java BinarySearch.java
+ *                DijkstraSP.java BellmanFordSP.java EdgeWeightedDigraph.java
+ *                StdRandom.java StdOut.java
+ *
+ *  Counts the operations performed by the instrumented algorithms.
+ *
+ *  % java -Dcom.afcrowther.algorithms.probes=true CountingProbe 1000 csv
+ *  algorithm,kind,name,bucket,count
+ *  BellmanFordSP,counter,EDGE_RELAXATION,,18754
+ *  BinarySearch,counter,COMPARE,,14544
+ *  DijkstraSP,counter,EDGE_RELAXATION,,8000
+ *  DijkstraSP,counter,PQ_INSERT,,1000
+ *  ...
+ *  Quick,histogram,partition size,512,3
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.library;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ *  The {@code CountingProbe} class is a {@link Probe} that keeps, for every
+ *  algorithm, the total number of operations of each kind and a histogram of
+ *  each sampled quantity.
+ *  <p>
+ *  Histograms have power-of-two buckets: bucket <em>b</em> &gt; 0 counts the
+ *  values in [2<sup><em>b</em>-1</sup>, 2<sup><em>b</em></sup>), and bucket 0
+ *  counts the values &le; 0. The results can be exported as JSON or CSV.
+ *  <p>
+ *  This implementation is thread-safe; counting costs an atomic add.
+ */
+public class CountingProbe implements Probe {
+    private static final int BUCKETS = 65;
+
+    // algorithm -> counts indexed by Event.ordinal()
+    private final ConcurrentSkipListMap<String, AtomicLongArray> counters =
+        new ConcurrentSkipListMap<String, AtomicLongArray>();
+
+    // algorithm -> metric -> histogram
+    private final ConcurrentSkipListMap<String, ConcurrentSkipListMap<String, AtomicLongArray>> histograms =
+        new ConcurrentSkipListMap<String, ConcurrentSkipListMap<String, AtomicLongArray>>();
+
+    /**
+     * Initializes a probe with all counts zero.
+     */
+    public CountingProbe() { }
+
+    @Override
+    public void count(String algorithm, Probe.Event event, long n) {
+        AtomicLongArray count = counters.get(algorithm);
+        if (count == null) {
+            counters.putIfAbsent(algorithm, new AtomicLongArray(Probe.Event.values().length));
+            count = counters.get(algorithm);
+        }
+        count.addAndGet(event.ordinal(), n);
+    }
+
+    @Override
+    public void sample(String algorithm, String metric, long value) {
+        ConcurrentSkipListMap<String, AtomicLongArray> metrics = histograms.get(algorithm);
+        if (metrics == null) {
+            histograms.putIfAbsent(algorithm, new ConcurrentSkipListMap<String, AtomicLongArray>());
+            metrics = histograms.get(algorithm);
+        }
+        AtomicLongArray histogram = metrics.get(metric);
+        if (histogram == null) {
+            metrics.putIfAbsent(metric, new AtomicLongArray(BUCKETS));
+            histogram = metrics.get(metric);
+        }
+        histogram.incrementAndGet(bucket(value));
+    }
+
+    // 0 for values <= 0, else 1 + floor(lg value)
+    private static int bucket(long value) {
+        if (value <= 0) return 0;
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Returns the number of operations of the given kind counted for the given algorithm.
+     *
+     * @param  algorithm the name of the algorithm
+     * @param  event the kind of operation
+     * @return the number of operations counted
+     */
+    public long count(String algorithm, Probe.Event event) {
+        AtomicLongArray count = counters.get(algorithm);
+        if (count == null) return 0;
+        return count.get(event.ordinal());
+    }
+
+    /**
+     * Resets all counts and histograms to zero.
+     */
+    public void reset() {
+        counters.clear();
+        histograms.clear();
+    }
+
+    /**
+     * Returns the counts and histograms as a JSON object, keyed by algorithm.
+     * Each algorithm has a {@code "counters"} object mapping each kind of operation
+     * to its count, and a {@code "histograms"} object mapping each metric to an
+     * object from bucket lower bound to count (empty buckets are omitted).
+     *
+     * @return the counts and histograms in JSON
+     */
+    public String toJSON() {
+        StringBuilder s = new StringBuilder("{");
+        String separator = "";
+        for (String algorithm : algorithms()) {
+            s.append(separator).append('\n').append("  ").append(quote(algorithm)).append(": {");
+            separator = ",";
+
+            s.append("\n    \"counters\": {");
+            AtomicLongArray count = counters.get(algorithm);
+            String comma = "";
+            if (count != null) {
+                for (Probe.Event event : Probe.Event.values()) {
+                    if (count.get(event.ordinal()) == 0) continue;
+                    s.append(comma).append(quote(event.name())).append(": ").append(count.get(event.ordinal()));
+                    comma = ", ";
+                }
+            }
+            s.append("},");
+
+            s.append("\n    \"histograms\": {");
+            ConcurrentSkipListMap<String, AtomicLongArray> metrics = histograms.get(algorithm);
+            comma = "";
+            if (metrics != null) {
+                for (Map.Entry<String, AtomicLongArray> metric : metrics.entrySet()) {
+                    s.append(comma).append(quote(metric.getKey())).append(": {");
+                    comma = ", ";
+                    AtomicLongArray histogram = metric.getValue();
+                    String inner = "";
+                    for (int b = 0; b < BUCKETS; b++) {
+                        if (histogram.get(b) == 0) continue;
+                        s.append(inner).append(quote(Long.toString(lowerBound(b)))).append(": ").append(histogram.get(b));
+                        inner = ", ";
+                    }
+                    s.append('}');
+                }
+            }
+            s.append("}\n  }");
+        }
+        return s.append("\n}").toString();
+    }
+
+    /**
+     * Returns the counts and histograms as CSV with the columns
+     * {@code algorithm,kind,name,bucket,count}. Counters have kind {@code counter}
+     * and an empty bucket; histogram rows have kind {@code histogram} and the
+     * lower bound of the bucket. Empty counters and buckets are omitted.
+     *
+     * @return the counts and histograms in CSV
+     */
+    public String toCSV() {
+        StringBuilder s = new StringBuilder("algorithm,kind,name,bucket,count\n");
+        for (String algorithm : algorithms()) {
+            AtomicLongArray count = counters.get(algorithm);
+            if (count != null) {
+                for (Probe.Event event : Probe.Event.values()) {
+                    if (count.get(event.ordinal()) == 0) continue;
+                    s.append(algorithm).append(",counter,").append(event.name()).append(",,")
+                     .append(count.get(event.ordinal())).append('\n');
+                }
+            }
+            ConcurrentSkipListMap<String, AtomicLongArray> metrics = histograms.get(algorithm);
+            if (metrics != null) {
+                for (Map.Entry<String, AtomicLongArray> metric : metrics.entrySet()) {
+                    AtomicLongArray histogram = metric.getValue();
+                    for (int b = 0; b < BUCKETS; b++) {
+                        if (histogram.get(b) == 0) continue;
+                        s.append(algorithm).append(",histogram,").append(metric.getKey()).append(',')
+                         .append(lowerBound(b)).append(',').append(histogram.get(b)).append('\n');
+                    }
+                }
+            }
+        }
+        return s.toString();
+    }
+
+    // every algorithm with a counter or a histogram, in sorted order
+    private Iterable<String> algorithms() {
+        SET<String> names = new SET<String>();
+        for (String algorithm : counters.keySet())   names.add(algorithm);
+        for (String algorithm : histograms.keySet()) names.add(algorithm);
+        return names;
+    }
+
+    // smallest value in bucket b
+    private static long lowerBound(int b) {
+        if (b == 0) return 0;
+        return 1L << (b - 1);
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * Runs each instrumented algorithm on random inputs of size {@code n}
+     * and prints the operation counts as JSON (the default) or CSV.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        boolean csv = args.length > 1 && args[1].equals("csv");
+
+        CountingProbe probe = new CountingProbe();
+        Probes.install(probe);
+
+        Double[] a = new Double[n];
+        for (int i = 0; i < n; i++)
+            a[i] = StdRandom.uniform();
+        Double[] b = a.clone();
+        Quick.sort(a);
+        Merge.sort(b);
+
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++)
+            keys[i] = 2*i;
+        for (int i = 0; i < n; i++)
+            BinarySearch.indexOf(keys, StdRandom.uniform(2*n));
+
+        EdgeWeightedDigraph G = new EdgeWeightedDigraph(n, 8*n);
+        new DijkstraSP(G, 0);
+        new BellmanFordSP(G, 0);
+
+        Probes.uninstall();
+        StdOut.println(csv ? probe.toCSV() : probe.toJSON());
+    }
+}
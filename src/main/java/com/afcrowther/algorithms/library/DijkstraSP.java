@@ -80,8 +80,10 @@ public class DijkstraSP {
         // relax vertices in order of distance from s
         pq = new IndexMinPQ<Double>(G.V());
         pq.insert(s, distTo[s]);
+        Probes.count("DijkstraSP", Probe.Event.PQ_INSERT);
         while (!pq.isEmpty()) {
             int v = pq.delMin();
+            Probes.count("DijkstraSP", Probe.Event.PQ_DEL_MIN);
             for (DirectedEdge e : G.adj(v))
                 relax(e);
         }
@@ -93,11 +95,18 @@ public class DijkstraSP {
     // relax edge e and update pq if changed
     private void relax(DirectedEdge e) {
         int v = e.from(), w = e.to();
+        Probes.count("DijkstraSP", Probe.Event.EDGE_RELAXATION);
         if (distTo[w] > distTo[v] + e.weight()) {
             distTo[w] = distTo[v] + e.weight();
             edgeTo[w] = e;
-            if (pq.contains(w)) pq.decreaseKey(w, distTo[w]);
-            else                pq.insert(w, distTo[w]);
+            if (pq.contains(w)) {
+                pq.decreaseKey(w, distTo[w]);
+                Probes.count("DijkstraSP", Probe.Event.PQ_CHANGE_KEY);
+            }
+            else {
+                pq.insert(w, distTo[w]);
+                Probes.count("DijkstraSP", Probe.Event.PQ_INSERT);
+            }
         }
     }
 
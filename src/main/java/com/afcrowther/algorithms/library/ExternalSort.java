@@ -0,0 +1,436 @@
+/******************************************************************************
+ *  Compilation:  javac ExternalSort.java
+ *  Execution:    java ExternalSort input output [memory MB] [threads] [record size]
+ *  Dependencies: MergeX.java IndexMinPQ.java Stopwatch.java StdOut.java
+ *
+ *  Sorts a file that may be larger than the heap: sorts runs that fit in
+ *  memory in parallel, spills them to temporary files, and merges the runs
+ *  with a multiway merge, as in Multiway.java.
+ *
+ *  Sorts newline-terminated lines, or fixed-length binary records if a
+ *  record size is given, in unsigned byte order (which for UTF-8 text is
+ *  the order of the Unicode code points).
+ *
+ *  % java ExternalSort lines.txt sorted.txt 1 3
+ *  sorted 5172697 bytes in 1.258 seconds
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.library;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ *  The {@code ExternalSort} class sorts files of records that do not fit in
+ *  memory. A record is either a line of text (without its terminating newline)
+ *  or a fixed number of bytes, and records are compared as {@code byte[]}
+ *  arrays by a given comparator.
+ *  <p>
+ *  The sort runs in two phases. The first phase reads the input into runs
+ *  that fit in the memory budget, sorts each run with {@link MergeX} and
+ *  writes it to a temporary file; up to {@code parallelism} runs are sorted
+ *  and written at the same time, while the next run is being read. The second
+ *  phase merges the runs with an {@link IndexMinPQ}, as {@link Multiway} does,
+ *  reading each run through its own buffer. If there are too many runs to give
+ *  each one a buffer within the budget, or more than 512, groups of runs are
+ *  first merged into longer runs, so that a merge never holds more files open
+ *  than the usual limit of 1024 file descriptors per process allows. The sort is stable: records that compare equal keep their
+ *  order from the input.
+ *  <p>
+ *  All file access goes through {@link FileChannel}s with direct buffers of
+ *  {@code BUFFER_SIZE} bytes. The memory budget is approximate: it counts the
+ *  bytes of every record plus a fixed per-record overhead for the array header
+ *  and references.
+ */
+public class ExternalSort {
+
+    /**
+     * The size, in bytes, of the buffer of each file being read or written.
+     */
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int MAX_FAN_IN = 512;      // most runs merged at once, each an open file
+
+    /**
+     * Compares records as unsigned bytes, in lexicographic order.
+     */
+    public static final Comparator<byte[]> UNSIGNED_BYTES = (v, w) -> {
+        int n = Math.min(v.length, w.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = (v[i] & 0xFF) - (w[i] & 0xFF);
+            if (cmp != 0) return cmp;
+        }
+        return v.length - w.length;
+    };
+
+    private static final int RECORD_OVERHEAD = 48;  // estimated bytes per record besides its contents
+    private static final byte NEWLINE = '\n';
+
+    private final Comparator<byte[]> comparator;
+    private final long memory;          // memory budget in bytes
+    private final int parallelism;      // number of runs sorted at the same time
+    private final Path tempDir;         // where the runs are spilled
+
+    /**
+     * Initializes an external sort that orders records with {@code comparator}.
+     *
+     * @param  comparator the order of the records
+     * @param  memory the approximate number of bytes to use for records in memory
+     * @param  parallelism the number of runs to sort at the same time
+     * @param  tempDir the directory for the temporary run files
+     * @throws IllegalArgumentException if {@code parallelism < 1}, or if
+     *         {@code memory} is less than {@code 4 * BUFFER_SIZE}
+     */
+    public ExternalSort(Comparator<byte[]> comparator, long memory, int parallelism, Path tempDir) {
+        if (comparator == null) throw new NullPointerException("comparator must not be null");
+        if (tempDir == null) throw new NullPointerException("temporary directory must not be null");
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be positive");
+        if (memory < 4L * BUFFER_SIZE) throw new IllegalArgumentException("memory must be at least " + 4 * BUFFER_SIZE + " bytes");
+        this.comparator = comparator;
+        this.memory = memory;
+        this.parallelism = parallelism;
+        this.tempDir = tempDir;
+    }
+
+    /**
+     * Initializes an external sort that orders records with {@code comparator},
+     * and spills runs to the default temporary-file directory.
+     *
+     * @param  comparator the order of the records
+     * @param  memory the approximate number of bytes to use for records in memory
+     * @param  parallelism the number of runs to sort at the same time
+     * @throws IllegalArgumentException if {@code parallelism < 1}, or if
+     *         {@code memory} is less than {@code 4 * BUFFER_SIZE}
+     */
+    public ExternalSort(Comparator<byte[]> comparator, long memory, int parallelism) {
+        this(comparator, memory, parallelism, Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Sorts the lines of {@code input} into {@code output}. Every output line
+     * ends with a newline, even if the last input line does not.
+     *
+     * @param  input the file to sort
+     * @param  output the file to write the sorted lines to
+     * @throws IOException if reading, writing or spilling fails
+     */
+    public void sortLines(Path input, Path output) throws IOException {
+        sort(input, output, 0);
+    }
+
+    /**
+     * Sorts the fixed-length records of {@code input} into {@code output}.
+     *
+     * @param  input the file to sort
+     * @param  output the file to write the sorted records to
+     * @param  recordSize the number of bytes in each record
+     * @throws IllegalArgumentException if {@code recordSize < 1}, or if the
+     *         length of {@code input} is not a multiple of {@code recordSize}
+     * @throws IOException if reading, writing or spilling fails
+     */
+    public void sortRecords(Path input, Path output, int recordSize) throws IOException {
+        if (recordSize < 1) throw new IllegalArgumentException("record size must be positive");
+        sort(input, output, recordSize);
+    }
+
+    // sort input into output; recordSize = 0 for lines
+    private void sort(Path input, Path output, int recordSize) throws IOException {
+        List<Path> runs = new ArrayList<Path>();
+        try {
+            spill(input, recordSize, runs);
+            mergeAll(runs, output, recordSize);
+        }
+        finally {
+            for (Path run : runs)
+                Files.deleteIfExists(run);
+        }
+    }
+
+
+   /***************************************************************************
+    *  Phase 1: sorted runs.
+    ***************************************************************************/
+
+    // read input into runs, and sort and write each run to a new file in runs
+    private void spill(Path input, int recordSize, List<Path> runs) throws IOException {
+        long runMemory = memory / (parallelism + 1);   // runs being sorted, plus the one being read
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Semaphore slots = new Semaphore(parallelism);
+        List<Future<?>> spilled = new ArrayList<Future<?>>();
+        try (RecordReader in = new RecordReader(input, recordSize)) {
+            byte[] record = in.read();
+            while (record != null) {
+                List<byte[]> run = new ArrayList<byte[]>();
+                long size = 0;
+                while (record != null && (run.isEmpty() || size + record.length + RECORD_OVERHEAD <= runMemory)) {
+                    run.add(record);
+                    size += record.length + RECORD_OVERHEAD;
+                    record = in.read();
+                }
+
+                Path file = Files.createTempFile(tempDir, "run", ".tmp");
+                runs.add(file);
+                slots.acquireUninterruptibly();
+                spilled.add(pool.submit(() -> {
+                    try {
+                        write(run.toArray(), file, recordSize);
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    finally {
+                        slots.release();
+                    }
+                }));
+            }
+            for (Future<?> future : spilled)
+                future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while writing runs", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+            throw new IOException("failed to write a run", e.getCause());
+        }
+        finally {
+            // wait for the runs still being written
+            slots.acquireUninterruptibly(parallelism);
+            pool.shutdown();
+        }
+    }
+
+    // sort the records and write them to the file
+    private void write(Object[] records, Path file, int recordSize) throws IOException {
+        MergeX.sort(records, comparator);
+        try (RecordWriter out = new RecordWriter(file, recordSize)) {
+            for (Object record : records)
+                out.write((byte[]) record);
+        }
+    }
+
+
+   /***************************************************************************
+    *  Phase 2: multiway merge.
+    ***************************************************************************/
+
+    // merge the runs into output, first merging groups of runs into longer runs if there are
+    // too many to read at once; adds the files of the longer runs to runs, for cleanup
+    private void mergeAll(List<Path> runs, Path output, int recordSize) throws IOException {
+        int fanIn = (int) Math.max(2, Math.min(MAX_FAN_IN, memory / BUFFER_SIZE - 1));
+        List<Path> pending = new ArrayList<Path>(runs);
+        while (pending.size() > fanIn) {
+            List<Path> merged = new ArrayList<Path>();
+            for (int i = 0; i < pending.size(); i += fanIn) {
+                List<Path> group = pending.subList(i, Math.min(i + fanIn, pending.size()));
+                Path file = Files.createTempFile(tempDir, "run", ".tmp");
+                runs.add(file);
+                merged.add(file);
+                merge(group, file, recordSize);
+                for (Path run : group)
+                    Files.delete(run);
+            }
+            pending = merged;
+        }
+        merge(pending, output, recordSize);
+    }
+
+    // merge the runs into output with an index priority queue; on equal records,
+    // the one from the earlier run goes first, which keeps the sort stable
+    private void merge(List<Path> runs, Path output, int recordSize) throws IOException {
+        int n = runs.size();
+        RecordReader[] streams = new RecordReader[n];
+        try (RecordWriter out = new RecordWriter(output, recordSize)) {
+            IndexMinPQ<Head> pq = new IndexMinPQ<Head>(Math.max(n, 1));
+            for (int i = 0; i < n; i++) {
+                streams[i] = new RecordReader(runs.get(i), recordSize);
+                byte[] record = streams[i].read();
+                if (record != null) pq.insert(i, new Head(record, i));
+            }
+
+            // write min and read next from its stream
+            while (!pq.isEmpty()) {
+                out.write(pq.minKey().record);
+                int i = pq.delMin();
+                byte[] record = streams[i].read();
+                if (record != null) pq.insert(i, new Head(record, i));
+            }
+        }
+        finally {
+            for (RecordReader stream : streams)
+                if (stream != null) stream.close();
+        }
+    }
+
+    // the next record of a run, ordered by the comparator and then by run
+    private class Head implements Comparable<Head> {
+        private final byte[] record;
+        private final int run;
+
+        Head(byte[] record, int run) {
+            this.record = record;
+            this.run = run;
+        }
+
+        @Override
+        public int compareTo(Head that) {
+            int cmp = comparator.compare(this.record, that.record);
+            if (cmp != 0) return cmp;
+            return Integer.compare(this.run, that.run);
+        }
+    }
+
+
+   /***************************************************************************
+    *  Buffered record input and output.
+    ***************************************************************************/
+
+    // reads lines (recordSize = 0) or fixed-length records from a file
+    private static class RecordReader implements Closeable {
+        private final FileChannel channel;
+        private final int recordSize;
+        private ByteBuffer buffer;      // in read mode: the unread bytes are position .. limit-1
+        private boolean eof;
+
+        RecordReader(Path file, int recordSize) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.recordSize = recordSize;
+            this.buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, recordSize));
+            buffer.flip();
+        }
+
+        // the next record, or null if there are no more
+        byte[] read() throws IOException {
+            while (true) {
+                int end = end();
+                if (end >= 0) {
+                    byte[] record = new byte[end - buffer.position()];
+                    buffer.get(record);
+                    if (recordSize == 0) buffer.get();   // skip the newline
+                    return record;
+                }
+                if (eof) {
+                    if (!buffer.hasRemaining()) return null;
+                    if (recordSize > 0) throw new IllegalArgumentException("input ends with a partial record");
+                    byte[] record = new byte[buffer.remaining()];
+                    buffer.get(record);
+                    return record;
+                }
+                fill();
+            }
+        }
+
+        // index in the buffer just past the next record (before its newline), or -1 if it is not all there
+        private int end() {
+            if (recordSize > 0) {
+                if (buffer.remaining() >= recordSize) return buffer.position() + recordSize;
+                return -1;
+            }
+            for (int i = buffer.position(); i < buffer.limit(); i++)
+                if (buffer.get(i) == NEWLINE) return i;
+            return -1;
+        }
+
+        // read more bytes, growing the buffer if a single line fills it
+        private void fill() throws IOException {
+            buffer.compact();
+            if (!buffer.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocateDirect(2 * buffer.capacity());
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+            if (channel.read(buffer) < 0) eof = true;
+            buffer.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // writes lines (recordSize = 0) or fixed-length records to a file
+    private static class RecordWriter implements Closeable {
+        private final FileChannel channel;
+        private final int recordSize;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        RecordWriter(Path file, int recordSize) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                                           StandardOpenOption.TRUNCATE_EXISTING);
+            this.recordSize = recordSize;
+        }
+
+        void write(byte[] record) throws IOException {
+            assert recordSize == 0 || record.length == recordSize;
+            if (buffer.remaining() < record.length + 1) flush();
+            if (record.length + 1 > buffer.capacity()) {
+                ByteBuffer whole = ByteBuffer.wrap(record);
+                while (whole.hasRemaining())
+                    channel.write(whole);
+            }
+            else buffer.put(record);
+            if (recordSize == 0) buffer.put(NEWLINE);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            }
+            finally {
+                channel.close();
+            }
+        }
+    }
+
+
+    /**
+     * Sorts the lines (or, given a record size, the fixed-length records) of
+     * the file named by the first command-line argument into the file named by
+     * the second, in unsigned byte order, and prints the time taken.
+     * The optional arguments are the memory budget in megabytes (default: half
+     * the maximum heap), the number of runs sorted in parallel (default: the
+     * number of processors) and the record size (default: 0, for lines).
+     *
+     * @param  args the command-line arguments
+     * @throws IOException if the sort fails
+     */
+    public static void main(String[] args) throws IOException {
+        Path input = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+        long memory = (args.length > 2) ? Long.parseLong(args[2]) << 20 : Runtime.getRuntime().maxMemory() / 2;
+        int parallelism = (args.length > 3) ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        int recordSize = (args.length > 4) ? Integer.parseInt(args[4]) : 0;
+
+        ExternalSort sorter = new ExternalSort(UNSIGNED_BYTES, memory, parallelism);
+        Stopwatch timer = new Stopwatch();
+        if (recordSize == 0) sorter.sortLines(input, output);
+        else                 sorter.sortRecords(input, output, recordSize);
+        StdOut.printf("sorted %d bytes in %.3f seconds\n", Files.size(input), timer.elapsedTime());
+    }
+}
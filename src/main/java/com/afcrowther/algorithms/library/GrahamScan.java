@@ -1,7 +1,7 @@
 /******************************************************************************
  *  Compilation:  javac GrahamaScan.java
  *  Execution:    java GrahamScan < input.txt
- *  Dependencies: Point2D.java
+ *  Dependencies: Point2D.java KeySort.java
  *  Data files:   http://algs4.cs.princeton.edu/99hull/rs1423.txt
  *                http://algs4.cs.princeton.edu/99hull/kw1260.txt
  * 
@@ -67,8 +67,12 @@ public class GrahamScan {
         Arrays.sort(points);
 
         // sort by polar angle with respect to base point points[0],
-        // breaking ties by distance to points[0]
-        Arrays.sort(points, 1, n, points[0].polarOrder());
+        // breaking ties by distance to points[0]: the sort is stable, and
+        // points on the same ray from points[0] are already in that order
+        double[] angle = new double[n];
+        for (int i = 1; i < n; i++)
+            angle[i] = pseudoAngle(points[0], points[i]);
+        KeySort.sort(points, angle, 1, n-1, true);
 
         hull.push(points[0]);       // p[0] is first extreme point
 
@@ -97,6 +101,17 @@ public class GrahamScan {
         assert isConvex();
     }
 
+    // a key that increases with the polar angle of q around p, for q above p or on the
+    // horizontal ray to its right: from -1 at angle 0 towards 1 as the angle nears pi,
+    // and -infinity if q equals p; it orders the angles exactly for integer coordinates
+    // less than 2^24 in absolute value
+    private static double pseudoAngle(Point2D p, Point2D q) {
+        double dx = q.x() - p.x();
+        double dy = q.y() - p.y();
+        if (dx == 0 && dy == 0) return Double.NEGATIVE_INFINITY;
+        return -dx / (Math.abs(dx) + dy);
+    }
+
     /**
      * Returns the extreme points on the convex hull in counterclockwise order.
      *
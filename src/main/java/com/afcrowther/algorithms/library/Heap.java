@@ -27,6 +27,21 @@ package com.afcrowther.algorithms.library;
  *  The {@code Heap} class provides a static methods for heapsorting
  *  an array.
  *  <p>
+ *  The {@code bottomUpSort()} methods use a d-ary heap instead (4-ary unless
+ *  given), with Floyd's bottom-up sift: the hole left at the root moves down
+ *  to a leaf, one compare per child, and the displaced item then moves back
+ *  up, which is usually only a level or two. On a binary heap this saves
+ *  about half the compares of the usual sink; a wider heap also has half or
+ *  a third as many levels, and the children of a node are next to each other
+ *  in the array, so each level touches fewer cache lines.
+ *  <p>
+ *  The groups of siblings are not aligned to cache lines. The heap is built
+ *  in place from {@code a[0]}, with the children of {@code a[k]} at
+ *  {@code a[d*k+1]} through {@code a[d*k+d]}, and the JVM does not place
+ *  array elements on cache-line boundaries, so offsetting the root could not
+ *  guarantee alignment either, and would need {@code d-1} extra slots. A
+ *  group of siblings may therefore straddle two cache lines.
+ *  <p>
  *  For additional documentation, see <a href="http://algs4.cs.princeton.edu/24pq">Section 2.4</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
  *
@@ -35,6 +50,8 @@ package com.afcrowther.algorithms.library;
  */
 public class Heap {
 
+    private static final int DEFAULT_ARITY = 4;   // children per node in bottomUpSort()
+
     // This class should not be instantiated.
     private Heap() { }
 
@@ -52,6 +69,24 @@ public class Heap {
         }
     }
 
+    /**
+     * Rearranges the subarray a[lo..hi] in ascending order, using the natural order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(Comparable[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        int n = hi - lo + 1;
+        for (int k = n/2; k >= 1; k--)
+            sink(a, lo, k, n);
+        while (n > 1) {
+            exch(a, lo, 1, n--);
+            sink(a, lo, 1, n);
+        }
+    }
+
    /***************************************************************************
     * Helper functions to restore the heap invariant.
     ***************************************************************************/
@@ -66,6 +101,18 @@ public class Heap {
         }
     }
 
+    // heap entry k (1-based) of the heap in a[lo..] is a[lo+k-1]
+    private static void sink(Comparable[] a, int lo, int k, int n) {
+        int base = lo - 1;
+        while (2*k <= n) {
+            int j = 2*k;
+            if (j < n && less(a[base+j], a[base+j+1])) j++;
+            if (!less(a[base+k], a[base+j])) break;
+            exch(a, lo, k, j);
+            k = j;
+        }
+    }
+
    /***************************************************************************
     * Helper functions for comparisons and swaps.
     * Indices are "off-by-one" to support 1-based indexing.
@@ -80,12 +127,463 @@ public class Heap {
         pq[j-1] = swap;
     }
 
+    private static void exch(Object[] a, int lo, int i, int j) {
+        Object swap = a[lo+i-1];
+        a[lo+i-1] = a[lo+j-1];
+        a[lo+j-1] = swap;
+    }
+
     // is v < w ?
     private static boolean less(Comparable v, Comparable w) {
         return v.compareTo(w) < 0;
     }
         
 
+
+   /***************************************************************************
+    *  Primitive-type versions: the same algorithm without boxing.
+    ***************************************************************************/
+
+    /**
+     * Rearranges the array of ints in ascending order.
+     * @param a the array to be sorted
+     */
+    public static void sort(int[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of ints in ascending order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(int[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        int n = hi - lo + 1;
+        for (int k = n/2; k >= 1; k--)
+            sink(a, lo, k, n);
+        while (n > 1) {
+            exch(a, lo, 1, n--);
+            sink(a, lo, 1, n);
+        }
+    }
+
+    // heap entry k (1-based) of the heap in a[lo..] is a[lo+k-1]
+    private static void sink(int[] a, int lo, int k, int n) {
+        int base = lo - 1;
+        while (2*k <= n) {
+            int j = 2*k;
+            if (j < n && a[base+j] < a[base+j+1]) j++;
+            if (!(a[base+k] < a[base+j])) break;
+            exch(a, lo, k, j);
+            k = j;
+        }
+    }
+
+    private static void exch(int[] a, int lo, int i, int j) {
+        int swap = a[lo+i-1];
+        a[lo+i-1] = a[lo+j-1];
+        a[lo+j-1] = swap;
+    }
+
+    /**
+     * Rearranges the array of longs in ascending order.
+     * @param a the array to be sorted
+     */
+    public static void sort(long[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of longs in ascending order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(long[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        int n = hi - lo + 1;
+        for (int k = n/2; k >= 1; k--)
+            sink(a, lo, k, n);
+        while (n > 1) {
+            exch(a, lo, 1, n--);
+            sink(a, lo, 1, n);
+        }
+    }
+
+    // heap entry k (1-based) of the heap in a[lo..] is a[lo+k-1]
+    private static void sink(long[] a, int lo, int k, int n) {
+        int base = lo - 1;
+        while (2*k <= n) {
+            int j = 2*k;
+            if (j < n && a[base+j] < a[base+j+1]) j++;
+            if (!(a[base+k] < a[base+j])) break;
+            exch(a, lo, k, j);
+            k = j;
+        }
+    }
+
+    private static void exch(long[] a, int lo, int i, int j) {
+        long swap = a[lo+i-1];
+        a[lo+i-1] = a[lo+j-1];
+        a[lo+j-1] = swap;
+    }
+
+    /**
+     * Rearranges the array of floats in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they end up in no particular order.
+     * @param a the array to be sorted
+     */
+    public static void sort(float[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of floats in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they end up in no particular order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(float[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        int n = hi - lo + 1;
+        for (int k = n/2; k >= 1; k--)
+            sink(a, lo, k, n);
+        while (n > 1) {
+            exch(a, lo, 1, n--);
+            sink(a, lo, 1, n);
+        }
+    }
+
+    // heap entry k (1-based) of the heap in a[lo..] is a[lo+k-1]
+    private static void sink(float[] a, int lo, int k, int n) {
+        int base = lo - 1;
+        while (2*k <= n) {
+            int j = 2*k;
+            if (j < n && a[base+j] < a[base+j+1]) j++;
+            if (!(a[base+k] < a[base+j])) break;
+            exch(a, lo, k, j);
+            k = j;
+        }
+    }
+
+    private static void exch(float[] a, int lo, int i, int j) {
+        float swap = a[lo+i-1];
+        a[lo+i-1] = a[lo+j-1];
+        a[lo+j-1] = swap;
+    }
+
+    /**
+     * Rearranges the array of doubles in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they end up in no particular order.
+     * @param a the array to be sorted
+     */
+    public static void sort(double[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of doubles in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they end up in no particular order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(double[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        int n = hi - lo + 1;
+        for (int k = n/2; k >= 1; k--)
+            sink(a, lo, k, n);
+        while (n > 1) {
+            exch(a, lo, 1, n--);
+            sink(a, lo, 1, n);
+        }
+    }
+
+    // heap entry k (1-based) of the heap in a[lo..] is a[lo+k-1]
+    private static void sink(double[] a, int lo, int k, int n) {
+        int base = lo - 1;
+        while (2*k <= n) {
+            int j = 2*k;
+            if (j < n && a[base+j] < a[base+j+1]) j++;
+            if (!(a[base+k] < a[base+j])) break;
+            exch(a, lo, k, j);
+            k = j;
+        }
+    }
+
+    private static void exch(double[] a, int lo, int i, int j) {
+        double swap = a[lo+i-1];
+        a[lo+i-1] = a[lo+j-1];
+        a[lo+j-1] = swap;
+    }
+
+
+   /***************************************************************************
+    *  Bottom-up d-ary version: the heap is 0-based, node k has children
+    *  d*k+1 .. d*k+d, and sifting down moves the hole to a leaf along the
+    *  larger children before moving the item up (Floyd's trick).
+    ***************************************************************************/
+
+    /**
+     * Rearranges the array in ascending order, using the natural order,
+     * with a bottom-up 4-ary heapsort.
+     * @param a the array to be sorted
+     */
+    public static void bottomUpSort(Comparable[] a) {
+        bottomUpSort(a, DEFAULT_ARITY);
+    }
+
+    /**
+     * Rearranges the array in ascending order, using the natural order,
+     * with a bottom-up d-ary heapsort.
+     * @param a the array to be sorted
+     * @param d the number of children of each node
+     * @throws IllegalArgumentException if {@code d < 2}
+     */
+    public static void bottomUpSort(Comparable[] a, int d) {
+        if (d < 2) throw new IllegalArgumentException("arity must be at least 2");
+        int n = a.length;
+        for (int k = (n - 2) / d; k >= 0 && n > 1; k--)
+            sift(a, k, a[k], n, d);
+        for (int end = n - 1; end > 0; end--) {
+            Comparable x = a[end];
+            a[end] = a[0];
+            sift(a, 0, x, end, d);
+        }
+        assert isSorted(a);
+    }
+
+    // put x into the heap a[0..n-1], which has a hole at k: move the hole down to
+    // a leaf, always to the largest child, then move x up from there (not above k)
+    private static void sift(Comparable[] a, int k, Comparable x, int n, int d) {
+        int top = k;
+        int lastParent = n > 1 ? (n - 2) / d : -1;     // d*k + 1 can overflow, so bound k instead
+        while (k <= lastParent) {
+            int child = d*k + 1;
+            int last = child + Math.min(d, n - child);
+            int max = child;
+            for (int c = child + 1; c < last; c++)
+                if (less(a[max], a[c])) max = c;
+            a[k] = a[max];
+            k = max;
+        }
+        while (k > top) {
+            int parent = (k - 1) / d;
+            if (!less(a[parent], x)) break;
+            a[k] = a[parent];
+            k = parent;
+        }
+        a[k] = x;
+    }
+
+    /**
+     * Rearranges the array of ints in ascending order, with a bottom-up 4-ary heapsort.
+     * @param a the array to be sorted
+     */
+    public static void bottomUpSort(int[] a) {
+        bottomUpSort(a, DEFAULT_ARITY);
+    }
+
+    /**
+     * Rearranges the array of ints in ascending order, with a bottom-up d-ary heapsort.
+     * @param a the array to be sorted
+     * @param d the number of children of each node
+     * @throws IllegalArgumentException if {@code d < 2}
+     */
+    public static void bottomUpSort(int[] a, int d) {
+        if (d < 2) throw new IllegalArgumentException("arity must be at least 2");
+        int n = a.length;
+        for (int k = (n - 2) / d; k >= 0 && n > 1; k--)
+            sift(a, k, a[k], n, d);
+        for (int end = n - 1; end > 0; end--) {
+            int x = a[end];
+            a[end] = a[0];
+            sift(a, 0, x, end, d);
+        }
+    }
+
+    private static void sift(int[] a, int k, int x, int n, int d) {
+        int top = k;
+        int lastParent = n > 1 ? (n - 2) / d : -1;     // d*k + 1 can overflow, so bound k instead
+        while (k <= lastParent) {
+            int child = d*k + 1;
+            int last = child + Math.min(d, n - child);
+            int max = child;
+            for (int c = child + 1; c < last; c++)
+                if (a[max] < a[c]) max = c;
+            a[k] = a[max];
+            k = max;
+        }
+        while (k > top) {
+            int parent = (k - 1) / d;
+            if (!(a[parent] < x)) break;
+            a[k] = a[parent];
+            k = parent;
+        }
+        a[k] = x;
+    }
+
+    /**
+     * Rearranges the array of longs in ascending order, with a bottom-up 4-ary heapsort.
+     * @param a the array to be sorted
+     */
+    public static void bottomUpSort(long[] a) {
+        bottomUpSort(a, DEFAULT_ARITY);
+    }
+
+    /**
+     * Rearranges the array of longs in ascending order, with a bottom-up d-ary heapsort.
+     * @param a the array to be sorted
+     * @param d the number of children of each node
+     * @throws IllegalArgumentException if {@code d < 2}
+     */
+    public static void bottomUpSort(long[] a, int d) {
+        if (d < 2) throw new IllegalArgumentException("arity must be at least 2");
+        int n = a.length;
+        for (int k = (n - 2) / d; k >= 0 && n > 1; k--)
+            sift(a, k, a[k], n, d);
+        for (int end = n - 1; end > 0; end--) {
+            long x = a[end];
+            a[end] = a[0];
+            sift(a, 0, x, end, d);
+        }
+    }
+
+    private static void sift(long[] a, int k, long x, int n, int d) {
+        int top = k;
+        int lastParent = n > 1 ? (n - 2) / d : -1;     // d*k + 1 can overflow, so bound k instead
+        while (k <= lastParent) {
+            int child = d*k + 1;
+            int last = child + Math.min(d, n - child);
+            int max = child;
+            for (int c = child + 1; c < last; c++)
+                if (a[max] < a[c]) max = c;
+            a[k] = a[max];
+            k = max;
+        }
+        while (k > top) {
+            int parent = (k - 1) / d;
+            if (!(a[parent] < x)) break;
+            a[k] = a[parent];
+            k = parent;
+        }
+        a[k] = x;
+    }
+
+    /**
+     * Rearranges the array of floats in ascending order, with a bottom-up 4-ary heapsort.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they end up in no particular order.
+     * @param a the array to be sorted
+     */
+    public static void bottomUpSort(float[] a) {
+        bottomUpSort(a, DEFAULT_ARITY);
+    }
+
+    /**
+     * Rearranges the array of floats in ascending order, with a bottom-up d-ary heapsort.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they end up in no particular order.
+     * @param a the array to be sorted
+     * @param d the number of children of each node
+     * @throws IllegalArgumentException if {@code d < 2}
+     */
+    public static void bottomUpSort(float[] a, int d) {
+        if (d < 2) throw new IllegalArgumentException("arity must be at least 2");
+        int n = a.length;
+        for (int k = (n - 2) / d; k >= 0 && n > 1; k--)
+            sift(a, k, a[k], n, d);
+        for (int end = n - 1; end > 0; end--) {
+            float x = a[end];
+            a[end] = a[0];
+            sift(a, 0, x, end, d);
+        }
+    }
+
+    private static void sift(float[] a, int k, float x, int n, int d) {
+        int top = k;
+        int lastParent = n > 1 ? (n - 2) / d : -1;     // d*k + 1 can overflow, so bound k instead
+        while (k <= lastParent) {
+            int child = d*k + 1;
+            int last = child + Math.min(d, n - child);
+            int max = child;
+            for (int c = child + 1; c < last; c++)
+                if (a[max] < a[c]) max = c;
+            a[k] = a[max];
+            k = max;
+        }
+        while (k > top) {
+            int parent = (k - 1) / d;
+            if (!(a[parent] < x)) break;
+            a[k] = a[parent];
+            k = parent;
+        }
+        a[k] = x;
+    }
+
+    /**
+     * Rearranges the array of doubles in ascending order, with a bottom-up 4-ary heapsort.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they end up in no particular order.
+     * @param a the array to be sorted
+     */
+    public static void bottomUpSort(double[] a) {
+        bottomUpSort(a, DEFAULT_ARITY);
+    }
+
+    /**
+     * Rearranges the array of doubles in ascending order, with a bottom-up d-ary heapsort.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they end up in no particular order.
+     * @param a the array to be sorted
+     * @param d the number of children of each node
+     * @throws IllegalArgumentException if {@code d < 2}
+     */
+    public static void bottomUpSort(double[] a, int d) {
+        if (d < 2) throw new IllegalArgumentException("arity must be at least 2");
+        int n = a.length;
+        for (int k = (n - 2) / d; k >= 0 && n > 1; k--)
+            sift(a, k, a[k], n, d);
+        for (int end = n - 1; end > 0; end--) {
+            double x = a[end];
+            a[end] = a[0];
+            sift(a, 0, x, end, d);
+        }
+    }
+
+    private static void sift(double[] a, int k, double x, int n, int d) {
+        int top = k;
+        int lastParent = n > 1 ? (n - 2) / d : -1;     // d*k + 1 can overflow, so bound k instead
+        while (k <= lastParent) {
+            int child = d*k + 1;
+            int last = child + Math.min(d, n - child);
+            int max = child;
+            for (int c = child + 1; c < last; c++)
+                if (a[max] < a[c]) max = c;
+            a[k] = a[max];
+            k = max;
+        }
+        while (k > top) {
+            int parent = (k - 1) / d;
+            if (!(a[parent] < x)) break;
+            a[k] = a[parent];
+            k = parent;
+        }
+        a[k] = x;
+    }
+
+
    /***************************************************************************
     *  Check if array is sorted - useful for debugging.
     ***************************************************************************/
@@ -362,8 +362,8 @@ public class IndexBinomialMinPQ<Key> implements Iterable<Integer> {
 			previous = x;
 			x = x.sibling;
 		}
-		previous.sibling = x.sibling;
 		if (x == head) head = head.sibling;
+		else           previous.sibling = x.sibling;
 		nodes[i] = null;
 		return x;
 	}
@@ -380,8 +380,8 @@ public class IndexBinomialMinPQ<Key> implements Iterable<Integer> {
 			}
 			current = current.sibling;
 		}
-		previous.sibling = min.sibling;
 		if (min == head) head = min.sibling;
+		else             previous.sibling = min.sibling;
 		nodes[min.index] = null;
 		return min;
 	}
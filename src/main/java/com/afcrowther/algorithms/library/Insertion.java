@@ -163,6 +163,165 @@ public class Insertion {
         a[j] = swap;
     }
 
+
+   /***************************************************************************
+    *  Primitive-type versions: the same algorithm without boxing.
+    ***************************************************************************/
+
+    /**
+     * Rearranges the array of ints in ascending order.
+     * @param a the array to be sorted
+     */
+    public static void sort(int[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of ints in ascending order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(int[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        for (int i = lo; i <= hi; i++) {
+            for (int j = i; j > lo && a[j] < a[j-1]; j--) {
+                exch(a, j, j-1);
+            }
+        }
+        assert isSorted(a, lo, hi);
+    }
+
+    private static boolean isSorted(int[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+    /**
+     * Rearranges the array of longs in ascending order.
+     * @param a the array to be sorted
+     */
+    public static void sort(long[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of longs in ascending order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(long[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        for (int i = lo; i <= hi; i++) {
+            for (int j = i; j > lo && a[j] < a[j-1]; j--) {
+                exch(a, j, j-1);
+            }
+        }
+        assert isSorted(a, lo, hi);
+    }
+
+    // exchange a[i] and a[j]
+    private static void exch(long[] a, int i, int j) {
+        long swap = a[i];
+        a[i] = a[j];
+        a[j] = swap;
+    }
+
+    private static boolean isSorted(long[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+    /**
+     * Rearranges the array of floats in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they keep their relative order.
+     * @param a the array to be sorted
+     */
+    public static void sort(float[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of floats in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they keep their relative order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(float[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        for (int i = lo; i <= hi; i++) {
+            for (int j = i; j > lo && a[j] < a[j-1]; j--) {
+                exch(a, j, j-1);
+            }
+        }
+        assert isSorted(a, lo, hi);
+    }
+
+    // exchange a[i] and a[j]
+    private static void exch(float[] a, int i, int j) {
+        float swap = a[i];
+        a[i] = a[j];
+        a[j] = swap;
+    }
+
+    private static boolean isSorted(float[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+    /**
+     * Rearranges the array of doubles in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they keep their relative order.
+     * @param a the array to be sorted
+     */
+    public static void sort(double[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of doubles in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they keep their relative order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(double[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        for (int i = lo; i <= hi; i++) {
+            for (int j = i; j > lo && a[j] < a[j-1]; j--) {
+                exch(a, j, j-1);
+            }
+        }
+        assert isSorted(a, lo, hi);
+    }
+
+    // exchange a[i] and a[j]
+    private static void exch(double[] a, int i, int j) {
+        double swap = a[i];
+        a[i] = a[j];
+        a[j] = swap;
+    }
+
+    private static boolean isSorted(double[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+
    /***************************************************************************
     *  Check if array is sorted - useful for debugging.
     ***************************************************************************/
@@ -0,0 +1,385 @@
+/******************************************************************************
+ *  Compilation:  javac IntLongHashST.java
+ *  Execution:    java IntLongHashST < input.txt
+ *  Dependencies: StdIn.java StdOut.java
+ *  Data files:   http://algs4.cs.princeton.edu/11model/tinyT.txt
+ *
+ *  Symbol table with int keys and long values, implemented with a
+ *  Robin Hood linear-probing hash table.
+ *
+ *  % java IntLongHashST < tinyT.txt
+ *  84 84
+ *  11 11
+ *  68 68
+ *  98 196
+ *  23 46
+ *  10 20
+ *  54 54
+ *  13 13
+ *  50 50
+ *  18 18
+ *  48 48
+ *  99 99
+ *  77 231
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.library;
+
+import java.util.NoSuchElementException;
+
+/**
+ *  The {@code IntLongHashST} class represents a symbol table of {@code int}
+ *  keys and {@code long} values. It supports the usual <em>put</em>,
+ *  <em>get</em>, <em>contains</em>, <em>delete</em>, <em>size</em>, and
+ *  <em>is-empty</em> methods, and a <em>keys</em> method that returns the
+ *  keys in an array. Every {@code int} is a valid key and every
+ *  {@code long} a valid value.
+ *  <p>
+ *  Unlike {@link LinearProbingHashST}, the keys and values are kept in
+ *  {@code int[]} and {@code long[]} arrays, so there are no {@code Integer}
+ *  or {@code Long} objects to allocate, follow, or collect. Each slot takes
+ *  13 bytes, so at the default load factor an entry takes from 16 to 32
+ *  bytes, depending on how full the table has become since it last doubled;
+ *  a table constructed with the number of keys it will hold does not
+ *  resize. The table size is a power of two, and each key is scrambled by
+ *  the MurmurHash3 finalizer before its low-order bits pick the first slot,
+ *  so that keys with patterns in them (such as consecutive ids, or
+ *  multiples of a power of two) spread over the whole table.
+ *  <p>
+ *  This implementation uses Robin Hood hashing: linear probing in which an
+ *  inserted key takes over the slot of any key it meets that is closer to
+ *  its own first slot, and moves that key further along instead. This keeps
+ *  the keys in each cluster sorted by first slot, which evens out the probe
+ *  lengths, lets a search for a missing key stop as soon as it meets a key
+ *  closer to home than it would be, and allows load factors as high as 0.9.
+ *  Deleting a key shifts the keys after it in its cluster back by one slot,
+ *  so there are no tombstones. The distance of each key from its first slot
+ *  is kept in a {@code byte[]}, which the probes compare before the keys.
+ *  <p>
+ *  The expected time per <em>put</em>, <em>get</em>, <em>contains</em>, or
+ *  <em>delete</em> operation is constant, subject to the uniform hashing
+ *  assumption; the table doubles when it reaches its load factor and halves
+ *  when it holds a quarter as many keys as that, so that whatever the load
+ *  factor, a halved table is half as full as one that doubles. The
+ *  <em>size</em> and <em>is-empty</em>
+ *  operations take constant time, and <em>keys</em> takes time proportional
+ *  to the size of the table.
+ *  <p>
+ *  See {@link IntIntHashST}, {@link LongLongHashST},
+ *  {@link LongDoubleHashST} and {@link LongHashST} for the other key and
+ *  value types.
+ */
+public class IntLongHashST {
+    private static final int INIT_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final double DEFAULT_LOAD_FACTOR = 0.8;
+    private static final double MAX_LOAD_FACTOR = 0.9;
+    private static final int MAX_DIST = Byte.MAX_VALUE;     // largest distance dist[] can hold
+
+    private final double loadFactor;
+    private int n;           // number of key-value pairs in the symbol table
+    private int m;           // size of the hash table, a power of 2
+    private int limit;       // number of pairs at which the table doubles
+    private int[] keys;      // the keys
+    private long[] vals;     // the values
+    private byte[] dist;     // 1 + distance of keys[i] from its first slot; 0 if empty
+
+    /**
+     * Initializes an empty symbol table.
+     */
+    public IntLongHashST() {
+        this(INIT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Initializes an empty symbol table that can hold {@code capacity} keys
+     * before it resizes.
+     *
+     * @param  capacity the number of keys to make room for
+     * @throws IllegalArgumentException if {@code capacity} is negative
+     */
+    public IntLongHashST(int capacity) {
+        this(capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Initializes an empty symbol table that can hold {@code capacity} keys
+     * before it resizes, and that doubles when the given fraction of its
+     * slots is in use.
+     *
+     * @param  capacity the number of keys to make room for
+     * @param  loadFactor the largest fraction of the slots to use
+     * @throws IllegalArgumentException if {@code capacity} is negative
+     * @throws IllegalArgumentException unless {@code 0 < loadFactor <= 0.9}
+     */
+    public IntLongHashST(int capacity, double loadFactor) {
+        if (capacity < 0) throw new IllegalArgumentException("capacity must be non-negative");
+        if (!(loadFactor > 0 && loadFactor <= MAX_LOAD_FACTOR))
+            throw new IllegalArgumentException("load factor must be in (0, " + MAX_LOAD_FACTOR + "]");
+        this.loadFactor = loadFactor;
+        int size = INIT_CAPACITY;
+        while (size < MAX_CAPACITY && size * loadFactor < capacity)
+            size *= 2;
+        allocate(size);
+    }
+
+    /**
+     * Returns the number of key-value pairs in this symbol table.
+     *
+     * @return the number of key-value pairs in this symbol table
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Returns true if this symbol table is empty.
+     *
+     * @return {@code true} if this symbol table is empty;
+     *         {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns true if this symbol table contains the specified key.
+     *
+     * @param  key the key
+     * @return {@code true} if this symbol table contains {@code key};
+     *         {@code false} otherwise
+     */
+    public boolean contains(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    // MurmurHash3 finalizer - every bit of the key affects every bit of the hash
+    private static int mix(int key) {
+        int h = key;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    // first slot to probe for key
+    private int hash(int key) {
+        return mix(key) & (m-1);
+    }
+
+    // slot holding key, or -1 if none
+    private int indexOf(int key) {
+        int i = hash(key);
+        for (int d = 1; dist[i] >= d; d++) {
+            if (keys[i] == key) return i;
+            i = (i + 1) & (m-1);
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the value associated with the specified key.
+     *
+     * @param  key the key
+     * @return the value associated with {@code key}
+     * @throws NoSuchElementException if this symbol table does not contain {@code key}
+     */
+    public long get(int key) {
+        int i = indexOf(key);
+        if (i < 0) throw new NoSuchElementException("key not in symbol table");
+        return vals[i];
+    }
+
+    /**
+     * Returns the value associated with the specified key, or the given
+     * default value if there is none.
+     *
+     * @param  key the key
+     * @param  defaultValue the value to return if {@code key} is not in this symbol table
+     * @return the value associated with {@code key};
+     *         {@code defaultValue} if no such value
+     */
+    public long get(int key, long defaultValue) {
+        int i = indexOf(key);
+        if (i < 0) return defaultValue;
+        return vals[i];
+    }
+
+    /**
+     * Inserts the specified key-value pair into the symbol table, overwriting
+     * the old value with the new value if the symbol table already contains
+     * the specified key.
+     *
+     * @param  key the key
+     * @param  val the value
+     * @throws IllegalStateException if the table cannot grow any further
+     */
+    public void put(int key, long val) {
+
+        // double table size if it has reached its load factor
+        if (n >= limit) resize(2*m);
+
+        int i = hash(key);
+        int d = 1;
+        while (dist[i] >= d) {
+            if (keys[i] == key) {
+                vals[i] = val;
+                return;
+            }
+            i = (i + 1) & (m-1);
+            d++;
+        }
+
+        // key is not in the table: a cluster ends, or a key closer to home is in slot i
+        insert(i, d, key, val);
+        n++;
+    }
+
+    // put key, which is not in the table, in slot i at distance d - 1 from its
+    // first slot, moving along each key closer to home that is in its way
+    private void insert(int i, int d, int key, long val) {
+        while (true) {
+            if (d > MAX_DIST) {
+                // a cluster too long for dist[]: spread it over a larger table
+                resize(2*m);
+                i = hash(key);
+                d = 1;
+                continue;
+            }
+            if (dist[i] == 0) {
+                keys[i] = key;
+                vals[i] = val;
+                dist[i] = (byte) d;
+                return;
+            }
+            if (dist[i] < d) {
+                int k = keys[i];
+                long v = vals[i];
+                int e = dist[i];
+                keys[i] = key;
+                vals[i] = val;
+                dist[i] = (byte) d;
+                key = k;
+                val = v;
+                d = e;
+            }
+            i = (i + 1) & (m-1);
+            d++;
+        }
+    }
+
+    /**
+     * Removes the specified key and its associated value from this symbol table
+     * (if the key is in this symbol table).
+     *
+     * @param  key the key
+     */
+    public void delete(int key) {
+        int i = indexOf(key);
+        if (i < 0) return;
+
+        // shift the rest of the cluster back one slot, up to a key in its first slot
+        int j = (i + 1) & (m-1);
+        while (dist[j] > 1) {
+            keys[i] = keys[j];
+            vals[i] = vals[j];
+            dist[i] = (byte) (dist[j] - 1);
+            i = j;
+            j = (j + 1) & (m-1);
+        }
+        dist[i] = 0;
+        n--;
+
+        // halves size of array if it holds a quarter of the keys at which it doubles
+        if (m > INIT_CAPACITY && n <= limit/4) resize(m/2);
+
+        assert check();
+    }
+
+    /**
+     * Returns all keys in this symbol table, in an array, in no particular order.
+     *
+     * @return all keys in this symbol table
+     */
+    public int[] keys() {
+        int[] a = new int[n];
+        int k = 0;
+        for (int i = 0; i < m; i++)
+            if (dist[i] != 0) a[k++] = keys[i];
+        return a;
+    }
+
+    // allocate an empty table of the given size
+    private void allocate(int capacity) {
+        m = capacity;
+        limit = (capacity == MAX_CAPACITY) ? (int) (capacity * MAX_LOAD_FACTOR) : (int) (capacity * loadFactor);
+        keys = new int[m];
+        vals = new long[m];
+        dist = new byte[m];
+    }
+
+    // resizes the hash table to the given capacity by re-hashing all of the keys
+    private void resize(int capacity) {
+        if (capacity > MAX_CAPACITY) throw new IllegalStateException("symbol table is full");
+        int[] oldKeys = keys;
+        long[] oldVals = vals;
+        byte[] oldDist = dist;
+        allocate(capacity);
+        for (int i = 0; i < oldDist.length; i++)
+            if (oldDist[i] != 0) insert(hash(oldKeys[i]), 1, oldKeys[i], oldVals[i]);
+    }
+
+    // integrity check - each distance is right, and every cluster is ordered by first slot
+    private boolean check() {
+        int count = 0;
+        for (int i = 0; i < m; i++) {
+            if (dist[i] == 0) continue;
+            count++;
+            if (((hash(keys[i]) + dist[i] - 1) & (m-1)) != i) {
+                StdOut.println("key " + keys[i] + " in slot " + i + " has distance " + (dist[i] - 1));
+                return false;
+            }
+            if (dist[i] > dist[(i - 1) & (m-1)] + 1) {
+                StdOut.println("key " + keys[i] + " in slot " + i + " is too far from home");
+                return false;
+            }
+        }
+        return count == n;
+    }
+
+
+    /**
+     * Reads integers from standard input and prints each distinct integer
+     * with the sum of its occurrences.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        IntLongHashST st = new IntLongHashST();
+        while (!StdIn.isEmpty()) {
+            int key = StdIn.readInt();
+            st.put(key, st.get(key, 0L) + key);
+        }
+
+        // at the point where a table with a small load factor doubles,
+        // alternately deleting and putting a key must not resize it
+        IntLongHashST boundary = new IntLongHashST(0, 0.2);
+        int size = boundary.m;
+        int i = 0;
+        for (; boundary.m == size; i++)
+            boundary.put(i, i);
+        size = boundary.m;
+        for (int k = 0; k < 20; k++) {
+            boundary.delete(i - 1);
+            if (boundary.m != size) StdOut.println("Resized at the load-factor boundary");
+            boundary.put(i - 1, i - 1);
+        }
+
+        // print keys
+        for (int key : st.keys())
+            StdOut.println(key + " " + st.get(key));
+    }
+}
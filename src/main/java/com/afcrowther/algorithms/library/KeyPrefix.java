@@ -0,0 +1,153 @@
+/******************************************************************************
+ *  Compilation:  javac KeyPrefix.java
+ *  Execution:    java KeyPrefix d < input.txt
+ *  Dependencies: StdIn.java StdOut.java
+ *
+ *  Packs four characters of a string, starting at a given position, into a
+ *  long whose unsigned order agrees with the order of the strings, so that
+ *  string sorts can compare cached longs instead of characters.
+ *
+ *  % echo "https://a.org/x https://a.org/y http" | java KeyPrefix 12
+ *  https://a.org/x    0067002f00780000
+ *  https://a.org/y    0067002f00790000
+ *  http               0000000000000000
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.library;
+
+/**
+ *  The {@code KeyPrefix} class provides static methods for caching prefixes
+ *  of string keys as {@code long} values, for the string sorts.
+ *  <p>
+ *  The prefix of a string at position <em>d</em> holds the characters
+ *  <em>d</em> through <em>d</em> + 3, 16 bits each with the first one in the
+ *  high-order bits, padded with 0 if the string ends first. Padding with the
+ *  smallest character keeps the order: if two strings agree on their first
+ *  <em>d</em> characters and their prefixes at <em>d</em> differ (as
+ *  unsigned longs), the strings compare the same way. Only when the prefixes
+ *  are equal is it necessary to look at the strings themselves.
+ *  <p>
+ *  A sort keeps the prefixes in a {@code long[]} alongside the strings and
+ *  moves both together. Comparing two prefixes is then a single compare of
+ *  two longs read sequentially from one array, instead of a call to
+ *  {@code charAt()} on each of two strings for every character, each of
+ *  which follows a reference to the string and another to its characters.
+ *  <p>
+ *  A 0 in the prefix means either that the string has ended or that it holds
+ *  the character {@code '\u0000'}; the sorts check the string itself in
+ *  that case.
+ */
+public class KeyPrefix {
+
+    /**
+     * The number of characters in a prefix.
+     */
+    public static final int CHARS = 4;
+
+    // This class should not be instantiated.
+    private KeyPrefix() { }
+
+    /**
+     * Returns the prefix of {@code s} at position {@code d}: characters
+     * {@code d} through {@code d+3}, padded with 0 past the end of the string.
+     *
+     * @param  s the string
+     * @param  d the position of the first character
+     * @return the prefix of {@code s} at {@code d}
+     */
+    public static long prefix(String s, int d) {
+        int end = Math.min(s.length(), d + CHARS);
+        if (end <= d) return 0L;
+        long key = 0L;
+        for (int i = d; i < end; i++)
+            key = (key << 16) | s.charAt(i);
+        return key << (16 * (d + CHARS - end));
+    }
+
+    /**
+     * Returns the ith character (0 to 3) of the given prefix.
+     *
+     * @param  key the prefix
+     * @param  i the position of the character in the prefix
+     * @return the ith character of the prefix, or 0 if the string ended before it
+     */
+    public static int charAt(long key, int i) {
+        return (int) (key >>> (16 * (CHARS - 1 - i))) & 0xFFFF;
+    }
+
+    /**
+     * Returns true if the prefix holds four characters, none of them 0. If
+     * so, two strings with equal prefixes both continue past the prefix.
+     *
+     * @param  key the prefix
+     * @return true if none of the characters of the prefix is 0
+     */
+    public static boolean isFull(long key) {
+        return (key & 0xFFFF000000000000L) != 0 && (key & 0x0000FFFF00000000L) != 0
+            && (key & 0x00000000FFFF0000L) != 0 && (key & 0x000000000000FFFFL) != 0;
+    }
+
+    /**
+     * Compares two prefixes, as unsigned longs.
+     *
+     * @param  x one prefix
+     * @param  y the other prefix
+     * @return a negative integer, zero, or a positive integer as {@code x}
+     *         is less than, equal to, or greater than {@code y}
+     */
+    public static int compare(long x, long y) {
+        return Long.compare(x ^ Long.MIN_VALUE, y ^ Long.MIN_VALUE);
+    }
+
+    /**
+     * Compares two strings that agree on their first {@code d} characters,
+     * by their characters from position {@code d} on.
+     *
+     * @param  v one string
+     * @param  w the other string
+     * @param  d the position at which to start comparing
+     * @return a negative integer, zero, or a positive integer as {@code v}
+     *         is less than, equal to, or greater than {@code w}
+     */
+    public static int compare(String v, String w, int d) {
+        int n = Math.min(v.length(), w.length());
+        for (int i = d; i < n; i++) {
+            char c = v.charAt(i), e = w.charAt(i);
+            if (c != e) return c - e;
+        }
+        return v.length() - w.length();
+    }
+
+    /**
+     * Compares two strings that agree on their first {@code d} characters,
+     * given their prefixes at the same position (at most {@code d}): by the
+     * prefixes if they differ, and by the characters from position {@code d}
+     * on if they are equal.
+     *
+     * @param  v one string
+     * @param  x the prefix of {@code v}
+     * @param  w the other string
+     * @param  y the prefix of {@code w}
+     * @param  d the number of characters the strings are known to share
+     * @return a negative integer, zero, or a positive integer as {@code v}
+     *         is less than, equal to, or greater than {@code w}
+     */
+    public static int compare(String v, long x, String w, long y, int d) {
+        if (x != y) return compare(x, y);
+        return compare(v, w, d);
+    }
+
+    /**
+     * Reads in a sequence of strings from standard input and prints each
+     * with its prefix at the position given as a command-line argument.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        int d = Integer.parseInt(args[0]);
+        String[] a = StdIn.readAllStrings();
+        for (int i = 0; i < a.length; i++)
+            StdOut.printf("%-18s %016x\n", a[i], prefix(a[i], d));
+    }
+}
@@ -0,0 +1,274 @@
+/******************************************************************************
+ *  Compilation:  javac KeySort.java
+ *  Execution:    java KeySort < input.txt
+ *  Dependencies: StdIn.java StdOut.java
+ *
+ *  Sorts by precomputed double keys: computes the key of each item once,
+ *  then sorts the keys together with a permutation of the items, comparing
+ *  primitive doubles instead of calling a comparator.
+ *
+ *  % echo "it was the best of times" | java KeySort
+ *  it of was the best times              [ one string per line ]
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.library;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ *  The {@code KeySort} class provides static methods for sorting by
+ *  precomputed keys. Each item has a {@code double} key, and the items are
+ *  put in ascending order of their keys, either by returning the sorting
+ *  permutation ({@code argsort()}) or by rearranging the items themselves
+ *  ({@code sort()}).
+ *  <p>
+ *  This is faster than sorting with a {@link java.util.Comparator} when the
+ *  comparator is expensive (it recomputes a slope or an angle on every
+ *  compare) or when many different comparators are used at the same call
+ *  site: each key is computed once, and every compare is a primitive
+ *  {@code <} on two doubles.
+ *  <p>
+ *  The stable version is a mergesort and keeps items with equal keys in
+ *  their original order. The unstable version is a 3-way quicksort, which
+ *  uses no extra array and does well with many equal keys; it falls back to
+ *  the mergesort if its recursion gets too deep, so it takes linearithmic
+ *  time in the worst case. Keys are compared with {@code <}, so -0.0 and 0.0
+ *  are equal, and the keys must not contain NaN.
+ */
+public class KeySort {
+    private static final int CUTOFF = 7;   // cutoff to insertion sort
+
+    // This class should not be instantiated.
+    private KeySort() { }
+
+    /**
+     * Returns the permutation that stably sorts the keys: {@code keys[p[0]]},
+     * {@code keys[p[1]]}, ... is in ascending order, where {@code p} is the
+     * returned array. The keys themselves are not changed.
+     *
+     * @param  keys the keys
+     * @return the indices of the keys, in ascending order of key
+     */
+    public static int[] argsort(double[] keys) {
+        return argsort(keys, true);
+    }
+
+    /**
+     * Returns the permutation that sorts the keys: {@code keys[p[0]]},
+     * {@code keys[p[1]]}, ... is in ascending order, where {@code p} is the
+     * returned array. The keys themselves are not changed.
+     *
+     * @param  keys the keys
+     * @param  stable whether indices of equal keys must stay in increasing order
+     * @return the indices of the keys, in ascending order of key
+     */
+    public static int[] argsort(double[] keys, boolean stable) {
+        int n = keys.length;
+        double[] k = keys.clone();
+        int[] perm = new int[n];
+        for (int i = 0; i < n; i++)
+            perm[i] = i;
+        sort(k, perm, 0, n-1, stable);
+        return perm;
+    }
+
+    /**
+     * Rearranges the array in ascending order of the given key function,
+     * which is called once per item.
+     *
+     * @param  a the array to be sorted
+     * @param  key the function that computes the key of each item
+     * @param  stable whether items with equal keys must keep their order
+     * @param  <T> the type of the items
+     */
+    public static <T> void sort(T[] a, ToDoubleFunction<? super T> key, boolean stable) {
+        double[] keys = new double[a.length];
+        for (int i = 0; i < a.length; i++)
+            keys[i] = key.applyAsDouble(a[i]);
+        sort(a, keys, 0, a.length-1, stable);
+    }
+
+    /**
+     * Stably rearranges the array in ascending order of the keys, where
+     * {@code keys[i]} is the key of {@code a[i]}. The keys are rearranged
+     * along with the items.
+     *
+     * @param  a the array to be sorted
+     * @param  keys the keys of the items
+     * @throws IllegalArgumentException if the arrays have different lengths
+     */
+    public static void sort(Object[] a, double[] keys) {
+        sort(a, keys, 0, a.length-1, true);
+    }
+
+    /**
+     * Rearranges the array in ascending order of the keys, where
+     * {@code keys[i]} is the key of {@code a[i]}. The keys are rearranged
+     * along with the items.
+     *
+     * @param  a the array to be sorted
+     * @param  keys the keys of the items
+     * @param  stable whether items with equal keys must keep their order
+     * @throws IllegalArgumentException if the arrays have different lengths
+     */
+    public static void sort(Object[] a, double[] keys, boolean stable) {
+        sort(a, keys, 0, a.length-1, stable);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] in ascending order of the keys, where
+     * {@code keys[i]} is the key of {@code a[i]}. The keys are rearranged
+     * along with the items.
+     *
+     * @param  a the array to be sorted
+     * @param  keys the keys of the items
+     * @param  lo left endpoint (inclusive)
+     * @param  hi right endpoint (inclusive)
+     * @param  stable whether items with equal keys must keep their order
+     * @throws IllegalArgumentException if the arrays have different lengths
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(Object[] a, double[] keys, int lo, int hi, boolean stable) {
+        if (a.length != keys.length) throw new IllegalArgumentException("array and keys have different lengths");
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        int n = hi - lo + 1;
+        if (n <= 1) return;
+
+        // sort the keys with the positions of their items, then move the items
+        int[] perm = new int[n];
+        for (int i = 0; i < n; i++)
+            perm[i] = lo + i;
+        sort(keys, perm, lo, hi, stable);
+        Object[] items = new Object[n];
+        for (int i = 0; i < n; i++)
+            items[i] = a[perm[i]];
+        System.arraycopy(items, 0, a, lo, n);
+    }
+
+    // sort keys[lo..hi], making the same moves in perm[0..hi-lo]
+    private static void sort(double[] keys, int[] perm, int lo, int hi, boolean stable) {
+        int n = hi - lo + 1;
+        if (n <= 1) return;
+        if (stable) {
+            double[] auxKeys = new double[n];
+            int[] auxPerm = new int[n];
+            mergesort(keys, perm, lo, auxKeys, auxPerm, 0, n-1);
+        }
+        else {
+            int depth = 2 * (31 - Integer.numberOfLeadingZeros(n));
+            quicksort(keys, perm, lo, 0, n-1, depth);
+        }
+    }
+
+
+   /***************************************************************************
+    *  Stable version: mergesort. Positions i are relative to the subarray, so
+    *  the key at position i is keys[base+i] and its item is perm[i].
+    ***************************************************************************/
+
+    private static void mergesort(double[] keys, int[] perm, int base,
+                                  double[] auxKeys, int[] auxPerm, int lo, int hi) {
+        if (hi <= lo + CUTOFF) {
+            insertionSort(keys, perm, base, lo, hi);
+            return;
+        }
+        int mid = lo + (hi - lo) / 2;
+        mergesort(keys, perm, base, auxKeys, auxPerm, lo, mid);
+        mergesort(keys, perm, base, auxKeys, auxPerm, mid+1, hi);
+        if (!(keys[base+mid+1] < keys[base+mid])) return;
+        merge(keys, perm, base, auxKeys, auxPerm, lo, mid, hi);
+    }
+
+    // stably merge positions lo..mid with mid+1..hi
+    private static void merge(double[] keys, int[] perm, int base,
+                              double[] auxKeys, int[] auxPerm, int lo, int mid, int hi) {
+        System.arraycopy(keys, base+lo, auxKeys, lo, hi - lo + 1);
+        System.arraycopy(perm, lo, auxPerm, lo, hi - lo + 1);
+        int i = lo, j = mid+1;
+        for (int k = lo; k <= hi; k++) {
+            if      (i > mid)                    { keys[base+k] = auxKeys[j]; perm[k] = auxPerm[j++]; }
+            else if (j > hi)                     { keys[base+k] = auxKeys[i]; perm[k] = auxPerm[i++]; }
+            else if (auxKeys[j] < auxKeys[i])    { keys[base+k] = auxKeys[j]; perm[k] = auxPerm[j++]; }
+            else                                 { keys[base+k] = auxKeys[i]; perm[k] = auxPerm[i++]; }
+        }
+    }
+
+    private static void insertionSort(double[] keys, int[] perm, int base, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++) {
+            double v = keys[base+i];
+            int p = perm[i];
+            int j = i;
+            for (; j > lo && v < keys[base+j-1]; j--) {
+                keys[base+j] = keys[base+j-1];
+                perm[j] = perm[j-1];
+            }
+            keys[base+j] = v;
+            perm[j] = p;
+        }
+    }
+
+
+   /***************************************************************************
+    *  Unstable version: 3-way quicksort, median-of-3 pivot, with mergesort
+    *  once the recursion is 2 lg n deep.
+    ***************************************************************************/
+
+    private static void quicksort(double[] keys, int[] perm, int base, int lo, int hi, int depth) {
+        if (hi <= lo + CUTOFF) {
+            insertionSort(keys, perm, base, lo, hi);
+            return;
+        }
+        if (depth == 0) {
+            double[] auxKeys = new double[hi+1];
+            int[] auxPerm = new int[hi+1];
+            mergesort(keys, perm, base, auxKeys, auxPerm, lo, hi);
+            return;
+        }
+
+        int m = median3(keys, base, lo, lo + (hi - lo) / 2, hi);
+        exch(keys, perm, base, lo, m);
+
+        // 3-way partitioning: keys[lo..lt-1] < v = keys[lt..gt] < keys[gt+1..hi]
+        double v = keys[base+lo];
+        int lt = lo, gt = hi, i = lo + 1;
+        while (i <= gt) {
+            double t = keys[base+i];
+            if      (t < v) exch(keys, perm, base, lt++, i++);
+            else if (v < t) exch(keys, perm, base, i, gt--);
+            else            i++;
+        }
+        quicksort(keys, perm, base, lo, lt-1, depth-1);
+        quicksort(keys, perm, base, gt+1, hi, depth-1);
+    }
+
+    private static int median3(double[] keys, int base, int i, int j, int k) {
+        double a = keys[base+i], b = keys[base+j], c = keys[base+k];
+        return (a < b ?
+               (b < c ? j : a < c ? k : i) :
+               (c < b ? j : c < a ? k : i));
+    }
+
+    private static void exch(double[] keys, int[] perm, int base, int i, int j) {
+        double swapKey = keys[base+i];
+        keys[base+i] = keys[base+j];
+        keys[base+j] = swapKey;
+        int swap = perm[i];
+        perm[i] = perm[j];
+        perm[j] = swap;
+    }
+
+
+    /**
+     * Reads in a sequence of strings from standard input; stably sorts them
+     * by length; and prints them to standard output.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        String[] a = StdIn.readAllStrings();
+        KeySort.sort(a, s -> s.length(), true);
+        for (int i = 0; i < a.length; i++)
+            StdOut.println(a[i]);
+    }
+}
@@ -11,6 +11,9 @@
  *    - Sort an int[] array of n 32-bit integers, treating each integer as 
  *      a sequence of w = 4 bytes (R = 256).
  *
+ *    - Sort a long[] or double[] array, treating each key as a sequence
+ *      of w = 8 bytes (R = 256).
+ *
  *  Uses extra space proportional to n + R.
  *
  *
@@ -29,10 +32,24 @@
 
 package com.afcrowther.algorithms.library;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
 /**
  *  The {@code LSD} class provides static methods for sorting an
  *  array of <em>w</em>-character strings or 32-bit integers using LSD radix sort.
  *  <p>
+ *  The {@code int[]}, {@code long[]} and {@code double[]} versions sort signed
+ *  keys, and doubles in the order of {@link Double#compare}. They count the
+ *  bytes of all positions in a single pass over the keys, and skip the pass
+ *  for any byte position where all the keys have the same byte. The
+ *  {@code parallelSort()} methods split the array into one chunk per thread of
+ *  the common fork/join pool: each chunk counts its own keys, the counts are
+ *  prefix-summed into a starting position for every (byte, chunk) pair, and the
+ *  chunks then move their keys in parallel.
+ *  <p>
  *  For additional documentation,
  *  see <a href="http://algs4.cs.princeton.edu/51radix">Section 5.1</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
@@ -42,6 +59,11 @@ package com.afcrowther.algorithms.library;
  */
 public class LSD {
     private static final int BITS_PER_BYTE = 8;
+    private static final int R = 1 << BITS_PER_BYTE;       // each byte is between 0 and 255
+    private static final int MASK = R - 1;                 // 0xFF
+    private static final int INT_BYTES = 4;                // each int is 4 bytes
+    private static final int LONG_BYTES = 8;               // each long is 8 bytes
+    private static final int PARALLEL_THRESHOLD = 1 << 16; // fewest keys per chunk when sorting in parallel
 
     // do not instantiate
     private LSD() { }
@@ -86,47 +108,249 @@ public class LSD {
      * @param a the array to be sorted
      */
     public static void sort(int[] a) {
-        final int BITS = 32;                 // each int is 32 bits 
-        final int R = 1 << BITS_PER_BYTE;    // each bytes is between 0 and 255
-        final int MASK = R - 1;              // 0xFF
-        final int w = BITS / BITS_PER_BYTE;  // each int is 4 bytes
+        sort(a, 1);
+    }
 
-        int n = a.length;
-        int[] aux = new int[n];
+   /**
+     * Rearranges the array of 32-bit integers in ascending order,
+     * counting and moving the keys in parallel on the common fork/join pool.
+     *
+     * @param a the array to be sorted
+     */
+    public static void parallelSort(int[] a) {
+        sort(a, chunks(a.length));
+    }
 
-        for (int d = 0; d < w; d++) {         
+   /**
+     * Rearranges the array of 64-bit integers in ascending order.
+     *
+     * @param a the array to be sorted
+     */
+    public static void sort(long[] a) {
+        sort(a, Long.MIN_VALUE, 1);
+    }
 
-            // compute frequency counts
-            int[] count = new int[R+1];
-            for (int i = 0; i < n; i++) {           
-                int c = (a[i] >> BITS_PER_BYTE*d) & MASK;
-                count[c + 1]++;
+   /**
+     * Rearranges the array of 64-bit integers in ascending order,
+     * counting and moving the keys in parallel on the common fork/join pool.
+     *
+     * @param a the array to be sorted
+     */
+    public static void parallelSort(long[] a) {
+        sort(a, Long.MIN_VALUE, chunks(a.length));
+    }
+
+   /**
+     * Rearranges the array of doubles in ascending order, as {@code Arrays.sort()}
+     * does: -0.0 comes before 0.0, and NaN comes after every other value.
+     * Uses extra space for 2<em>n</em> longs.
+     *
+     * @param a the array to be sorted
+     */
+    public static void sort(double[] a) {
+        sort(a, 1);
+    }
+
+   /**
+     * Rearranges the array of doubles in ascending order, as {@code Arrays.sort()}
+     * does, counting and moving the keys in parallel on the common fork/join pool.
+     * Uses extra space for 2<em>n</em> longs.
+     *
+     * @param a the array to be sorted
+     */
+    public static void parallelSort(double[] a) {
+        sort(a, chunks(a.length));
+    }
+
+    // number of chunks to sort n keys with: one per thread, but no smaller than the threshold
+    private static int chunks(int n) {
+        return Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), n / PARALLEL_THRESHOLD));
+    }
+
+    // bound[c] = first index of chunk c, and bound[chunks] = n
+    private static int[] bounds(int n, int chunks) {
+        int[] bound = new int[chunks+1];
+        for (int c = 0; c <= chunks; c++)
+            bound[c] = (int) ((long) n * c / chunks);
+        return bound;
+    }
+
+    // run task.accept(c) for each chunk c, on the common fork/join pool if there is more than one
+    private static void forEachChunk(int chunks, IntConsumer task) {
+        if (chunks == 1) {
+            task.accept(0);
+            return;
+        }
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[chunks];
+        for (int c = 0; c < chunks; c++) {
+            final int chunk = c;
+            tasks[c] = ForkJoinTask.adapt(() -> task.accept(chunk));
+        }
+        ForkJoinTask.invokeAll(tasks);
+    }
+
+    // does every key have the same dth byte? then the pass on it would not move anything
+    // (count[c][d][r] = number of keys in chunk c with dth byte r; the totals stay right
+    // even after keys move between chunks)
+    private static boolean skip(int[][][] count, int d, int n) {
+        for (int r = 0; r < R; r++) {
+            int total = 0;
+            for (int c = 0; c < count.length; c++)
+                total += count[c][d][r];
+            if (total == n) return true;
+            if (total > 0)  return false;
+        }
+        return true;
+    }
+
+    // next[c][r] = where chunk c moves its first key with dth byte r: keys are ordered
+    // by their dth byte, then by chunk, then by position in the chunk, so the pass is stable
+    private static int[][] offsets(int[][][] count, int d) {
+        int chunks = count.length;
+        int[][] next = new int[chunks][R];
+        int sum = 0;
+        for (int r = 0; r < R; r++) {
+            for (int c = 0; c < chunks; c++) {
+                next[c][r] = sum;
+                sum += count[c][d][r];
             }
+        }
+        return next;
+    }
 
-            // compute cumulates
-            for (int r = 0; r < R; r++)
-                count[r+1] += count[r];
+    // sort a[] as signed ints (by the unsigned keys a[i] ^ Integer.MIN_VALUE), in the given number of chunks
+    private static void sort(int[] a, int chunks) {
+        final int n = a.length;
+        final int[] bound = bounds(n, chunks);
+        final int[][][] count = new int[chunks][INT_BYTES][R];
 
-            // for most significant byte, 0x80-0xFF comes before 0x00-0x7F
-            if (d == w-1) {
-                int shift1 = count[R] - count[R/2];
-                int shift2 = count[R/2];
-                for (int r = 0; r < R/2; r++)
-                    count[r] += shift1;
-                for (int r = R/2; r < R; r++)
-                    count[r] -= shift2;
+        // count every byte position in one pass
+        forEachChunk(chunks, c -> {
+            int[][] chunkCount = count[c];
+            for (int i = bound[c]; i < bound[c+1]; i++) {
+                int key = a[i] ^ Integer.MIN_VALUE;
+                for (int d = 0; d < INT_BYTES; d++)
+                    chunkCount[d][(key >>> BITS_PER_BYTE*d) & MASK]++;
+            }
+        });
+
+        int[] from = a, to = null;
+        boolean moved = false;
+        for (int d = 0; d < INT_BYTES; d++) {
+            if (skip(count, d, n)) continue;
+            if (to == null) to = new int[n];
+
+            final int[] src = from, dst = to;
+            final int shift = BITS_PER_BYTE*d, pos = d;
+
+            // keys have moved between chunks since they were counted (with one
+            // chunk, its count is the total and stays right)
+            if (moved && chunks > 1) {
+                forEachChunk(chunks, c -> {
+                    int[] chunkCount = count[c][pos];
+                    Arrays.fill(chunkCount, 0);
+                    for (int i = bound[c]; i < bound[c+1]; i++)
+                        chunkCount[((src[i] ^ Integer.MIN_VALUE) >>> shift) & MASK]++;
+                });
             }
 
             // move data
-            for (int i = 0; i < n; i++) {
-                int c = (a[i] >> BITS_PER_BYTE*d) & MASK;
-                aux[count[c]++] = a[i];
+            final int[][] next = offsets(count, d);
+            forEachChunk(chunks, c -> {
+                int[] chunkNext = next[c];
+                for (int i = bound[c]; i < bound[c+1]; i++)
+                    dst[chunkNext[((src[i] ^ Integer.MIN_VALUE) >>> shift) & MASK]++] = src[i];
+            });
+
+            from = dst;
+            to = src;
+            moved = true;
+        }
+
+        // copy back
+        if (from != a) System.arraycopy(from, 0, a, 0, n);
+    }
+
+    // sort a[] by the unsigned keys a[i] ^ flip, in the given number of chunks
+    private static void sort(long[] a, long flip, int chunks) {
+        final int n = a.length;
+        final int[] bound = bounds(n, chunks);
+        final int[][][] count = new int[chunks][LONG_BYTES][R];
+
+        // count every byte position in one pass
+        forEachChunk(chunks, c -> {
+            int[][] chunkCount = count[c];
+            for (int i = bound[c]; i < bound[c+1]; i++) {
+                long key = a[i] ^ flip;
+                for (int d = 0; d < LONG_BYTES; d++)
+                    chunkCount[d][(int) (key >>> BITS_PER_BYTE*d) & MASK]++;
             }
+        });
 
-            // copy back
-            for (int i = 0; i < n; i++)
-                a[i] = aux[i];
+        long[] from = a, to = null;
+        boolean moved = false;
+        for (int d = 0; d < LONG_BYTES; d++) {
+            if (skip(count, d, n)) continue;
+            if (to == null) to = new long[n];
+
+            final long[] src = from, dst = to;
+            final int shift = BITS_PER_BYTE*d, pos = d;
+
+            // keys have moved between chunks since they were counted (with one
+            // chunk, its count is the total and stays right)
+            if (moved && chunks > 1) {
+                forEachChunk(chunks, c -> {
+                    int[] chunkCount = count[c][pos];
+                    Arrays.fill(chunkCount, 0);
+                    for (int i = bound[c]; i < bound[c+1]; i++)
+                        chunkCount[(int) ((src[i] ^ flip) >>> shift) & MASK]++;
+                });
+            }
+
+            // move data
+            final int[][] next = offsets(count, d);
+            forEachChunk(chunks, c -> {
+                int[] chunkNext = next[c];
+                for (int i = bound[c]; i < bound[c+1]; i++)
+                    dst[chunkNext[(int) ((src[i] ^ flip) >>> shift) & MASK]++] = src[i];
+            });
+
+            from = dst;
+            to = src;
+            moved = true;
         }
+
+        // copy back
+        if (from != a) System.arraycopy(from, 0, a, 0, n);
+    }
+
+    // sort a[] by keys whose unsigned order is the order of Double.compare()
+    private static void sort(double[] a, int chunks) {
+        final int n = a.length;
+        final int[] bound = bounds(n, chunks);
+        final long[] keys = new long[n];
+        forEachChunk(chunks, c -> {
+            for (int i = bound[c]; i < bound[c+1]; i++)
+                keys[i] = key(a[i]);
+        });
+        sort(keys, 0L, chunks);
+        forEachChunk(chunks, c -> {
+            for (int i = bound[c]; i < bound[c+1]; i++)
+                a[i] = value(keys[i]);
+        });
+    }
+
+    // flip every bit of a negative double and the sign bit of a positive one, so that
+    // unsigned order of the keys is numeric order; all NaNs share one key, past +infinity
+    private static long key(double x) {
+        long bits = Double.doubleToLongBits(x);
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
+    // the double with the given key
+    private static double value(long key) {
+        long bits = key ^ ((~key >> 63) | Long.MIN_VALUE);
+        return Double.longBitsToDouble(bits);
     }
 
     /**
@@ -31,6 +31,20 @@ package com.afcrowther.algorithms.library;
  *  The <em>size</em>, and <em>is-empty</em> operations take constant time.
  *  Construction takes constant time.
  *  <p>
+ *  Normally the table is resized by rehashing every key at once, so that
+ *  the <em>put</em> or <em>delete</em> that triggers a resize takes time
+ *  proportional to the size of the table. A table constructed with
+ *  {@code incremental} set to {@code true} resizes incrementally instead:
+ *  it allocates the new table, keeps the old one, and moves a fixed number
+ *  of slots of the old table to the new one at each <em>put</em> and
+ *  <em>delete</em>, so that every operation takes constant time (apart from
+ *  allocating the new arrays, and subject to the uniform hashing
+ *  assumption). While the move is underway, <em>get</em> looks in the new
+ *  table and then in the old one; each moved or deleted key is left in the
+ *  old table with a {@code null} value, so that searches for the keys after
+ *  it in its cluster still find them. The move always finishes before the
+ *  table needs to be resized again.
+ *  <p>
  *  For additional documentation, see <a href="http://algs4.cs.princeton.edu/34hash">Section 3.4</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
  *  For other implementations, see {@link ST}, {@link BinarySearchST},
@@ -42,12 +56,19 @@ package com.afcrowther.algorithms.library;
  */
 public class LinearProbingHashST<Key, Value> {
     private static final int INIT_CAPACITY = 4;
+    private static final int MIGRATION_STEPS = 16;  // old slots moved per put or delete
 
     private int n;           // number of key-value pairs in the symbol table
     private int m;           // size of linear probing table
     private Key[] keys;      // the keys
     private Value[] vals;    // the values
 
+    private final boolean incremental;  // resize a few slots at a time?
+    private int oldM;        // size of the table being moved from
+    private Key[] oldKeys;   // the keys of the table being moved from; null if none
+    private Value[] oldVals; // the values; null once the key is moved or deleted
+    private int moved;       // oldKeys[0..moved-1] have been moved
+
 
     /**
      * Initializes an empty symbol table.
@@ -62,10 +83,23 @@ public class LinearProbingHashST<Key, Value> {
      * @param capacity the initial capacity
      */
     public LinearProbingHashST(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Initializes an empty symbol table with the specified initial capacity,
+     * which resizes itself incrementally if {@code incremental} is {@code true}.
+     *
+     * @param capacity the initial capacity
+     * @param incremental whether to move the keys to a resized table a few
+     *        slots at a time, instead of all at once
+     */
+    public LinearProbingHashST(int capacity, boolean incremental) {
         m = capacity;
         n = 0;
         keys = (Key[])   new Object[m];
         vals = (Value[]) new Object[m];
+        this.incremental = incremental;
     }
 
     /**
@@ -102,11 +136,20 @@ public class LinearProbingHashST<Key, Value> {
 
     // hash function for keys - returns value between 0 and M-1
     private int hash(Key key) {
+        return hash(key, m);
+    }
+
+    // hash function for a table of size m
+    private static int hash(Object key, int m) {
         return (key.hashCode() & 0x7fffffff) % m;
     }
 
     // resizes the hash table to the given capacity by re-hashing all of the keys
     private void resize(int capacity) {
+        if (incremental) {
+            startResize(capacity);
+            return;
+        }
         LinearProbingHashST<Key, Value> temp = new LinearProbingHashST<Key, Value>(capacity);
         for (int i = 0; i < m; i++) {
             if (keys[i] != null) {
@@ -118,6 +161,51 @@ public class LinearProbingHashST<Key, Value> {
         m    = temp.m;
     }
 
+    // makes the current table the old one and allocates a new one of the given
+    // capacity, finishing any move that is still underway
+    private void startResize(int capacity) {
+        if (oldKeys != null) migrate(oldM - moved);
+        oldKeys = keys;
+        oldVals = vals;
+        oldM    = m;
+        moved   = 0;
+        m    = capacity;
+        keys = (Key[])   new Object[m];
+        vals = (Value[]) new Object[m];
+    }
+
+    // moves the next (at most) steps slots of the old table to the new one
+    private void migrate(int steps) {
+        for (int k = 0; k < steps && oldKeys != null; k++) {
+            if (oldVals[moved] != null) {
+                insert(oldKeys[moved], oldVals[moved]);
+                oldVals[moved] = null;
+            }
+            moved++;
+            if (moved == oldM) {
+                oldKeys = null;
+                oldVals = null;
+            }
+        }
+    }
+
+    // puts key, which is not in the table, into the first empty slot of its cluster
+    private void insert(Key key, Value val) {
+        int i;
+        for (i = hash(key); keys[i] != null; i = (i + 1) % m) { }
+        keys[i] = key;
+        vals[i] = val;
+    }
+
+    // position of key in the old table if it has not been moved or deleted; -1 otherwise
+    private int oldIndex(Key key) {
+        if (oldKeys == null) return -1;
+        for (int i = hash(key, oldM); oldKeys[i] != null; i = (i + 1) % oldM)
+            if (oldKeys[i].equals(key))
+                return (oldVals[i] != null) ? i : -1;
+        return -1;
+    }
+
     /**
      * Inserts the specified key-value pair into the symbol table, overwriting the old 
      * value with the new value if the symbol table already contains the specified key.
@@ -136,6 +224,8 @@ public class LinearProbingHashST<Key, Value> {
             return;
         }
 
+        if (incremental) migrate(MIGRATION_STEPS);
+
         // double table size if 50% full
         if (n >= m/2) resize(2*m);
 
@@ -146,6 +236,13 @@ public class LinearProbingHashST<Key, Value> {
                 return;
             }
         }
+
+        // if the key has not yet been moved from the old table, move it now
+        int j = oldIndex(key);
+        if (j >= 0) {
+            oldVals[j] = null;
+            n--;
+        }
         keys[i] = key;
         vals[i] = val;
         n++;
@@ -163,6 +260,8 @@ public class LinearProbingHashST<Key, Value> {
         for (int i = hash(key); keys[i] != null; i = (i + 1) % m)
             if (keys[i].equals(key))
                 return vals[i];
+        int j = oldIndex(key);
+        if (j >= 0) return oldVals[j];
         return null;
     }
 
@@ -176,6 +275,16 @@ public class LinearProbingHashST<Key, Value> {
     public void delete(Key key) {
         if (key == null) throw new NullPointerException("argument to delete() is null");
         if (!contains(key)) return;
+        if (incremental) migrate(MIGRATION_STEPS);
+
+        // a key not yet moved from the old table is deleted there
+        int j = oldIndex(key);
+        if (j >= 0) {
+            oldVals[j] = null;
+            n--;
+            if (n > 0 && n <= m/8) resize(m/2);
+            return;
+        }
 
         // find position i of key
         int i = hash(key);
@@ -195,8 +304,7 @@ public class LinearProbingHashST<Key, Value> {
             Value valToRehash = vals[i];
             keys[i] = null;
             vals[i] = null;
-            n--;
-            put(keyToRehash, valToRehash);
+            insert(keyToRehash, valToRehash);
             i = (i + 1) % m;
         }
 
@@ -219,6 +327,8 @@ public class LinearProbingHashST<Key, Value> {
         Queue<Key> queue = new Queue<Key>();
         for (int i = 0; i < m; i++)
             if (keys[i] != null) queue.enqueue(keys[i]);
+        for (int i = moved; oldKeys != null && i < oldM; i++)
+            if (oldVals[i] != null) queue.enqueue(oldKeys[i]);
         return queue;
     }
 
@@ -240,6 +350,15 @@ public class LinearProbingHashST<Key, Value> {
                 return false;
             }
         }
+
+        // check that each key not yet moved from the old table can be found by get()
+        for (int i = 0; oldKeys != null && i < oldM; i++) {
+            if (oldVals[i] == null) continue;
+            else if (i < moved || get(oldKeys[i]) != oldVals[i]) {
+                System.err.println("old key " + oldKeys[i] + " in slot " + i + " not found");
+                return false;
+            }
+        }
         return true;
     }
 
@@ -1,7 +1,7 @@
 /******************************************************************************
  *  Compilation: javac MSD.java
  *  Execution:   java MSD < input.txt
- *  Dependencies: StdIn.java StdOut.java 
+ *  Dependencies: KeyPrefix.java SmallSort.java StdIn.java StdOut.java
  *  Data files:   http://algs4.cs.princeton.edu/51radix/words3.txt
  *                http://algs4.cs.princeton.edu/51radix/shells.txt
  *
@@ -27,10 +27,25 @@
 
 package com.afcrowther.algorithms.library;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  *  The {@code MSD} class provides static methods for sorting an
  *  array of extended ASCII strings or integers using MSD radix sort.
  *  <p>
+ *  The {@code parallelSort()} methods sort strings with the same algorithm on
+ *  a fork/join pool: buckets larger than a threshold are sorted in parallel,
+ *  and smaller ones are sorted sequentially. Each task allocates its own
+ *  count arrays, which the buckets it sorts sequentially reuse, and all
+ *  tasks share one auxiliary array.
+ *  <p>
+ *  The {@code prefixSort()} method sorts strings reading their characters
+ *  from cached four-character prefixes, refilled every fourth character.
+ *  <p>
  *  For additional documentation,
  *  see <a href="http://algs4.cs.princeton.edu/51radix">Section 5.1</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
@@ -42,7 +57,8 @@ public class MSD {
     private static final int BITS_PER_BYTE =   8;
     private static final int BITS_PER_INT  =  32;   // each Java int is 32 bits 
     private static final int R             = 256;   // extended ASCII alphabet size
-    private static final int CUTOFF        =  15;   // cutoff to insertion sort
+    private static final int CUTOFF        =  15;   // cutoff to insertion sort, or a sorting network for ints
+    private static final int PARALLEL_THRESHOLD = 1 << 13;  // default cutoff to sequential sort
 
     // do not instantiate
     private MSD() { } 
@@ -55,7 +71,7 @@ public class MSD {
     public static void sort(String[] a) {
         int n = a.length;
         String[] aux = new String[n];
-        sort(a, 0, n-1, 0, aux);
+        sort(a, 0, n-1, 0, aux, new Counts());
     }
 
     // return dth character of s, -1 if d = length of string
@@ -66,7 +82,7 @@ public class MSD {
     }
 
     // sort from a[lo] to a[hi], starting at the dth character
-    private static void sort(String[] a, int lo, int hi, int d, String[] aux) {
+    private static void sort(String[] a, int lo, int hi, int d, String[] aux, Counts counts) {
 
         // cutoff to insertion sort for small subarrays
         if (hi <= lo + CUTOFF) {
@@ -74,8 +90,19 @@ public class MSD {
             return;
         }
 
+        int[] count = counts.at(d);
+        distribute(a, lo, hi, d, aux, count);
+
+        // recursively sort for each character (excludes sentinel -1)
+        for (int r = 0; r < R; r++)
+            sort(a, lo + count[r], lo + count[r+1] - 1, d+1, aux, counts);
+    }
+
+    // key-indexed counting of a[lo..hi] on the dth character, using aux[lo..hi];
+    // afterwards, the strings with character r are a[lo + count[r] .. lo + count[r+1] - 1]
+    private static void distribute(String[] a, int lo, int hi, int d, String[] aux, int[] count) {
+
         // compute frequency counts
-        int[] count = new int[R+2];
         for (int i = lo; i <= hi; i++) {
             int c = charAt(a[i], d);
             count[c+2]++;
@@ -88,19 +115,183 @@ public class MSD {
         // distribute
         for (int i = lo; i <= hi; i++) {
             int c = charAt(a[i], d);
-            aux[count[c+1]++] = a[i];
+            aux[lo + count[c+1]++] = a[i];
         }
 
         // copy back
-        for (int i = lo; i <= hi; i++) 
-            a[i] = aux[i - lo];
+        System.arraycopy(aux, lo, a, lo, hi - lo + 1);
+    }
+
+    // one count array per character position, reused by every call at that position
+    private static class Counts {
+        private int[][] count = new int[0][];
+
+        // the count array for the dth character, cleared
+        int[] at(int d) {
+            if (d >= count.length) count = Arrays.copyOf(count, Math.max(2*count.length, d+1));
+            if (count[d] == null) count[d] = new int[R+2];
+            else                  Arrays.fill(count[d], 0);
+            return count[d];
+        }
+    }
+
+
+   /**
+     * Rearranges the array of extended ASCII strings in ascending order,
+     * sorting buckets in parallel on the common fork/join pool.
+     *
+     * @param a the array to be sorted
+     */
+    public static void parallelSort(String[] a) {
+        parallelSort(a, PARALLEL_THRESHOLD);
+    }
+
+   /**
+     * Rearranges the array of extended ASCII strings in ascending order,
+     * sorting buckets in parallel on the common fork/join pool.
+     * Buckets of at most {@code threshold} strings are sorted sequentially.
+     *
+     * @param a the array to be sorted
+     * @param threshold the largest bucket to sort without splitting the work
+     * @throws IllegalArgumentException if {@code threshold < 1}
+     */
+    public static void parallelSort(String[] a, int threshold) {
+        if (threshold < 1) throw new IllegalArgumentException("threshold must be positive");
+        String[] aux = new String[a.length];
+        if (a.length <= threshold) sort(a, 0, a.length-1, 0, aux, new Counts());
+        else ForkJoinPool.commonPool().invoke(new SortTask(a, aux, 0, a.length-1, 0, threshold));
+    }
+
+    // sort a[lo..hi], starting at the dth character, using aux[lo..hi]
+    private static class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final String[] a, aux;
+        private final int lo, hi, d;
+        private final int threshold;
+
+        SortTask(String[] a, String[] aux, int lo, int hi, int d, int threshold) {
+            this.a = a;
+            this.aux = aux;
+            this.lo = lo;
+            this.hi = hi;
+            this.d = d;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo + 1 <= threshold) {
+                sort(a, lo, hi, d, aux, new Counts());
+                return;
+            }
+
+            int[] count = new int[R+2];
+            distribute(a, lo, hi, d, aux, count);
+
+            // fork the large buckets, then sort the small ones on this thread
+            List<SortTask> forked = new ArrayList<SortTask>();
+            for (int r = 0; r < R; r++) {
+                if (count[r+1] - count[r] > threshold) {
+                    SortTask task = new SortTask(a, aux, lo + count[r], lo + count[r+1] - 1, d+1, threshold);
+                    task.fork();
+                    forked.add(task);
+                }
+            }
+            Counts counts = new Counts();
+            for (int r = 0; r < R; r++)
+                if (count[r+1] - count[r] <= threshold)
+                    sort(a, lo + count[r], lo + count[r+1] - 1, d+1, aux, counts);
+            for (SortTask task : forked)
+                task.join();
+        }
+    }
+
+
+   /**
+     * Rearranges the array of extended ASCII strings in ascending order,
+     * reading characters from cached prefixes instead of from the strings.
+     * <p>
+     * Four characters of each string are kept as a {@code long} in an array
+     * alongside the strings (see {@link KeyPrefix}) and move with them, so
+     * the counting and distributing passes read the characters sequentially
+     * from one array instead of calling {@code charAt()} on each string.
+     * The prefixes of a subarray are refilled every fourth character.
+     * This pays off most when the strings share long prefixes, such as URLs
+     * or file paths; it takes {@code 16n} bytes of extra memory.
+     *
+     * @param a the array to be sorted
+     */
+    public static void prefixSort(String[] a) {
+        int n = a.length;
+        sort(a, new long[n], 0, n-1, 0, new String[n], new long[n], new Counts());
+    }
 
+    // sort from a[lo] to a[hi], starting at the dth character, where keys[i] is the
+    // prefix of a[i] at the last multiple of 4 no greater than d
+    private static void sort(String[] a, long[] keys, int lo, int hi, int d,
+                             String[] aux, long[] auxKeys, Counts counts) {
+        if (hi <= lo) return;
+        if (d % KeyPrefix.CHARS == 0)
+            for (int i = lo; i <= hi; i++)
+                keys[i] = KeyPrefix.prefix(a[i], d);
+
+        // cutoff to insertion sort for small subarrays
+        if (hi <= lo + CUTOFF) {
+            insertion(a, keys, lo, hi, d);
+            return;
+        }
+
+        int[] count = counts.at(d);
+        distribute(a, keys, lo, hi, d, aux, auxKeys, count);
 
         // recursively sort for each character (excludes sentinel -1)
         for (int r = 0; r < R; r++)
-            sort(a, lo + count[r], lo + count[r+1] - 1, d+1, aux);
+            sort(a, keys, lo + count[r], lo + count[r+1] - 1, d+1, aux, auxKeys, counts);
     }
 
+    // return the dth character of a[i] from its prefix, -1 if d = length of a[i]
+    private static int charAt(String[] a, long[] keys, int i, int d) {
+        int c = KeyPrefix.charAt(keys[i], d % KeyPrefix.CHARS);
+        if (c == 0 && d == a[i].length()) return -1;
+        return c;
+    }
+
+    // key-indexed counting of a[lo..hi] and their prefixes on the dth character
+    private static void distribute(String[] a, long[] keys, int lo, int hi, int d,
+                                   String[] aux, long[] auxKeys, int[] count) {
+
+        // compute frequency counts
+        for (int i = lo; i <= hi; i++)
+            count[charAt(a, keys, i, d) + 2]++;
+
+        // transform counts to indicies
+        for (int r = 0; r < R+1; r++)
+            count[r+1] += count[r];
+
+        // distribute
+        for (int i = lo; i <= hi; i++) {
+            int k = lo + count[charAt(a, keys, i, d) + 1]++;
+            aux[k] = a[i];
+            auxKeys[k] = keys[i];
+        }
+
+        // copy back
+        System.arraycopy(aux, lo, a, lo, hi - lo + 1);
+        System.arraycopy(auxKeys, lo, keys, lo, hi - lo + 1);
+    }
+
+    // insertion sort a[lo..hi], starting at dth character, comparing prefixes first
+    private static void insertion(String[] a, long[] keys, int lo, int hi, int d) {
+        for (int i = lo; i <= hi; i++) {
+            for (int j = i; j > lo && KeyPrefix.compare(a[j], keys[j], a[j-1], keys[j-1], d) < 0; j--) {
+                exch(a, j, j-1);
+                long swap = keys[j];
+                keys[j] = keys[j-1];
+                keys[j-1] = swap;
+            }
+        }
+    }
 
     // insertion sort a[lo..hi], starting at dth character
     private static void insertion(String[] a, int lo, int hi, int d) {
@@ -142,9 +333,9 @@ public class MSD {
     // MSD sort from a[lo] to a[hi], starting at the dth byte
     private static void sort(int[] a, int lo, int hi, int d, int[] aux) {
 
-        // cutoff to insertion sort for small subarrays
+        // cutoff to a sorting network for small subarrays
         if (hi <= lo + CUTOFF) {
-            insertion(a, lo, hi, d);
+            SmallSort.sort(a, lo, hi);
             return;
         }
 
@@ -193,20 +384,6 @@ public class MSD {
                 sort(a, lo + count[r], lo + count[r+1] - 1, d+1, aux);
     }
 
-    // insertion sort a[lo..hi], starting at dth character
-    private static void insertion(int[] a, int lo, int hi, int d) {
-        for (int i = lo; i <= hi; i++)
-            for (int j = i; j > lo && a[j] < a[j-1]; j--)
-                exch(a, j, j-1);
-    }
-
-    // exchange a[i] and a[j]
-    private static void exch(int[] a, int i, int j) {
-        int temp = a[i];
-        a[i] = a[j];
-        a[j] = temp;
-    }
-
 
     /**
      * Reads in a sequence of extended ASCII strings from standard input;
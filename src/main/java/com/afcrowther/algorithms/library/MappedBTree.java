@@ -0,0 +1,1096 @@
+/******************************************************************************
+ *  Compilation:  javac MappedBTree.java
+ *  Execution:    java MappedBTree file lo hi < input.txt
+ *  Dependencies: StdIn.java StdOut.java
+ *
+ *  B+ tree of fixed-width keys and values, stored in the pages of a
+ *  memory-mapped file and updated copy-on-write, so that the file always
+ *  holds the tree as of the last commit.
+ *
+ *  % echo "5 50 1 10 9 90 3 30 7 70" | java MappedBTree index.bin 2 8
+ *  5 pairs in index.bin, height 0
+ *  3 30
+ *  5 50
+ *  7 70
+ *
+ *  % echo "4 40" | java MappedBTree index.bin 0 100
+ *  6 pairs in index.bin, height 0
+ *  1 10
+ *  3 30
+ *  4 40
+ *  5 50
+ *  7 70
+ *  9 90
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.library;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ *  The {@code MappedBTree} class represents an ordered symbol table of keys
+ *  and values that are byte arrays of fixed widths, stored in a file. Keys
+ *  are ordered as unsigned bytes, first byte most significant, so that
+ *  numbers written big-endian (with the sign bit flipped, if signed) keep
+ *  their order. It supports the <em>put</em>, <em>get</em>,
+ *  <em>contains</em>, <em>delete</em>, <em>size</em>, and <em>is-empty</em>
+ *  methods, and <em>keys</em> methods for iterating over all of the keys,
+ *  or those in a range, in order. As in {@link BTree}, setting the value
+ *  associated with a key to {@code null} is equivalent to deleting the key.
+ *  <p>
+ *  This implementation uses a B+ tree like {@link BTree}, with each node in
+ *  a page of the file: fixed-size blocks (4 KiB unless given), with the
+ *  keys in a contiguous array searched by binary search. The file is
+ *  mapped into memory in windows of up to 64 MiB, as the pages are used.
+ *  A window is mapped only as far as the pages in use, rounded up to a
+ *  power of 2, and mapped again, twice as long, when it fills up, so the
+ *  file grows by doubling until it reaches 64 MiB and then 64 MiB at a
+ *  time; an empty tree takes two pages. Opening an existing file reads one
+ *  page and maps one window, so it takes a few milliseconds however large
+ *  the tree, and the operating system pages in the rest as it is used.
+ *  <p>
+ *  The mapped windows are a page cache of at most <em>cacheBytes</em>
+ *  (but always at least one window): after each operation the least
+ *  recently used windows are unmapped until the rest fit, first writing
+ *  them to disk if they hold pages written since the last commit. An
+ *  operation may map more windows while it runs, one for each page it
+ *  visits at most. Unmapping uses {@code sun.misc.Unsafe} on Java 9 and
+ *  later, and {@code sun.misc.Cleaner} on Java 8; where neither is
+ *  available, an unmapped window is only released once the garbage
+ *  collector frees it.
+ *  <p>
+ *  Updates are copy-on-write: a page that was in the file at the last
+ *  commit is never changed, but copied to a new page at the end of the
+ *  file, and so is every page on the path from it to the root. Pages
+ *  written since the last commit are changed in place, so a batch of
+ *  updates copies each page at most once. The updates are visible at once
+ *  to this object, and reach the file at the next {@link #commit}, which
+ *  writes the new pages to disk, then records the new root in one of two
+ *  checksummed slots in the first page, alternately. If the process or the
+ *  machine stops, the file reopens as of the last commit that completed.
+ *  <p>
+ *  A delete leaves a page less than half full rather than merging it with
+ *  a sibling, and only removes a page once it is empty; and pages that were
+ *  copied are not reused. So the file grows with every commit that changes
+ *  something, and {@link #compact} writes a copy of the tree, packed into
+ *  as few pages as possible, in key order, so that range scans then read
+ *  the file sequentially.
+ *  <p>
+ *  The <em>get</em>, <em>put</em>, <em>contains</em>, and <em>delete</em>
+ *  operations visit one page per level of the tree, which for a page of
+ *  <em>p</em> bytes and keys of <em>k</em> bytes has about
+ *  log<sub><em>p</em>/(<em>k</em>+8)</sub>(<em>n</em>) levels. This class
+ *  is not thread-safe.
+ */
+public class MappedBTree implements Closeable {
+    private static final int META_BYTES = 512;                  // each of the two meta slots in page 0
+    private static final long MAGIC = 0x616c677334627472L;      // file signature
+    private static final int MAGIC_OFFSET = 0;
+    private static final int PAGE_SIZE_OFFSET = 8;
+    private static final int KEY_BYTES_OFFSET = 12;
+    private static final int VALUE_BYTES_OFFSET = 16;
+    private static final int HEIGHT_OFFSET = 20;
+    private static final int ROOT_OFFSET = 24;
+    private static final int PAGES_OFFSET = 32;
+    private static final int SIZE_OFFSET = 40;
+    private static final int COMMIT_OFFSET = 48;
+    private static final int CHECKSUM_OFFSET = 56;
+
+    private static final int WINDOW_BYTES = 1 << 26;            // most bytes mapped at a time
+    private static final Consumer<MappedByteBuffer> UNMAPPER = unmapper();
+    private static final int DEFAULT_PAGE_SIZE = 4096;
+    private static final int MIN_PAGE_SIZE = 2 * META_BYTES;
+
+    private static final byte LEAF = 1;
+    private static final byte INTERNAL = 2;
+    private static final int PAGE_HEADER = 8;                   // type byte, then number of keys at 4
+
+    private final Path file;            // the backing file
+    private final FileChannel channel;  // open channel to the file
+    private final int pageSize;         // bytes per page, a power of 2
+    private final int keyBytes;         // width of the keys
+    private final int valueBytes;       // width of the values
+    private final int leafKeys;         // max keys per leaf
+    private final int internalKeys;     // max keys per internal node
+    private final int windowShift;      // page p is in window p >>> windowShift
+    private final long cacheBytes;      // max bytes of windows to keep mapped between operations
+
+    private Map<Long, MappedByteBuffer> windows;        // mapped windows, least recently used first
+    private final Map<Long, MappedByteBuffer> dirty;    // windows written since the last commit
+    private final List<MappedByteBuffer> replaced;      // windows mapped again longer, to unmap
+    private long mappedBytes;                           // bytes of the windows mapped
+    private long lastWindow = -1;                       // the window last used
+    private MappedByteBuffer last;
+
+    private long root;                  // page of the root
+    private int height;                 // height of the tree
+    private long n;                     // number of key-value pairs
+    private long pages;                 // number of pages in use, including page 0
+    private long committed;             // number of pages at the last commit
+    private long commits;               // number of commits, which picks the meta slot
+    private boolean changed;            // has anything changed since the last commit?
+
+    private long[] path = new long[1];  // pages from root to leaf in the last descent, by height
+    private int[] slot = new int[1];    // the child taken from each page of path
+    private final byte[] up;            // key moving up to the parent after a split
+    private final byte[] tempKeys;      // the keys of a page being split, plus one
+    private final byte[] tempVals;      // the values of a leaf being split, plus one
+    private final long[] tempNext;      // the children of an internal page being split, plus one
+
+    /**
+     * Opens the B+ tree stored in the given file, or creates an empty one
+     * there if the file does not exist or is empty, with 4 KiB pages and no
+     * limit on the windows of the file mapped at once.
+     *
+     * @param  file the file
+     * @param  keyBytes the width of the keys
+     * @param  valueBytes the width of the values
+     * @throws IllegalArgumentException if {@code keyBytes < 1} or {@code valueBytes < 0},
+     *         or if a page cannot hold at least 4 keys
+     * @throws IllegalArgumentException if the file holds something other than a
+     *         B+ tree with the given widths
+     * @throws IOException if the file cannot be opened, created or mapped
+     */
+    public MappedBTree(Path file, int keyBytes, int valueBytes) throws IOException {
+        this(file, keyBytes, valueBytes, DEFAULT_PAGE_SIZE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Opens the B+ tree stored in the given file, or creates an empty one
+     * there with pages of {@code pageSize} bytes if the file does not exist or
+     * is empty. An existing file keeps the page size it was created with.
+     * The file is mapped in windows of up to 64 MiB, of which at most
+     * {@code cacheBytes} (but always at least one window) stay mapped
+     * between operations.
+     *
+     * @param  file the file
+     * @param  keyBytes the width of the keys
+     * @param  valueBytes the width of the values
+     * @param  pageSize the bytes per page, if the file is created
+     * @param  cacheBytes the most bytes of the file to keep mapped
+     * @throws IllegalArgumentException if {@code keyBytes < 1} or {@code valueBytes < 0},
+     *         if {@code pageSize} is not a power of 2 from 1 KiB to 64 MiB,
+     *         or if a page cannot hold at least 4 keys
+     * @throws IllegalArgumentException if the file holds something other than a
+     *         B+ tree with the given widths
+     * @throws IOException if the file cannot be opened, created or mapped
+     */
+    public MappedBTree(Path file, int keyBytes, int valueBytes, int pageSize, long cacheBytes) throws IOException {
+        if (file == null) throw new NullPointerException("file must not be null");
+        if (keyBytes < 1) throw new IllegalArgumentException("keys must be at least 1 byte wide");
+        if (valueBytes < 0) throw new IllegalArgumentException("values must not have negative width");
+        if (Integer.bitCount(pageSize) != 1 || pageSize < MIN_PAGE_SIZE || pageSize > WINDOW_BYTES)
+            throw new IllegalArgumentException("page size must be a power of 2 from " + MIN_PAGE_SIZE
+                                               + " to " + WINDOW_BYTES);
+
+        boolean exists = Files.exists(file) && Files.size(file) > 0;
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                               StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer meta = null;
+        if (exists) {
+            meta = readMeta(channel);
+            if (meta == null) {
+                channel.close();
+                throw new IllegalArgumentException(file + " does not hold a B+ tree");
+            }
+            if (meta.getInt(KEY_BYTES_OFFSET) != keyBytes || meta.getInt(VALUE_BYTES_OFFSET) != valueBytes) {
+                channel.close();
+                throw new IllegalArgumentException(file + " holds " + meta.getInt(KEY_BYTES_OFFSET) + "-byte keys and "
+                                                   + meta.getInt(VALUE_BYTES_OFFSET) + "-byte values");
+            }
+            pageSize = meta.getInt(PAGE_SIZE_OFFSET);
+        }
+
+        this.file = file;
+        this.channel = channel;
+        this.pageSize = pageSize;
+        this.keyBytes = keyBytes;
+        this.valueBytes = valueBytes;
+        this.leafKeys = (pageSize - PAGE_HEADER) / (keyBytes + valueBytes);
+        this.internalKeys = (pageSize - PAGE_HEADER - 8) / (keyBytes + 8);
+        if (Math.min(leafKeys, internalKeys) < 4) {
+            channel.close();
+            throw new IllegalArgumentException(pageSize + "-byte pages are too small for these keys and values");
+        }
+        this.windowShift = Integer.numberOfTrailingZeros(WINDOW_BYTES / pageSize);
+        this.cacheBytes = cacheBytes;
+        this.windows = new LinkedHashMap<Long, MappedByteBuffer>(16, 0.75f, true);
+        this.dirty = new HashMap<Long, MappedByteBuffer>();
+        this.replaced = new ArrayList<MappedByteBuffer>();
+        this.up = new byte[keyBytes];
+        int most = Math.max(leafKeys, internalKeys) + 1;
+        this.tempKeys = new byte[most * keyBytes];
+        this.tempVals = new byte[(leafKeys + 1) * valueBytes];
+        this.tempNext = new long[internalKeys + 2];
+
+        if (exists) {
+            root = meta.getLong(ROOT_OFFSET);
+            height = meta.getInt(HEIGHT_OFFSET);
+            pages = meta.getLong(PAGES_OFFSET);
+            n = meta.getLong(SIZE_OFFSET);
+            commits = meta.getLong(COMMIT_OFFSET);
+            committed = pages;
+        }
+        else {
+            pages = 1;
+            root = allocate(LEAF);
+            commit();
+        }
+    }
+
+    // the valid meta slot of the latest commit, or null if neither is valid
+    private static ByteBuffer readMeta(FileChannel channel) throws IOException {
+        ByteBuffer latest = null;
+        for (int s = 0; s < 2; s++) {
+            ByteBuffer meta = ByteBuffer.allocate(META_BYTES);
+            while (meta.hasRemaining() && channel.read(meta, s * META_BYTES + meta.position()) >= 0) { }
+            if (meta.hasRemaining() || meta.getLong(MAGIC_OFFSET) != MAGIC) continue;
+            if (meta.getLong(CHECKSUM_OFFSET) != checksum(meta)) continue;
+            if (latest == null || meta.getLong(COMMIT_OFFSET) > latest.getLong(COMMIT_OFFSET)) latest = meta;
+        }
+        return latest;
+    }
+
+    // CRC-32 of the fields of a meta slot
+    private static long checksum(ByteBuffer meta) {
+        byte[] fields = new byte[CHECKSUM_OFFSET];
+        for (int i = 0; i < fields.length; i++)
+            fields[i] = meta.get(i);
+        CRC32 crc = new CRC32();
+        crc.update(fields);
+        return crc.getValue();
+    }
+
+    /**
+     * Returns the number of key-value pairs in this symbol table.
+     *
+     * @return the number of key-value pairs in this symbol table
+     */
+    public long size() {
+        return n;
+    }
+
+    /**
+     * Returns true if this symbol table is empty.
+     *
+     * @return {@code true} if this symbol table is empty;
+     *         {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the height of this B+ tree (for debugging).
+     *
+     * @return the height of this B+ tree
+     */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Returns the number of pages in the file, including those no longer in
+     * the tree (for debugging).
+     *
+     * @return the number of pages in the file
+     */
+    public long pages() {
+        return pages;
+    }
+
+
+   /***************************************************************************
+    *  Pages.
+    ***************************************************************************/
+
+    // the window holding page p
+    private MappedByteBuffer buffer(long p) {
+        long w = p >>> windowShift;
+        if (w == lastWindow && base(p) < last.capacity()) return last;
+        if (windows == null) throw new IllegalStateException("B+ tree is closed");
+        MappedByteBuffer b = windows.get(w);
+        if (b == null || base(p) >= b.capacity()) b = map(w, p, b);
+        lastWindow = w;
+        last = b;
+        return b;
+    }
+
+    // map window w as far as the pages in use and page p, rounded up to a power of 2,
+    // in place of old (null if w is not mapped), which is unmapped by the next trim()
+    private MappedByteBuffer map(long w, long p, MappedByteBuffer old) {
+        long first = w << windowShift;
+        long used = Math.max(Math.min(pages, first + (1L << windowShift)), p + 1) - first;
+        long size = Math.min(Long.highestOneBit(Math.max(used - 1, 1)) << 1, 1L << windowShift) * pageSize;
+        MappedByteBuffer b;
+        try {
+            b = channel.map(FileChannel.MapMode.READ_WRITE, w * WINDOW_BYTES, size);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not map " + file, e);
+        }
+        if (old != null) {
+            replaced.add(old);
+            mappedBytes -= old.capacity();
+        }
+        windows.put(w, b);
+        mappedBytes += size;
+        if (first + (1L << windowShift) > committed) dirty.put(w, b);     // may hold uncommitted pages
+        return b;
+    }
+
+    // unmap the windows mapped again longer, then the least recently used windows
+    // until at most cacheBytes are mapped (but at least one window), writing those
+    // with pages not yet committed to disk first; only called between operations,
+    // since the buffers of the windows unmapped must not be used again
+    private void trim() {
+        for (MappedByteBuffer b : replaced)
+            unmap(b);
+        replaced.clear();
+        Iterator<Map.Entry<Long, MappedByteBuffer>> it = windows.entrySet().iterator();
+        while (mappedBytes > cacheBytes && windows.size() > 1) {
+            Map.Entry<Long, MappedByteBuffer> eldest = it.next();
+            long w = eldest.getKey();
+            MappedByteBuffer b = eldest.getValue();
+            if (dirty.remove(w) != null) b.force();
+            it.remove();
+            mappedBytes -= b.capacity();
+            if (w == lastWindow) {
+                lastWindow = -1;
+                last = null;
+            }
+            unmap(b);
+        }
+    }
+
+    // release the mapping of b at once, rather than when b is collected, if the JDK allows it
+    private static void unmap(MappedByteBuffer b) {
+        if (UNMAPPER == null) return;
+        try {
+            UNMAPPER.accept(b);
+        }
+        catch (RuntimeException e) {
+            // left for the garbage collector
+        }
+    }
+
+    // Unsafe.invokeCleaner() on Java 9 and later, DirectBuffer.cleaner().clean() on Java 8,
+    // or null if neither is accessible
+    private static Consumer<MappedByteBuffer> unmapper() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Object unsafe = theUnsafe.get(null);
+            return b -> invoke(invokeCleaner, unsafe, b);
+        }
+        catch (ReflectiveOperationException | RuntimeException e) {
+            // not Java 9 or later
+        }
+        try {
+            Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return b -> {
+                Object c = invoke(cleaner, b);
+                if (c != null) invoke(clean, c);
+            };
+        }
+        catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("could not unmap a window", e);
+        }
+    }
+
+    // the offset of page p in its window
+    private int base(long p) {
+        return (int) (p & ((1L << windowShift) - 1)) * pageSize;
+    }
+
+    private int count(long p) {
+        return buffer(p).getInt(base(p) + 4);
+    }
+
+    private void setCount(long p, int m) {
+        buffer(p).putInt(base(p) + 4, m);
+    }
+
+    private int keyAt(long p, int i) {
+        return base(p) + PAGE_HEADER + i * keyBytes;
+    }
+
+    private int valueAt(long p, int i) {
+        return base(p) + PAGE_HEADER + leafKeys * keyBytes + i * valueBytes;
+    }
+
+    private int nextAt(long p, int i) {
+        return base(p) + PAGE_HEADER + internalKeys * keyBytes + i * 8;
+    }
+
+    private long next(long p, int i) {
+        return buffer(p).getLong(nextAt(p, i));
+    }
+
+    private void setNext(long p, int i, long child) {
+        buffer(p).putLong(nextAt(p, i), child);
+    }
+
+    // a new empty page of the given type at the end of the file
+    private long allocate(byte type) {
+        long p = pages++;
+        long w = p >>> windowShift;
+        if (!dirty.containsKey(w)) dirty.put(w, buffer(p));
+        ByteBuffer b = buffer(p);
+        b.put(base(p), type);
+        b.putInt(base(p) + 4, 0);
+        changed = true;
+        return p;
+    }
+
+    // page p, or a copy of it if p is in the last commit and so must not change
+    private long writable(long p) {
+        if (p >= committed) return p;
+        long q = allocate(LEAF);
+        ByteBuffer from = buffer(p), to = buffer(q);
+        int i = base(p), j = base(q);
+        for (int k = 0; k < pageSize; k += 8)
+            to.putLong(j + k, from.getLong(i + k));
+        return q;
+    }
+
+    // compare key with the key at position i of b, as unsigned bytes
+    private int compare(byte[] key, ByteBuffer b, int i) {
+        for (int k = 0; k < keyBytes; k++) {
+            int cmp = (key[k] & 0xff) - (b.get(i + k) & 0xff);
+            if (cmp != 0) return cmp;
+        }
+        return 0;
+    }
+
+    // the number of keys of page p less than key
+    private int rank(long p, byte[] key) {
+        ByteBuffer b = buffer(p);
+        int lo = 0, hi = count(p) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compare(key, b, keyAt(p, mid));
+            if      (cmp < 0) hi = mid - 1;
+            else if (cmp > 0) lo = mid + 1;
+            else return mid;
+        }
+        return lo;
+    }
+
+    // is key the ith key of page p?
+    private boolean holds(long p, int i, byte[] key) {
+        return i < count(p) && compare(key, buffer(p), keyAt(p, i)) == 0;
+    }
+
+    // the child of internal page p to search for key
+    private int child(long p, byte[] key) {
+        int i = rank(p, key);
+        if (holds(p, i, key)) i++;
+        return i;
+    }
+
+    private static void get(ByteBuffer b, int i, byte[] a, int from, int length) {
+        for (int k = 0; k < length; k++)
+            a[from + k] = b.get(i + k);
+    }
+
+    private static void put(ByteBuffer b, int i, byte[] a, int from, int length) {
+        for (int k = 0; k < length; k++)
+            b.put(i + k, a[from + k]);
+    }
+
+    // move length bytes of b from position from to position to
+    private static void move(ByteBuffer b, int from, int to, int length) {
+        if (to > from)
+            for (int k = length - 1; k >= 0; k--)
+                b.put(to + k, b.get(from + k));
+        else
+            for (int k = 0; k < length; k++)
+                b.put(to + k, b.get(from + k));
+    }
+
+
+   /***************************************************************************
+    *  Search.
+    ***************************************************************************/
+
+    // the leaf that would hold key, recording the way down in path and slot
+    private long descend(byte[] key) {
+        if (path.length <= height) {
+            path = new long[height + 1];
+            slot = new int[height + 1];
+        }
+        long p = root;
+        for (int ht = height; ht > 0; ht--) {
+            int i = child(p, key);
+            path[ht] = p;
+            slot[ht] = i;
+            p = next(p, i);
+        }
+        return p;
+    }
+
+    private void checkKey(byte[] key) {
+        if (key == null) throw new NullPointerException("key is null");
+        if (key.length != keyBytes) throw new IllegalArgumentException("key must be " + keyBytes + " bytes");
+    }
+
+    /**
+     * Returns (a copy of) the value associated with the given key.
+     *
+     * @param  key the key
+     * @return the value associated with the given key if the key is in the symbol table
+     *         and {@code null} if the key is not in the symbol table
+     * @throws NullPointerException if {@code key} is {@code null}
+     * @throws IllegalArgumentException if {@code key} is not {@code keyBytes} long
+     */
+    public byte[] get(byte[] key) {
+        checkKey(key);
+        long p = root;
+        for (int ht = height; ht > 0; ht--)
+            p = next(p, child(p, key));
+        int i = rank(p, key);
+        byte[] val = null;
+        if (holds(p, i, key)) {
+            val = new byte[valueBytes];
+            get(buffer(p), valueAt(p, i), val, 0, valueBytes);
+        }
+        trim();
+        return val;
+    }
+
+    /**
+     * Does this symbol table contain the given key?
+     *
+     * @param  key the key
+     * @return {@code true} if this symbol table contains {@code key} and
+     *         {@code false} otherwise
+     * @throws NullPointerException if {@code key} is {@code null}
+     * @throws IllegalArgumentException if {@code key} is not {@code keyBytes} long
+     */
+    public boolean contains(byte[] key) {
+        return get(key) != null;
+    }
+
+
+   /***************************************************************************
+    *  Insertion.
+    ***************************************************************************/
+
+    /**
+     * Inserts the key-value pair into the symbol table, overwriting the old value
+     * with the new value if the key is already in the symbol table.
+     * If the value is {@code null}, this effectively deletes the key from the symbol table.
+     * The change reaches the file at the next {@link #commit}.
+     *
+     * @param  key the key
+     * @param  val the value
+     * @throws NullPointerException if {@code key} is {@code null}
+     * @throws IllegalArgumentException if {@code key} is not {@code keyBytes} long
+     *         or {@code val} is not {@code valueBytes} long
+     * @throws UncheckedIOException if the file cannot be extended
+     */
+    public void put(byte[] key, byte[] val) {
+        checkKey(key);
+        if (val == null) {
+            delete(key);
+            return;
+        }
+        if (val.length != valueBytes) throw new IllegalArgumentException("value must be " + valueBytes + " bytes");
+        insert(key, val);
+        trim();
+    }
+
+    // put key and val into the tree
+    private void insert(byte[] key, byte[] val) {
+        long leaf = descend(key);
+        int i = rank(leaf, key);
+        long p = writable(leaf);
+        long right = 0;                             // new right sibling of p after a split
+        if (holds(p, i, key)) {
+            put(buffer(p), valueAt(p, i), val, 0, valueBytes);
+        }
+        else {
+            n++;
+            int m = count(p);
+            if (m < leafKeys) {
+                ByteBuffer b = buffer(p);
+                move(b, keyAt(p, i), keyAt(p, i + 1), (m - i) * keyBytes);
+                move(b, valueAt(p, i), valueAt(p, i + 1), (m - i) * valueBytes);
+                put(b, keyAt(p, i), key, 0, keyBytes);
+                put(b, valueAt(p, i), val, 0, valueBytes);
+                setCount(p, m + 1);
+            }
+            else right = splitLeaf(p, i, key, val);
+        }
+
+        // point the parents at the copies, and add the split pages to them
+        long old = leaf;
+        for (int ht = 1; ht <= height; ht++) {
+            if (p == old && right == 0) return;
+            long parent = path[ht];
+            int j = slot[ht];
+            long q = writable(parent);
+            setNext(q, j, p);
+            if (right != 0) {
+                int m = count(q);
+                if (m < internalKeys) {
+                    ByteBuffer b = buffer(q);
+                    move(b, keyAt(q, j), keyAt(q, j + 1), (m - j) * keyBytes);
+                    move(b, nextAt(q, j + 1), nextAt(q, j + 2), (m - j) * 8);
+                    put(b, keyAt(q, j), up, 0, keyBytes);
+                    setNext(q, j + 1, right);
+                    setCount(q, m + 1);
+                    right = 0;
+                }
+                else right = splitInternal(q, j, right);
+            }
+            old = parent;
+            p = q;
+        }
+        root = p;
+
+        // need to split root
+        if (right != 0) {
+            long t = allocate(INTERNAL);
+            put(buffer(t), keyAt(t, 0), up, 0, keyBytes);
+            setNext(t, 0, p);
+            setNext(t, 1, right);
+            setCount(t, 1);
+            root = t;
+            height++;
+        }
+    }
+
+    // insert key and val at i in full leaf p, moving the upper half of its
+    // keys to a new leaf, which is returned; its first key is left in up
+    private long splitLeaf(long p, int i, byte[] key, byte[] val) {
+        int m = leafKeys;
+        ByteBuffer b = buffer(p);
+        get(b, keyAt(p, 0), tempKeys, 0, i * keyBytes);
+        get(b, keyAt(p, i), tempKeys, (i + 1) * keyBytes, (m - i) * keyBytes);
+        System.arraycopy(key, 0, tempKeys, i * keyBytes, keyBytes);
+        get(b, valueAt(p, 0), tempVals, 0, i * valueBytes);
+        get(b, valueAt(p, i), tempVals, (i + 1) * valueBytes, (m - i) * valueBytes);
+        System.arraycopy(val, 0, tempVals, i * valueBytes, valueBytes);
+
+        int half = (m + 1) / 2;
+        long r = allocate(LEAF);
+        b = buffer(p);
+        put(b, keyAt(p, 0), tempKeys, 0, half * keyBytes);
+        put(b, valueAt(p, 0), tempVals, 0, half * valueBytes);
+        setCount(p, half);
+        ByteBuffer c = buffer(r);
+        put(c, keyAt(r, 0), tempKeys, half * keyBytes, (m + 1 - half) * keyBytes);
+        put(c, valueAt(r, 0), tempVals, half * valueBytes, (m + 1 - half) * valueBytes);
+        setCount(r, m + 1 - half);
+        System.arraycopy(tempKeys, half * keyBytes, up, 0, keyBytes);
+        return r;
+    }
+
+    // insert the key in up and the child right after it at j in full internal
+    // page p, moving the upper half of its keys to a new page, which is
+    // returned; the middle key, which separates them, is left in up
+    private long splitInternal(long p, int j, long right) {
+        int m = internalKeys;
+        ByteBuffer b = buffer(p);
+        get(b, keyAt(p, 0), tempKeys, 0, j * keyBytes);
+        get(b, keyAt(p, j), tempKeys, (j + 1) * keyBytes, (m - j) * keyBytes);
+        System.arraycopy(up, 0, tempKeys, j * keyBytes, keyBytes);
+        for (int k = 0, c = 0; k <= m; k++, c++) {
+            tempNext[c] = next(p, k);
+            if (k == j) tempNext[++c] = right;
+        }
+
+        int half = (m + 1) / 2;
+        long r = allocate(INTERNAL);
+        b = buffer(p);
+        put(b, keyAt(p, 0), tempKeys, 0, half * keyBytes);
+        for (int k = 0; k <= half; k++)
+            setNext(p, k, tempNext[k]);
+        setCount(p, half);
+        ByteBuffer c = buffer(r);
+        put(c, keyAt(r, 0), tempKeys, (half + 1) * keyBytes, (m - half) * keyBytes);
+        for (int k = 0; k <= m - half; k++)
+            setNext(r, k, tempNext[half + 1 + k]);
+        setCount(r, m - half);
+        System.arraycopy(tempKeys, half * keyBytes, up, 0, keyBytes);
+        return r;
+    }
+
+
+   /***************************************************************************
+    *  Deletion.
+    ***************************************************************************/
+
+    /**
+     * Removes the specified key and its associated value from this symbol table
+     * (if the key is in this symbol table). The change reaches the file at
+     * the next {@link #commit}.
+     *
+     * @param  key the key
+     * @throws NullPointerException if {@code key} is {@code null}
+     * @throws IllegalArgumentException if {@code key} is not {@code keyBytes} long
+     * @throws UncheckedIOException if the file cannot be extended
+     */
+    public void delete(byte[] key) {
+        checkKey(key);
+        remove(key);
+        trim();
+    }
+
+    // remove key (and its value) from the tree, if it is there
+    private void remove(byte[] key) {
+        long leaf = descend(key);
+        int i = rank(leaf, key);
+        if (!holds(leaf, i, key)) return;
+        n--;
+
+        long p = writable(leaf);
+        int m = count(p);
+        ByteBuffer b = buffer(p);
+        move(b, keyAt(p, i + 1), keyAt(p, i), (m - i - 1) * keyBytes);
+        move(b, valueAt(p, i + 1), valueAt(p, i), (m - i - 1) * valueBytes);
+        setCount(p, m - 1);
+        boolean empty = (m == 1 && height > 0);     // is p an empty page to remove from its parent?
+
+        // point the parents at the copies, and remove the empty pages from them
+        long old = leaf;
+        for (int ht = 1; ht <= height; ht++) {
+            if (p == old && !empty) return;
+            long parent = path[ht];
+            int j = slot[ht];
+            if (empty && count(parent) == 0) {
+                old = parent;                       // its only child is empty: so is it
+                continue;
+            }
+            long q = writable(parent);
+            if (empty) {
+                int k = Math.max(j - 1, 0);         // the key between the child and a sibling
+                int keys = count(q);
+                b = buffer(q);
+                move(b, keyAt(q, k + 1), keyAt(q, k), (keys - k - 1) * keyBytes);
+                move(b, nextAt(q, j + 1), nextAt(q, j), (keys - j) * 8);
+                setCount(q, keys - 1);
+                empty = false;
+            }
+            else setNext(q, j, p);
+            old = parent;
+            p = q;
+        }
+
+        if (empty) {
+            root = allocate(LEAF);
+            height = 0;
+        }
+        else root = p;
+
+        // the root has one child: it is the new root
+        while (height > 0 && count(root) == 0) {
+            root = next(root, 0);
+            height--;
+        }
+    }
+
+
+   /***************************************************************************
+    *  Commit, compaction and iteration.
+    ***************************************************************************/
+
+    /**
+     * Makes the changes since the last commit durable: writes the new pages
+     * to disk, then records the new root in the file. Does nothing if there
+     * are no changes.
+     *
+     * @throws IllegalStateException if the B+ tree is closed
+     */
+    public void commit() {
+        if (windows == null) throw new IllegalStateException("B+ tree is closed");
+        if (!changed) return;
+        for (MappedByteBuffer b : dirty.values())
+            b.force();
+        dirty.clear();
+
+        commits++;
+        ByteBuffer meta = ByteBuffer.allocate(META_BYTES);
+        meta.putLong(MAGIC_OFFSET, MAGIC);
+        meta.putInt(PAGE_SIZE_OFFSET, pageSize);
+        meta.putInt(KEY_BYTES_OFFSET, keyBytes);
+        meta.putInt(VALUE_BYTES_OFFSET, valueBytes);
+        meta.putInt(HEIGHT_OFFSET, height);
+        meta.putLong(ROOT_OFFSET, root);
+        meta.putLong(PAGES_OFFSET, pages);
+        meta.putLong(SIZE_OFFSET, n);
+        meta.putLong(COMMIT_OFFSET, commits);
+        meta.putLong(CHECKSUM_OFFSET, checksum(meta));
+        MappedByteBuffer b = buffer(0);
+        int at = (int) (commits & 1) * META_BYTES;
+        for (int i = 0; i < META_BYTES; i++)
+            b.put(at + i, meta.get(i));
+        b.force();
+        committed = pages;
+        changed = false;
+        trim();
+    }
+
+    /**
+     * Commits the changes and closes the file. The B+ tree cannot be used
+     * after it is closed.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    public void close() throws IOException {
+        if (windows == null) return;
+        commit();
+        for (MappedByteBuffer b : windows.values())
+            unmap(b);
+        for (MappedByteBuffer b : replaced)
+            unmap(b);
+        replaced.clear();
+        dirty.clear();
+        windows = null;
+        lastWindow = -1;
+        last = null;
+        channel.close();
+    }
+
+    /**
+     * Writes the key-value pairs of this B+ tree to a new B+ tree in the given
+     * file, with the same widths and page size, in key order and as few pages
+     * as possible, leaving out the pages this one no longer uses. This takes
+     * time linear in the number of keys; open the new file to use the copy.
+     * Changes not yet committed are copied too.
+     *
+     * @param  target the file to write, which must not exist or be empty
+     * @throws IllegalArgumentException if {@code target} exists and is not empty
+     * @throws IOException if {@code target} cannot be created or written
+     */
+    public void compact(Path target) throws IOException {
+        if (Files.exists(target) && Files.size(target) > 0)
+            throw new IllegalArgumentException(target + " is not empty");
+        MappedBTree t = new MappedBTree(target, keyBytes, valueBytes, pageSize, cacheBytes);
+
+        // the leaves, full but for the last; the empty root of t is in its first
+        // commit, so it must not change, and is left unused if there are keys
+        long[] level = new long[16];
+        byte[] first = new byte[16 * keyBytes];     // least key under each page of level
+        int count = 0;
+        long leaf = -1;
+        byte[] key = new byte[keyBytes];
+        byte[] val = new byte[valueBytes];
+        for (KeyIterator it = new KeyIterator(null, null); it.hasNext(); it.i++) {
+            get(buffer(it.leaf), keyAt(it.leaf, it.i), key, 0, keyBytes);
+            get(buffer(it.leaf), valueAt(it.leaf, it.i), val, 0, valueBytes);
+            int m = (count == 0) ? 0 : t.count(leaf);
+            if (m == t.leafKeys || count == 0) {
+                t.trim();
+                leaf = t.allocate(LEAF);
+                if (count == level.length) {
+                    level = Arrays.copyOf(level, 2 * count);
+                    first = Arrays.copyOf(first, 2 * count * keyBytes);
+                }
+                level[count] = leaf;
+                System.arraycopy(key, 0, first, count * keyBytes, keyBytes);
+                count++;
+                m = 0;
+            }
+            put(t.buffer(leaf), t.keyAt(leaf, m), key, 0, keyBytes);
+            put(t.buffer(leaf), t.valueAt(leaf, m), val, 0, valueBytes);
+            t.setCount(leaf, m + 1);
+        }
+
+        // the internal pages, full but for the last of each level
+        while (count > 1) {
+            int parents = 0;
+            for (int k = 0; k < count; k += t.internalKeys + 1) {
+                t.trim();
+                long p = t.allocate(INTERNAL);
+                int children = Math.min(t.internalKeys + 1, count - k);
+                for (int c = 0; c < children; c++) {
+                    t.setNext(p, c, level[k + c]);
+                    if (c > 0) put(t.buffer(p), t.keyAt(p, c - 1), first, (k + c) * keyBytes, keyBytes);
+                }
+                t.setCount(p, children - 1);
+                level[parents] = p;
+                System.arraycopy(first, k * keyBytes, first, parents * keyBytes, keyBytes);
+                parents++;
+            }
+            count = parents;
+            t.height++;
+        }
+        if (count == 1) t.root = level[0];
+        t.n = n;
+        t.changed = true;       // write the meta with the new root and size even if nothing was allocated
+        t.close();
+    }
+
+    /**
+     * Returns all keys in this symbol table as an {@code Iterable}, in order.
+     * Each key returned is a new array. The symbol table must not be changed
+     * during the iteration.
+     *
+     * @return all keys in this symbol table
+     */
+    public Iterable<byte[]> keys() {
+        return new Iterable<byte[]>() {
+            public Iterator<byte[]> iterator() {
+                return new KeyIterator(null, null);
+            }
+        };
+    }
+
+    /**
+     * Returns all keys in this symbol table between {@code lo} and {@code hi},
+     * both inclusive, as an {@code Iterable}, in order. The iteration reads the
+     * leaves from the one holding {@code lo}, one after another. Each key
+     * returned is a new array. The symbol table must not be changed during
+     * the iteration.
+     *
+     * @param  lo minimum endpoint
+     * @param  hi maximum endpoint
+     * @return all keys in this symbol table between {@code lo} and {@code hi}
+     * @throws NullPointerException if either {@code lo} or {@code hi} is {@code null}
+     * @throws IllegalArgumentException if either is not {@code keyBytes} long
+     */
+    public Iterable<byte[]> keys(final byte[] lo, final byte[] hi) {
+        checkKey(lo);
+        checkKey(hi);
+        return new Iterable<byte[]>() {
+            public Iterator<byte[]> iterator() {
+                return new KeyIterator(lo, hi);
+            }
+        };
+    }
+
+    // walks the leaves from lo (or the start, if null) to hi (or the end, if null),
+    // keeping the path down to the current leaf to find the next one
+    private class KeyIterator implements Iterator<byte[]> {
+        private final long[] nodes = new long[height + 1];
+        private final int[] slots = new int[height + 1];
+        private long leaf;              // current leaf, or 0 at the end
+        private int i;                  // next key of leaf
+        private final byte[] hi;
+
+        private KeyIterator(byte[] lo, byte[] hi) {
+            this.hi = hi;
+            long p = root;
+            for (int ht = height; ht > 0; ht--) {
+                int j = (lo == null) ? 0 : child(p, lo);
+                nodes[ht] = p;
+                slots[ht] = j;
+                p = MappedBTree.this.next(p, j);
+            }
+            leaf = p;
+            i = (lo == null) ? 0 : rank(p, lo);
+        }
+
+        public boolean hasNext() {
+            while (leaf != 0 && i == count(leaf))
+                advance();
+            if (leaf != 0 && hi != null && compare(hi, buffer(leaf), keyAt(leaf, i)) < 0) leaf = 0;
+            trim();
+            return leaf != 0;
+        }
+
+        // move to the first key of the next leaf
+        private void advance() {
+            int ht = 1;
+            while (ht <= height && slots[ht] == count(nodes[ht]))
+                ht++;
+            if (ht > height) {
+                leaf = 0;
+                return;
+            }
+            long p = MappedBTree.this.next(nodes[ht], ++slots[ht]);
+            for (ht--; ht > 0; ht--) {
+                nodes[ht] = p;
+                slots[ht] = 0;
+                p = MappedBTree.this.next(p, 0);
+            }
+            leaf = p;
+            i = 0;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public byte[] next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            byte[] key = new byte[keyBytes];
+            get(buffer(leaf), keyAt(leaf, i++), key, 0, keyBytes);
+            trim();
+            return key;
+        }
+    }
+
+
+    // a long as 8 bytes that order as unsigned bytes the way the longs order
+    private static byte[] encode(long x) {
+        return ByteBuffer.allocate(8).putLong(x ^ Long.MIN_VALUE).array();
+    }
+
+    private static long decode(byte[] a) {
+        return ByteBuffer.wrap(a).getLong() ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Reads pairs of long integers (a key and a value) from standard input,
+     * puts them into the B+ tree stored in the file named on the command line,
+     * commits, and prints the pairs with keys between the other two
+     * command-line arguments.
+     *
+     * @param  args the command-line arguments
+     * @throws IOException if the file cannot be opened or created
+     */
+    public static void main(String[] args) throws IOException {
+        MappedBTree st = new MappedBTree(Paths.get(args[0]), 8, 8);
+        while (!StdIn.isEmpty()) {
+            long key = StdIn.readLong();
+            long val = StdIn.readLong();
+            st.put(encode(key), encode(val));
+        }
+        st.commit();
+
+        StdOut.println(st.size() + " pairs in " + args[0] + ", height " + st.height());
+        byte[] lo = encode(Long.parseLong(args[1]));
+        byte[] hi = encode(Long.parseLong(args[2]));
+        for (byte[] key : st.keys(lo, hi))
+            StdOut.println(decode(key) + " " + decode(st.get(key)));
+        st.close();
+    }
+}
@@ -1,7 +1,7 @@
 /******************************************************************************
  *  Compilation:  javac Merge.java
  *  Execution:    java Merge < input.txt
- *  Dependencies: StdOut.java StdIn.java
+ *  Dependencies: KeyPrefix.java StdOut.java StdIn.java
  *  Data files:   http://algs4.cs.princeton.edu/22mergesort/tiny.txt
  *                http://algs4.cs.princeton.edu/22mergesort/words3.txt
  *   
@@ -27,6 +27,9 @@ package com.afcrowther.algorithms.library;
  *  The {@code Merge} class provides static methods for sorting an
  *  array using mergesort.
  *  <p>
+ *  The {@code prefixSort()} method sorts strings comparing cached
+ *  prefixes, so that most compares do not touch the strings.
+ *  <p>
  *  For additional documentation, see <a href="http://algs4.cs.princeton.edu/22mergesort">Section 2.2</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
  *  For an optimized version, see {@link MergeX}.
@@ -44,6 +47,8 @@ public class Merge {
         // precondition: a[lo .. mid] and a[mid+1 .. hi] are sorted subarrays
         assert isSorted(a, lo, mid);
         assert isSorted(a, mid+1, hi);
+        Probes.sample("Merge", "merge size", hi - lo + 1);
+        Probes.count("Merge", Probe.Event.ARRAY_ACCESS, 4L * (hi - lo + 1));
 
         // copy to aux[]
         for (int k = lo; k <= hi; k++) {
@@ -83,15 +88,322 @@ public class Merge {
     }
 
 
+   /***************************************************************************
+    *  Strings, comparing cached prefixes.
+    ***************************************************************************/
+
+    /**
+     * Rearranges the array of strings in ascending order, comparing cached
+     * four-character prefixes before the strings themselves.
+     * <p>
+     * Mergesort does not compare strings one character position at a time,
+     * so the prefixes (see {@link KeyPrefix}) are taken once, just after the
+     * longest prefix that all the strings share: for URLs, past the common
+     * scheme and host. They are kept in a {@code long[]} alongside the array
+     * and merged along with the strings, and the strings themselves are only
+     * compared when their prefixes are equal. This takes {@code 16n} bytes
+     * of extra memory. The sort is stable.
+     *
+     * @param a the array to be sorted
+     */
+    public static void prefixSort(String[] a) {
+        int n = a.length;
+        if (n <= 1) return;
+        int d = commonPrefix(a);
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++)
+            keys[i] = KeyPrefix.prefix(a[i], d);
+        sort(a, keys, new String[n], new long[n], 0, n-1, d);
+        assert isSorted(a);
+    }
+
+    // length of the longest prefix shared by all the strings
+    private static int commonPrefix(String[] a) {
+        String first = a[0];
+        int d = first.length();
+        for (int i = 1; i < a.length && d > 0; i++) {
+            String s = a[i];
+            int n = Math.min(d, s.length());
+            int j = 0;
+            while (j < n && s.charAt(j) == first.charAt(j))
+                j++;
+            d = j;
+        }
+        return d;
+    }
+
+    // mergesort a[lo..hi] and their prefixes using aux[lo..hi] and auxKeys[lo..hi],
+    // given that all the strings share their first d characters
+    private static void sort(String[] a, long[] keys, String[] aux, long[] auxKeys, int lo, int hi, int d) {
+        if (hi <= lo) return;
+        int mid = lo + (hi - lo) / 2;
+        sort(a, keys, aux, auxKeys, lo, mid, d);
+        sort(a, keys, aux, auxKeys, mid + 1, hi, d);
+        merge(a, keys, aux, auxKeys, lo, mid, hi, d);
+    }
+
+    // stably merge a[lo .. mid] with a[mid+1 ..hi], and their prefixes
+    private static void merge(String[] a, long[] keys, String[] aux, long[] auxKeys, int lo, int mid, int hi, int d) {
+
+        // copy to aux[] and auxKeys[]
+        System.arraycopy(a, lo, aux, lo, hi - lo + 1);
+        System.arraycopy(keys, lo, auxKeys, lo, hi - lo + 1);
+
+        // merge back to a[] and keys[]
+        int i = lo, j = mid+1;
+        for (int k = lo; k <= hi; k++) {
+            if      (i > mid)                                                   { a[k] = aux[j]; keys[k] = auxKeys[j++]; }
+            else if (j > hi)                                                    { a[k] = aux[i]; keys[k] = auxKeys[i++]; }
+            else if (KeyPrefix.compare(aux[j], auxKeys[j], aux[i], auxKeys[i], d) < 0) { a[k] = aux[j]; keys[k] = auxKeys[j++]; }
+            else                                                                { a[k] = aux[i]; keys[k] = auxKeys[i++]; }
+        }
+    }
+
+
    /***************************************************************************
     *  Helper sorting function.
     ***************************************************************************/
     
     // is v < w ?
     private static boolean less(Comparable v, Comparable w) {
+        Probes.count("Merge", Probe.Event.COMPARE);
         return v.compareTo(w) < 0;
     }
         
+
+   /***************************************************************************
+    *  Primitive-type versions: the same algorithm without boxing.
+    ***************************************************************************/
+
+    /**
+     * Rearranges the array of ints in ascending order.
+     * @param a the array to be sorted
+     */
+    public static void sort(int[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of ints in ascending order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(int[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        if (hi <= lo) return;
+        int[] aux = new int[hi - lo + 1];
+        sort(a, aux, lo, hi);
+        assert isSorted(a, lo, hi);
+    }
+
+    // mergesort a[lo..hi] using auxiliary array aux[0..hi-lo]
+    private static void sort(int[] a, int[] aux, int lo, int hi) {
+        if (hi <= lo) return;
+        int mid = lo + (hi - lo) / 2;
+        sort(a, aux, lo, mid);
+        sort(a, aux, mid + 1, hi);
+        merge(a, aux, lo, mid, hi);
+    }
+
+    // merge a[lo .. mid] with a[mid+1 ..hi] using aux[0 .. hi-lo]
+    private static void merge(int[] a, int[] aux, int lo, int mid, int hi) {
+        // copy to aux[]
+        for (int k = lo; k <= hi; k++) {
+            aux[k - lo] = a[k];
+        }
+
+        // merge back to a[]
+        int i = 0, j = mid + 1 - lo, last = mid - lo, end = hi - lo;
+        for (int k = lo; k <= hi; k++) {
+            if      (i > last)           a[k] = aux[j++];
+            else if (j > end)            a[k] = aux[i++];
+            else if (aux[j] < aux[i])    a[k] = aux[j++];
+            else                         a[k] = aux[i++];
+        }
+    }
+
+    private static boolean isSorted(int[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+    /**
+     * Rearranges the array of longs in ascending order.
+     * @param a the array to be sorted
+     */
+    public static void sort(long[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of longs in ascending order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(long[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        if (hi <= lo) return;
+        long[] aux = new long[hi - lo + 1];
+        sort(a, aux, lo, hi);
+        assert isSorted(a, lo, hi);
+    }
+
+    // mergesort a[lo..hi] using auxiliary array aux[0..hi-lo]
+    private static void sort(long[] a, long[] aux, int lo, int hi) {
+        if (hi <= lo) return;
+        int mid = lo + (hi - lo) / 2;
+        sort(a, aux, lo, mid);
+        sort(a, aux, mid + 1, hi);
+        merge(a, aux, lo, mid, hi);
+    }
+
+    // merge a[lo .. mid] with a[mid+1 ..hi] using aux[0 .. hi-lo]
+    private static void merge(long[] a, long[] aux, int lo, int mid, int hi) {
+        // copy to aux[]
+        for (int k = lo; k <= hi; k++) {
+            aux[k - lo] = a[k];
+        }
+
+        // merge back to a[]
+        int i = 0, j = mid + 1 - lo, last = mid - lo, end = hi - lo;
+        for (int k = lo; k <= hi; k++) {
+            if      (i > last)           a[k] = aux[j++];
+            else if (j > end)            a[k] = aux[i++];
+            else if (aux[j] < aux[i])    a[k] = aux[j++];
+            else                         a[k] = aux[i++];
+        }
+    }
+
+    private static boolean isSorted(long[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+    /**
+     * Rearranges the array of floats in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they keep their relative order.
+     * @param a the array to be sorted
+     */
+    public static void sort(float[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of floats in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they keep their relative order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(float[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        if (hi <= lo) return;
+        float[] aux = new float[hi - lo + 1];
+        sort(a, aux, lo, hi);
+        assert isSorted(a, lo, hi);
+    }
+
+    // mergesort a[lo..hi] using auxiliary array aux[0..hi-lo]
+    private static void sort(float[] a, float[] aux, int lo, int hi) {
+        if (hi <= lo) return;
+        int mid = lo + (hi - lo) / 2;
+        sort(a, aux, lo, mid);
+        sort(a, aux, mid + 1, hi);
+        merge(a, aux, lo, mid, hi);
+    }
+
+    // merge a[lo .. mid] with a[mid+1 ..hi] using aux[0 .. hi-lo]
+    private static void merge(float[] a, float[] aux, int lo, int mid, int hi) {
+        // copy to aux[]
+        for (int k = lo; k <= hi; k++) {
+            aux[k - lo] = a[k];
+        }
+
+        // merge back to a[]
+        int i = 0, j = mid + 1 - lo, last = mid - lo, end = hi - lo;
+        for (int k = lo; k <= hi; k++) {
+            if      (i > last)           a[k] = aux[j++];
+            else if (j > end)            a[k] = aux[i++];
+            else if (aux[j] < aux[i])    a[k] = aux[j++];
+            else                         a[k] = aux[i++];
+        }
+    }
+
+    private static boolean isSorted(float[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+    /**
+     * Rearranges the array of doubles in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they keep their relative order.
+     * @param a the array to be sorted
+     */
+    public static void sort(double[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of doubles in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they keep their relative order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(double[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        if (hi <= lo) return;
+        double[] aux = new double[hi - lo + 1];
+        sort(a, aux, lo, hi);
+        assert isSorted(a, lo, hi);
+    }
+
+    // mergesort a[lo..hi] using auxiliary array aux[0..hi-lo]
+    private static void sort(double[] a, double[] aux, int lo, int hi) {
+        if (hi <= lo) return;
+        int mid = lo + (hi - lo) / 2;
+        sort(a, aux, lo, mid);
+        sort(a, aux, mid + 1, hi);
+        merge(a, aux, lo, mid, hi);
+    }
+
+    // merge a[lo .. mid] with a[mid+1 ..hi] using aux[0 .. hi-lo]
+    private static void merge(double[] a, double[] aux, int lo, int mid, int hi) {
+        // copy to aux[]
+        for (int k = lo; k <= hi; k++) {
+            aux[k - lo] = a[k];
+        }
+
+        // merge back to a[]
+        int i = 0, j = mid + 1 - lo, last = mid - lo, end = hi - lo;
+        for (int k = lo; k <= hi; k++) {
+            if      (i > last)           a[k] = aux[j++];
+            else if (j > end)            a[k] = aux[i++];
+            else if (aux[j] < aux[i])    a[k] = aux[j++];
+            else                         a[k] = aux[i++];
+        }
+    }
+
+    private static boolean isSorted(double[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+
    /***************************************************************************
     *  Check if array is sorted - useful for debugging.
     ***************************************************************************/
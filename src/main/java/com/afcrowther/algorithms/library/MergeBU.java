@@ -28,6 +28,13 @@ package com.afcrowther.algorithms.library;
  *  The {@code MergeBU} class provides static methods for sorting an
  *  array using bottom-up mergesort.
  *  <p>
+ *  The {@code naturalSort()} method is a natural mergesort: instead of
+ *  starting from runs of length 1, it starts from the ascending and
+ *  descending runs already in the input, extended to a minimum length with
+ *  binary insertion sort, and merges adjacent runs pass by pass, skipping
+ *  merges of runs that are already in order. It sorts an array that is
+ *  already sorted (or sorted in descending order) in linear time.
+ *  <p>
  *  For additional documentation, see <a href="http://algs4.cs.princeton.edu/21elementary">Section 2.1</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
  *
@@ -36,6 +43,8 @@ package com.afcrowther.algorithms.library;
  */
 public class MergeBU {
 
+    private static final int MIN_RUN = 32;   // runs shorter than this are extended by binary insertion
+
     // This class should not be instantiated.
     private MergeBU() { }
 
@@ -75,6 +84,79 @@ public class MergeBU {
         assert isSorted(a);
     }
 
+    /**
+     * Rearranges the array in ascending order, using the natural order,
+     * by merging the runs already present in the input.
+     * @param a the array to be sorted
+     */
+    public static void naturalSort(Comparable[] a) {
+        int n = a.length;
+
+        // start[r] = index of the first item of run r, and start[runs] = n
+        int[] start = new int[n / MIN_RUN + 2];
+        int runs = 0;
+        for (int lo = 0; lo < n; runs++) {
+            start[runs] = lo;
+            int hi = lo + run(a, lo, n);
+            if (hi - lo < MIN_RUN) {
+                int end = Math.min(lo + MIN_RUN, n);
+                binaryInsertion(a, lo, hi, end);
+                hi = end;
+            }
+            lo = hi;
+        }
+        start[runs] = n;
+
+        // merge pairs of adjacent runs until only one is left
+        Comparable[] aux = new Comparable[n];
+        while (runs > 1) {
+            int merged = 0;
+            for (int r = 0; r < runs; r += 2) {
+                start[merged++] = start[r];
+                if (r + 1 == runs) break;
+                int mid = start[r+1] - 1;
+                int hi = start[r+2] - 1;
+                if (less(a[mid+1], a[mid])) merge(a, aux, start[r], mid, hi);
+            }
+            start[merged] = n;
+            runs = merged;
+        }
+        assert isSorted(a);
+    }
+
+    // length of the run starting at a[lo]; a strictly descending run is reversed
+    private static int run(Comparable[] a, int lo, int n) {
+        int hi = lo + 1;
+        if (hi == n) return 1;
+        if (less(a[hi++], a[lo])) {
+            while (hi < n && less(a[hi], a[hi-1])) hi++;
+            for (int i = lo, j = hi - 1; i < j; i++, j--) {
+                Comparable swap = a[i];
+                a[i] = a[j];
+                a[j] = swap;
+            }
+        }
+        else {
+            while (hi < n && !less(a[hi], a[hi-1])) hi++;
+        }
+        return hi - lo;
+    }
+
+    // binary insertion sort a[lo..end-1], given that a[lo..start-1] is sorted
+    private static void binaryInsertion(Comparable[] a, int lo, int start, int end) {
+        for (int i = start; i < end; i++) {
+            Comparable v = a[i];
+            int left = lo, right = i;
+            while (left < right) {
+                int mid = left + (right - left) / 2;
+                if (less(v, a[mid])) right = mid;
+                else                 left = mid + 1;
+            }
+            System.arraycopy(a, left, a, left + 1, i - left);
+            a[left] = v;
+        }
+    }
+
   /***********************************************************************
     *  Helper sorting functions.
     ***************************************************************************/
@@ -1,7 +1,7 @@
 /******************************************************************************
  *  Compilation:  javac MergeX.java
  *  Execution:    java MergeX < input.txt
- *  Dependencies: StdOut.java StdIn.java
+ *  Dependencies: SmallSort.java StdOut.java StdIn.java
  *  Data files:   http://algs4.cs.princeton.edu/22mergesort/tiny.txt
  *                http://algs4.cs.princeton.edu/22mergesort/words3.txt
  *   
@@ -25,11 +25,24 @@
 package com.afcrowther.algorithms.library;
 
 import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  *  The {@code MergeX} class provides static methods for sorting an
  *  array using an optimized version of mergesort.
  *  <p>
+ *  The {@code parallelSort()} methods sort with the same algorithm on a
+ *  fork/join pool: subarrays larger than a threshold are sorted in parallel and
+ *  merged with a parallel merge, and smaller ones are sorted sequentially.
+ *  Like {@code sort()}, they are stable.
+ *  <p>
+ *  The {@code naturalSort()} methods are a run-adaptive (TimSort-style)
+ *  version: they merge the ascending and descending runs already in the
+ *  input, extending short ones with binary insertion sort, and merge by
+ *  galloping when one run keeps winning. They are stable, and take close
+ *  to linear time on nearly sorted input.
+ *  <p>
  *  For additional documentation, see <a href="http://algs4.cs.princeton.edu/22mergesort">Section 2.2</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
  *
@@ -38,6 +51,7 @@ import java.util.Comparator;
  */
 public class MergeX {
     private static final int CUTOFF = 7;  // cutoff to insertion sort
+    private static final int PARALLEL_THRESHOLD = 1 << 13;  // default cutoff to sequential sort and merge
 
     // This class should not be instantiated.
     private MergeX() { }
@@ -63,7 +77,7 @@ public class MergeX {
     private static void sort(Comparable[] src, Comparable[] dst, int lo, int hi) {
         // if (hi <= lo) return;
         if (hi <= lo + CUTOFF) { 
-            insertionSort(dst, lo, hi);
+            SmallSort.sort(dst, lo, hi);
             return;
         }
         int mid = lo + (hi - lo) / 2;
@@ -94,13 +108,6 @@ public class MergeX {
         assert isSorted(a);
     }
 
-    // sort from a[lo] to a[hi] using insertion sort
-    private static void insertionSort(Comparable[] a, int lo, int hi) {
-        for (int i = lo; i <= hi; i++)
-            for (int j = i; j > lo && less(a[j], a[j-1]); j--)
-                exch(a, j, j-1);
-    }
-
 
     /*******************************************************************
      *  Utility methods.
@@ -162,7 +169,7 @@ public class MergeX {
     private static void sort(Object[] src, Object[] dst, int lo, int hi, Comparator comparator) {
         // if (hi <= lo) return;
         if (hi <= lo + CUTOFF) { 
-            insertionSort(dst, lo, hi, comparator);
+            SmallSort.sort(dst, lo, hi, comparator);
             return;
         }
         int mid = lo + (hi - lo) / 2;
@@ -178,11 +185,501 @@ public class MergeX {
         merge(src, dst, lo, mid, hi, comparator);
     }
 
-    // sort from a[lo] to a[hi] using insertion sort
-    private static void insertionSort(Object[] a, int lo, int hi, Comparator comparator) {
-        for (int i = lo; i <= hi; i++)
-            for (int j = i; j > lo && less(a[j], a[j-1], comparator); j--)
-                exch(a, j, j-1);
+
+    /*******************************************************************
+     *  Parallel version.
+     *******************************************************************/
+
+    /**
+     * Rearranges the array in ascending order, using the natural order,
+     * sorting subarrays in parallel on the common fork/join pool.
+     *
+     * @param a the array to be sorted
+     */
+    public static void parallelSort(Comparable[] a) {
+        parallelSort(a, PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Rearranges the array in ascending order, using the natural order,
+     * sorting subarrays in parallel on the common fork/join pool.
+     * Subarrays of at most {@code threshold} items are sorted (and merged) sequentially.
+     *
+     * @param a the array to be sorted
+     * @param threshold the largest subarray to sort without splitting the work
+     * @throws IllegalArgumentException if {@code threshold < 1}
+     */
+    public static void parallelSort(Comparable[] a, int threshold) {
+        if (threshold < 1) throw new IllegalArgumentException("threshold must be positive");
+        Comparable[] aux = a.clone();
+        if (a.length <= threshold) sort(aux, a, 0, a.length-1);
+        else ForkJoinPool.commonPool().invoke(new SortTask(aux, a, 0, a.length-1, null, threshold));
+        assert isSorted(a);
+    }
+
+    /**
+     * Rearranges the array in ascending order, using the provided order,
+     * sorting subarrays in parallel on the common fork/join pool.
+     *
+     * @param a the array to be sorted
+     * @param comparator the comparator that defines the total order
+     */
+    public static void parallelSort(Object[] a, Comparator comparator) {
+        parallelSort(a, comparator, PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Rearranges the array in ascending order, using the provided order,
+     * sorting subarrays in parallel on the common fork/join pool.
+     * Subarrays of at most {@code threshold} items are sorted (and merged) sequentially.
+     *
+     * @param a the array to be sorted
+     * @param comparator the comparator that defines the total order
+     * @param threshold the largest subarray to sort without splitting the work
+     * @throws IllegalArgumentException if {@code threshold < 1}
+     */
+    public static void parallelSort(Object[] a, Comparator comparator, int threshold) {
+        if (comparator == null) throw new NullPointerException("comparator must not be null");
+        if (threshold < 1) throw new IllegalArgumentException("threshold must be positive");
+        Object[] aux = a.clone();
+        if (a.length <= threshold) sort(aux, a, 0, a.length-1, comparator);
+        else ForkJoinPool.commonPool().invoke(new SortTask(aux, a, 0, a.length-1, comparator, threshold));
+        assert isSorted(a, comparator);
+    }
+
+    // is v < w ? using the comparator, or the natural order if it is null
+    private static boolean lessOrNatural(Object v, Object w, Comparator comparator) {
+        if (comparator == null) return less((Comparable) v, (Comparable) w);
+        else                    return less(v, w, comparator);
+    }
+
+    // sort src[lo .. hi] into dst[lo .. hi], using src as the auxiliary array;
+    // like sort(src, dst, lo, hi), requires src[lo .. hi] and dst[lo .. hi] to hold the same items
+    private static class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] src, dst;
+        private final int lo, hi;
+        private final Comparator comparator;    // null for natural order
+        private final int threshold;
+
+        SortTask(Object[] src, Object[] dst, int lo, int hi, Comparator comparator, int threshold) {
+            this.src = src;
+            this.dst = dst;
+            this.lo = lo;
+            this.hi = hi;
+            this.comparator = comparator;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo + 1 <= threshold) {
+                if (comparator == null) sort((Comparable[]) src, (Comparable[]) dst, lo, hi);
+                else                    sort(src, dst, lo, hi, comparator);
+                return;
+            }
+            int mid = lo + (hi - lo) / 2;
+            invokeAll(new SortTask(dst, src, lo, mid, comparator, threshold),
+                      new SortTask(dst, src, mid+1, hi, comparator, threshold));
+
+            if (!lessOrNatural(src[mid+1], src[mid], comparator)) {
+                System.arraycopy(src, lo, dst, lo, hi - lo + 1);
+                return;
+            }
+            new MergeTask(src, dst, lo, mid, mid+1, hi, lo, comparator, threshold).compute();
+        }
+    }
+
+    // stably merge src[lo1 .. hi1] with src[lo2 .. hi2] into dst[k ..], where the first
+    // run precedes the second in the original order; the larger run is split at its middle
+    // item, the other run is split by binary search, and the two halves merge in parallel
+    private static class MergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] src, dst;
+        private final int lo1, hi1, lo2, hi2, k;
+        private final Comparator comparator;    // null for natural order
+        private final int threshold;
+
+        MergeTask(Object[] src, Object[] dst, int lo1, int hi1, int lo2, int hi2, int k,
+                  Comparator comparator, int threshold) {
+            this.src = src;
+            this.dst = dst;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.k = k;
+            this.comparator = comparator;
+            this.threshold = threshold;
+        }
+
+        private boolean less(Object v, Object w) {
+            return lessOrNatural(v, w, comparator);
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1 + 1;
+            int n2 = hi2 - lo2 + 1;
+            if (n1 + n2 <= threshold) {
+                int i = lo1, j = lo2;
+                for (int m = k; m < k + n1 + n2; m++) {
+                    if      (i > hi1)                dst[m] = src[j++];
+                    else if (j > hi2)                dst[m] = src[i++];
+                    else if (less(src[j], src[i]))   dst[m] = src[j++];   // to ensure stability
+                    else                             dst[m] = src[i++];
+                }
+                return;
+            }
+
+            int mid1, mid2;
+            if (n1 >= n2) {
+                // items of the second run less than src[mid1] go before it
+                mid1 = lo1 + (hi1 - lo1) / 2;
+                int lo = lo2, hi = hi2 + 1;
+                while (lo < hi) {
+                    int m = lo + (hi - lo) / 2;
+                    if (less(src[m], src[mid1])) lo = m + 1;
+                    else                         hi = m;
+                }
+                mid2 = lo;
+                int at = k + (mid1 - lo1) + (mid2 - lo2);
+                dst[at] = src[mid1];
+                invokeAll(new MergeTask(src, dst, lo1, mid1-1, lo2, mid2-1, k, comparator, threshold),
+                          new MergeTask(src, dst, mid1+1, hi1, mid2, hi2, at+1, comparator, threshold));
+            }
+            else {
+                // items of the first run less than or equal to src[mid2] go before it
+                mid2 = lo2 + (hi2 - lo2) / 2;
+                int lo = lo1, hi = hi1 + 1;
+                while (lo < hi) {
+                    int m = lo + (hi - lo) / 2;
+                    if (!less(src[mid2], src[m])) lo = m + 1;
+                    else                          hi = m;
+                }
+                mid1 = lo;
+                int at = k + (mid1 - lo1) + (mid2 - lo2);
+                dst[at] = src[mid2];
+                invokeAll(new MergeTask(src, dst, lo1, mid1-1, lo2, mid2-1, k, comparator, threshold),
+                          new MergeTask(src, dst, mid1, hi1, mid2+1, hi2, at+1, comparator, threshold));
+            }
+        }
+    }
+
+
+    /*******************************************************************
+     *  Natural (run-adaptive) version.
+     *******************************************************************/
+
+    /**
+     * Rearranges the array in ascending order, using the natural order,
+     * by merging the runs already present in the input.
+     * Takes linear time on an array that is already sorted (or sorted in
+     * descending order), and close to linear time on an array made of a
+     * few long runs.
+     *
+     * @param a the array to be sorted
+     */
+    public static void naturalSort(Comparable[] a) {
+        new NaturalSort(a, null).sort();
+        assert isSorted(a);
+    }
+
+    /**
+     * Rearranges the array in ascending order, using the provided order,
+     * by merging the runs already present in the input.
+     *
+     * @param a the array to be sorted
+     * @param comparator the comparator that defines the total order
+     */
+    public static void naturalSort(Object[] a, Comparator comparator) {
+        if (comparator == null) throw new NullPointerException("comparator must not be null");
+        new NaturalSort(a, comparator).sort();
+        assert isSorted(a, comparator);
+    }
+
+    // TimSort-style mergesort: finds the ascending and strictly descending runs
+    // (reversing the latter), extends runs shorter than a minimum length with
+    // binary insertion sort, and keeps the lengths of the runs waiting to be merged
+    // on a stack, merging the top ones whenever their lengths stop decreasing fast
+    // enough; merges gallop (exponential search, then binary search) through the
+    // input once one run has supplied MIN_GALLOP items in a row
+    private static class NaturalSort {
+        private static final int MIN_MERGE  = 32;   // arrays shorter than this are just binary insertion sorted
+        private static final int MIN_GALLOP = 7;    // initial run of wins that switches to galloping
+
+        private final Object[] a;
+        private final Comparator comparator;        // null for natural order
+        private Object[] tmp = new Object[0];       // copy of the shorter run being merged
+        private int minGallop = MIN_GALLOP;         // adapts: lower when galloping pays off
+        private final int[] runBase = new int[64];  // stack of pending runs; run lengths grow
+        private final int[] runLen = new int[64];   // at least like Fibonacci numbers, so 64 is enough
+        private int stackSize = 0;
+
+        NaturalSort(Object[] a, Comparator comparator) {
+            this.a = a;
+            this.comparator = comparator;
+        }
+
+        private boolean less(Object v, Object w) {
+            return lessOrNatural(v, w, comparator);
+        }
+
+        void sort() {
+            int n = a.length;
+            if (n < 2) return;
+            if (n < MIN_MERGE) {
+                binaryInsertionSort(0, n, countRunAndMakeAscending(0, n));
+                return;
+            }
+
+            int minRun = minRunLength(n);
+            int lo = 0;
+            while (lo < n) {
+                int run = countRunAndMakeAscending(lo, n);
+                if (run < minRun) {
+                    int force = Math.min(n - lo, minRun);
+                    binaryInsertionSort(lo, lo + force, lo + run);
+                    run = force;
+                }
+                runBase[stackSize] = lo;
+                runLen[stackSize] = run;
+                stackSize++;
+                mergeCollapse();
+                lo += run;
+            }
+            while (stackSize > 1) {
+                int i = stackSize - 2;
+                if (i > 0 && runLen[i-1] < runLen[i+1]) i--;
+                mergeAt(i);
+            }
+        }
+
+        // n / 2^k rounded up for the smallest k that makes it less than MIN_MERGE,
+        // so that n / minRun is a power of 2 or just below one
+        private static int minRunLength(int n) {
+            int r = 0;
+            while (n >= MIN_MERGE) {
+                r |= n & 1;
+                n >>= 1;
+            }
+            return n + r;
+        }
+
+        // length of the run starting at a[lo] (before hi); a descending run is reversed
+        private int countRunAndMakeAscending(int lo, int hi) {
+            int runHi = lo + 1;
+            if (runHi == hi) return 1;
+            if (less(a[runHi++], a[lo])) {
+                // strictly descending, so that reversing it keeps the sort stable
+                while (runHi < hi && less(a[runHi], a[runHi-1])) runHi++;
+                for (int i = lo, j = runHi - 1; i < j; i++, j--)
+                    exch(a, i, j);
+            }
+            else {
+                while (runHi < hi && !less(a[runHi], a[runHi-1])) runHi++;
+            }
+            return runHi - lo;
+        }
+
+        // sort a[lo..hi-1], given that a[lo..start-1] is sorted, by binary insertion
+        private void binaryInsertionSort(int lo, int hi, int start) {
+            for (int i = start; i < hi; i++) {
+                Object v = a[i];
+                int left = lo, right = i;
+                while (left < right) {
+                    int mid = left + (right - left) / 2;
+                    if (less(v, a[mid])) right = mid;
+                    else                 left = mid + 1;
+                }
+                System.arraycopy(a, left, a, left + 1, i - left);
+                a[left] = v;
+            }
+        }
+
+        // merge the top runs until, from the top of the stack down, each run is
+        // longer than the next one, and longer than the sum of the next two
+        private void mergeCollapse() {
+            while (stackSize > 1) {
+                int i = stackSize - 2;
+                if (i > 0 && runLen[i-1] <= runLen[i] + runLen[i+1]
+                 || i > 1 && runLen[i-2] <= runLen[i-1] + runLen[i]) {
+                    if (runLen[i-1] < runLen[i+1]) i--;
+                }
+                else if (runLen[i] > runLen[i+1]) {
+                    break;
+                }
+                mergeAt(i);
+            }
+        }
+
+        // merge the ith and (i+1)st runs on the stack
+        private void mergeAt(int i) {
+            int base1 = runBase[i], len1 = runLen[i];
+            int base2 = runBase[i+1], len2 = runLen[i+1];
+            runLen[i] = len1 + len2;
+            if (i == stackSize - 3) {
+                runBase[i+1] = runBase[i+2];
+                runLen[i+1] = runLen[i+2];
+            }
+            stackSize--;
+
+            // items of the first run no greater than a[base2] are already in place
+            int k = gallop(a[base2], a, base1, len1, true, true);
+            base1 += k;
+            len1 -= k;
+            if (len1 == 0) return;
+
+            // so are the items of the second run no less than the last of the first run
+            len2 = gallop(a[base1 + len1 - 1], a, base2, len2, false, false);
+            if (len2 == 0) return;
+
+            if (len1 <= len2) mergeLo(base1, len1, base2, len2);
+            else              mergeHi(base1, len1, base2, len2);
+        }
+
+        // number of items in x[base..base+len-1] (which is sorted) less than key, or
+        // if inclusive no greater than key; doubles the step from the left end (or
+        // from the right end) until it passes the answer, then binary searches
+        private int gallop(Object key, Object[] x, int base, int len, boolean inclusive, boolean fromLeft) {
+            int lo, hi;
+            int ofs = 1;
+            if (fromLeft) {
+                lo = 0;
+                while (ofs <= len && before(x[base + ofs - 1], key, inclusive)) {
+                    lo = ofs;
+                    ofs = (ofs > len / 2) ? len + 1 : 2 * ofs;
+                }
+                hi = (ofs > len) ? len : ofs - 1;
+            }
+            else {
+                hi = len;
+                while (ofs <= len && !before(x[base + len - ofs], key, inclusive)) {
+                    hi = len - ofs;
+                    ofs = (ofs > len / 2) ? len + 1 : 2 * ofs;
+                }
+                lo = (ofs > len) ? 0 : len - ofs + 1;
+            }
+            while (lo < hi) {
+                int mid = lo + (hi - lo) / 2;
+                if (before(x[base + mid], key, inclusive)) lo = mid + 1;
+                else                                       hi = mid;
+            }
+            return lo;
+        }
+
+        // does v go before key: v < key, or if inclusive v <= key?
+        private boolean before(Object v, Object key, boolean inclusive) {
+            return inclusive ? !less(key, v) : less(v, key);
+        }
+
+        private Object[] tmp(int n) {
+            if (tmp.length < n) tmp = new Object[Math.max(n, Math.min(2 * tmp.length, a.length / 2))];
+            return tmp;
+        }
+
+        // merge left to right, with the first (shorter) run copied to tmp;
+        // requires a[base1] > a[base2] and a[base1+len1-1] > a[base2+len2-1]
+        private void mergeLo(int base1, int len1, int base2, int len2) {
+            Object[] t = tmp(len1);
+            System.arraycopy(a, base1, t, 0, len1);
+            int i = 0, j = base2, k = base1;
+            int end1 = len1, end2 = base2 + len2;
+
+            merge:
+            while (true) {
+                // one item at a time, counting how often each run wins in a row
+                int wins1 = 0, wins2 = 0;
+                while (wins1 < minGallop && wins2 < minGallop) {
+                    if (less(a[j], t[i])) {
+                        a[k++] = a[j++];
+                        wins2++;
+                        wins1 = 0;
+                        if (j == end2) break merge;
+                    }
+                    else {
+                        a[k++] = t[i++];
+                        wins1++;
+                        wins2 = 0;
+                        if (i == end1) break merge;
+                    }
+                }
+
+                // galloping: copy whole stretches of each run
+                int count1, count2;
+                do {
+                    count1 = gallop(a[j], t, i, end1 - i, true, true);
+                    System.arraycopy(t, i, a, k, count1);
+                    i += count1;
+                    k += count1;
+                    if (i == end1) break merge;
+
+                    count2 = gallop(t[i], a, j, end2 - j, false, true);
+                    System.arraycopy(a, j, a, k, count2);
+                    j += count2;
+                    k += count2;
+                    if (j == end2) break merge;
+
+                    if (minGallop > 1) minGallop--;
+                } while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+                minGallop += 2;   // penalty for leaving galloping mode
+            }
+
+            // the rest of the second run is already in place
+            System.arraycopy(t, i, a, k, end1 - i);
+        }
+
+        // merge right to left, with the second (shorter) run copied to tmp;
+        // requires a[base1] > a[base2] and a[base1+len1-1] > a[base2+len2-1]
+        private void mergeHi(int base1, int len1, int base2, int len2) {
+            Object[] t = tmp(len2);
+            System.arraycopy(a, base2, t, 0, len2);
+            int i = len2 - 1, j = base1 + len1 - 1, k = base2 + len2 - 1;
+
+            merge:
+            while (true) {
+                // one item at a time, counting how often each run wins in a row
+                int wins1 = 0, wins2 = 0;
+                while (wins1 < minGallop && wins2 < minGallop) {
+                    if (less(t[i], a[j])) {
+                        a[k--] = a[j--];
+                        wins1++;
+                        wins2 = 0;
+                        if (j < base1) break merge;
+                    }
+                    else {
+                        a[k--] = t[i--];
+                        wins2++;
+                        wins1 = 0;
+                        if (i < 0) break merge;
+                    }
+                }
+
+                // galloping: copy whole stretches of each run
+                int count1, count2;
+                do {
+                    count1 = (j - base1 + 1) - gallop(t[i], a, base1, j - base1 + 1, true, false);
+                    System.arraycopy(a, j - count1 + 1, a, k - count1 + 1, count1);
+                    j -= count1;
+                    k -= count1;
+                    if (j < base1) break merge;
+
+                    count2 = (i + 1) - gallop(a[j], t, 0, i + 1, false, false);
+                    System.arraycopy(t, i - count2 + 1, a, k - count2 + 1, count2);
+                    i -= count2;
+                    k -= count2;
+                    if (i < 0) break merge;
+
+                    if (minGallop > 1) minGallop--;
+                } while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+                minGallop += 2;   // penalty for leaving galloping mode
+            }
+
+            // the rest of the first run is already in place
+            System.arraycopy(t, 0, a, k - i, i + 1);
+        }
     }
 
 
@@ -0,0 +1,586 @@
+/******************************************************************************
+ *  Compilation:  javac OffHeapHashST.java
+ *  Execution:    java OffHeapHashST file < input.txt
+ *  Dependencies: StdIn.java StdOut.java
+ *
+ *  Symbol table of fixed-width keys and values, implemented with a
+ *  linear-probing hash table stored outside the Java heap, in direct
+ *  buffers or in a memory-mapped file.
+ *
+ *  % echo "10 100 20 200 30 300 20 250" | java OffHeapHashST table.bin
+ *  3 pairs in table.bin
+ *  20 250
+ *  10 100
+ *  30 300
+ *
+ *  % java OffHeapHashST table.bin < /dev/null
+ *  3 pairs in table.bin
+ *  20 250
+ *  10 100
+ *  30 300
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.library;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ *  The {@code OffHeapHashST} class represents a symbol table of keys and
+ *  values that are byte arrays of fixed widths, given when the table is
+ *  created. It supports the usual <em>put</em>, <em>get</em>,
+ *  <em>contains</em>, <em>delete</em>, <em>size</em>, and <em>is-empty</em>
+ *  methods, and a <em>keys</em> method for iterating over all of the keys.
+ *  As in {@link LinearProbingHashST}, setting the value associated with a
+ *  key to {@code null} is equivalent to deleting the key.
+ *  <p>
+ *  The table is stored outside the Java heap, so however many keys it holds,
+ *  the garbage collector sees only a few objects. Each slot of the table
+ *  takes 1 + <em>keyBytes</em> + <em>valueBytes</em> bytes: a byte that
+ *  marks it as used, then the key and the value. The slots are kept in
+ *  {@link ByteBuffer} slabs of at most 1 GiB each, so a table may have more
+ *  than 2<sup>31</sup> slots. The keys and values passed in are copied into
+ *  the slabs, and those returned are copied out of them.
+ *  <p>
+ *  The slabs are either direct buffers, or regions of a file mapped into
+ *  memory. A file-backed table reopens instantly: the constructor maps the
+ *  file back in, without reading or rehashing the keys, and the operating
+ *  system pages in the parts of it that are used. Changes reach the file
+ *  when the operating system writes back the mapped pages, or when
+ *  {@link #flush} or {@link #close} is called; a table that was not flushed
+ *  before the process stopped may be missing some changes.
+ *  <p>
+ *  This implementation uses linear probing on a table whose size is a power
+ *  of two, with each key hashed by FNV-1a and the MurmurHash3 finalizer. A
+ *  deleted key is removed by shifting the keys after it in its cluster back
+ *  (Knuth's Algorithm R), so there are no tombstones. The table doubles when
+ *  it is three-quarters full; a file-backed table is rebuilt in a new file
+ *  next to the old one, which then replaces it. The table does not shrink.
+ *  The expected time per <em>put</em>, <em>contains</em>, or <em>delete</em>
+ *  operation is constant, subject to the uniform hashing assumption.
+ *  <p>
+ *  This class is not thread-safe. The direct buffers and file mappings are
+ *  released when the table is garbage collected; direct buffers count
+ *  against the JVM's {@code -XX:MaxDirectMemorySize}.
+ */
+public class OffHeapHashST implements Closeable {
+    private static final long MAGIC = 0x616c677334686173L;      // file signature
+    private static final int HEADER_BYTES = 64;                 // magic, widths, slots, n
+    private static final int KEY_BYTES_OFFSET = 8;
+    private static final int VALUE_BYTES_OFFSET = 12;
+    private static final int SLOTS_OFFSET = 16;
+    private static final int SIZE_OFFSET = 24;
+    private static final int MAX_SLAB_BYTES = 1 << 30;
+    private static final long MIN_SLOTS = 16;
+
+    private final int keyBytes;         // width of the keys
+    private final int valueBytes;       // width of the values
+    private final int slotBytes;        // 1 + keyBytes + valueBytes
+    private final byte[] key;           // scratch key, for moving slots
+    private final byte[] value;         // scratch value, for moving slots
+
+    private long n;                     // number of key-value pairs in the symbol table
+    private long m;                     // number of slots, a power of 2
+    private int shift;                  // slot i is in slab i >>> shift
+    private ByteBuffer[] slabs;         // the slots
+    private Path file;                  // the backing file; null if in direct buffers
+    private FileChannel channel;        // open channel to the backing file
+    private MappedByteBuffer header;    // the header of the backing file
+
+    /**
+     * Initializes an empty symbol table in direct buffers, with room for
+     * {@code capacity} keys before it resizes.
+     *
+     * @param  keyBytes the width of the keys
+     * @param  valueBytes the width of the values
+     * @param  capacity the number of keys to make room for
+     * @throws IllegalArgumentException if {@code keyBytes < 1},
+     *         {@code valueBytes < 0} or {@code capacity < 0}, or if a slot
+     *         is wider than a slab
+     */
+    public OffHeapHashST(int keyBytes, int valueBytes, long capacity) {
+        this(keyBytes, valueBytes);
+        if (capacity < 0) throw new IllegalArgumentException("capacity must be non-negative");
+        allocate(slots(capacity));
+    }
+
+    /**
+     * Opens the symbol table stored in the given file, or creates an empty
+     * one there, with room for {@code capacity} keys before it resizes, if
+     * the file does not exist or is empty. The widths must be those the
+     * table was created with.
+     *
+     * @param  file the file
+     * @param  keyBytes the width of the keys
+     * @param  valueBytes the width of the values
+     * @param  capacity the number of keys to make room for, if the table is created
+     * @throws IllegalArgumentException if {@code keyBytes < 1},
+     *         {@code valueBytes < 0} or {@code capacity < 0}, or if a slot
+     *         is wider than a slab
+     * @throws IllegalArgumentException if the file holds something other than a
+     *         table with the given widths
+     * @throws IOException if the file cannot be opened, created or mapped
+     */
+    public OffHeapHashST(Path file, int keyBytes, int valueBytes, long capacity) throws IOException {
+        this(keyBytes, valueBytes);
+        if (file == null) throw new NullPointerException("file must not be null");
+        if (capacity < 0) throw new IllegalArgumentException("capacity must be non-negative");
+        if (Files.exists(file) && Files.size(file) > 0) open(file);
+        else create(file, slots(capacity));
+    }
+
+    private OffHeapHashST(int keyBytes, int valueBytes) {
+        if (keyBytes < 1) throw new IllegalArgumentException("keys must be at least 1 byte wide");
+        if (valueBytes < 0) throw new IllegalArgumentException("values must not have negative width");
+        if (1L + keyBytes + valueBytes > MAX_SLAB_BYTES) throw new IllegalArgumentException("slots are too wide");
+        this.keyBytes = keyBytes;
+        this.valueBytes = valueBytes;
+        this.slotBytes = 1 + keyBytes + valueBytes;
+        this.key = new byte[keyBytes];
+        this.value = new byte[valueBytes];
+    }
+
+    // number of slots for the given number of keys: a power of 2, at most 3/4 full
+    private static long slots(long capacity) {
+        long slots = MIN_SLOTS;
+        while (slots - slots/4 < capacity)
+            slots *= 2;
+        return slots;
+    }
+
+    // number of slots per slab, a power of 2
+    private long slabSlots(long slots) {
+        long slabSlots = Long.highestOneBit(MAX_SLAB_BYTES / slotBytes);
+        return Math.min(slabSlots, slots);
+    }
+
+    // set up m slots in direct buffers
+    private void allocate(long slots) {
+        long slabSlots = slabSlots(slots);
+        m = slots;
+        shift = Long.numberOfTrailingZeros(slabSlots);
+        slabs = new ByteBuffer[(int) (slots / slabSlots)];
+        for (int s = 0; s < slabs.length; s++)
+            slabs[s] = ByteBuffer.allocateDirect((int) (slabSlots * slotBytes));
+    }
+
+    // create an empty table of the given number of slots in file
+    private void create(Path file, long slots) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        channel.write(ByteBuffer.allocate(1), HEADER_BYTES + slots * slotBytes - 1);
+        map(file, channel, slots);
+        header.putLong(0, MAGIC);
+        header.putInt(KEY_BYTES_OFFSET, keyBytes);
+        header.putInt(VALUE_BYTES_OFFSET, valueBytes);
+        header.putLong(SLOTS_OFFSET, slots);
+        header.putLong(SIZE_OFFSET, 0);
+        n = 0;
+    }
+
+    // map the table in file back in
+    private void open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer h = ByteBuffer.allocate(HEADER_BYTES);
+        while (h.hasRemaining() && channel.read(h) >= 0) { }
+        if (h.hasRemaining() || h.getLong(0) != MAGIC) {
+            channel.close();
+            throw new IllegalArgumentException(file + " does not hold a symbol table");
+        }
+        if (h.getInt(KEY_BYTES_OFFSET) != keyBytes || h.getInt(VALUE_BYTES_OFFSET) != valueBytes) {
+            channel.close();
+            throw new IllegalArgumentException(file + " holds " + h.getInt(KEY_BYTES_OFFSET) + "-byte keys and "
+                                               + h.getInt(VALUE_BYTES_OFFSET) + "-byte values");
+        }
+        long slots = h.getLong(SLOTS_OFFSET);
+        if (Long.bitCount(slots) != 1 || channel.size() != HEADER_BYTES + slots * slotBytes) {
+            channel.close();
+            throw new IllegalArgumentException(file + " is truncated or corrupt");
+        }
+        map(file, channel, slots);
+        n = header.getLong(SIZE_OFFSET);
+    }
+
+    // map the header and the slots of file
+    private void map(Path file, FileChannel channel, long slots) throws IOException {
+        long slabSlots = slabSlots(slots);
+        long slabBytes = slabSlots * slotBytes;
+        this.file = file;
+        this.channel = channel;
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        m = slots;
+        shift = Long.numberOfTrailingZeros(slabSlots);
+        slabs = new ByteBuffer[(int) (slots / slabSlots)];
+        for (int s = 0; s < slabs.length; s++)
+            slabs[s] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + s * slabBytes, slabBytes);
+    }
+
+    /**
+     * Returns the number of key-value pairs in this symbol table.
+     *
+     * @return the number of key-value pairs in this symbol table
+     */
+    public long size() {
+        return n;
+    }
+
+    /**
+     * Returns true if this symbol table is empty.
+     *
+     * @return {@code true} if this symbol table is empty;
+     *         {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the width of the keys.
+     *
+     * @return the width of the keys, in bytes
+     */
+    public int keyBytes() {
+        return keyBytes;
+    }
+
+    /**
+     * Returns the width of the values.
+     *
+     * @return the width of the values, in bytes
+     */
+    public int valueBytes() {
+        return valueBytes;
+    }
+
+    // FNV-1a, then the MurmurHash3 finalizer
+    private static long hash(byte[] key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length; i++)
+            h = (h ^ (key[i] & 0xff)) * 0x100000001b3L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private ByteBuffer slab(long i) {
+        return slabs[(int) (i >>> shift)];
+    }
+
+    // position of slot i in its slab
+    private int position(long i) {
+        return (int) (i & ((1L << shift) - 1)) * slotBytes;
+    }
+
+    private boolean isEmpty(long i) {
+        return slab(i).get(position(i)) == 0;
+    }
+
+    // does slot i hold key?
+    private boolean holds(long i, byte[] key) {
+        ByteBuffer slab = slab(i);
+        int p = position(i) + 1;
+        for (int k = 0; k < keyBytes; k++)
+            if (slab.get(p + k) != key[k]) return false;
+        return true;
+    }
+
+    // slot holding key, or -1 if none
+    private long indexOf(byte[] key) {
+        for (long i = hash(key) & (m-1); !isEmpty(i); i = (i + 1) & (m-1))
+            if (holds(i, key)) return i;
+        return -1;
+    }
+
+    private void checkKey(byte[] key) {
+        if (slabs == null) throw new IllegalStateException("symbol table is closed");
+        if (key == null) throw new NullPointerException("key is null");
+        if (key.length != keyBytes) throw new IllegalArgumentException("key must be " + keyBytes + " bytes");
+    }
+
+    /**
+     * Returns true if this symbol table contains the specified key.
+     *
+     * @param  key the key
+     * @return {@code true} if this symbol table contains {@code key};
+     *         {@code false} otherwise
+     * @throws NullPointerException if {@code key} is {@code null}
+     * @throws IllegalArgumentException if {@code key} is not {@code keyBytes} long
+     */
+    public boolean contains(byte[] key) {
+        checkKey(key);
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns (a copy of) the value associated with the specified key.
+     *
+     * @param  key the key
+     * @return the value associated with {@code key};
+     *         {@code null} if no such value
+     * @throws NullPointerException if {@code key} is {@code null}
+     * @throws IllegalArgumentException if {@code key} is not {@code keyBytes} long
+     */
+    public byte[] get(byte[] key) {
+        checkKey(key);
+        long i = indexOf(key);
+        if (i < 0) return null;
+        byte[] val = new byte[valueBytes];
+        read(i, null, val);
+        return val;
+    }
+
+    /**
+     * Copies the value associated with the specified key into {@code val},
+     * without allocating anything.
+     *
+     * @param  key the key
+     * @param  val the array to hold the value
+     * @return {@code true} if the symbol table contains {@code key};
+     *         {@code false} otherwise, in which case {@code val} is unchanged
+     * @throws NullPointerException if {@code key} or {@code val} is {@code null}
+     * @throws IllegalArgumentException if {@code key} is not {@code keyBytes} long
+     *         or {@code val} is not {@code valueBytes} long
+     */
+    public boolean get(byte[] key, byte[] val) {
+        checkKey(key);
+        if (val.length != valueBytes) throw new IllegalArgumentException("value must be " + valueBytes + " bytes");
+        long i = indexOf(key);
+        if (i < 0) return false;
+        read(i, null, val);
+        return true;
+    }
+
+    /**
+     * Inserts the specified key-value pair into the symbol table, overwriting the old
+     * value with the new value if the symbol table already contains the specified key.
+     * Deletes the specified key (and its associated value) from this symbol table
+     * if the specified value is {@code null}.
+     *
+     * @param  key the key
+     * @param  val the value
+     * @throws NullPointerException if {@code key} is {@code null}
+     * @throws IllegalArgumentException if {@code key} is not {@code keyBytes} long
+     *         or {@code val} is not {@code valueBytes} long
+     * @throws UncheckedIOException if the table is file-backed and must
+     *         resize, but the new file cannot be created
+     */
+    public void put(byte[] key, byte[] val) {
+        checkKey(key);
+        if (val == null) {
+            delete(key);
+            return;
+        }
+        if (val.length != valueBytes) throw new IllegalArgumentException("value must be " + valueBytes + " bytes");
+
+        // double table size if 75% full
+        if (n >= m - m/4) resize(2*m);
+
+        long i;
+        for (i = hash(key) & (m-1); !isEmpty(i); i = (i + 1) & (m-1)) {
+            if (holds(i, key)) {
+                write(i, null, val);
+                return;
+            }
+        }
+        write(i, key, val);
+        n++;
+        if (header != null) header.putLong(SIZE_OFFSET, n);
+    }
+
+    /**
+     * Removes the specified key and its associated value from this symbol table
+     * (if the key is in this symbol table).
+     *
+     * @param  key the key
+     * @throws NullPointerException if {@code key} is {@code null}
+     * @throws IllegalArgumentException if {@code key} is not {@code keyBytes} long
+     */
+    public void delete(byte[] key) {
+        checkKey(key);
+        long i = indexOf(key);
+        if (i < 0) return;
+
+        // move back each later key of the cluster that may fill slot i
+        for (long j = (i + 1) & (m-1); !isEmpty(j); j = (j + 1) & (m-1)) {
+            read(j, this.key, null);
+            long k = hash(this.key) & (m-1);                // first slot of the key in slot j
+            if (j > i ? (k <= i || k > j) : (k <= i && k > j)) {
+                copy(j, i);
+                i = j;
+            }
+        }
+        slab(i).put(position(i), (byte) 0);
+        n--;
+        if (header != null) header.putLong(SIZE_OFFSET, n);
+    }
+
+    // copy the key (if key is not null) and the value (if val is not null) of slot i
+    private void read(long i, byte[] key, byte[] val) {
+        ByteBuffer slab = slab(i);
+        int p = position(i) + 1;
+        if (key != null)
+            for (int k = 0; k < keyBytes; k++)
+                key[k] = slab.get(p + k);
+        if (val != null)
+            for (int k = 0; k < valueBytes; k++)
+                val[k] = slab.get(p + keyBytes + k);
+    }
+
+    // mark slot i used and store key (if not null) and val there
+    private void write(long i, byte[] key, byte[] val) {
+        ByteBuffer slab = slab(i);
+        int p = position(i);
+        slab.put(p++, (byte) 1);
+        if (key != null)
+            for (int k = 0; k < keyBytes; k++)
+                slab.put(p + k, key[k]);
+        for (int k = 0; k < valueBytes; k++)
+            slab.put(p + keyBytes + k, val[k]);
+    }
+
+    // copy slot from to slot to
+    private void copy(long from, long to) {
+        ByteBuffer source = slab(from), target = slab(to);
+        int p = position(from), q = position(to);
+        for (int k = 0; k < slotBytes; k++)
+            target.put(q + k, source.get(p + k));
+    }
+
+    // rebuild the table with the given number of slots, in a new file if file-backed
+    private void resize(long slots) {
+        OffHeapHashST temp;
+        Path resized = null;
+        try {
+            if (file == null) {
+                temp = new OffHeapHashST(keyBytes, valueBytes);
+                temp.allocate(slots);
+            }
+            else {
+                resized = file.resolveSibling(file.getFileName() + ".resize");
+                temp = new OffHeapHashST(keyBytes, valueBytes);
+                temp.create(resized, slots);
+            }
+            for (long i = 0; i < m; i++) {
+                if (isEmpty(i)) continue;
+                read(i, key, value);
+                long j;
+                for (j = hash(key) & (slots-1); !temp.isEmpty(j); j = (j + 1) & (slots-1)) { }
+                temp.write(j, key, value);
+            }
+            temp.n = n;
+            if (file != null) {
+                temp.flush();
+                Files.move(resized, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                channel.close();
+                temp.file = file;
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("could not resize " + file, e);
+        }
+        m       = temp.m;
+        shift   = temp.shift;
+        slabs   = temp.slabs;
+        channel = temp.channel;
+        header  = temp.header;
+    }
+
+    /**
+     * Writes the changes to a file-backed table to its file. Does nothing
+     * if the table is in direct buffers.
+     */
+    public void flush() {
+        if (file == null || slabs == null) return;
+        header.putLong(SIZE_OFFSET, n);
+        for (ByteBuffer slab : slabs)
+            ((MappedByteBuffer) slab).force();
+        header.force();
+    }
+
+    /**
+     * Flushes a file-backed table to its file and closes the file. The
+     * symbol table cannot be used after it is closed.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    public void close() throws IOException {
+        flush();
+        slabs = null;
+        if (channel != null) channel.close();
+    }
+
+    /**
+     * Returns all keys in this symbol table as an {@code Iterable}, in no
+     * particular order. Each key returned is a new array. The symbol table
+     * must not be changed during the iteration.
+     *
+     * @return all keys in this symbol table
+     */
+    public Iterable<byte[]> keys() {
+        return new Iterable<byte[]>() {
+            public Iterator<byte[]> iterator() {
+                return new KeyIterator();
+            }
+        };
+    }
+
+    // visits the slots in order
+    private class KeyIterator implements Iterator<byte[]> {
+        private long i = 0;     // next slot to look at
+
+        public boolean hasNext() {
+            while (i < m && isEmpty(i))
+                i++;
+            return i < m;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public byte[] next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            byte[] key = new byte[keyBytes];
+            read(i++, key, null);
+            return key;
+        }
+    }
+
+
+    /**
+     * Reads pairs of long integers (a key and a value) from standard input,
+     * puts them into the table stored in the file named on the command line,
+     * and prints all the pairs in the table.
+     *
+     * @param  args the command-line arguments
+     * @throws IOException if the file cannot be opened or created
+     */
+    public static void main(String[] args) throws IOException {
+        OffHeapHashST st = new OffHeapHashST(Paths.get(args[0]), 8, 8, 1000);
+        while (!StdIn.isEmpty()) {
+            byte[] key = ByteBuffer.allocate(8).putLong(StdIn.readLong()).array();
+            byte[] val = ByteBuffer.allocate(8).putLong(StdIn.readLong()).array();
+            st.put(key, val);
+        }
+
+        StdOut.println(st.size() + " pairs in " + args[0]);
+        for (byte[] key : st.keys())
+            StdOut.println(ByteBuffer.wrap(key).getLong() + " " + ByteBuffer.wrap(st.get(key)).getLong());
+        st.close();
+    }
+}
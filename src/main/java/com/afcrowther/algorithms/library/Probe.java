@@ -0,0 +1,49 @@
+/******************************************************************************
+ *  Compilation:  javac Probe.java
+ *  Execution:    none
+ *  Dependencies: none
+ *
+ *  Receives operation counts from instrumented algorithms.
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.library;
+
+/**
+ *  The {@code Probe} interface receives the operations performed by the
+ *  instrumented algorithms in this package: compares, exchanges, array
+ *  accesses, edge relaxations and priority queue operations, as well as
+ *  sampled values (such as subarray sizes) for histograms.
+ *  <p>
+ *  Install an implementation with {@link Probes#install(Probe)}; see
+ *  {@link CountingProbe} for one that keeps totals and histograms.
+ *  Implementations must be thread-safe if the instrumented code runs on
+ *  more than one thread.
+ */
+public interface Probe {
+
+    /**
+     * The kinds of operation that are counted.
+     */
+    enum Event {
+        COMPARE, EXCHANGE, ARRAY_ACCESS, EDGE_RELAXATION, PQ_INSERT, PQ_DEL_MIN, PQ_CHANGE_KEY
+    }
+
+    /**
+     * Records that {@code algorithm} performed {@code n} operations of the given kind.
+     *
+     * @param algorithm the name of the algorithm (its class name)
+     * @param event the kind of operation
+     * @param n the number of operations
+     */
+    void count(String algorithm, Event event, long n);
+
+    /**
+     * Records one observation of a quantity, such as the size of a subarray.
+     *
+     * @param algorithm the name of the algorithm (its class name)
+     * @param metric the name of the quantity
+     * @param value the observed value
+     */
+    void sample(String algorithm, String metric, long value);
+}
@@ -0,0 +1,97 @@
+/******************************************************************************
+ *  Compilation:  javac Probes.java
+ *  Execution:    java -Dcom.afcrowther.algorithms.probes=true ...
+ *  Dependencies: Probe.java
+ *
+ *  Opt-in instrumentation hooks used by the sorts, searches and graph
+ *  algorithms in this package.
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.library;
+
+/**
+ *  The {@code Probes} class forwards operation counts from the instrumented
+ *  algorithms to the installed {@link Probe}.
+ *  <p>
+ *  Instrumentation is off unless the JVM is started with the system property
+ *  {@code com.afcrowther.algorithms.probes=true}. The property is read once,
+ *  into a {@code static final} field that guards every hook, so when it is off
+ *  the JIT compiler removes the hooks entirely and the instrumented algorithms
+ *  run exactly as fast as uninstrumented ones.
+ *  <p>
+ *  The instrumented algorithms are {@link Quick}, {@link Merge},
+ *  {@link BinarySearch}, {@link DijkstraSP} and {@link BellmanFordSP}.
+ *  Array accesses are those that move items: 4 per exchange, and 4 per item
+ *  merged (copy out and merge back); the reads made by compares are counted
+ *  as compares.
+ */
+public final class Probes {
+
+    /**
+     * Whether instrumentation is enabled for this JVM.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("com.afcrowther.algorithms.probes");
+
+    private static final Probe NONE = new Probe() {
+        public void count(String algorithm, Probe.Event event, long n) { }
+        public void sample(String algorithm, String metric, long value) { }
+    };
+
+    private static volatile Probe probe = NONE;
+
+    // This class should not be instantiated.
+    private Probes() { }
+
+    /**
+     * Sends all subsequent operation counts to the given probe.
+     *
+     * @param  p the probe
+     * @throws NullPointerException if {@code p} is {@code null}
+     * @throws IllegalStateException if instrumentation is not enabled
+     */
+    public static void install(Probe p) {
+        if (p == null) throw new NullPointerException("probe must not be null");
+        if (!ENABLED) throw new IllegalStateException("start the JVM with -Dcom.afcrowther.algorithms.probes=true");
+        probe = p;
+    }
+
+    /**
+     * Stops sending operation counts to the installed probe.
+     */
+    public static void uninstall() {
+        probe = NONE;
+    }
+
+    /**
+     * Records one operation of the given kind, if instrumentation is enabled.
+     *
+     * @param algorithm the name of the algorithm
+     * @param event the kind of operation
+     */
+    public static void count(String algorithm, Probe.Event event) {
+        if (ENABLED) probe.count(algorithm, event, 1);
+    }
+
+    /**
+     * Records {@code n} operations of the given kind, if instrumentation is enabled.
+     *
+     * @param algorithm the name of the algorithm
+     * @param event the kind of operation
+     * @param n the number of operations
+     */
+    public static void count(String algorithm, Probe.Event event, long n) {
+        if (ENABLED) probe.count(algorithm, event, n);
+    }
+
+    /**
+     * Records one observation of a quantity, if instrumentation is enabled.
+     *
+     * @param algorithm the name of the algorithm
+     * @param metric the name of the quantity
+     * @param value the observed value
+     */
+    public static void sample(String algorithm, String metric, long value) {
+        if (ENABLED) probe.sample(algorithm, metric, value);
+    }
+}
@@ -1,7 +1,7 @@
 /******************************************************************************
  *  Compilation:  javac Quick.java
  *  Execution:    java Quick < input.txt
- *  Dependencies: StdOut.java StdIn.java
+ *  Dependencies: SmallSort.java StdOut.java StdIn.java
  *  Data files:   http://algs4.cs.princeton.edu/23quicksort/tiny.txt
  *                http://algs4.cs.princeton.edu/23quicksort/words3.txt
  *
@@ -32,6 +32,12 @@ package com.afcrowther.algorithms.library;
  *  The {@code Quick} class provides static methods for sorting an
  *  array and selecting the ith smallest element in an array using quicksort.
  *  <p>
+ *  Subarrays of at most 16 keys are not partitioned further but sorted with
+ *  {@link SmallSort}: with a sorting network for primitive types, and with
+ *  insertion sort for objects. When {@link Probes} are enabled, arrays of
+ *  objects are partitioned all the way down instead, so that the probes see
+ *  every compare and exchange, and every partition size.
+ *  <p>
  *  For additional documentation, see <a href="http://algs4.cs.princeton.edu/21elementary">Section 2.1</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
  *
@@ -39,6 +45,7 @@ package com.afcrowther.algorithms.library;
  *  @author Kevin Wayne
  */
 public class Quick {
+    private static final int CUTOFF = 15;   // cutoff to SmallSort
 
     // This class should not be instantiated.
     private Quick() { }
@@ -53,9 +60,14 @@ public class Quick {
         assert isSorted(a);
     }
 
-    // quicksort the subarray from a[lo] to a[hi]
+    // quicksort the subarray from a[lo] to a[hi]; with probes enabled, partition
+    // all the way down, so that every compare and exchange is counted
     private static void sort(Comparable[] a, int lo, int hi) { 
         if (hi <= lo) return;
+        if (!Probes.ENABLED && hi <= lo + CUTOFF) {
+            SmallSort.sort(a, lo, hi);
+            return;
+        }
         int j = partition(a, lo, hi);
         sort(a, lo, j-1);
         sort(a, j+1, hi);
@@ -65,6 +77,7 @@ public class Quick {
     // partition the subarray a[lo..hi] so that a[lo..j-1] <= a[j] <= a[j+1..hi]
     // and return the index j.
     private static int partition(Comparable[] a, int lo, int hi) {
+        Probes.sample("Quick", "partition size", hi - lo + 1);
         int i = lo;
         int j = hi + 1;
         Comparable v = a[lo];
@@ -123,17 +136,294 @@ public class Quick {
     
     // is v < w ?
     private static boolean less(Comparable v, Comparable w) {
+        Probes.count("Quick", Probe.Event.COMPARE);
         return v.compareTo(w) < 0;
     }
         
     // exchange a[i] and a[j]
     private static void exch(Object[] a, int i, int j) {
+        Probes.count("Quick", Probe.Event.EXCHANGE);
+        Probes.count("Quick", Probe.Event.ARRAY_ACCESS, 4);
         Object swap = a[i];
         a[i] = a[j];
         a[j] = swap;
     }
 
 
+
+   /***************************************************************************
+    *  Primitive-type versions: the same algorithm without boxing.
+    ***************************************************************************/
+
+    /**
+     * Rearranges the array of ints in ascending order.
+     * @param a the array to be sorted
+     */
+    public static void sort(int[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of ints in ascending order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(int[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        if (hi <= lo) return;
+        StdRandom.shuffle(a, lo, hi);
+        quicksort(a, lo, hi);
+        assert isSorted(a, lo, hi);
+    }
+
+    // quicksort the subarray from a[lo] to a[hi]
+    private static void quicksort(int[] a, int lo, int hi) {
+        if (hi <= lo + CUTOFF) {
+            SmallSort.sort(a, lo, hi);
+            return;
+        }
+        int j = partition(a, lo, hi);
+        quicksort(a, lo, j-1);
+        quicksort(a, j+1, hi);
+    }
+
+    // partition the subarray a[lo..hi] so that a[lo..j-1] <= a[j] <= a[j+1..hi]
+    // and return the index j.
+    private static int partition(int[] a, int lo, int hi) {
+        int i = lo;
+        int j = hi + 1;
+        int v = a[lo];
+        while (true) {
+            while (a[++i] < v)
+                if (i == hi) break;
+            while (v < a[--j])
+                if (j == lo) break;
+            if (i >= j) break;
+            exch(a, i, j);
+        }
+        exch(a, lo, j);
+        return j;
+    }
+
+    // exchange a[i] and a[j]
+    private static void exch(int[] a, int i, int j) {
+        int swap = a[i];
+        a[i] = a[j];
+        a[j] = swap;
+    }
+
+    private static boolean isSorted(int[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+    /**
+     * Rearranges the array of longs in ascending order.
+     * @param a the array to be sorted
+     */
+    public static void sort(long[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of longs in ascending order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(long[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        if (hi <= lo) return;
+        StdRandom.shuffle(a, lo, hi);
+        quicksort(a, lo, hi);
+        assert isSorted(a, lo, hi);
+    }
+
+    // quicksort the subarray from a[lo] to a[hi]
+    private static void quicksort(long[] a, int lo, int hi) {
+        if (hi <= lo + CUTOFF) {
+            SmallSort.sort(a, lo, hi);
+            return;
+        }
+        int j = partition(a, lo, hi);
+        quicksort(a, lo, j-1);
+        quicksort(a, j+1, hi);
+    }
+
+    // partition the subarray a[lo..hi] so that a[lo..j-1] <= a[j] <= a[j+1..hi]
+    // and return the index j.
+    private static int partition(long[] a, int lo, int hi) {
+        int i = lo;
+        int j = hi + 1;
+        long v = a[lo];
+        while (true) {
+            while (a[++i] < v)
+                if (i == hi) break;
+            while (v < a[--j])
+                if (j == lo) break;
+            if (i >= j) break;
+            exch(a, i, j);
+        }
+        exch(a, lo, j);
+        return j;
+    }
+
+    // exchange a[i] and a[j]
+    private static void exch(long[] a, int i, int j) {
+        long swap = a[i];
+        a[i] = a[j];
+        a[j] = swap;
+    }
+
+    private static boolean isSorted(long[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+    /**
+     * Rearranges the array of floats in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they end up in no particular order.
+     * @param a the array to be sorted
+     */
+    public static void sort(float[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of floats in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they end up in no particular order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(float[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        if (hi <= lo) return;
+        StdRandom.shuffle(a, lo, hi);
+        quicksort(a, lo, hi);
+        assert isSorted(a, lo, hi);
+    }
+
+    // quicksort the subarray from a[lo] to a[hi]
+    private static void quicksort(float[] a, int lo, int hi) {
+        if (hi <= lo + CUTOFF) {
+            SmallSort.sort(a, lo, hi);
+            return;
+        }
+        int j = partition(a, lo, hi);
+        quicksort(a, lo, j-1);
+        quicksort(a, j+1, hi);
+    }
+
+    // partition the subarray a[lo..hi] so that a[lo..j-1] <= a[j] <= a[j+1..hi]
+    // and return the index j.
+    private static int partition(float[] a, int lo, int hi) {
+        int i = lo;
+        int j = hi + 1;
+        float v = a[lo];
+        while (true) {
+            while (a[++i] < v)
+                if (i == hi) break;
+            while (v < a[--j])
+                if (j == lo) break;
+            if (i >= j) break;
+            exch(a, i, j);
+        }
+        exch(a, lo, j);
+        return j;
+    }
+
+    // exchange a[i] and a[j]
+    private static void exch(float[] a, int i, int j) {
+        float swap = a[i];
+        a[i] = a[j];
+        a[j] = swap;
+    }
+
+    private static boolean isSorted(float[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+    /**
+     * Rearranges the array of doubles in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they end up in no particular order.
+     * @param a the array to be sorted
+     */
+    public static void sort(double[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of doubles in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they end up in no particular order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(double[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        if (hi <= lo) return;
+        StdRandom.shuffle(a, lo, hi);
+        quicksort(a, lo, hi);
+        assert isSorted(a, lo, hi);
+    }
+
+    // quicksort the subarray from a[lo] to a[hi]
+    private static void quicksort(double[] a, int lo, int hi) {
+        if (hi <= lo + CUTOFF) {
+            SmallSort.sort(a, lo, hi);
+            return;
+        }
+        int j = partition(a, lo, hi);
+        quicksort(a, lo, j-1);
+        quicksort(a, j+1, hi);
+    }
+
+    // partition the subarray a[lo..hi] so that a[lo..j-1] <= a[j] <= a[j+1..hi]
+    // and return the index j.
+    private static int partition(double[] a, int lo, int hi) {
+        int i = lo;
+        int j = hi + 1;
+        double v = a[lo];
+        while (true) {
+            while (a[++i] < v)
+                if (i == hi) break;
+            while (v < a[--j])
+                if (j == lo) break;
+            if (i >= j) break;
+            exch(a, i, j);
+        }
+        exch(a, lo, j);
+        return j;
+    }
+
+    // exchange a[i] and a[j]
+    private static void exch(double[] a, int i, int j) {
+        double swap = a[i];
+        a[i] = a[j];
+        a[j] = swap;
+    }
+
+    private static boolean isSorted(double[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+
    /***************************************************************************
     *  Check if array is sorted - useful for debugging.
     ***************************************************************************/
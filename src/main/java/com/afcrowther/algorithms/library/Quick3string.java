@@ -1,7 +1,7 @@
 /******************************************************************************
  *  Compilation:  javac Quick3string.java
  *  Execution:    java Quick3string < input.txt
- *  Dependencies: StdIn.java StdOut.java 
+ *  Dependencies: KeyPrefix.java StdIn.java StdOut.java
  *  Data files:   http://algs4.cs.princeton.edu/51radix/words3.txt
  *                http://algs4.cs.princeton.edu/51radix/shells.txt
  *
@@ -28,10 +28,20 @@
 
 package com.afcrowther.algorithms.library;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /**
  *  The {@code Quick3string} class provides static methods for sorting an
  *  array of strings using 3-way radix quicksort.
  *  <p>
+ *  The {@code parallelSort()} methods sort with the same algorithm on a
+ *  fork/join pool: after each partitioning step, the three subarrays are
+ *  sorted in parallel until they are no larger than a threshold.
+ *  <p>
+ *  The {@code prefixSort()} method partitions on cached four-character
+ *  prefixes of the strings rather than on single characters.
+ *  <p>
  *  For additional documentation,
  *  see <a href="http://algs4.cs.princeton.edu/51radix">Section 5.1</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
@@ -41,6 +51,7 @@ package com.afcrowther.algorithms.library;
  */
 public class Quick3string {
     private static final int CUTOFF =  15;   // cutoff to insertion sort
+    private static final int PARALLEL_THRESHOLD = 1 << 13;  // default cutoff to sequential sort
 
     // do not instantiate
     private Quick3string() { } 
@@ -89,6 +100,155 @@ public class Quick3string {
         sort(a, gt+1, hi, d);
     }
 
+    /**
+     * Rearranges the array of strings in ascending order,
+     * sorting subarrays in parallel on the common fork/join pool.
+     *
+     * @param a the array to be sorted
+     */
+    public static void parallelSort(String[] a) {
+        parallelSort(a, PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Rearranges the array of strings in ascending order,
+     * sorting subarrays in parallel on the common fork/join pool.
+     * Subarrays of at most {@code threshold} strings are sorted sequentially.
+     *
+     * @param a the array to be sorted
+     * @param threshold the largest subarray to sort without splitting the work
+     * @throws IllegalArgumentException if {@code threshold < 1}
+     */
+    public static void parallelSort(String[] a, int threshold) {
+        if (threshold < 1) throw new IllegalArgumentException("threshold must be positive");
+        StdRandom.shuffle(a);
+        if (a.length <= threshold) sort(a, 0, a.length-1, 0);
+        else ForkJoinPool.commonPool().invoke(new SortTask(a, 0, a.length-1, 0, threshold));
+        assert isSorted(a);
+    }
+
+    // 3-way string quicksort a[lo..hi] starting at dth character
+    private static class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final String[] a;
+        private final int lo, hi, d;
+        private final int threshold;
+
+        SortTask(String[] a, int lo, int hi, int d, int threshold) {
+            this.a = a;
+            this.lo = lo;
+            this.hi = hi;
+            this.d = d;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo + 1 <= threshold) {
+                sort(a, lo, hi, d);
+                return;
+            }
+
+            int lt = lo, gt = hi;
+            int v = charAt(a[lo], d);
+            int i = lo + 1;
+            while (i <= gt) {
+                int t = charAt(a[i], d);
+                if      (t < v) exch(a, lt++, i++);
+                else if (t > v) exch(a, i, gt--);
+                else              i++;
+            }
+
+            // a[lo..lt-1] < v = a[lt..gt] < a[gt+1..hi]. 
+            SortTask less    = new SortTask(a, lo, lt-1, d, threshold);
+            SortTask greater = new SortTask(a, gt+1, hi, d, threshold);
+            if (v >= 0) invokeAll(less, new SortTask(a, lt, gt, d+1, threshold), greater);
+            else        invokeAll(less, greater);
+        }
+    }
+
+
+   /***************************************************************************
+    *  Cached-prefix version.
+    ***************************************************************************/
+
+    /**
+     * Rearranges the array of strings in ascending order, partitioning on
+     * cached four-character prefixes instead of single characters.
+     * <p>
+     * The prefix of each string at the current character is kept in a
+     * {@code long[]} alongside the array (see {@link KeyPrefix}), so the
+     * partitioning loop compares longs from one array instead of calling
+     * {@code charAt()} on each string, and the strings equal to the
+     * partitioning item advance four characters at a time. The prefixes of
+     * those strings are refilled at the new position before they are sorted.
+     * This pays off most when the strings share long prefixes, such as URLs
+     * or file paths; it takes {@code 8n} bytes of extra memory.
+     *
+     * @param a the array to be sorted
+     */
+    public static void prefixSort(String[] a) {
+        StdRandom.shuffle(a);
+        int n = a.length;
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++)
+            keys[i] = KeyPrefix.prefix(a[i], 0);
+        sort(a, keys, 0, n-1, 0);
+        assert isSorted(a);
+    }
+
+    // 3-way string quicksort a[lo..hi] on the prefixes at the dth character,
+    // where keys[i] is the prefix of a[i] at d
+    private static void sort(String[] a, long[] keys, int lo, int hi, int d) {
+
+        // cutoff to insertion sort for small subarrays
+        if (hi <= lo + CUTOFF) {
+            insertion(a, keys, lo, hi, d);
+            return;
+        }
+
+        int lt = lo, gt = hi;
+        long v = keys[lo];
+        int i = lo + 1;
+        while (i <= gt) {
+            int cmp = KeyPrefix.compare(keys[i], v);
+            if      (cmp < 0) exch(a, keys, lt++, i++);
+            else if (cmp > 0) exch(a, keys, i, gt--);
+            else              i++;
+        }
+
+        // a[lo..lt-1] < v = a[lt..gt] < a[gt+1..hi], comparing prefixes at d
+        sort(a, keys, lo, lt-1, d);
+        if (KeyPrefix.isFull(v)) {
+            for (int k = lt; k <= gt; k++)
+                keys[k] = KeyPrefix.prefix(a[k], d + KeyPrefix.CHARS);
+            sort(a, keys, lt, gt, d + KeyPrefix.CHARS);
+        }
+
+        // the strings end within the prefix (or hold '\u0000'): finish one character at a time
+        else sort(a, lt, gt, d);
+        sort(a, keys, gt+1, hi, d);
+    }
+
+    // sort from a[lo] to a[hi], starting at the dth character, comparing prefixes first
+    private static void insertion(String[] a, long[] keys, int lo, int hi, int d) {
+        for (int i = lo; i <= hi; i++)
+            for (int j = i; j > lo && KeyPrefix.compare(a[j], keys[j], a[j-1], keys[j-1], d) < 0; j--)
+                exch(a, keys, j, j-1);
+    }
+
+    // exchange a[i] and a[j], and their prefixes
+    private static void exch(String[] a, long[] keys, int i, int j) {
+        String temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
+        long swap = keys[i];
+        keys[i] = keys[j];
+        keys[j] = swap;
+    }
+
+
     // sort from a[lo] to a[hi], starting at the dth character
     private static void insertion(String[] a, int lo, int hi, int d) {
         for (int i = lo; i <= hi; i++)
@@ -86,6 +86,232 @@ public class Quick3way {
     }
 
 
+
+   /***************************************************************************
+    *  Primitive-type versions: the same algorithm without boxing.
+    ***************************************************************************/
+
+    /**
+     * Rearranges the array of ints in ascending order.
+     * @param a the array to be sorted
+     */
+    public static void sort(int[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of ints in ascending order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(int[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        if (hi <= lo) return;
+        StdRandom.shuffle(a, lo, hi);
+        quicksort(a, lo, hi);
+        assert isSorted(a, lo, hi);
+    }
+
+    // quicksort the subarray a[lo .. hi] using 3-way partitioning
+    private static void quicksort(int[] a, int lo, int hi) {
+        if (hi <= lo) return;
+        int lt = lo, gt = hi;
+        int v = a[lo];
+        int i = lo;
+        while (i <= gt) {
+            if      (a[i] < v) exch(a, lt++, i++);
+            else if (a[i] > v) exch(a, i, gt--);
+            else               i++;
+        }
+
+        // a[lo..lt-1] < v = a[lt..gt] < a[gt+1..hi].
+        quicksort(a, lo, lt-1);
+        quicksort(a, gt+1, hi);
+    }
+
+    // exchange a[i] and a[j]
+    private static void exch(int[] a, int i, int j) {
+        int swap = a[i];
+        a[i] = a[j];
+        a[j] = swap;
+    }
+
+    private static boolean isSorted(int[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+    /**
+     * Rearranges the array of longs in ascending order.
+     * @param a the array to be sorted
+     */
+    public static void sort(long[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of longs in ascending order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(long[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        if (hi <= lo) return;
+        StdRandom.shuffle(a, lo, hi);
+        quicksort(a, lo, hi);
+        assert isSorted(a, lo, hi);
+    }
+
+    // quicksort the subarray a[lo .. hi] using 3-way partitioning
+    private static void quicksort(long[] a, int lo, int hi) {
+        if (hi <= lo) return;
+        int lt = lo, gt = hi;
+        long v = a[lo];
+        int i = lo;
+        while (i <= gt) {
+            if      (a[i] < v) exch(a, lt++, i++);
+            else if (a[i] > v) exch(a, i, gt--);
+            else               i++;
+        }
+
+        // a[lo..lt-1] < v = a[lt..gt] < a[gt+1..hi].
+        quicksort(a, lo, lt-1);
+        quicksort(a, gt+1, hi);
+    }
+
+    // exchange a[i] and a[j]
+    private static void exch(long[] a, int i, int j) {
+        long swap = a[i];
+        a[i] = a[j];
+        a[j] = swap;
+    }
+
+    private static boolean isSorted(long[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+    /**
+     * Rearranges the array of floats in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they end up in no particular order.
+     * @param a the array to be sorted
+     */
+    public static void sort(float[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of floats in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they end up in no particular order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(float[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        if (hi <= lo) return;
+        StdRandom.shuffle(a, lo, hi);
+        quicksort(a, lo, hi);
+        assert isSorted(a, lo, hi);
+    }
+
+    // quicksort the subarray a[lo .. hi] using 3-way partitioning
+    private static void quicksort(float[] a, int lo, int hi) {
+        if (hi <= lo) return;
+        int lt = lo, gt = hi;
+        float v = a[lo];
+        int i = lo;
+        while (i <= gt) {
+            if      (a[i] < v) exch(a, lt++, i++);
+            else if (a[i] > v) exch(a, i, gt--);
+            else               i++;
+        }
+
+        // a[lo..lt-1] < v = a[lt..gt] < a[gt+1..hi].
+        quicksort(a, lo, lt-1);
+        quicksort(a, gt+1, hi);
+    }
+
+    // exchange a[i] and a[j]
+    private static void exch(float[] a, int i, int j) {
+        float swap = a[i];
+        a[i] = a[j];
+        a[j] = swap;
+    }
+
+    private static boolean isSorted(float[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+    /**
+     * Rearranges the array of doubles in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they end up in no particular order.
+     * @param a the array to be sorted
+     */
+    public static void sort(double[] a) {
+        sort(a, 0, a.length - 1);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of doubles in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they end up in no particular order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(double[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        if (hi <= lo) return;
+        StdRandom.shuffle(a, lo, hi);
+        quicksort(a, lo, hi);
+        assert isSorted(a, lo, hi);
+    }
+
+    // quicksort the subarray a[lo .. hi] using 3-way partitioning
+    private static void quicksort(double[] a, int lo, int hi) {
+        if (hi <= lo) return;
+        int lt = lo, gt = hi;
+        double v = a[lo];
+        int i = lo;
+        while (i <= gt) {
+            if      (a[i] < v) exch(a, lt++, i++);
+            else if (a[i] > v) exch(a, i, gt--);
+            else               i++;
+        }
+
+        // a[lo..lt-1] < v = a[lt..gt] < a[gt+1..hi].
+        quicksort(a, lo, lt-1);
+        quicksort(a, gt+1, hi);
+    }
+
+    // exchange a[i] and a[j]
+    private static void exch(double[] a, int i, int j) {
+        double swap = a[i];
+        a[i] = a[j];
+        a[j] = swap;
+    }
+
+    private static boolean isSorted(double[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+
    /***************************************************************************
     *  Check if array is sorted - useful for debugging.
     ***************************************************************************/
@@ -0,0 +1,647 @@
+/******************************************************************************
+ *  Compilation:  javac QuickSelect.java
+ *  Execution:    java QuickSelect n
+ *  Dependencies: Heap.java Stopwatch.java StdRandom.java StdOut.java
+ *
+ *  Selects order statistics (the kth smallest key, or several of them at
+ *  once) with Floyd-Rivest selection.
+ *
+ *  % java QuickSelect 10000000
+ *  p50  = 0.499952
+ *  p90  = 0.899983
+ *  p99  = 0.989998
+ *  p999 = 0.999007
+ *  select: 0.234 s, parallelSelect: 0.167 s
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.library;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ *  The {@code QuickSelect} class provides static methods for finding the
+ *  key of a given rank in an array (its <em>k</em>th smallest key), or the
+ *  keys of several ranks at once, for arrays of {@code Comparable} keys and
+ *  of ints, longs and doubles.
+ *  <p>
+ *  Selection uses the Floyd-Rivest algorithm: before partitioning a large
+ *  subarray, it recursively selects within a small sample around the
+ *  expected position of the key, so the pivot is very close to the key
+ *  sought and each partitioning step discards almost all of the subarray.
+ *  This takes about <em>n</em> + min(<em>k</em>, <em>n</em> - <em>k</em>)
+ *  compares on average, against about 3.4 <em>n</em> for quickselect with
+ *  random pivots ({@link Quick#select}). If the partitioning goes more than
+ *  2 lg <em>n</em> levels deep, the subarray is heapsorted instead, so the
+ *  worst case is linearithmic (as with introselect).
+ *  <p>
+ *  Selecting several ranks selects the middle one, which partitions the
+ *  array, and then recursively selects the smaller ranks on the left and the
+ *  larger ones on the right; for <em>m</em> ranks this takes time
+ *  proportional to <em>n</em> log <em>m</em>. The {@code parallelSelect()}
+ *  methods run the left and right recursions in parallel on the common
+ *  fork/join pool while the subarrays are large.
+ *  <p>
+ *  All methods rearrange the array they are given.
+ */
+public class QuickSelect {
+    private static final int SAMPLE_CUTOFF = 600;               // smallest subarray worth sampling
+    private static final int PARALLEL_THRESHOLD = 1 << 16;      // smallest subarray to split the work on
+
+    // This class should not be instantiated.
+    private QuickSelect() { }
+
+    /**
+     * Returns the rank of the {@code q}-quantile of {@code n} keys, by the
+     * nearest-rank method: the smallest rank {@code k} such that a fraction
+     * {@code q} of the keys have rank at most {@code k}.
+     *
+     * @param  n the number of keys
+     * @param  q the quantile, between 0 and 1
+     * @return the rank of the {@code q}-quantile
+     * @throws IllegalArgumentException unless {@code n >= 1} and {@code 0 <= q <= 1}
+     */
+    public static int rank(int n, double q) {
+        if (n < 1) throw new IllegalArgumentException("need at least one key");
+        if (!(q >= 0.0 && q <= 1.0)) throw new IllegalArgumentException("quantile must be between 0 and 1");
+        return Math.max(0, (int) Math.ceil(q * n) - 1);
+    }
+
+    // recursion depth at which to switch to heapsort: 2 floor(lg n)
+    private static int depthLimit(int n) {
+        return 2 * (31 - Integer.numberOfLeadingZeros(Math.max(n, 1)));
+    }
+
+
+   /***************************************************************************
+    *  Multiple selection, for all array types.
+    ***************************************************************************/
+
+    // puts the key of rank k of a[lo..hi] in place, for a given array
+    private interface Selector {
+        void select(int lo, int hi, int k);
+    }
+
+    // select every rank in ranks (in any order, possibly repeated) from an array of n keys
+    private static void multiSelect(Selector selector, int n, int[] ranks, boolean parallel) {
+        int[] sorted = ranks.clone();
+        Arrays.sort(sorted);
+        int m = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] < 0 || sorted[i] >= n) throw new IndexOutOfBoundsException("Selected element out of bounds");
+            if (m == 0 || sorted[i] != sorted[m-1]) sorted[m++] = sorted[i];
+        }
+        if (m == 0) return;
+
+        MultiSelectTask task = new MultiSelectTask(selector, 0, n-1, sorted, 0, m-1,
+                                                   parallel ? PARALLEL_THRESHOLD : Integer.MAX_VALUE);
+        if (parallel) ForkJoinPool.commonPool().invoke(task);
+        else          task.compute();
+    }
+
+    // select the distinct, increasing ranks[from..to] in a[lo..hi]
+    private static class MultiSelectTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Selector selector;
+        private final int lo, hi;
+        private final int[] ranks;
+        private final int from, to;
+        private final int threshold;
+
+        MultiSelectTask(Selector selector, int lo, int hi, int[] ranks, int from, int to, int threshold) {
+            this.selector = selector;
+            this.lo = lo;
+            this.hi = hi;
+            this.ranks = ranks;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (from > to) return;
+            int mid = from + (to - from) / 2;
+            int k = ranks[mid];
+            selector.select(lo, hi, k);
+
+            // a[lo..k-1] <= a[k] <= a[k+1..hi]
+            MultiSelectTask left  = new MultiSelectTask(selector, lo, k-1, ranks, from, mid-1, threshold);
+            MultiSelectTask right = new MultiSelectTask(selector, k+1, hi, ranks, mid+1, to, threshold);
+            if (hi - lo + 1 > threshold) invokeAll(left, right);
+            else {
+                left.compute();
+                right.compute();
+            }
+        }
+    }
+
+
+   /***************************************************************************
+    *  Comparable version.
+    ***************************************************************************/
+
+    /**
+     * Rearranges the array so that {@code a[k]} is the {@code k}th smallest key,
+     * with no larger key before it and no smaller key after it, and returns it.
+     *
+     * @param  a the array
+     * @param  k the rank of the key
+     * @return the key of rank {@code k}
+     * @throws IndexOutOfBoundsException unless {@code 0 <= k < a.length}
+     */
+    public static Comparable select(Comparable[] a, int k) {
+        if (k < 0 || k >= a.length) throw new IndexOutOfBoundsException("Selected element out of bounds");
+        select(a, 0, a.length - 1, k);
+        return a[k];
+    }
+
+    /**
+     * Rearranges the array so that {@code a[k]} is the {@code k}th smallest key
+     * for every rank {@code k} in {@code ranks}, and returns those keys.
+     *
+     * @param  a the array
+     * @param  ranks the ranks of the keys, in any order
+     * @return the keys of the given ranks, in the same order as {@code ranks}
+     * @throws IndexOutOfBoundsException unless every rank is between 0 and {@code a.length - 1}
+     */
+    public static Comparable[] select(Comparable[] a, int[] ranks) {
+        multiSelect((lo, hi, k) -> select(a, lo, hi, k), a.length, ranks, false);
+        Comparable[] keys = new Comparable[ranks.length];
+        for (int i = 0; i < ranks.length; i++)
+            keys[i] = a[ranks[i]];
+        return keys;
+    }
+
+    /**
+     * Rearranges the array so that {@code a[k]} is the {@code k}th smallest key
+     * for every rank {@code k} in {@code ranks}, and returns those keys, selecting
+     * in parallel on the common fork/join pool.
+     *
+     * @param  a the array
+     * @param  ranks the ranks of the keys, in any order
+     * @return the keys of the given ranks, in the same order as {@code ranks}
+     * @throws IndexOutOfBoundsException unless every rank is between 0 and {@code a.length - 1}
+     */
+    public static Comparable[] parallelSelect(Comparable[] a, int[] ranks) {
+        multiSelect((lo, hi, k) -> select(a, lo, hi, k), a.length, ranks, true);
+        Comparable[] keys = new Comparable[ranks.length];
+        for (int i = 0; i < ranks.length; i++)
+            keys[i] = a[ranks[i]];
+        return keys;
+    }
+
+    // Floyd-Rivest selection of rank k in a[lo..hi]
+    private static void select(Comparable[] a, int lo, int hi, int k) {
+        select(a, lo, hi, k, depthLimit(hi - lo + 1));
+    }
+
+    private static void select(Comparable[] a, int lo, int hi, int k, int depth) {
+        while (hi > lo) {
+            if (depth-- == 0) {
+                Heap.sort(a, lo, hi);
+                return;
+            }
+
+            // narrow a[lo..hi] down to a sample that very likely holds the key of rank k
+            if (hi - lo > SAMPLE_CUTOFF) {
+                int n = hi - lo + 1;
+                int i = k - lo + 1;
+                double z = Math.log(n);
+                double s = 0.5 * Math.exp(2 * z / 3);
+                double sd = 0.5 * Math.sqrt(z * s * (n - s) / n) * Math.signum(i - n/2);
+                int sampleLo = Math.max(lo, (int) (k - i * s / n + sd));
+                int sampleHi = Math.min(hi, (int) (k + (n - i) * s / n + sd));
+                select(a, sampleLo, sampleHi, k, depth);
+            }
+
+            // partition a[lo..hi] around t = a[k]
+            Comparable t = a[k];
+            int i = lo, j = hi;
+            exch(a, lo, k);
+            if (less(t, a[hi])) exch(a, hi, lo);
+            while (i < j) {
+                exch(a, i, j);
+                i++;
+                j--;
+                while (less(a[i], t)) i++;
+                while (less(t, a[j])) j--;
+            }
+            if (eq(a[lo], t)) exch(a, lo, j);
+            else {
+                j++;
+                exch(a, j, hi);
+            }
+
+            // a[lo..j-1] <= a[j] = t <= a[j+1..hi]
+            if (j <= k) lo = j + 1;
+            if (k <= j) hi = j - 1;
+        }
+    }
+
+    private static boolean less(Comparable v, Comparable w) {
+        return v.compareTo(w) < 0;
+    }
+
+    private static boolean eq(Comparable v, Comparable w) {
+        return v.compareTo(w) == 0;
+    }
+
+    private static void exch(Comparable[] a, int i, int j) {
+        Comparable swap = a[i];
+        a[i] = a[j];
+        a[j] = swap;
+    }
+
+
+   /***************************************************************************
+    *  int version.
+    ***************************************************************************/
+
+    /**
+     * Rearranges the array so that {@code a[k]} is the {@code k}th smallest key,
+     * with no larger key before it and no smaller key after it, and returns it.
+     *
+     * @param  a the array
+     * @param  k the rank of the key
+     * @return the key of rank {@code k}
+     * @throws IndexOutOfBoundsException unless {@code 0 <= k < a.length}
+     */
+    public static int select(int[] a, int k) {
+        if (k < 0 || k >= a.length) throw new IndexOutOfBoundsException("Selected element out of bounds");
+        select(a, 0, a.length - 1, k);
+        return a[k];
+    }
+
+    /**
+     * Rearranges the array so that {@code a[k]} is the {@code k}th smallest key
+     * for every rank {@code k} in {@code ranks}, and returns those keys.
+     *
+     * @param  a the array
+     * @param  ranks the ranks of the keys, in any order
+     * @return the keys of the given ranks, in the same order as {@code ranks}
+     * @throws IndexOutOfBoundsException unless every rank is between 0 and {@code a.length - 1}
+     */
+    public static int[] select(int[] a, int[] ranks) {
+        multiSelect((lo, hi, k) -> select(a, lo, hi, k), a.length, ranks, false);
+        int[] keys = new int[ranks.length];
+        for (int i = 0; i < ranks.length; i++)
+            keys[i] = a[ranks[i]];
+        return keys;
+    }
+
+    /**
+     * Rearranges the array so that {@code a[k]} is the {@code k}th smallest key
+     * for every rank {@code k} in {@code ranks}, and returns those keys, selecting
+     * in parallel on the common fork/join pool.
+     *
+     * @param  a the array
+     * @param  ranks the ranks of the keys, in any order
+     * @return the keys of the given ranks, in the same order as {@code ranks}
+     * @throws IndexOutOfBoundsException unless every rank is between 0 and {@code a.length - 1}
+     */
+    public static int[] parallelSelect(int[] a, int[] ranks) {
+        multiSelect((lo, hi, k) -> select(a, lo, hi, k), a.length, ranks, true);
+        int[] keys = new int[ranks.length];
+        for (int i = 0; i < ranks.length; i++)
+            keys[i] = a[ranks[i]];
+        return keys;
+    }
+
+    // Floyd-Rivest selection of rank k in a[lo..hi]
+    private static void select(int[] a, int lo, int hi, int k) {
+        select(a, lo, hi, k, depthLimit(hi - lo + 1));
+    }
+
+    private static void select(int[] a, int lo, int hi, int k, int depth) {
+        while (hi > lo) {
+            if (depth-- == 0) {
+                Heap.sort(a, lo, hi);
+                return;
+            }
+
+            // narrow a[lo..hi] down to a sample that very likely holds the key of rank k
+            if (hi - lo > SAMPLE_CUTOFF) {
+                int n = hi - lo + 1;
+                int i = k - lo + 1;
+                double z = Math.log(n);
+                double s = 0.5 * Math.exp(2 * z / 3);
+                double sd = 0.5 * Math.sqrt(z * s * (n - s) / n) * Math.signum(i - n/2);
+                int sampleLo = Math.max(lo, (int) (k - i * s / n + sd));
+                int sampleHi = Math.min(hi, (int) (k + (n - i) * s / n + sd));
+                select(a, sampleLo, sampleHi, k, depth);
+            }
+
+            // partition a[lo..hi] around t = a[k]
+            int t = a[k];
+            int i = lo, j = hi;
+            exch(a, lo, k);
+            if (less(t, a[hi])) exch(a, hi, lo);
+            while (i < j) {
+                exch(a, i, j);
+                i++;
+                j--;
+                while (less(a[i], t)) i++;
+                while (less(t, a[j])) j--;
+            }
+            if (eq(a[lo], t)) exch(a, lo, j);
+            else {
+                j++;
+                exch(a, j, hi);
+            }
+
+            // a[lo..j-1] <= a[j] = t <= a[j+1..hi]
+            if (j <= k) lo = j + 1;
+            if (k <= j) hi = j - 1;
+        }
+    }
+
+    private static boolean less(int v, int w) {
+        return v < w;
+    }
+
+    private static boolean eq(int v, int w) {
+        return v == w;
+    }
+
+    private static void exch(int[] a, int i, int j) {
+        int swap = a[i];
+        a[i] = a[j];
+        a[j] = swap;
+    }
+
+
+   /***************************************************************************
+    *  long version.
+    ***************************************************************************/
+
+    /**
+     * Rearranges the array so that {@code a[k]} is the {@code k}th smallest key,
+     * with no larger key before it and no smaller key after it, and returns it.
+     *
+     * @param  a the array
+     * @param  k the rank of the key
+     * @return the key of rank {@code k}
+     * @throws IndexOutOfBoundsException unless {@code 0 <= k < a.length}
+     */
+    public static long select(long[] a, int k) {
+        if (k < 0 || k >= a.length) throw new IndexOutOfBoundsException("Selected element out of bounds");
+        select(a, 0, a.length - 1, k);
+        return a[k];
+    }
+
+    /**
+     * Rearranges the array so that {@code a[k]} is the {@code k}th smallest key
+     * for every rank {@code k} in {@code ranks}, and returns those keys.
+     *
+     * @param  a the array
+     * @param  ranks the ranks of the keys, in any order
+     * @return the keys of the given ranks, in the same order as {@code ranks}
+     * @throws IndexOutOfBoundsException unless every rank is between 0 and {@code a.length - 1}
+     */
+    public static long[] select(long[] a, int[] ranks) {
+        multiSelect((lo, hi, k) -> select(a, lo, hi, k), a.length, ranks, false);
+        long[] keys = new long[ranks.length];
+        for (int i = 0; i < ranks.length; i++)
+            keys[i] = a[ranks[i]];
+        return keys;
+    }
+
+    /**
+     * Rearranges the array so that {@code a[k]} is the {@code k}th smallest key
+     * for every rank {@code k} in {@code ranks}, and returns those keys, selecting
+     * in parallel on the common fork/join pool.
+     *
+     * @param  a the array
+     * @param  ranks the ranks of the keys, in any order
+     * @return the keys of the given ranks, in the same order as {@code ranks}
+     * @throws IndexOutOfBoundsException unless every rank is between 0 and {@code a.length - 1}
+     */
+    public static long[] parallelSelect(long[] a, int[] ranks) {
+        multiSelect((lo, hi, k) -> select(a, lo, hi, k), a.length, ranks, true);
+        long[] keys = new long[ranks.length];
+        for (int i = 0; i < ranks.length; i++)
+            keys[i] = a[ranks[i]];
+        return keys;
+    }
+
+    // Floyd-Rivest selection of rank k in a[lo..hi]
+    private static void select(long[] a, int lo, int hi, int k) {
+        select(a, lo, hi, k, depthLimit(hi - lo + 1));
+    }
+
+    private static void select(long[] a, int lo, int hi, int k, int depth) {
+        while (hi > lo) {
+            if (depth-- == 0) {
+                Heap.sort(a, lo, hi);
+                return;
+            }
+
+            // narrow a[lo..hi] down to a sample that very likely holds the key of rank k
+            if (hi - lo > SAMPLE_CUTOFF) {
+                int n = hi - lo + 1;
+                int i = k - lo + 1;
+                double z = Math.log(n);
+                double s = 0.5 * Math.exp(2 * z / 3);
+                double sd = 0.5 * Math.sqrt(z * s * (n - s) / n) * Math.signum(i - n/2);
+                int sampleLo = Math.max(lo, (int) (k - i * s / n + sd));
+                int sampleHi = Math.min(hi, (int) (k + (n - i) * s / n + sd));
+                select(a, sampleLo, sampleHi, k, depth);
+            }
+
+            // partition a[lo..hi] around t = a[k]
+            long t = a[k];
+            int i = lo, j = hi;
+            exch(a, lo, k);
+            if (less(t, a[hi])) exch(a, hi, lo);
+            while (i < j) {
+                exch(a, i, j);
+                i++;
+                j--;
+                while (less(a[i], t)) i++;
+                while (less(t, a[j])) j--;
+            }
+            if (eq(a[lo], t)) exch(a, lo, j);
+            else {
+                j++;
+                exch(a, j, hi);
+            }
+
+            // a[lo..j-1] <= a[j] = t <= a[j+1..hi]
+            if (j <= k) lo = j + 1;
+            if (k <= j) hi = j - 1;
+        }
+    }
+
+    private static boolean less(long v, long w) {
+        return v < w;
+    }
+
+    private static boolean eq(long v, long w) {
+        return v == w;
+    }
+
+    private static void exch(long[] a, int i, int j) {
+        long swap = a[i];
+        a[i] = a[j];
+        a[j] = swap;
+    }
+
+
+   /***************************************************************************
+    *  double version.
+    ***************************************************************************/
+
+    /**
+     * Rearranges the array so that {@code a[k]} is the {@code k}th smallest key,
+     * with no larger key before it and no smaller key after it, and returns it.
+     * The array must not contain NaN.
+     *
+     * @param  a the array
+     * @param  k the rank of the key
+     * @return the key of rank {@code k}
+     * @throws IndexOutOfBoundsException unless {@code 0 <= k < a.length}
+     */
+    public static double select(double[] a, int k) {
+        if (k < 0 || k >= a.length) throw new IndexOutOfBoundsException("Selected element out of bounds");
+        select(a, 0, a.length - 1, k);
+        return a[k];
+    }
+
+    /**
+     * Rearranges the array so that {@code a[k]} is the {@code k}th smallest key
+     * for every rank {@code k} in {@code ranks}, and returns those keys.
+     * The array must not contain NaN.
+     *
+     * @param  a the array
+     * @param  ranks the ranks of the keys, in any order
+     * @return the keys of the given ranks, in the same order as {@code ranks}
+     * @throws IndexOutOfBoundsException unless every rank is between 0 and {@code a.length - 1}
+     */
+    public static double[] select(double[] a, int[] ranks) {
+        multiSelect((lo, hi, k) -> select(a, lo, hi, k), a.length, ranks, false);
+        double[] keys = new double[ranks.length];
+        for (int i = 0; i < ranks.length; i++)
+            keys[i] = a[ranks[i]];
+        return keys;
+    }
+
+    /**
+     * Rearranges the array so that {@code a[k]} is the {@code k}th smallest key
+     * for every rank {@code k} in {@code ranks}, and returns those keys, selecting
+     * in parallel on the common fork/join pool.
+     * The array must not contain NaN.
+     *
+     * @param  a the array
+     * @param  ranks the ranks of the keys, in any order
+     * @return the keys of the given ranks, in the same order as {@code ranks}
+     * @throws IndexOutOfBoundsException unless every rank is between 0 and {@code a.length - 1}
+     */
+    public static double[] parallelSelect(double[] a, int[] ranks) {
+        multiSelect((lo, hi, k) -> select(a, lo, hi, k), a.length, ranks, true);
+        double[] keys = new double[ranks.length];
+        for (int i = 0; i < ranks.length; i++)
+            keys[i] = a[ranks[i]];
+        return keys;
+    }
+
+    // Floyd-Rivest selection of rank k in a[lo..hi]
+    private static void select(double[] a, int lo, int hi, int k) {
+        select(a, lo, hi, k, depthLimit(hi - lo + 1));
+    }
+
+    private static void select(double[] a, int lo, int hi, int k, int depth) {
+        while (hi > lo) {
+            if (depth-- == 0) {
+                Heap.sort(a, lo, hi);
+                return;
+            }
+
+            // narrow a[lo..hi] down to a sample that very likely holds the key of rank k
+            if (hi - lo > SAMPLE_CUTOFF) {
+                int n = hi - lo + 1;
+                int i = k - lo + 1;
+                double z = Math.log(n);
+                double s = 0.5 * Math.exp(2 * z / 3);
+                double sd = 0.5 * Math.sqrt(z * s * (n - s) / n) * Math.signum(i - n/2);
+                int sampleLo = Math.max(lo, (int) (k - i * s / n + sd));
+                int sampleHi = Math.min(hi, (int) (k + (n - i) * s / n + sd));
+                select(a, sampleLo, sampleHi, k, depth);
+            }
+
+            // partition a[lo..hi] around t = a[k]
+            double t = a[k];
+            int i = lo, j = hi;
+            exch(a, lo, k);
+            if (less(t, a[hi])) exch(a, hi, lo);
+            while (i < j) {
+                exch(a, i, j);
+                i++;
+                j--;
+                while (less(a[i], t)) i++;
+                while (less(t, a[j])) j--;
+            }
+            if (eq(a[lo], t)) exch(a, lo, j);
+            else {
+                j++;
+                exch(a, j, hi);
+            }
+
+            // a[lo..j-1] <= a[j] = t <= a[j+1..hi]
+            if (j <= k) lo = j + 1;
+            if (k <= j) hi = j - 1;
+        }
+    }
+
+    private static boolean less(double v, double w) {
+        return v < w;
+    }
+
+    private static boolean eq(double v, double w) {
+        return v == w;
+    }
+
+    private static void exch(double[] a, int i, int j) {
+        double swap = a[i];
+        a[i] = a[j];
+        a[j] = swap;
+    }
+
+
+    /**
+     * Selects the 50th, 90th, 99th and 99.9th percentiles of {@code n} uniform
+     * random doubles, sequentially and in parallel, and prints them with the
+     * time taken.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        int n = Integer.parseInt(args[0]);
+        double[] q = { 0.5, 0.9, 0.99, 0.999 };
+        String[] names = { "p50 ", "p90 ", "p99 ", "p999" };
+        int[] ranks = new int[q.length];
+        for (int i = 0; i < q.length; i++)
+            ranks[i] = rank(n, q[i]);
+
+        double[] a = new double[n];
+        for (int i = 0; i < n; i++)
+            a[i] = StdRandom.uniform();
+        double[] b = a.clone();
+
+        Stopwatch timer = new Stopwatch();
+        double[] keys = select(a, ranks);
+        double sequential = timer.elapsedTime();
+        timer = new Stopwatch();
+        double[] parallelKeys = parallelSelect(b, ranks);
+        double parallel = timer.elapsedTime();
+
+        for (int i = 0; i < q.length; i++) {
+            assert keys[i] == parallelKeys[i];
+            StdOut.printf("%s = %.6f\n", names[i], keys[i]);
+        }
+        StdOut.printf("select: %.3f s, parallelSelect: %.3f s\n", sequential, parallel);
+    }
+}
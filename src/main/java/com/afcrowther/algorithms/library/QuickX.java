@@ -1,18 +1,25 @@
 /******************************************************************************
  *  Compilation:  javac QuickX.java
  *  Execution:    java QuickX < input.txt
- *  Dependencies: StdOut.java StdIn.java
+ *  Dependencies: Heap.java SmallSort.java StdOut.java StdIn.java
  *  Data files:   http://algs4.cs.princeton.edu/23quicksort/tiny.txt
  *                http://algs4.cs.princeton.edu/23quicksort/words3.txt
  *  
  *  Uses the Bentley-McIlroy 3-way partitioning scheme,
  *  chooses the partitioning element using Tukey's ninther,
- *  and cuts off to insertion sort.
+ *  and cuts off to insertion sort. Switches to heapsort when the
+ *  recursion gets deeper than 2 lg n (introsort), so the worst case
+ *  is linearithmic. Optionally uses Yaroslavskiy's dual-pivot
+ *  partitioning scheme instead.
  *
  *  Reference: Engineering a Sort Function by Jon L. Bentley
  *  and M. Douglas McIlroy. Softwae-Practice and Experience,
  *  Vol. 23 (11), 1249-1265 (November 1993).
  *
+ *  Reference: Introspective Sorting and Selection Algorithms by
+ *  David R. Musser. Software-Practice and Experience,
+ *  Vol. 27 (8), 983-993 (August 1997).
+ *
  ******************************************************************************/
 
 package com.afcrowther.algorithms.library;
@@ -22,6 +29,12 @@ package com.afcrowther.algorithms.library;
  *  array using an optimized version of quicksort (using Bentley-McIlroy
  *  3-way partitioning, Tukey's ninther, and cutoff to insertion sort).
  *  <p>
+ *  Each subarray is sorted with {@link Heap} instead once the recursion is
+ *  2 lg <em>n</em> levels deep, which bounds the number of compares by
+ *  ~ <em>c n</em> lg <em>n</em> even on inputs crafted to make quicksort
+ *  go quadratic. The {@link Partition#DUAL_PIVOT} scheme partitions around
+ *  two pivots into three subarrays, as the Java 7 library sort does.
+ *  <p>
  *  For additional documentation, see <a href="http://algs4.cs.princeton.edu/21elementary">Section 2.1</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
  *
@@ -39,20 +52,52 @@ public class QuickX {
     // This class should not be instantiated.
     private QuickX() { }
 
+    /**
+     * The partitioning schemes.
+     */
+    public enum Partition {
+        /** Bentley-McIlroy 3-way partitioning around one pivot. */
+        BENTLEY_MCILROY,
+        /** Yaroslavskiy's partitioning around two pivots. */
+        DUAL_PIVOT
+    }
+
     /**
      * Rearranges the array in ascending order, using the natural order.
      * @param a the array to be sorted
      */
     public static void sort(Comparable[] a) {
-        sort(a, 0, a.length - 1);
+        sort(a, 0, a.length - 1, depthLimit(a.length));
     }
 
-    private static void sort(Comparable[] a, int lo, int hi) { 
+    /**
+     * Rearranges the array in ascending order, using the natural order
+     * and the given partitioning scheme.
+     * @param a the array to be sorted
+     * @param partition the partitioning scheme
+     */
+    public static void sort(Comparable[] a, Partition partition) {
+        if (partition == Partition.DUAL_PIVOT) dualPivotSort(a, 0, a.length - 1, depthLimit(a.length));
+        else                                   sort(a, 0, a.length - 1, depthLimit(a.length));
+    }
+
+    // recursion depth at which to switch to heapsort: 2 floor(lg n)
+    private static int depthLimit(int n) {
+        return 2 * (31 - Integer.numberOfLeadingZeros(Math.max(n, 1)));
+    }
+
+    private static void sort(Comparable[] a, int lo, int hi, int depth) { 
         int n = hi - lo + 1;
 
         // cutoff to insertion sort
         if (n <= INSERTION_SORT_CUTOFF) {
-            insertionSort(a, lo, hi);
+            SmallSort.sort(a, lo, hi);
+            return;
+        }
+
+        // too deep: the pivots have been bad, so switch to heapsort
+        if (depth == 0) {
+            Heap.sort(a, lo, hi);
             return;
         }
 
@@ -100,16 +145,61 @@ public class QuickX {
         for (int k = hi; k >= q; k--)
             exch(a, k, i++);
 
-        sort(a, lo, j);
-        sort(a, i, hi);
+        sort(a, lo, j, depth-1);
+        sort(a, i, hi, depth-1);
     }
 
+    // Yaroslavskiy dual-pivot quicksort of a[lo..hi]
+    private static void dualPivotSort(Comparable[] a, int lo, int hi, int depth) {
+        int n = hi - lo + 1;
+
+        // cutoff to insertion sort
+        if (n <= INSERTION_SORT_CUTOFF) {
+            SmallSort.sort(a, lo, hi);
+            return;
+        }
+
+        // too deep: the pivots have been bad, so switch to heapsort
+        if (depth == 0) {
+            Heap.sort(a, lo, hi);
+            return;
+        }
+
+        // use the tertiles as pivots, or the 2nd and 4th of 5 evenly spaced items
+        if (n <= MEDIAN_OF_3_CUTOFF) {
+            int e1 = lo + n/3, e2 = hi - n/3;
+            if (less(a[e2], a[e1])) exch(a, e1, e2);
+            exch(a, lo, e1);
+            exch(a, hi, e2);
+        }
+        else {
+            int step = n/6;
+            int e3 = lo + n/2;
+            int e2 = e3 - step, e1 = e2 - step;
+            int e4 = e3 + step, e5 = e4 + step;
+            int[] e = { e1, e2, e3, e4, e5 };
+            for (int i = 1; i < e.length; i++)
+                for (int j = i; j > 0 && less(a[e[j]], a[e[j-1]]); j--)
+                    exch(a, e[j], e[j-1]);
+            exch(a, lo, e2);
+            exch(a, hi, e4);
+        }
+
+        // partition into a[lo+1..lt-1] < p <= a[lt..gt] <= q < a[gt+1..hi-1]
+        Comparable p = a[lo], q = a[hi];
+        int lt = lo + 1, gt = hi - 1;
+        int i = lo + 1;
+        while (i <= gt) {
+            if      (less(a[i], p)) exch(a, lt++, i++);
+            else if (less(q, a[i])) exch(a, i, gt--);
+            else                    i++;
+        }
+        exch(a, lo, --lt);
+        exch(a, hi, ++gt);
 
-    // sort from a[lo] to a[hi] using insertion sort
-    private static void insertionSort(Comparable[] a, int lo, int hi) {
-        for (int i = lo; i <= hi; i++)
-            for (int j = i; j > lo && less(a[j], a[j-1]); j--)
-                exch(a, j, j-1);
+        dualPivotSort(a, lo, lt-1, depth-1);
+        if (less(p, q)) dualPivotSort(a, lt+1, gt-1, depth-1);
+        dualPivotSort(a, gt+1, hi, depth-1);
     }
 
 
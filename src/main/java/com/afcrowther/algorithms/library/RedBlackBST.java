@@ -55,7 +55,10 @@ import java.util.NoSuchElementException;
  *  <em>maximum</em>, <em>ceiling</em>, and <em>floor</em> operations each take
  *  logarithmic time in the worst case, if the tree becomes unbalanced.
  *  The <em>size</em>, and <em>is-empty</em> operations take constant time.
- *  Construction takes constant time.
+ *  Construction takes constant time, or linear time when building the tree
+ *  from sorted arrays of keys and values. The <em>putAll</em> operation
+ *  merges a batch into the tree in time linear in the size of the tree,
+ *  plus the time to sort the batch.
  *  <p>
  *  For additional documentation, see <a href="http://algs4.cs.princeton.edu/33balanced">Section 3.3</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
@@ -96,6 +99,30 @@ public class RedBlackBST<Key extends Comparable<Key>, Value> {
     public RedBlackBST() {
     }
 
+    /**
+     * Initializes a symbol table holding the given keys and values, in time
+     * linear in their number, with no compares and no rotations.
+     *
+     * @param  keys the keys, in strictly increasing order
+     * @param  vals the values, {@code vals[i]} being the value of {@code keys[i]}
+     * @throws IllegalArgumentException if the arrays differ in length, or if
+     *         the keys are not strictly increasing
+     * @throws NullPointerException if either array, or any key or value, is {@code null}
+     */
+    public RedBlackBST(Key[] keys, Value[] vals) {
+        if (keys.length != vals.length) throw new IllegalArgumentException("keys and vals differ in length");
+        Node[] nodes = newNodes(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null) throw new NullPointerException("key is null");
+            if (vals[i] == null) throw new NullPointerException("value is null");
+            if (i > 0 && keys[i-1].compareTo(keys[i]) >= 0)
+                throw new IllegalArgumentException("keys are not strictly increasing at index " + i);
+            nodes[i] = new Node(keys[i], vals[i], BLACK, 1);
+        }
+        root = build(nodes, nodes.length);
+        // assert check();
+    }
+
    /***************************************************************************
     *  Node helper methods.
     ***************************************************************************/
@@ -211,6 +238,118 @@ public class RedBlackBST<Key extends Comparable<Key>, Value> {
         return h;
     }
 
+    /**
+     * Inserts the given key-value pairs into the symbol table, as if by calling
+     * {@code put(keys[i], vals[i])} for each {@code i} in turn: a {@code null}
+     * value deletes its key, and of equal keys the last one wins.
+     * A batch that is large next to the tree is sorted and merged with the keys
+     * in the tree, and the tree is rebuilt from the result, reusing its nodes,
+     * in time linear in the size of the tree plus the time to sort the batch;
+     * a smaller batch is put one pair at a time.
+     *
+     * @param  keys the keys
+     * @param  vals the values, {@code vals[i]} being the value of {@code keys[i]}
+     * @throws IllegalArgumentException if the arrays differ in length
+     * @throws NullPointerException if either array, or any key, is {@code null}
+     */
+    public void putAll(Key[] keys, Value[] vals) {
+        if (keys.length != vals.length) throw new IllegalArgumentException("keys and vals differ in length");
+        for (int i = 0; i < keys.length; i++)
+            if (keys[i] == null) throw new NullPointerException("key is null");
+
+        int n = size(), m = keys.length;
+        if ((long) m * (32 - Integer.numberOfLeadingZeros(n + m)) < n) {
+            for (int i = 0; i < m; i++)
+                put(keys[i], vals[i]);
+            return;
+        }
+
+        // merge the batch, in stable sorted order, with the nodes in key order
+        int[] index = Merge.indexSort(keys);
+        Node[] old = newNodes(n);
+        inorder(root, old, 0);
+        Node[] nodes = newNodes(n + m);
+        int k = 0;
+        for (int i = 0, j = 0; i < n || j < m; ) {
+            if (j == m) {
+                nodes[k++] = old[i++];
+                continue;
+            }
+            while (j + 1 < m && keys[index[j+1]].compareTo(keys[index[j]]) == 0) j++;
+            Key key = keys[index[j]];
+            Value val = vals[index[j]];
+            int cmp = (i == n) ? 1 : old[i].key.compareTo(key);
+            if (cmp < 0) {
+                nodes[k++] = old[i++];
+                continue;
+            }
+            if (cmp == 0) {
+                old[i].val = val;
+                if (val != null) nodes[k++] = old[i];
+                i++;
+            }
+            else if (val != null) nodes[k++] = new Node(key, val, BLACK, 1);
+            j++;
+        }
+        root = build(nodes, k);
+        // assert check();
+    }
+
+    // an array of n nodes (Node is generic, through Key and Value)
+    private Node[] newNodes(int n) {
+        return (Node[]) new RedBlackBST.Node[n];
+    }
+
+    // put the nodes of the subtree rooted at x into a[k..], in key order;
+    // return the index after the last
+    private int inorder(Node x, Node[] a, int k) {
+        if (x == null) return k;
+        k = inorder(x.left, a, k);
+        a[k++] = x;
+        return inorder(x.right, a, k);
+    }
+
+    // link nodes[0..n-1], in key order, into the tree of a 2-3 tree with the
+    // greatest black height that holds them: 2-nodes where they fit, 3-nodes
+    // (a black node and a red left child) to take the rest
+    private Node build(Node[] nodes, int n) {
+        int h = 0;                                  // black height: 2^h - 1 <= n < 2^(h+1) - 1
+        while ((2L << h) - 1 <= n) h++;
+        long[] most = new long[h + 1];              // most keys in a 2-3 tree of black height k: 3^k - 1
+        for (int k = 1; k <= h; k++)
+            most[k] = 3 * most[k-1] + 2;
+        Node x = build(nodes, 0, n, h, most);
+        if (x != null) x.color = BLACK;
+        return x;
+    }
+
+    // the n nodes from nodes[lo] as a 2-3 tree of black height h, with a black root
+    private Node build(Node[] nodes, int lo, int n, int h, long[] most) {
+        if (n == 0) return null;
+        Node x;
+        if (n - 1 <= 2 * most[h-1]) {
+            int a = (n - 1) / 2;
+            x = nodes[lo + a];
+            x.left  = build(nodes, lo, a, h-1, most);
+            x.right = build(nodes, lo + a + 1, n - 1 - a, h-1, most);
+        }
+        else {
+            int a = (n - 2) / 3;
+            int b = (n - 2 - a) / 2;
+            Node y = nodes[lo + a];
+            y.left  = build(nodes, lo, a, h-1, most);
+            y.right = build(nodes, lo + a + 1, b, h-1, most);
+            y.color = RED;
+            y.size  = a + b + 1;
+            x = nodes[lo + a + b + 1];
+            x.left  = y;
+            x.right = build(nodes, lo + a + b + 2, n - 2 - a - b, h-1, most);
+        }
+        x.color = BLACK;
+        x.size  = n;
+        return x;
+    }
+
    /***************************************************************************
     *  Red-black tree deletion.
     ***************************************************************************/
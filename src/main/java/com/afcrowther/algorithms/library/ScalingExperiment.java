@@ -0,0 +1,318 @@
+/******************************************************************************
+ *  Compilation:  javac ScalingExperiment.java
+ *  Execution:    java ScalingExperiment [max exponent]
+ *  Dependencies: StopwatchCPU.java LinearRegression.java StdRandom.java StdOut.java
+ *                ThreeSum.java
+ *
+ *  Fits the order of growth of the running time of a workload, with
+ *  JIT warmup, repeated trials and a confidence interval on the exponent.
+ *
+ *  % java ScalingExperiment
+ *         n    wall (s)     cpu (s)      gc (s)     alloc (bytes)
+ *       250       0.006       0.006       0.000              1656
+ *       500       0.011       0.011       0.000              1656
+ *      1000       0.089       0.087       0.000              1656
+ *      2000       0.563       0.550       0.000              1656
+ *      4000       4.234       4.152       0.000              1656
+ *  cpu time ~ n^2.55  (95% CI 2.38 .. 2.73, R^2 = 0.976)
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.library;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ *  The {@code ScalingExperiment} class measures how the running time of a
+ *  workload grows with the input size <em>n</em>, and fits the exponent
+ *  <em>b</em> of a power law <em>T</em>(<em>n</em>) = <em>a n<sup>b</sup></em>.
+ *  <p>
+ *  It is a more careful version of {@link DoublingRatio} and {@link DoublingTest}.
+ *  The workload is given as two functions: one that builds the input of size
+ *  <em>n</em> (not timed) and one that runs on it (timed). For every size, the
+ *  workload is first run a number of untimed warmup trials, so that the JIT
+ *  compiler has settled, and then a number of timed trials. A full garbage
+ *  collection is requested before each timed trial, so that garbage left by
+ *  one trial is not collected during the next one.
+ *  <p>
+ *  Each trial records the wall-clock time, the CPU time of the calling
+ *  thread (as measured by {@link StopwatchCPU}), the time the garbage
+ *  collectors spent during the trial and the bytes allocated by the calling
+ *  thread (where the JVM supports it; otherwise -1). The exponent is the slope
+ *  of a least-squares fit of log(CPU time) against log(<em>n</em>) over all the
+ *  timed trials, and comes with a 95% confidence interval from the standard
+ *  error of that slope.
+ *
+ *  @param <Input> the type of the workload's input
+ */
+public class ScalingExperiment<Input> {
+    private static final double NANOSECONDS_PER_SECOND = 1000000000;
+
+    // two-sided 95% critical values of Student's t distribution, by degrees of freedom
+    private static final double[] T95 = {
+        Double.NaN, 12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+        2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+        2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+
+    private final int[] sizes;          // sizes[i] = ith input size
+    private final double[] wall;        // wall[i] = median wall-clock seconds at sizes[i]
+    private final double[] cpu;         // cpu[i]  = median CPU seconds at sizes[i]
+    private final double[] gc;          // gc[i]   = median GC seconds at sizes[i]
+    private final long[] allocated;     // allocated[i] = median bytes allocated at sizes[i]
+    private final LinearRegression fit; // log(cpu time) against log(n) over all trials
+    private final double margin;        // half-width of the confidence interval of the exponent
+
+    /**
+     * Runs the experiment: for each size, builds an input with {@code input},
+     * runs {@code workload} on it {@code warmups} times untimed and then
+     * {@code trials} times timed, with a fresh input for every run.
+     *
+     * @param  input builds the input of the given size
+     * @param  workload the code whose running time is measured
+     * @param  sizes the input sizes, in increasing order
+     * @param  warmups the number of untimed runs at each size
+     * @param  trials the number of timed runs at each size
+     * @throws IllegalArgumentException if there are fewer than two sizes, or
+     *         {@code trials < 1}, or {@code warmups < 0}, or the sizes are not positive
+     */
+    public ScalingExperiment(IntFunction<Input> input, Consumer<Input> workload,
+                             int[] sizes, int warmups, int trials) {
+        if (sizes.length < 2) throw new IllegalArgumentException("need at least two sizes");
+        if (trials < 1)       throw new IllegalArgumentException("need at least one trial per size");
+        if (warmups < 0)      throw new IllegalArgumentException("number of warmups must be nonnegative");
+        for (int n : sizes)
+            if (n <= 0) throw new IllegalArgumentException("sizes must be positive");
+
+        this.sizes = sizes.clone();
+        int m = sizes.length;
+        wall = new double[m];
+        cpu = new double[m];
+        gc = new double[m];
+        allocated = new long[m];
+
+        double[] logN = new double[m * trials];
+        double[] logT = new double[m * trials];
+        double[] wallTrial = new double[trials];
+        double[] cpuTrial = new double[trials];
+        double[] gcTrial = new double[trials];
+        long[] allocatedTrial = new long[trials];
+
+        for (int i = 0; i < m; i++) {
+            int n = sizes[i];
+            for (int w = 0; w < warmups; w++)
+                workload.accept(input.apply(n));
+
+            for (int t = 0; t < trials; t++) {
+                Input x = input.apply(n);
+                System.gc();
+
+                long gcStart = gcMillis();
+                long allocatedStart = allocatedBytes();
+                long wallStart = System.nanoTime();
+                StopwatchCPU timer = new StopwatchCPU();
+
+                workload.accept(x);
+
+                cpuTrial[t] = timer.elapsedTime();
+                wallTrial[t] = (System.nanoTime() - wallStart) / NANOSECONDS_PER_SECOND;
+                long allocatedEnd = allocatedBytes();
+                allocatedTrial[t] = (allocatedStart < 0) ? -1 : allocatedEnd - allocatedStart;
+                gcTrial[t] = (gcMillis() - gcStart) / 1000.0;
+
+                // guard against a zero reading from a coarse CPU clock
+                logN[i*trials + t] = Math.log(n);
+                logT[i*trials + t] = Math.log(Math.max(cpuTrial[t], 1e-9));
+            }
+
+            wall[i] = median(wallTrial);
+            cpu[i] = median(cpuTrial);
+            gc[i] = median(gcTrial);
+            Arrays.sort(allocatedTrial);
+            allocated[i] = allocatedTrial[trials / 2];
+        }
+
+        fit = new LinearRegression(logN, logT);
+        int degreesOfFreedom = logN.length - 2;
+        margin = (degreesOfFreedom < 1) ? Double.NaN : t95(degreesOfFreedom) * fit.slopeStdErr();
+    }
+
+    /**
+     * Returns input sizes {@code start}, 2 {@code start}, 4 {@code start}, and so forth.
+     *
+     * @param  start the first size
+     * @param  count the number of sizes
+     * @return an array of {@code count} sizes, each double the previous one
+     */
+    public static int[] doubling(int start, int count) {
+        int[] sizes = new int[count];
+        for (int i = 0; i < count; i++)
+            sizes[i] = start << i;
+        return sizes;
+    }
+
+    // two-sided 95% critical value of t with the given degrees of freedom (rounded down)
+    private static double t95(int degreesOfFreedom) {
+        if (degreesOfFreedom < T95.length) return T95[degreesOfFreedom];
+        if (degreesOfFreedom < 60)         return 2.021;
+        if (degreesOfFreedom < 120)        return 2.000;
+        return 1.980;
+    }
+
+    private static double median(double[] a) {
+        double[] b = a.clone();
+        Arrays.sort(b);
+        return b[b.length / 2];
+    }
+
+    // total milliseconds spent by all garbage collectors so far
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans())
+            total += Math.max(bean.getCollectionTime(), 0);
+        return total;
+    }
+
+    // bytes allocated by the current thread so far, or -1 if the JVM cannot tell
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) bean;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled())
+                return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of input sizes.
+     * @return the number of input sizes
+     */
+    public int sizes() {
+        return sizes.length;
+    }
+
+    /**
+     * Returns the ith input size.
+     * @param  i the position of the size
+     * @return the ith input size
+     */
+    public int size(int i) {
+        return sizes[i];
+    }
+
+    /**
+     * Returns the median wall-clock time (in seconds) of the timed trials at the ith size.
+     * @param  i the position of the size
+     * @return the median wall-clock time (in seconds) at the ith size
+     */
+    public double wallTime(int i) {
+        return wall[i];
+    }
+
+    /**
+     * Returns the median CPU time (in seconds) of the timed trials at the ith size.
+     * @param  i the position of the size
+     * @return the median CPU time (in seconds) at the ith size
+     */
+    public double cpuTime(int i) {
+        return cpu[i];
+    }
+
+    /**
+     * Returns the median time (in seconds) spent in garbage collection during
+     * the timed trials at the ith size.
+     * @param  i the position of the size
+     * @return the median garbage collection time (in seconds) at the ith size
+     */
+    public double gcTime(int i) {
+        return gc[i];
+    }
+
+    /**
+     * Returns the median number of bytes allocated by a timed trial at the ith size.
+     * @param  i the position of the size
+     * @return the median number of bytes allocated at the ith size,
+     *         or -1 if the JVM does not report allocation
+     */
+    public long allocatedBytes(int i) {
+        return allocated[i];
+    }
+
+    /**
+     * Returns the fitted exponent <em>b</em> of <em>T</em>(<em>n</em>) = <em>a n<sup>b</sup></em>.
+     * @return the fitted exponent
+     */
+    public double exponent() {
+        return fit.slope();
+    }
+
+    /**
+     * Returns the lower end of the 95% confidence interval of the exponent.
+     * @return the lower end of the 95% confidence interval of the exponent
+     */
+    public double exponentLower() {
+        return fit.slope() - margin;
+    }
+
+    /**
+     * Returns the upper end of the 95% confidence interval of the exponent.
+     * @return the upper end of the 95% confidence interval of the exponent
+     */
+    public double exponentUpper() {
+        return fit.slope() + margin;
+    }
+
+    /**
+     * Returns the coefficient of determination <em>R</em><sup>2</sup> of the fit.
+     * @return the coefficient of determination of the fit
+     */
+    public double R2() {
+        return fit.R2();
+    }
+
+    /**
+     * Returns a table of the measurements at each size, followed by the fitted exponent.
+     * @return a string representation of this experiment
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append(String.format("%10s %11s %11s %11s %17s\n", "n", "wall (s)", "cpu (s)", "gc (s)", "alloc (bytes)"));
+        for (int i = 0; i < sizes.length; i++)
+            s.append(String.format("%10d %11.3f %11.3f %11.3f %17d\n", sizes[i], wall[i], cpu[i], gc[i], allocated[i]));
+        s.append(String.format("cpu time ~ n^%.2f  (95%% CI %.2f .. %.2f, R^2 = %.3f)",
+                               exponent(), exponentLower(), exponentUpper(), R2()));
+        return s.toString();
+    }
+
+    /**
+     * Fits the order of growth of {@code ThreeSum.count()} on random 6-digit integers,
+     * with 2 warmups and 5 trials at sizes 250, 500, 1000, 2000 and 4000.
+     * If a maximum exponent is given as a command-line argument, exits with
+     * status 1 when the whole confidence interval lies above it.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        ScalingExperiment<int[]> experiment = new ScalingExperiment<int[]>(
+            n -> {
+                int[] a = new int[n];
+                for (int i = 0; i < n; i++)
+                    a[i] = StdRandom.uniform(-1000000, 1000000);
+                return a;
+            },
+            a -> ThreeSum.count(a),
+            doubling(250, 5), 2, 5);
+        StdOut.println(experiment);
+
+        if (args.length > 0 && experiment.exponentLower() > Double.parseDouble(args[0])) {
+            StdOut.println("exponent exceeds " + args[0]);
+            System.exit(1);
+        }
+    }
+}
@@ -31,6 +31,19 @@ package com.afcrowther.algorithms.library;
  *  The <em>size</em>, and <em>is-empty</em> operations take constant time.
  *  Construction takes constant time.
  *  <p>
+ *  Normally the table is resized by rehashing every key at once, so that
+ *  the <em>put</em> or <em>delete</em> that triggers a resize takes time
+ *  proportional to the number of keys. A table constructed with
+ *  {@code incremental} set to {@code true} resizes incrementally instead:
+ *  it keeps the old chains and moves a fixed number of them to the new
+ *  table at each <em>put</em> and <em>delete</em>, so that the only work
+ *  proportional to the size of the table is allocating the new array of
+ *  chains; each chain of a resized table is created on its first insert.
+ *  Since the old chains are moved in order, a key whose old chain has not been moved yet is still in
+ *  it, so each operation looks in exactly one chain, in the old table or in
+ *  the new one. The move always finishes before the table needs to be
+ *  resized again.
+ *  <p>
  *  For additional documentation, see <a href="http://algs4.cs.princeton.edu/34hash">Section 3.4</a> of
  *  <i>Algorithms, 4th Edition</i> by Robert Sedgewick and Kevin Wayne.
  *  For other implementations, see {@link ST}, {@link BinarySearchST},
@@ -42,11 +55,17 @@ package com.afcrowther.algorithms.library;
  */
 public class SeparateChainingHashST<Key, Value> {
     private static final int INIT_CAPACITY = 4;
+    private static final int MIGRATION_STEPS = 2;   // old chains moved per put or delete
 
     private int n;                                // number of key-value pairs
     private int m;                                // hash table size
     private SequentialSearchST<Key, Value>[] st;  // array of linked-list symbol tables
 
+    private final boolean incremental;            // resize a few chains at a time?
+    private int oldM;                             // size of the table being moved from
+    private SequentialSearchST<Key, Value>[] oldSt;  // the table being moved from; null if none
+    private int moved;                            // oldSt[0..moved-1] have been moved
+
 
     /**
      * Initializes an empty symbol table.
@@ -60,15 +79,32 @@ public class SeparateChainingHashST<Key, Value> {
      * @param m the initial number of chains
      */
     public SeparateChainingHashST(int m) {
+        this(m, false);
+    } 
+
+    /**
+     * Initializes an empty symbol table with {@code m} chains, which resizes
+     * itself incrementally if {@code incremental} is {@code true}.
+     *
+     * @param m the initial number of chains
+     * @param incremental whether to move the keys to a resized table a few
+     *        chains at a time, instead of all at once
+     */
+    public SeparateChainingHashST(int m, boolean incremental) {
         this.m = m;
         st = (SequentialSearchST<Key, Value>[]) new SequentialSearchST[m];
         for (int i = 0; i < m; i++)
             st[i] = new SequentialSearchST<Key, Value>();
+        this.incremental = incremental;
     } 
 
     // resize the hash table to have the given number of chains,
     // rehashing all of the keys
     private void resize(int chains) {
+        if (incremental) {
+            startResize(chains);
+            return;
+        }
         SeparateChainingHashST<Key, Value> temp = new SeparateChainingHashST<Key, Value>(chains);
         for (int i = 0; i < m; i++) {
             for (Key key : st[i].keys()) {
@@ -80,6 +116,51 @@ public class SeparateChainingHashST<Key, Value> {
         this.st = temp.st;
     }
 
+    // makes the current chains the old ones and allocates an array for the given
+    // number of new chains, which are created on their first insert; finishes any
+    // move that is still underway
+    private void startResize(int chains) {
+        if (oldSt != null) migrate(oldM - moved);
+        oldSt = st;
+        oldM  = m;
+        moved = 0;
+        m  = chains;
+        st = (SequentialSearchST<Key, Value>[]) new SequentialSearchST[m];
+    }
+
+    // moves the keys of the next (at most) steps old chains to the new table
+    private void migrate(int steps) {
+        for (int k = 0; k < steps && oldSt != null; k++) {
+            SequentialSearchST<Key, Value> chain = oldSt[moved];
+            if (chain != null) {
+                for (Key key : chain.keys()) {
+                    int i = hash(key);
+                    if (st[i] == null) st[i] = new SequentialSearchST<Key, Value>();
+                    st[i].put(key, chain.get(key));
+                }
+            }
+            oldSt[moved++] = null;
+            if (moved == oldM) oldSt = null;
+        }
+    }
+
+    // the chain that holds key, if it is in the symbol table; null if that
+    // chain has not been created yet, unless create is true
+    private SequentialSearchST<Key, Value> chain(Key key, boolean create) {
+        SequentialSearchST<Key, Value>[] table = st;
+        int i = hash(key);
+        if (oldSt != null) {
+            int j = (key.hashCode() & 0x7fffffff) % oldM;
+            if (j >= moved) {
+                table = oldSt;
+                i = j;
+            }
+        }
+        if (table[i] == null && create)
+            table[i] = new SequentialSearchST<Key, Value>();
+        return table[i];
+    }
+
     // hash value between 0 and m-1
     private int hash(Key key) {
         return (key.hashCode() & 0x7fffffff) % m;
@@ -127,8 +208,9 @@ public class SeparateChainingHashST<Key, Value> {
      */
     public Value get(Key key) {
         if (key == null) throw new NullPointerException("argument to get() is null");
-        int i = hash(key);
-        return st[i].get(key);
+        SequentialSearchST<Key, Value> chain = chain(key, false);
+        if (chain == null) return null;
+        return chain.get(key);
     } 
 
     /**
@@ -148,12 +230,14 @@ public class SeparateChainingHashST<Key, Value> {
             return;
         }
 
+        if (incremental) migrate(MIGRATION_STEPS);
+
         // double table size if average length of list >= 10
         if (n >= 10*m) resize(2*m);
 
-        int i = hash(key);
-        if (!st[i].contains(key)) n++;
-        st[i].put(key, val);
+        SequentialSearchST<Key, Value> chain = chain(key, true);
+        if (!chain.contains(key)) n++;
+        chain.put(key, val);
     } 
 
     /**
@@ -166,9 +250,13 @@ public class SeparateChainingHashST<Key, Value> {
     public void delete(Key key) {
         if (key == null) throw new NullPointerException("argument to delete() is null");
 
-        int i = hash(key);
-        if (st[i].contains(key)) n--;
-        st[i].delete(key);
+        if (incremental) migrate(MIGRATION_STEPS);
+
+        SequentialSearchST<Key, Value> chain = chain(key, false);
+        if (chain != null && chain.contains(key)) {
+            n--;
+            chain.delete(key);
+        }
 
         // halve table size if average length of list <= 2
         if (m > INIT_CAPACITY && n <= 2*m) resize(m/2);
@@ -178,9 +266,15 @@ public class SeparateChainingHashST<Key, Value> {
     public Iterable<Key> keys() {
         Queue<Key> queue = new Queue<Key>();
         for (int i = 0; i < m; i++) {
+            if (st[i] == null) continue;
             for (Key key : st[i].keys())
                 queue.enqueue(key);
         }
+        for (int i = moved; oldSt != null && i < oldM; i++) {
+            if (oldSt[i] == null) continue;
+            for (Key key : oldSt[i].keys())
+                queue.enqueue(key);
+        }
         return queue;
     } 
 
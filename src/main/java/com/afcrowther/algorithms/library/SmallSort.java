@@ -0,0 +1,381 @@
+/******************************************************************************
+ *  Compilation:  javac SmallSort.java
+ *  Execution:    java SmallSort < input.txt
+ *  Dependencies: StdIn.java StdOut.java
+ *  Data files:   http://algs4.cs.princeton.edu/21elementary/tiny.txt
+ *
+ *  Sorts small subarrays of primitive types (up to 16 keys) with optimal
+ *  sorting networks, and of objects with insertion sort, for use as the
+ *  base case of the recursive sorts.
+ *
+ *  % java SmallSort < tiny.txt
+ *  A E E L M O P R S T X                 [ one string per line ]
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.library;
+
+import java.util.Comparator;
+
+/**
+ *  The {@code SmallSort} class provides static methods for sorting small
+ *  subarrays, meant as the base case of quicksort, mergesort and MSD radix
+ *  sort, which all stop recursing once a subarray has only a few keys.
+ *  <p>
+ *  Subarrays of up to 16 ints, longs, floats or doubles are sorted with a
+ *  sorting network of the smallest known size for that number of keys
+ *  (60 comparators for 16 keys). A network performs the same
+ *  compare-exchanges whatever the input, and each compare-exchange is a
+ *  min and a max (or a pair of conditional moves) rather than a conditional
+ *  swap, so the processor has no data-dependent branches to mispredict.
+ *  Insertion sort, in contrast, mispredicts about once per key on random
+ *  input. Networks are not stable.
+ *  <p>
+ *  For objects, the cost is in the calls to {@code compareTo()} or
+ *  {@code compare()}, and a network makes more of them than insertion sort
+ *  and stores two references per compare-exchange. So objects are insertion
+ *  sorted, moving a hole down instead of exchanging keys: one store per
+ *  step, and the compare is the only branch. This sort is stable.
+ *  <p>
+ *  Larger subarrays of primitive types are insertion sorted, so every method
+ *  sorts a subarray of any length, but only small ones quickly.
+ */
+public class SmallSort {
+    private static final int MAX_NETWORK = 16;   // largest subarray sorted by a network
+
+    // NETWORKS[n] holds the comparators (i, j), i < j, of a sorting network on n keys,
+    // as consecutive pairs; the networks on 14 and 15 keys are the one on 16 keys
+    // with its top wires removed
+    private static final int[][] NETWORKS = {
+        null,
+        null,
+        {   // 2 keys, 1 comparator
+            0,1
+        },
+        {   // 3 keys, 3 comparators
+            0,2, 0,1, 1,2
+        },
+        {   // 4 keys, 5 comparators
+            0,2, 1,3, 0,1, 2,3, 1,2
+        },
+        {   // 5 keys, 9 comparators
+            0,3, 1,4, 0,2, 1,3, 0,1, 2,4, 1,2, 3,4, 2,3
+        },
+        {   // 6 keys, 12 comparators
+            0,5, 1,3, 2,4, 1,2, 3,4, 0,3, 2,5, 0,1, 2,3, 4,5, 1,2, 3,4
+        },
+        {   // 7 keys, 16 comparators
+            0,6, 2,3, 4,5, 0,2, 1,4, 3,6, 0,1, 2,5, 3,4, 1,2, 4,6, 2,3, 4,5, 1,2, 3,4, 5,6
+        },
+        {   // 8 keys, 19 comparators
+            0,2, 1,3, 4,6, 5,7, 0,4, 1,5, 2,6, 3,7, 0,1, 2,3, 4,5, 6,7, 2,4, 3,5, 1,4, 3,6,
+            1,2, 3,4, 5,6
+        },
+        {   // 9 keys, 25 comparators
+            0,3, 1,7, 2,5, 4,8, 0,7, 2,4, 3,8, 5,6, 0,2, 1,3, 4,5, 7,8, 1,4, 3,6, 5,7, 0,1,
+            2,4, 3,5, 6,8, 2,3, 4,5, 6,7, 1,2, 3,4, 5,6
+        },
+        {   // 10 keys, 29 comparators
+            0,8, 1,9, 2,7, 3,5, 4,6, 0,2, 1,4, 5,8, 7,9, 0,3, 2,4, 5,7, 6,9, 0,1, 3,6, 8,9,
+            1,5, 2,3, 4,8, 6,7, 1,2, 3,5, 4,6, 7,8, 2,3, 4,5, 6,7, 3,4, 5,6
+        },
+        {   // 11 keys, 35 comparators
+            0,9, 1,6, 2,4, 3,7, 5,8, 0,1, 3,5, 4,10, 6,9, 7,8, 1,3, 2,5, 4,7, 8,10, 0,4,
+            1,2, 3,7, 5,9, 6,8, 0,1, 2,6, 4,5, 7,8, 9,10, 2,4, 3,6, 5,7, 8,9, 1,2, 3,4, 5,6,
+            7,8, 2,3, 4,5, 6,7
+        },
+        {   // 12 keys, 39 comparators
+            0,8, 1,7, 2,6, 3,11, 4,10, 5,9, 0,1, 2,5, 3,4, 6,9, 7,8, 10,11, 0,2, 1,6, 5,10,
+            9,11, 0,3, 1,2, 4,6, 5,7, 8,11, 9,10, 1,4, 3,5, 6,8, 7,10, 1,3, 2,5, 6,9, 8,10,
+            2,3, 4,5, 6,7, 8,9, 4,6, 5,7, 3,4, 5,6, 7,8
+        },
+        {   // 13 keys, 45 comparators
+            0,12, 1,10, 2,9, 3,7, 5,11, 6,8, 1,6, 2,3, 4,11, 7,9, 8,10, 0,4, 1,2, 3,6, 7,8,
+            9,10, 11,12, 4,6, 5,9, 8,11, 10,12, 0,5, 3,8, 4,7, 6,11, 9,10, 0,1, 2,5, 6,9,
+            7,8, 10,11, 1,3, 2,4, 5,6, 9,10, 1,2, 3,4, 5,7, 6,8, 2,3, 4,5, 6,7, 8,9, 3,4,
+            5,6
+        },
+        {   // 14 keys, 51 comparators
+            0,13, 1,12, 4,8, 5,6, 7,11, 9,10, 0,5, 1,7, 2,9, 3,4, 6,13, 11,12, 0,1, 2,3,
+            4,5, 6,8, 7,9, 10,11, 12,13, 0,2, 1,3, 4,10, 5,11, 6,7, 8,9, 1,2, 3,12, 4,6,
+            5,7, 8,10, 9,11, 1,4, 2,6, 5,8, 7,10, 9,13, 2,4, 3,6, 9,12, 11,13, 3,5, 6,8,
+            7,9, 10,12, 3,4, 5,6, 7,8, 9,10, 11,12, 6,7, 8,9
+        },
+        {   // 15 keys, 56 comparators
+            0,13, 1,12, 3,14, 4,8, 5,6, 7,11, 9,10, 0,5, 1,7, 2,9, 3,4, 6,13, 8,14, 11,12,
+            0,1, 2,3, 4,5, 6,8, 7,9, 10,11, 12,13, 0,2, 1,3, 4,10, 5,11, 6,7, 8,9, 12,14,
+            1,2, 3,12, 4,6, 5,7, 8,10, 9,11, 13,14, 1,4, 2,6, 5,8, 7,10, 9,13, 11,14, 2,4,
+            3,6, 9,12, 11,13, 3,5, 6,8, 7,9, 10,12, 3,4, 5,6, 7,8, 9,10, 11,12, 6,7, 8,9
+        },
+        {   // 16 keys, 60 comparators
+            0,13, 1,12, 2,15, 3,14, 4,8, 5,6, 7,11, 9,10, 0,5, 1,7, 2,9, 3,4, 6,13, 8,14,
+            10,15, 11,12, 0,1, 2,3, 4,5, 6,8, 7,9, 10,11, 12,13, 14,15, 0,2, 1,3, 4,10,
+            5,11, 6,7, 8,9, 12,14, 13,15, 1,2, 3,12, 4,6, 5,7, 8,10, 9,11, 13,14, 1,4, 2,6,
+            5,8, 7,10, 9,13, 11,14, 2,4, 3,6, 9,12, 11,13, 3,5, 6,8, 7,9, 10,12, 3,4, 5,6,
+            7,8, 9,10, 11,12, 6,7, 8,9
+        }
+    };
+
+    // This class should not be instantiated.
+    private SmallSort() { }
+
+
+   /***************************************************************************
+    *  Primitive types: sorting networks.
+    ***************************************************************************/
+
+    /**
+     * Rearranges the subarray a[lo..hi] of ints in ascending order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(int[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        int n = hi - lo + 1;
+        if (n <= 1) return;
+        if (n <= MAX_NETWORK) {
+            int[] network = NETWORKS[n];
+            for (int p = 0; p < network.length; p += 2)
+                compareExchange(a, lo + network[p], lo + network[p+1]);
+        }
+        else {
+            for (int i = lo + 1; i <= hi; i++) {
+                int v = a[i];
+                int j = i;
+                for (; j > lo && v < a[j-1]; j--)
+                    a[j] = a[j-1];
+                a[j] = v;
+            }
+        }
+        assert isSorted(a, lo, hi);
+    }
+
+    // put the smaller of a[i] and a[j] in a[i] and the larger in a[j], without branching
+    private static void compareExchange(int[] a, int i, int j) {
+        int x = a[i], y = a[j];
+        a[i] = Math.min(x, y);
+        a[j] = Math.max(x, y);
+    }
+
+    private static boolean isSorted(int[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of longs in ascending order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(long[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        int n = hi - lo + 1;
+        if (n <= 1) return;
+        if (n <= MAX_NETWORK) {
+            int[] network = NETWORKS[n];
+            for (int p = 0; p < network.length; p += 2)
+                compareExchange(a, lo + network[p], lo + network[p+1]);
+        }
+        else {
+            for (int i = lo + 1; i <= hi; i++) {
+                long v = a[i];
+                int j = i;
+                for (; j > lo && v < a[j-1]; j--)
+                    a[j] = a[j-1];
+                a[j] = v;
+            }
+        }
+        assert isSorted(a, lo, hi);
+    }
+
+    // put the smaller of a[i] and a[j] in a[i] and the larger in a[j], without branching
+    private static void compareExchange(long[] a, int i, int j) {
+        long x = a[i], y = a[j];
+        a[i] = Math.min(x, y);
+        a[j] = Math.max(x, y);
+    }
+
+    private static boolean isSorted(long[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of floats in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they end up in no particular order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(float[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        int n = hi - lo + 1;
+        if (n <= 1) return;
+        if (n <= MAX_NETWORK) {
+            int[] network = NETWORKS[n];
+            for (int p = 0; p < network.length; p += 2)
+                compareExchange(a, lo + network[p], lo + network[p+1]);
+        }
+        else {
+            for (int i = lo + 1; i <= hi; i++) {
+                float v = a[i];
+                int j = i;
+                for (; j > lo && v < a[j-1]; j--)
+                    a[j] = a[j-1];
+                a[j] = v;
+            }
+        }
+        assert isSorted(a, lo, hi);
+    }
+
+    private static void compareExchange(float[] a, int i, int j) {
+        float x = a[i], y = a[j];
+        boolean swap = y < x;
+        a[i] = swap ? y : x;
+        a[j] = swap ? x : y;
+    }
+
+    private static boolean isSorted(float[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] of doubles in ascending order.
+     * The array must not contain {@code NaN}; {@code -0.0} and {@code 0.0} compare
+     * equal, so they end up in no particular order.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(double[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        int n = hi - lo + 1;
+        if (n <= 1) return;
+        if (n <= MAX_NETWORK) {
+            int[] network = NETWORKS[n];
+            for (int p = 0; p < network.length; p += 2)
+                compareExchange(a, lo + network[p], lo + network[p+1]);
+        }
+        else {
+            for (int i = lo + 1; i <= hi; i++) {
+                double v = a[i];
+                int j = i;
+                for (; j > lo && v < a[j-1]; j--)
+                    a[j] = a[j-1];
+                a[j] = v;
+            }
+        }
+        assert isSorted(a, lo, hi);
+    }
+
+    private static void compareExchange(double[] a, int i, int j) {
+        double x = a[i], y = a[j];
+        boolean swap = y < x;
+        a[i] = swap ? y : x;
+        a[j] = swap ? x : y;
+    }
+
+    private static boolean isSorted(double[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (a[i] < a[i-1]) return false;
+        return true;
+    }
+
+
+   /***************************************************************************
+    *  Objects: insertion sort.
+    ***************************************************************************/
+
+    /**
+     * Rearranges the subarray a[lo..hi] in ascending order, using the natural order.
+     * This sort is stable.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(Comparable[] a, int lo, int hi) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        for (int i = lo + 1; i <= hi; i++) {
+            Comparable v = a[i];
+            int j = i;
+            for (; j > lo && less(v, a[j-1]); j--)
+                a[j] = a[j-1];
+            a[j] = v;
+        }
+        assert isSorted(a, lo, hi);
+    }
+
+    /**
+     * Rearranges the subarray a[lo..hi] in ascending order, using a comparator.
+     * This sort is stable.
+     * @param a the array to be sorted
+     * @param lo left endpoint (inclusive)
+     * @param hi right endpoint (inclusive)
+     * @param comparator the comparator specifying the order
+     * @throws IndexOutOfBoundsException unless {@code 0 <= lo} and {@code hi < a.length}
+     */
+    public static void sort(Object[] a, int lo, int hi, Comparator comparator) {
+        if (lo < 0 || hi >= a.length) throw new IndexOutOfBoundsException("Illegal subarray range");
+        for (int i = lo + 1; i <= hi; i++) {
+            Object v = a[i];
+            int j = i;
+            for (; j > lo && less(v, a[j-1], comparator); j--)
+                a[j] = a[j-1];
+            a[j] = v;
+        }
+        assert isSorted(a, lo, hi, comparator);
+    }
+
+
+   /***************************************************************************
+    *  Helper sorting functions.
+    ***************************************************************************/
+
+    // is v < w ?
+    private static boolean less(Comparable v, Comparable w) {
+        return v.compareTo(w) < 0;
+    }
+
+    // is v < w ?
+    private static boolean less(Object v, Object w, Comparator comparator) {
+        return comparator.compare(v, w) < 0;
+    }
+
+    private static boolean isSorted(Comparable[] a, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (less(a[i], a[i-1])) return false;
+        return true;
+    }
+
+    private static boolean isSorted(Object[] a, int lo, int hi, Comparator comparator) {
+        for (int i = lo + 1; i <= hi; i++)
+            if (less(a[i], a[i-1], comparator)) return false;
+        return true;
+    }
+
+
+    /**
+     * Reads in a sequence of strings from standard input; sorts them;
+     * and prints them to standard output in ascending order.
+     *
+     * @param args the command-line arguments
+     */
+    public static void main(String[] args) {
+        String[] a = StdIn.readAllStrings();
+        SmallSort.sort(a, 0, a.length - 1);
+        for (int i = 0; i < a.length; i++)
+            StdOut.println(a[i]);
+    }
+}
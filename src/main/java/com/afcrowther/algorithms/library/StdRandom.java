@@ -504,6 +504,84 @@ public final class StdRandom {
         }
     }
 
+    /**
+     * Rearranges the elements of the specified array in uniformly random order.
+     *
+     * @param  a the array to shuffle
+     * @throws NullPointerException if {@code a} is {@code null}
+     */
+    public static void shuffle(long[] a) {
+        if (a == null) throw new NullPointerException("argument array is null");
+        int n = a.length;
+        for (int i = 0; i < n; i++) {
+            int r = i + uniform(n-i);     // between i and n-1
+            long temp = a[i];
+            a[i] = a[r];
+            a[r] = temp;
+        }
+    }
+
+    /**
+     * Rearranges the elements of the specified subarray in uniformly random order.
+     *
+     * @param  a the array to shuffle
+     * @param  lo the left endpoint (inclusive)
+     * @param  hi the right endpoint (inclusive)
+     * @throws NullPointerException if {@code a} is {@code null}
+     * @throws IndexOutOfBoundsException unless {@code (0 <= lo) && (lo <= hi) && (hi < a.length)}
+     */
+    public static void shuffle(long[] a, int lo, int hi) {
+        if (a == null) throw new NullPointerException("argument array is null");
+        if (lo < 0 || lo > hi || hi >= a.length) {
+            throw new IndexOutOfBoundsException("Illegal subarray range");
+        }
+        for (int i = lo; i <= hi; i++) {
+            int r = i + uniform(hi-i+1);     // between i and hi
+            long temp = a[i];
+            a[i] = a[r];
+            a[r] = temp;
+        }
+    }
+
+    /**
+     * Rearranges the elements of the specified array in uniformly random order.
+     *
+     * @param  a the array to shuffle
+     * @throws NullPointerException if {@code a} is {@code null}
+     */
+    public static void shuffle(float[] a) {
+        if (a == null) throw new NullPointerException("argument array is null");
+        int n = a.length;
+        for (int i = 0; i < n; i++) {
+            int r = i + uniform(n-i);     // between i and n-1
+            float temp = a[i];
+            a[i] = a[r];
+            a[r] = temp;
+        }
+    }
+
+    /**
+     * Rearranges the elements of the specified subarray in uniformly random order.
+     *
+     * @param  a the array to shuffle
+     * @param  lo the left endpoint (inclusive)
+     * @param  hi the right endpoint (inclusive)
+     * @throws NullPointerException if {@code a} is {@code null}
+     * @throws IndexOutOfBoundsException unless {@code (0 <= lo) && (lo <= hi) && (hi < a.length)}
+     */
+    public static void shuffle(float[] a, int lo, int hi) {
+        if (a == null) throw new NullPointerException("argument array is null");
+        if (lo < 0 || lo > hi || hi >= a.length) {
+            throw new IndexOutOfBoundsException("Illegal subarray range");
+        }
+        for (int i = lo; i <= hi; i++) {
+            int r = i + uniform(hi-i+1);     // between i and hi
+            float temp = a[i];
+            a[i] = a[r];
+            a[r] = temp;
+        }
+    }
+
     /**
      * Unit test.
      *
@@ -0,0 +1,288 @@
+/******************************************************************************
+ *  Compilation:  javac TopK.java
+ *  Execution:    java TopK m [producers] < input.txt
+ *  Dependencies: KeySort.java Queue.java Transaction.java StdIn.java StdOut.java
+ *  Data files:   http://algs4.cs.princeton.edu/24pq/tinyBatch.txt
+ *
+ *  Keeps the k items with the largest keys in a stream that many threads
+ *  add to at once, and answers queries while the stream continues.
+ *
+ *  % java TopK 5 4 < tinyBatch.txt
+ *  Thompson    2/27/2000  4747.08
+ *  vonNeumann  2/12/1994  4732.35
+ *  vonNeumann  1/11/1999  4409.74
+ *  Hoare       8/18/1992  4381.21
+ *  vonNeumann  3/26/2002  4121.85
+ *
+ ******************************************************************************/
+
+package com.afcrowther.algorithms.library;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ *  The {@code TopK} class keeps the <em>k</em> items with the largest keys
+ *  among all the items offered to it, where each item comes with a
+ *  {@code double} key. Unlike {@link TopM}, which reads one stream into one
+ *  {@link MinPQ}, any number of threads may call {@link #offer} at the same
+ *  time, and {@link #snapshot} and {@link #top} may be called while they do.
+ *  <p>
+ *  Each producer thread has its own bounded min-oriented heap of at most
+ *  <em>k</em> keys, held in a {@code double[]} next to an array of items, so
+ *  offering a key does not box it. A key that is not larger than the
+ *  smallest key in the thread's full heap is rejected by one compare, without
+ *  locking or writing anything; once the heap has filled up with large keys,
+ *  that is almost every offer. A key that does enter the heap replaces the
+ *  smallest one, under the heap's lock, which only a snapshot ever contends.
+ *  <p>
+ *  A snapshot locks each thread's heap in turn, copies it, and selects the
+ *  <em>k</em> largest keys of the copies. The snapshot holds the
+ *  <em>k</em> largest keys among the offers that completed before it
+ *  started, and possibly some of the offers made while it ran. The
+ *  <em>k</em>th largest key of a snapshot also becomes a floor that every
+ *  thread uses to reject keys, since at least <em>k</em> larger keys are
+ *  known to be kept.
+ *  <p>
+ *  The heap of a thread that has terminated can no longer change, so a
+ *  snapshot merges it into one heap of retired keys and drops it. Short-lived
+ *  producer threads therefore cost nothing once they are gone, and a
+ *  {@code TopK} may be fed by any executor, not only a fixed thread pool.
+ *  <p>
+ *  Offering takes constant time when the key is rejected and time
+ *  proportional to log <em>k</em> otherwise. A snapshot takes time
+ *  proportional to <em>T k</em> log(<em>T k</em>), and space proportional
+ *  to <em>T k</em>, where <em>T</em> is the number of live threads that
+ *  have offered items since the last snapshot. Keys equal to the <em>k</em>th largest may be kept or
+ *  left out arbitrarily.
+ *
+ *  @param <Item> the type of the items
+ */
+public class TopK<Item> {
+    private final int k;                                    // number of keys to keep
+    private final CopyOnWriteArrayList<Buffer> buffers;     // the heaps of the producer threads not yet retired
+    private final Buffer retired;                           // the k largest keys of the retired heaps
+    private final ThreadLocal<Buffer> buffer;               // the heap of the calling thread
+    private volatile double floor = Double.NEGATIVE_INFINITY;   // keys below this cannot be in the top k
+
+    /**
+     * Initializes an empty top-{@code k} tracker.
+     *
+     * @param  k the number of items to keep
+     * @throws IllegalArgumentException if {@code k < 1}
+     */
+    public TopK(int k) {
+        if (k < 1) throw new IllegalArgumentException("k must be positive");
+        this.k = k;
+        buffers = new CopyOnWriteArrayList<Buffer>();
+        retired = new Buffer(k, null);
+        buffer = ThreadLocal.withInitial(() -> {
+            Buffer b = new Buffer(k, Thread.currentThread());
+            buffers.add(b);
+            return b;
+        });
+    }
+
+    /**
+     * Offers an item with the given key. The item is kept if its key is among
+     * the {@code k} largest offered so far.
+     *
+     * @param  key the key
+     * @param  item the item (may be {@code null})
+     * @throws IllegalArgumentException if {@code key} is {@code NaN}
+     */
+    public void offer(double key, Item item) {
+        if (Double.isNaN(key)) throw new IllegalArgumentException("key is NaN");
+        if (key < floor) return;
+        buffer.get().offer(key, item);
+    }
+
+    /**
+     * Returns the number of items to keep.
+     *
+     * @return the number of items to keep
+     */
+    public int k() {
+        return k;
+    }
+
+    /**
+     * Copies the (at most {@code k}) largest keys offered so far, in descending
+     * order, into {@code keys}, and their items into {@code items}.
+     *
+     * @param  keys the array to hold the keys
+     * @param  items the array to hold the items
+     * @return the number of keys copied, which is {@code k} unless fewer
+     *         items have been offered
+     * @throws IllegalArgumentException if either array is shorter than {@code k}
+     */
+    public int snapshot(double[] keys, Item[] items) {
+        if (keys.length < k || items.length < k) throw new IllegalArgumentException("arrays must hold k entries");
+
+        // copy every thread's heap; one snapshot at a time, so that a heap being
+        // retired is never copied both on its own and as part of the retired keys
+        double[] allKeys;
+        Object[] allItems;
+        int total;
+        synchronized (retired) {
+            retire();
+            int capacity = (buffers.size() + 1) * k;
+            allKeys = new double[capacity];
+            allItems = new Object[capacity];
+            total = retired.copyTo(allKeys, allItems, 0);
+            for (Buffer b : buffers) {
+                if (total + k > capacity) break;      // a thread registered during the copy
+                total += b.copyTo(allKeys, allItems, total);
+            }
+        }
+
+        // the k largest keys are at the end, in ascending order
+        if (total > 1) KeySort.sort(allItems, allKeys, 0, total - 1, false);
+        int n = Math.min(k, total);
+        for (int i = 0; i < n; i++) {
+            keys[i] = allKeys[total - 1 - i];
+            items[i] = (Item) allItems[total - 1 - i];
+        }
+
+        // at least k kept keys are no smaller than the kth largest
+        if (n == k && keys[k-1] > floor) floor = keys[k-1];
+        return n;
+    }
+
+    // merge the heaps of terminated threads into the retired heap, and drop them
+    private void retire() {
+        for (Buffer b : buffers) {
+            if (b.isOwnerAlive()) continue;
+            b.drainTo(retired);
+            buffers.remove(b);
+        }
+    }
+
+    /**
+     * Returns the (at most {@code k}) items with the largest keys offered so
+     * far, in descending order of key.
+     *
+     * @return the items with the largest keys, in descending order of key
+     */
+    public Iterable<Item> top() {
+        double[] keys = new double[k];
+        Item[] items = (Item[]) new Object[k];
+        int n = snapshot(keys, items);
+        Queue<Item> queue = new Queue<Item>();
+        for (int i = 0; i < n; i++)
+            queue.enqueue(items[i]);
+        return queue;
+    }
+
+    // bounded min-oriented heap of one producer thread; only that thread
+    // modifies it, and snapshots read it, under its lock
+    private static class Buffer {
+        private final double[] keys;      // keys[1..n] is a heap
+        private final Object[] items;     // items[i] is the item of keys[i]
+        private final WeakReference<Thread> owner;    // null for the retired heap
+        private int n;
+
+        Buffer(int k, Thread owner) {
+            keys = new double[k+1];
+            items = new Object[k+1];
+            this.owner = (owner == null) ? null : new WeakReference<Thread>(owner);
+        }
+
+        // can the owner still offer keys?
+        boolean isOwnerAlive() {
+            Thread thread = owner.get();
+            return thread != null && thread.isAlive();
+        }
+
+        // offer every key to the given heap, whose lock the caller holds
+        synchronized void drainTo(Buffer to) {
+            for (int i = 1; i <= n; i++)
+                to.offer(keys[i], items[i]);
+        }
+
+        void offer(double key, Object item) {
+            // only this thread writes keys[] and n, so it may read them unlocked
+            if (n == keys.length - 1 && key <= keys[1]) return;
+            synchronized (this) {
+                if (n < keys.length - 1) {
+                    keys[++n] = key;
+                    items[n] = item;
+                    swim(n);
+                }
+                else {
+                    keys[1] = key;
+                    items[1] = item;
+                    sink(1);
+                }
+            }
+        }
+
+        // copy the keys and items to keys[from..] and items[from..]; return how many
+        synchronized int copyTo(double[] toKeys, Object[] toItems, int from) {
+            System.arraycopy(keys, 1, toKeys, from, n);
+            System.arraycopy(items, 1, toItems, from, n);
+            return n;
+        }
+
+        private void swim(int i) {
+            double key = keys[i];
+            Object item = items[i];
+            while (i > 1 && key < keys[i/2]) {
+                keys[i] = keys[i/2];
+                items[i] = items[i/2];
+                i /= 2;
+            }
+            keys[i] = key;
+            items[i] = item;
+        }
+
+        private void sink(int i) {
+            double key = keys[i];
+            Object item = items[i];
+            while (2*i <= n) {
+                int j = 2*i;
+                if (j < n && keys[j+1] < keys[j]) j++;
+                if (key <= keys[j]) break;
+                keys[i] = keys[j];
+                items[i] = items[j];
+                i = j;
+            }
+            keys[i] = key;
+            items[i] = item;
+        }
+    }
+
+
+    /**
+     * Reads a sequence of transactions from standard input; takes a
+     * command-line integer m and an optional number of producer threads
+     * (default 4), which offer the transactions concurrently; prints to
+     * standard output the m largest transactions in descending order.
+     *
+     * @param  args the command-line arguments
+     * @throws InterruptedException if interrupted while waiting for the producers
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int m = Integer.parseInt(args[0]);
+        int producers = (args.length > 1) ? Integer.parseInt(args[1]) : 4;
+        String[] lines = StdIn.readAllLines();
+        TopK<Transaction> top = new TopK<Transaction>(m);
+
+        Thread[] threads = new Thread[producers];
+        for (int t = 0; t < producers; t++) {
+            int first = t;
+            threads[t] = new Thread(() -> {
+                for (int i = first; i < lines.length; i += producers) {
+                    Transaction transaction = new Transaction(lines[i]);
+                    top.offer(transaction.amount(), transaction);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        for (Transaction transaction : top.top())
+            StdOut.println(transaction);
+    }
+}
@@ -3,6 +3,8 @@ package com.afcrowther.algorithms.week3;
 import java.util.Arrays;
 import java.util.LinkedList;
 
+import com.afcrowther.algorithms.library.KeySort;
+
 public class FastCollinearPoints {
 
   private LinkedList<LineSegment> lineSegments;
@@ -40,15 +42,21 @@ public class FastCollinearPoints {
     for (int i = 0; i < pointsSorted.length - 3; i++) {
       Point current = pointsSorted[i];
 
+      // compute each slope once, then stably sort by it, so points with equal slopes stay in
+      // natural order
       Point[] sortedBySlopeToCurrent = Arrays.copyOf(pointsSorted, pointsSorted.length);
-      Arrays.sort(sortedBySlopeToCurrent, current.slopeOrder());
+      double[] slopes = new double[sortedBySlopeToCurrent.length];
+      for (int j = 0; j < slopes.length; j++) {
+        slopes[j] = current.slopeTo(sortedBySlopeToCurrent[j]);
+      }
+      KeySort.sort(sortedBySlopeToCurrent, slopes, true);
 
       LinkedList<Point> segment = new LinkedList<Point>();
       segment.add(current);
       for (int j = 1; j < sortedBySlopeToCurrent.length - 1; j++) {
 
-        double slopeToCurrent = current.slopeTo(sortedBySlopeToCurrent[j]);
-        double slopeToNext = current.slopeTo(sortedBySlopeToCurrent[j + 1]);
+        double slopeToCurrent = slopes[j];
+        double slopeToNext = slopes[j + 1];
 
         // see if this and next have same slope to current reference point
         if (slopeToCurrent == slopeToNext) {